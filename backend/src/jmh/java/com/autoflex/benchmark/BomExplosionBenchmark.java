@@ -0,0 +1,86 @@
+package com.autoflex.benchmark;
+
+import com.autoflex.planner.BomExplosion;
+import com.autoflex.planner.BomSnapshot.BomLine;
+import com.autoflex.planner.BomSnapshot.ComponentLine;
+import com.autoflex.planner.BomSnapshot.ProductEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Explosion of multi-level BOMs: every product of a level uses a few products
+ * of the next level as sub-assemblies, and the last level only raw materials.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BomExplosionBenchmark {
+
+    @Param({"5000", "50000"})
+    int products;
+
+    @Param({"8"})
+    int levels;
+
+    private List<ProductEntry> catalogue;
+    private BomExplosion explosion;
+    private Set<Long> changedLeaf;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int perLevel = products / levels;
+        catalogue = new ArrayList<>(products);
+        for (int level = 0; level < levels; level++) {
+            for (int i = 0; i < perLevel; i++) {
+                long id = (long) level * perLevel + i + 1;
+                List<BomLine> lines = new ArrayList<>();
+                List<ComponentLine> components = new ArrayList<>();
+                if (level == levels - 1) {
+                    for (int l = 0; l < 3; l++) {
+                        lines.add(new BomLine(1L + random.nextInt(500), BigDecimal.valueOf(1 + random.nextInt(5_000), 3)));
+                    }
+                } else {
+                    for (int c = 0; c < 3; c++) {
+                        long componentId = (long) (level + 1) * perLevel + random.nextInt(perLevel) + 1;
+                        components.add(new ComponentLine(componentId, BigDecimal.valueOf(1 + random.nextInt(3_000), 3)));
+                    }
+                }
+                catalogue.add(new ProductEntry(id, "P" + id, "Product " + id,
+                    BigDecimal.valueOf(100 + random.nextInt(100_000), 2), lines, components));
+            }
+        }
+        explosion = BomExplosion.of(catalogue);
+        changedLeaf = Set.of((long) (levels - 1) * perLevel + 1);
+    }
+
+    @Benchmark
+    public BomExplosion explodeAll() {
+        return BomExplosion.of(catalogue);
+    }
+
+    @Benchmark
+    public BomExplosion explodeAfterLeafChange() {
+        return BomExplosion.of(catalogue, explosion, changedLeaf);
+    }
+}
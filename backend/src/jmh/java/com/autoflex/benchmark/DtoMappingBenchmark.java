@@ -0,0 +1,73 @@
+package com.autoflex.benchmark;
+
+import com.autoflex.dto.ProductDTO;
+import com.autoflex.dto.ProductRawMaterialDTO;
+import com.autoflex.entity.Product;
+import com.autoflex.entity.ProductRawMaterial;
+import com.autoflex.entity.RawMaterial;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Entity to DTO mapping as done by the list endpoints, on detached entities.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+
+    @Param({"100", "10000"})
+    int size;
+
+    private List<Product> products;
+    private List<ProductRawMaterial> associations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        products = new ArrayList<>(size);
+        associations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = new Product("P" + i, "Product " + i, BigDecimal.valueOf(1000 + i, 2));
+            product.id = (long) i;
+            RawMaterial rawMaterial = new RawMaterial("RM" + i, "Material " + i, BigDecimal.valueOf(500_000, 3));
+            rawMaterial.id = (long) i;
+            ProductRawMaterial association = new ProductRawMaterial(product, rawMaterial, BigDecimal.valueOf(2_500, 3));
+            association.id = (long) i;
+            products.add(product);
+            associations.add(association);
+        }
+    }
+
+    @Benchmark
+    public List<ProductDTO> productFromEntity() {
+        return products.stream()
+            .map(ProductDTO::fromEntity)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ProductRawMaterialDTO> productRawMaterialFromEntity() {
+        return associations.stream()
+            .map(ProductRawMaterialDTO::fromEntity)
+            .collect(Collectors.toList());
+    }
+}
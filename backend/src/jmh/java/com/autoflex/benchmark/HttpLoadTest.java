@@ -0,0 +1,232 @@
+package com.autoflex.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load test against a running API: every client sends a
+ * request, waits for the response and sends the next one, over a read-heavy
+ * mix of catalogue lookups, BOM lines and the production plan. Prints
+ * throughput, latency percentiles and status codes for the measurement window.
+ *
+ * Not a JMH benchmark; it only needs the JDK and runs with the source launcher:
+ * {@code java src/jmh/java/com/autoflex/benchmark/HttpLoadTest.java}. Settings
+ * are system properties: {@code autoflex.loadtest.url} (http://localhost:8080),
+ * {@code .clients} (2000), {@code .warmup} (10s), {@code .duration} (30s)
+ * and {@code .seed} (true: upsert a test catalogue with LT- codes first).
+ */
+public class HttpLoadTest {
+
+    private static final int SEED_RAW_MATERIALS = 200;
+    private static final int SEED_PRODUCTS = 1000;
+    private static final int SEED_LINES_PER_PRODUCT = 3;
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    private final URI base;
+    private final int clients;
+    private final Duration warmup;
+    private final Duration duration;
+    private final HttpClient http;
+    private long[] productIds;
+
+    private volatile boolean measuring;
+    private volatile boolean stopped;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final ConcurrentHashMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final List<long[]> latencies = new ArrayList<>();
+
+    HttpLoadTest(URI base, int clients, Duration warmup, Duration duration) {
+        this.base = base;
+        this.clients = clients;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        HttpLoadTest test = new HttpLoadTest(
+            URI.create(System.getProperty("autoflex.loadtest.url", "http://localhost:8080")),
+            Integer.getInteger("autoflex.loadtest.clients", 2000),
+            Duration.parse("PT" + System.getProperty("autoflex.loadtest.warmup", "10s")),
+            Duration.parse("PT" + System.getProperty("autoflex.loadtest.duration", "30s")));
+        if (Boolean.parseBoolean(System.getProperty("autoflex.loadtest.seed", "true"))) {
+            test.seed();
+        }
+        test.loadProductIds();
+        test.run();
+    }
+
+    void seed() throws IOException, InterruptedException {
+        StringBuilder rawMaterials = new StringBuilder("[");
+        for (int m = 0; m < SEED_RAW_MATERIALS; m++) {
+            rawMaterials.append(m == 0 ? "" : ",")
+                .append("{\"code\":\"LT-RM-").append(m).append("\",\"name\":\"Load test material ").append(m)
+                .append("\",\"stockQuantity\":").append(10_000 + m).append("}");
+        }
+        post("/api/raw-materials/bulk?mode=upsert", rawMaterials.append("]").toString());
+
+        StringBuilder products = new StringBuilder("[");
+        StringBuilder lines = new StringBuilder("[");
+        for (int p = 0; p < SEED_PRODUCTS; p++) {
+            products.append(p == 0 ? "" : ",")
+                .append("{\"code\":\"LT-P-").append(p).append("\",\"name\":\"Load test product ").append(p)
+                .append("\",\"value\":").append(10 + p % 90).append(".50}");
+            for (int l = 0; l < SEED_LINES_PER_PRODUCT; l++) {
+                lines.append(p == 0 && l == 0 ? "" : ",")
+                    .append("{\"productCode\":\"LT-P-").append(p)
+                    .append("\",\"rawMaterialCode\":\"LT-RM-").append((p * 7 + l * 31) % SEED_RAW_MATERIALS)
+                    .append("\",\"requiredQuantity\":").append(1 + l).append(".250}");
+            }
+        }
+        post("/api/products/bulk?mode=upsert", products.append("]").toString());
+        post("/api/product-raw-materials/bulk?mode=upsert", lines.append("]").toString());
+        System.out.println("Seeded " + SEED_PRODUCTS + " products and " + SEED_RAW_MATERIALS + " raw materials");
+    }
+
+    void loadProductIds() throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(
+            HttpRequest.newBuilder(base.resolve("/api/products")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = ID.matcher(response.body());
+        List<Long> ids = new ArrayList<>();
+        while (matcher.find()) {
+            ids.add(Long.parseLong(matcher.group(1)));
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("No products at " + base + "; run with -Dautoflex.loadtest.seed=true");
+        }
+        productIds = ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    void run() throws InterruptedException {
+        System.out.println("Load test: " + clients + " clients against " + base
+            + ", warmup " + warmup.toSeconds() + "s, measuring " + duration.toSeconds() + "s");
+        CountDownLatch done = new CountDownLatch(clients);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                long seed = c;
+                executor.submit(() -> {
+                    try {
+                        client(new SplittableRandom(seed));
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            Thread.sleep(warmup.toMillis());
+            requests.reset();
+            failures.reset();
+            statuses.clear();
+            measuring = true;
+            long start = System.nanoTime();
+            Thread.sleep(duration.toMillis());
+            measuring = false;
+            long elapsed = System.nanoTime() - start;
+            stopped = true;
+            done.await();
+            report(elapsed);
+        }
+    }
+
+    private void client(SplittableRandom random) {
+        long[] samples = new long[1024];
+        int count = 0;
+        while (!stopped) {
+            HttpRequest request = HttpRequest.newBuilder(base.resolve(nextPath(random)))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long latency = System.nanoTime() - start;
+            if (!measuring) {
+                continue;
+            }
+            requests.increment();
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            if (status != 200) {
+                failures.increment();
+            }
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = latency;
+        }
+        synchronized (latencies) {
+            latencies.add(Arrays.copyOf(samples, count));
+        }
+    }
+
+    /** 40% product by id, 30% raw material by code, 20% BOM lines of a product, 10% production plan. */
+    private String nextPath(SplittableRandom random) {
+        int pick = random.nextInt(10);
+        long productId = productIds[random.nextInt(productIds.length)];
+        if (pick < 4) {
+            return "/api/products/" + productId;
+        } else if (pick < 7) {
+            return "/api/raw-materials/code/LT-RM-" + random.nextInt(SEED_RAW_MATERIALS);
+        } else if (pick < 9) {
+            return "/api/product-raw-materials/product/" + productId;
+        }
+        return "/api/production/calculate";
+    }
+
+    private void report(long elapsedNanos) {
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("Requests: %d in %.1fs (%.0f req/s), non-200: %d%n",
+            requests.sum(), seconds, requests.sum() / seconds, failures.sum());
+        System.out.println("Status codes: " + new TreeMap<>(statuses));
+        if (all.length > 0) {
+            System.out.printf("Latency ms: p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                percentile(all, 50), percentile(all, 90), percentile(all, 99), percentile(all, 99.9),
+                all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private void post(String path, String json) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(
+            HttpRequest.newBuilder(base.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("POST " + path + " returned " + response.statusCode() + ": " + response.body());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.autoflex.benchmark;
+
+import com.autoflex.dto.ProductionCalculationDTO;
+import com.autoflex.planner.GreedyPlan;
+import com.autoflex.planner.ProductionEngine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of the production calculation response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    /** Catalogue size; the greedy plan produces roughly one product per raw material. */
+    @Param({"100", "10000"})
+    int products;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ProductionCalculationDTO calculation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProductionEngine engine = ProductionEngine.compile(
+            SyntheticCatalogue.snapshot(products, Math.max(10, products / 5), 3, 42));
+        calculation = GreedyPlan.of(engine).toCalculation();
+    }
+
+    @Benchmark
+    public byte[] productionCalculation() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(calculation);
+    }
+}
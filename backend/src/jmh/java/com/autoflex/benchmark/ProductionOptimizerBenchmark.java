@@ -0,0 +1,63 @@
+package com.autoflex.benchmark;
+
+import com.autoflex.planner.ProductionEngine;
+import com.autoflex.planner.ProductionOptimizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code strategy=optimal} and {@code optimal-integer} on a 5000 products x
+ * 2000 raw materials catalogue. With the production time budget (800 ms) the
+ * score is capped by the budget whenever the search does not finish; the
+ * setup prints whether each configuration is solved to optimality, so a
+ * capped score is not mistaken for a fast one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductionOptimizerBenchmark {
+
+    private static final int PRODUCTS = 5_000;
+    private static final int MATERIALS = 2_000;
+
+    /** Raw materials per product. */
+    @Param({"3", "10"})
+    int fanOut;
+
+    @Param({"false", "true"})
+    boolean wholeUnits;
+
+    @Param({"800", "60000"})
+    long timeBudgetMillis;
+
+    private ProductionEngine engine;
+    private Duration timeBudget;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = ProductionEngine.compile(SyntheticCatalogue.snapshot(PRODUCTS, MATERIALS, fanOut, 42));
+        timeBudget = Duration.ofMillis(timeBudgetMillis);
+        System.out.println("Proven optimal: " + ProductionOptimizer.optimize(engine, wholeUnits, timeBudget).optimal);
+    }
+
+    @Benchmark
+    public ProductionOptimizer.Result optimize() {
+        return ProductionOptimizer.optimize(engine, wholeUnits, timeBudget);
+    }
+}
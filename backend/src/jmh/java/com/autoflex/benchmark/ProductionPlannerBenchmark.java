@@ -0,0 +1,78 @@
+package com.autoflex.benchmark;
+
+import com.autoflex.dto.ProductionCalculationDTO;
+import com.autoflex.planner.BomSnapshot;
+import com.autoflex.planner.GreedyPlan;
+import com.autoflex.planner.ProductionEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The production calculation behind {@code GET /api/production/calculate},
+ * without the database: compiling a snapshot, the full greedy pass and the
+ * incremental update after a single stock change.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductionPlannerBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    int products;
+
+    /** Raw materials per product. */
+    @Param({"3", "10"})
+    int fanOut;
+
+    private BomSnapshot snapshot;
+    private ProductionEngine engine;
+    private GreedyPlan plan;
+    private Map<Long, BigDecimal> stockChange;
+    private ProductionEngine changedEngine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int materials = Math.max(10, products / 5);
+        snapshot = SyntheticCatalogue.snapshot(products, materials, fanOut, 42);
+        engine = ProductionEngine.compile(snapshot);
+        plan = GreedyPlan.of(engine);
+
+        long materialId = 1L + new Random(7).nextInt(materials);
+        stockChange = Map.of(materialId, snapshot.stock.get(materialId).add(BigDecimal.ONE));
+        changedEngine = engine.withStock(stockChange);
+    }
+
+    @Benchmark
+    public ProductionEngine compile() {
+        return ProductionEngine.compile(snapshot);
+    }
+
+    @Benchmark
+    public ProductionCalculationDTO calculate() {
+        return GreedyPlan.of(engine).toCalculation();
+    }
+
+    @Benchmark
+    public GreedyPlan replanAfterStockChange() {
+        return plan.replan(changedEngine, stockChange.keySet(), Set.of());
+    }
+}
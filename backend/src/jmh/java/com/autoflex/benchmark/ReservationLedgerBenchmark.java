@@ -0,0 +1,86 @@
+package com.autoflex.benchmark;
+
+import com.autoflex.service.ReservationLedger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Holding and releasing stock in the {@link ReservationLedger} behind
+ * {@code POST /api/reservations} and {@code DELETE /api/reservations/{id}},
+ * from 8 threads at once, each reservation holding {@code fanOut} of
+ * {@code materials} raw materials. Few materials means every reservation
+ * contends on the same counters.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ReservationLedgerBenchmark {
+
+    @Param({"10", "10000"})
+    int materials;
+
+    @Param({"3", "10"})
+    int fanOut;
+
+    private ReservationLedger ledger;
+    // Never the limit: every reservation fits
+    private final LongUnaryOperator stock = rawMaterialId -> Long.MAX_VALUE / 2;
+
+    @State(Scope.Thread)
+    public static class Reservations {
+        final SortedMap<Long, Long>[] amounts = newAmounts();
+        int next;
+
+        @SuppressWarnings("unchecked")
+        private static SortedMap<Long, Long>[] newAmounts() {
+            return new SortedMap[1024];
+        }
+
+        @Setup(Level.Trial)
+        public void setUp(ReservationLedgerBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+            for (int i = 0; i < amounts.length; i++) {
+                SortedMap<Long, Long> reservation = new TreeMap<>();
+                while (reservation.size() < Math.min(benchmark.fanOut, benchmark.materials)) {
+                    reservation.put(1L + random.nextInt(benchmark.materials), 1L + random.nextInt(5_000));
+                }
+                amounts[i] = reservation;
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ledger = new ReservationLedger();
+    }
+
+    @Benchmark
+    public List<Long> holdAndRelease(Reservations reservations) {
+        SortedMap<Long, Long> amounts = reservations.amounts[reservations.next++ & (reservations.amounts.length - 1)];
+        List<Long> insufficient = ledger.hold(amounts, stock);
+        ledger.release(amounts);
+        return insufficient;
+    }
+}
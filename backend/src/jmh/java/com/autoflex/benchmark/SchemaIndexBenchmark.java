@@ -0,0 +1,214 @@
+package com.autoflex.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The BOM and product queries behind the API, on the schema of migration V1
+ * (no secondary indexes) and V3 (indexes for those queries), with a large
+ * catalogue. The query plan of every query is printed during setup.
+ *
+ * Runs against an in-memory H2 database in PostgreSQL mode by default. To
+ * compare with a real PostgreSQL, pass {@code -Dautoflex.benchmark.jdbc-url},
+ * {@code -Dautoflex.benchmark.jdbc-user} and {@code -Dautoflex.benchmark.jdbc-password}
+ * through {@code -Djmh.args="-jvmArgsAppend ..."}; that database is wiped.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchemaIndexBenchmark {
+
+    private static final int LINES_PER_PRODUCT = 10;
+    private static final int INSERT_BATCH = 10_000;
+
+    private static final String BOM_BY_RAW_MATERIAL =
+        "SELECT prm.product_id, prm.requiredQuantity FROM product_raw_materials prm WHERE prm.raw_material_id = ?";
+    private static final String BOM_BY_PRODUCT =
+        "SELECT prm.raw_material_id, prm.requiredQuantity FROM product_raw_materials prm WHERE prm.product_id = ?";
+    private static final String LINE_EXISTS =
+        "SELECT COUNT(*) FROM product_raw_materials prm WHERE prm.product_id = ? AND prm.raw_material_id = ?";
+    private static final String PRODUCTS_IN_PLANNER_ORDER =
+        "SELECT p.id, p.code, p.name, p.product_value FROM products p ORDER BY p.product_value DESC, p.name ASC LIMIT 100 OFFSET ?";
+
+    /** Flyway target: 1 is the schema Hibernate generated, 3 adds the indexes. */
+    @Param({"1", "3"})
+    String schemaVersion;
+
+    @Param({"1000000"})
+    int associations;
+
+    private Connection connection;
+    private PreparedStatement bomByRawMaterial;
+    private PreparedStatement bomByProduct;
+    private PreparedStatement lineExists;
+    private PreparedStatement productsInPlannerOrder;
+    private int products;
+    private int rawMaterials;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = System.getProperty("autoflex.benchmark.jdbc-url",
+            "jdbc:h2:mem:schema-" + schemaVersion + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        String user = System.getProperty("autoflex.benchmark.jdbc-user", "sa");
+        String password = System.getProperty("autoflex.benchmark.jdbc-password", "");
+
+        Flyway flyway = Flyway.configure()
+            .dataSource(url, user, password)
+            .cleanDisabled(false)
+            .target(schemaVersion)
+            .load();
+        flyway.clean();
+        flyway.migrate();
+
+        connection = DriverManager.getConnection(url, user, password);
+        products = Math.max(1, associations / LINES_PER_PRODUCT);
+        rawMaterials = Math.max(LINES_PER_PRODUCT, products / 10);
+        populate();
+
+        bomByRawMaterial = connection.prepareStatement(BOM_BY_RAW_MATERIAL);
+        bomByProduct = connection.prepareStatement(BOM_BY_PRODUCT);
+        lineExists = connection.prepareStatement(LINE_EXISTS);
+        productsInPlannerOrder = connection.prepareStatement(PRODUCTS_IN_PLANNER_ORDER);
+
+        System.out.println();
+        System.out.println("Query plans on schema V" + schemaVersion + " (" + associations + " BOM lines):");
+        explain(BOM_BY_RAW_MATERIAL.replace("?", "1"));
+        explain(BOM_BY_PRODUCT.replace("?", "1"));
+        explain(LINE_EXISTS.replaceFirst("\\?", "1").replace("?", "1"));
+        explain(PRODUCTS_IN_PLANNER_ORDER.replace("?", "0"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public int bomByRawMaterial() throws SQLException {
+        bomByRawMaterial.setLong(1, 1 + random.nextInt(rawMaterials));
+        return count(bomByRawMaterial);
+    }
+
+    @Benchmark
+    public int bomByProduct() throws SQLException {
+        bomByProduct.setLong(1, 1 + random.nextInt(products));
+        return count(bomByProduct);
+    }
+
+    @Benchmark
+    public int lineExists() throws SQLException {
+        lineExists.setLong(1, 1 + random.nextInt(products));
+        lineExists.setLong(2, 1 + random.nextInt(rawMaterials));
+        return count(lineExists);
+    }
+
+    /** One of the first ten pages in planner order; a varying offset keeps H2 from reusing the last result. */
+    @Benchmark
+    public int productsInPlannerOrder() throws SQLException {
+        productsInPlannerOrder.setInt(1, 100 * random.nextInt(10));
+        return count(productsInPlannerOrder);
+    }
+
+    private void populate() throws SQLException {
+        connection.setAutoCommit(false);
+        SplittableRandom data = new SplittableRandom(7);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO raw_materials (id, code, name, stockQuantity) VALUES (?, ?, ?, ?)")) {
+            for (int m = 1; m <= rawMaterials; m++) {
+                insert.setLong(1, m);
+                insert.setString(2, "RM" + m);
+                insert.setString(3, "Material " + m);
+                insert.setBigDecimal(4, BigDecimal.valueOf(data.nextInt(10_000_000), 3));
+                addBatch(insert, m);
+            }
+            insert.executeBatch();
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO products (id, code, name, product_value) VALUES (?, ?, ?, ?)")) {
+            for (int p = 1; p <= products; p++) {
+                insert.setLong(1, p);
+                insert.setString(2, "P" + p);
+                insert.setString(3, "Product " + p);
+                insert.setBigDecimal(4, BigDecimal.valueOf(100 + data.nextInt(1_000_000), 2));
+                addBatch(insert, p);
+            }
+            insert.executeBatch();
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO product_raw_materials (id, product_id, raw_material_id, requiredQuantity) VALUES (?, ?, ?, ?)")) {
+            long id = 0;
+            int stride = rawMaterials / LINES_PER_PRODUCT;
+            for (int p = 1; p <= products; p++) {
+                // Distinct materials per product, as the V3 unique constraint requires
+                int first = data.nextInt(rawMaterials);
+                for (int l = 0; l < LINES_PER_PRODUCT; l++) {
+                    insert.setLong(1, ++id);
+                    insert.setLong(2, p);
+                    insert.setLong(3, 1 + (first + l * stride) % rawMaterials);
+                    insert.setBigDecimal(4, BigDecimal.valueOf(1 + data.nextInt(20_000), 3));
+                    addBatch(insert, id);
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private void addBatch(PreparedStatement insert, long row) throws SQLException {
+        insert.addBatch();
+        if (row % INSERT_BATCH == 0) {
+            insert.executeBatch();
+            connection.commit();
+        }
+    }
+
+    private void explain(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("EXPLAIN " + sql)) {
+            System.out.println("  " + sql);
+            while (plan.next()) {
+                System.out.println("    " + plan.getString(1).replace("\n", "\n    "));
+            }
+        }
+    }
+
+    private static int count(PreparedStatement query) throws SQLException {
+        int rows = 0;
+        try (ResultSet result = query.executeQuery()) {
+            while (result.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
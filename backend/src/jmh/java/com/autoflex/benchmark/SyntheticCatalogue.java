@@ -0,0 +1,53 @@
+package com.autoflex.benchmark;
+
+import com.autoflex.planner.BomSnapshot;
+import com.autoflex.planner.BomSnapshot.BomLine;
+import com.autoflex.planner.BomSnapshot.ProductEntry;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Reproducible random catalogues for the benchmarks, shaped like the ones the
+ * API produces: values and required quantities with the database scales, and
+ * products sorted in planner priority order.
+ */
+final class SyntheticCatalogue {
+
+    private SyntheticCatalogue() {
+    }
+
+    /**
+     * @param fanOut number of distinct raw materials per product (capped by {@code materials})
+     */
+    static BomSnapshot snapshot(int products, int materials, int fanOut, long seed) {
+        Random random = new Random(seed);
+        Map<Long, BigDecimal> stock = new HashMap<>();
+        for (long m = 1; m <= materials; m++) {
+            stock.put(m, BigDecimal.valueOf(1_000_000 + random.nextInt(100_000_000), 3));
+        }
+
+        List<ProductEntry> entries = new ArrayList<>(products);
+        int lines = Math.min(fanOut, materials);
+        for (long p = 1; p <= products; p++) {
+            Set<Long> used = new LinkedHashSet<>();
+            while (used.size() < lines) {
+                used.add(1L + random.nextInt(materials));
+            }
+            List<BomLine> bom = new ArrayList<>(lines);
+            for (Long materialId : used) {
+                bom.add(new BomLine(materialId, BigDecimal.valueOf(1 + random.nextInt(20_000), 3)));
+            }
+            entries.add(new ProductEntry(p, "P" + p, "Product " + p,
+                BigDecimal.valueOf(100 + random.nextInt(1_000_000), 2), bom));
+        }
+        entries.sort(BomSnapshot.PRIORITY);
+        return new BomSnapshot(entries, stock);
+    }
+}
@@ -0,0 +1,41 @@
+package com.autoflex.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+/**
+ * BOM line identified by product and raw material codes, as sent by bulk imports.
+ */
+public class BomLineDTO {
+
+    @NotBlank(message = "Product code is required")
+    public String productCode;
+
+    @NotBlank(message = "Raw material code is required")
+    public String rawMaterialCode;
+
+    @NotNull(message = "Required quantity is required")
+    @Positive(message = "Required quantity must be positive")
+    public BigDecimal requiredQuantity;
+
+    public BomLineDTO() {
+    }
+
+    public BomLineDTO(String productCode, String rawMaterialCode, BigDecimal requiredQuantity) {
+        this.productCode = productCode;
+        this.rawMaterialCode = rawMaterialCode;
+        this.requiredQuantity = requiredQuantity;
+    }
+
+    @Override
+    public String toString() {
+        return "BomLineDTO{" +
+                "productCode='" + productCode + '\'' +
+                ", rawMaterialCode='" + rawMaterialCode + '\'' +
+                ", requiredQuantity=" + requiredQuantity +
+                '}';
+    }
+}
@@ -0,0 +1,53 @@
+package com.autoflex.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk write: totals plus one entry per submitted item, in
+ * submission order.
+ */
+public class BulkResultDTO {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        FAILED
+    }
+
+    public int created;
+    public int updated;
+    public int failed;
+    public List<ItemResultDTO> items = new ArrayList<>();
+
+    public static class ItemResultDTO {
+        /** Zero-based position of the item in the request. */
+        public int index;
+        /** Natural key of the item (code, or product and raw material codes for BOM lines). */
+        public String key;
+        public Long id;
+        public Status status;
+        public String error;
+
+        @Override
+        public String toString() {
+            return "ItemResultDTO{" +
+                    "index=" + index +
+                    ", key='" + key + '\'' +
+                    ", id=" + id +
+                    ", status=" + status +
+                    ", error='" + error + '\'' +
+                    '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResultDTO{" +
+                "created=" + created +
+                ", updated=" + updated +
+                ", failed=" + failed +
+                ", items=" + items.size() +
+                '}';
+    }
+}
@@ -0,0 +1,123 @@
+package com.autoflex.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CacheStatsDTO {
+
+    public BomSnapshotStatsDTO bomSnapshot;
+    public ProductionPlanStatsDTO productionPlan;
+    public SecondLevelCacheStatsDTO secondLevel;
+
+    public CacheStatsDTO() {
+    }
+
+    public CacheStatsDTO(BomSnapshotStatsDTO bomSnapshot, ProductionPlanStatsDTO productionPlan,
+                         SecondLevelCacheStatsDTO secondLevel) {
+        this.bomSnapshot = bomSnapshot;
+        this.productionPlan = productionPlan;
+        this.secondLevel = secondLevel;
+    }
+
+    public static class BomSnapshotStatsDTO {
+        public long version;
+        public Long cachedVersion;
+        public long hits;
+        public long misses;
+        public long bypasses;
+        public long fullRebuilds;
+        public long incrementalRefreshes;
+        public long lastRebuildMillis;
+        public long totalRebuildMillis;
+
+        @Override
+        public String toString() {
+            return "BomSnapshotStatsDTO{" +
+                    "version=" + version +
+                    ", cachedVersion=" + cachedVersion +
+                    ", hits=" + hits +
+                    ", misses=" + misses +
+                    ", bypasses=" + bypasses +
+                    ", fullRebuilds=" + fullRebuilds +
+                    ", incrementalRefreshes=" + incrementalRefreshes +
+                    ", lastRebuildMillis=" + lastRebuildMillis +
+                    ", totalRebuildMillis=" + totalRebuildMillis +
+                    '}';
+        }
+    }
+
+    public static class ProductionPlanStatsDTO {
+        public Long cachedVersion;
+        public long hits;
+        public long misses;
+        public long incrementalUpdates;
+
+        @Override
+        public String toString() {
+            return "ProductionPlanStatsDTO{" +
+                    "cachedVersion=" + cachedVersion +
+                    ", hits=" + hits +
+                    ", misses=" + misses +
+                    ", incrementalUpdates=" + incrementalUpdates +
+                    '}';
+        }
+    }
+
+    /**
+     * Hibernate second-level cache: entity regions and query cache regions.
+     */
+    public static class SecondLevelCacheStatsDTO {
+        /** {@code false} if Hibernate statistics are disabled; all counters are then zero. */
+        public boolean statisticsEnabled;
+        public long hits;
+        public long misses;
+        public long puts;
+        public long queryHits;
+        public long queryMisses;
+        public long queryPuts;
+        public List<RegionStatsDTO> regions = new ArrayList<>();
+
+        @Override
+        public String toString() {
+            return "SecondLevelCacheStatsDTO{" +
+                    "statisticsEnabled=" + statisticsEnabled +
+                    ", hits=" + hits +
+                    ", misses=" + misses +
+                    ", puts=" + puts +
+                    ", queryHits=" + queryHits +
+                    ", queryMisses=" + queryMisses +
+                    ", queryPuts=" + queryPuts +
+                    ", regions=" + regions +
+                    '}';
+        }
+    }
+
+    public static class RegionStatsDTO {
+        public String name;
+        public long hits;
+        public long misses;
+        public long puts;
+        /** Entries held in memory; {@code -1} if the cache provider does not tell. */
+        public long entries;
+
+        @Override
+        public String toString() {
+            return "RegionStatsDTO{" +
+                    "name='" + name + '\'' +
+                    ", hits=" + hits +
+                    ", misses=" + misses +
+                    ", puts=" + puts +
+                    ", entries=" + entries +
+                    '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatsDTO{" +
+                "bomSnapshot=" + bomSnapshot +
+                ", productionPlan=" + productionPlan +
+                ", secondLevel=" + secondLevel +
+                '}';
+    }
+}
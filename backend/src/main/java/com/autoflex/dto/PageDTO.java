@@ -0,0 +1,45 @@
+package com.autoflex.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list. Pass {@code nextAfter} as the
+ * {@code after} parameter to get the next page; it is {@code null} on the last page.
+ */
+public class PageDTO<T> {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    public List<T> items;
+    public Long nextAfter;
+
+    public PageDTO() {
+    }
+
+    public PageDTO(List<T> items, Long nextAfter) {
+        this.items = items;
+        this.nextAfter = nextAfter;
+    }
+
+    /**
+     * Page from the result of a query that fetched up to {@code limit + 1} rows:
+     * the extra row only tells whether there is a next page.
+     */
+    public static <T> PageDTO<T> of(List<T> rows, int limit, Function<T, Long> id) {
+        if (rows.size() <= limit) {
+            return new PageDTO<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new PageDTO<>(items, id.apply(items.get(limit - 1)));
+    }
+
+    @Override
+    public String toString() {
+        return "PageDTO{" +
+                "items=" + items.size() +
+                ", nextAfter=" + nextAfter +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package com.autoflex.dto;
+
+import com.autoflex.entity.ProductComponent;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+public class ProductComponentDTO {
+
+    public Long id;
+
+    @NotNull(message = "Product ID is required")
+    public Long productId;
+
+    @NotNull(message = "Component ID is required")
+    public Long componentId;
+
+    @NotNull(message = "Required quantity is required")
+    @Positive(message = "Required quantity must be positive")
+    public BigDecimal requiredQuantity;
+
+    // Additional info for display
+    public String productName;
+    public String componentName;
+
+    public ProductComponentDTO() {
+    }
+
+    public ProductComponentDTO(Long id, Long productId, Long componentId, BigDecimal requiredQuantity) {
+        this.id = id;
+        this.productId = productId;
+        this.componentId = componentId;
+        this.requiredQuantity = requiredQuantity;
+    }
+
+    public static ProductComponentDTO fromEntity(ProductComponent pc) {
+        if (pc == null) {
+            return null;
+        }
+        ProductComponentDTO dto = new ProductComponentDTO(
+            pc.id,
+            pc.product != null ? pc.product.id : null,
+            pc.component != null ? pc.component.id : null,
+            pc.requiredQuantity
+        );
+        if (pc.product != null) {
+            dto.productName = pc.product.name;
+        }
+        if (pc.component != null) {
+            dto.componentName = pc.component.name;
+        }
+        return dto;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductComponentDTO{" +
+                "id=" + id +
+                ", productId=" + productId +
+                ", componentId=" + componentId +
+                ", requiredQuantity=" + requiredQuantity +
+                ", productName='" + productName + '\'' +
+                ", componentName='" + componentName + '\'' +
+                '}';
+    }
+}
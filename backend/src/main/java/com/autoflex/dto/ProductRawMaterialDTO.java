@@ -37,6 +37,13 @@ public class ProductRawMaterialDTO {
         this.requiredQuantity = requiredQuantity;
     }
 
+    public ProductRawMaterialDTO(Long id, Long productId, Long rawMaterialId, BigDecimal requiredQuantity,
+                                 String productName, String rawMaterialName) {
+        this(id, productId, rawMaterialId, requiredQuantity);
+        this.productName = productName;
+        this.rawMaterialName = rawMaterialName;
+    }
+
     public static ProductRawMaterialDTO fromEntity(ProductRawMaterial prm) {
         if (prm == null) {
             return null;
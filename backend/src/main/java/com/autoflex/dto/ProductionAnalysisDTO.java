@@ -0,0 +1,89 @@
+package com.autoflex.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where a production plan runs out of raw materials: the limiting raw material
+ * of every produced item, and per raw material what is left and what one
+ * more unit of it would be worth.
+ */
+public class ProductionAnalysisDTO {
+
+    public long version;
+    public String strategy;
+    public BigDecimal totalValue = BigDecimal.ZERO;
+    /** Same as {@link ProductionCalculationDTO#optimal}. */
+    public Boolean optimal;
+    /** {@code false} if the shadow prices could not be computed within the optimizer time budget. */
+    public boolean shadowPricesAvailable;
+    public List<ItemAnalysisDTO> items = new ArrayList<>();
+    /** Highest shadow price first. */
+    public List<RawMaterialAnalysisDTO> rawMaterials = new ArrayList<>();
+
+    public static class ItemAnalysisDTO {
+        public Long productId;
+        public String productCode;
+        public String productName;
+        public BigDecimal quantity;
+        /** Raw material with the least left per unit of the product once it was produced. */
+        public Long bottleneckRawMaterialId;
+
+        public ItemAnalysisDTO() {
+        }
+
+        public ItemAnalysisDTO(Long productId, String productCode, String productName, BigDecimal quantity,
+                               Long bottleneckRawMaterialId) {
+            this.productId = productId;
+            this.productCode = productCode;
+            this.productName = productName;
+            this.quantity = quantity;
+            this.bottleneckRawMaterialId = bottleneckRawMaterialId;
+        }
+
+        @Override
+        public String toString() {
+            return "ItemAnalysisDTO{" +
+                    "productId=" + productId +
+                    ", quantity=" + quantity +
+                    ", bottleneckRawMaterialId=" + bottleneckRawMaterialId +
+                    '}';
+        }
+    }
+
+    public static class RawMaterialAnalysisDTO {
+        public Long rawMaterialId;
+        public BigDecimal stockQuantity;
+        public BigDecimal consumedQuantity;
+        public BigDecimal leftoverQuantity;
+        /** Value one more unit would add to the best production mix; {@code null} if unavailable. */
+        public BigDecimal shadowPrice;
+        /** Products of the plan for which this raw material is the bottleneck. */
+        public List<Long> bottleneckOf = new ArrayList<>();
+
+        @Override
+        public String toString() {
+            return "RawMaterialAnalysisDTO{" +
+                    "rawMaterialId=" + rawMaterialId +
+                    ", stockQuantity=" + stockQuantity +
+                    ", consumedQuantity=" + consumedQuantity +
+                    ", leftoverQuantity=" + leftoverQuantity +
+                    ", shadowPrice=" + shadowPrice +
+                    ", bottleneckOf=" + bottleneckOf +
+                    '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProductionAnalysisDTO{" +
+                "version=" + version +
+                ", strategy='" + strategy + '\'' +
+                ", totalValue=" + totalValue +
+                ", optimal=" + optimal +
+                ", items=" + items.size() +
+                ", rawMaterials=" + rawMaterials.size() +
+                '}';
+    }
+}
@@ -8,6 +8,11 @@ public class ProductionCalculationDTO {
 
     public List<ProductionItemDTO> items = new ArrayList<>();
     public BigDecimal totalValue = BigDecimal.ZERO;
+    /**
+     * For the optimizing strategies, {@code false} if the optimizer time budget
+     * ran out and this is the best plan found so far. {@code null} for greedy.
+     */
+    public Boolean optimal;
 
     public ProductionCalculationDTO() {
     }
@@ -56,6 +61,7 @@ public class ProductionCalculationDTO {
         return "ProductionCalculationDTO{" +
                 "items=" + items +
                 ", totalValue=" + totalValue +
+                ", optimal=" + optimal +
                 '}';
     }
 }
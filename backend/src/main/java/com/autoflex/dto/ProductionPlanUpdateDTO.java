@@ -0,0 +1,49 @@
+package com.autoflex.dto;
+
+import com.autoflex.dto.ProductionCalculationDTO.ProductionItemDTO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Event of {@code GET /api/production/stream}. The first event of a
+ * subscription ({@code plan}) carries every item of the plan; the following
+ * ones ({@code update}) only the items that are new or changed since the
+ * previous event and the products that left the plan.
+ *
+ * Plan items are ordered by unit value descending, then by product name.
+ */
+public class ProductionPlanUpdateDTO {
+
+    /** Catalogue version the plan was computed from. */
+    public long version;
+    /** Reservation ledger version the plan was computed from. */
+    public long reservationVersion;
+    public String strategy;
+    public BigDecimal totalValue;
+    public List<ProductionItemDTO> items = new ArrayList<>();
+    public List<Long> removedProductIds = new ArrayList<>();
+
+    public ProductionPlanUpdateDTO() {
+    }
+
+    public ProductionPlanUpdateDTO(long version, long reservationVersion, String strategy, BigDecimal totalValue) {
+        this.version = version;
+        this.reservationVersion = reservationVersion;
+        this.strategy = strategy;
+        this.totalValue = totalValue;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductionPlanUpdateDTO{" +
+                "version=" + version +
+                ", reservationVersion=" + reservationVersion +
+                ", strategy='" + strategy + '\'' +
+                ", totalValue=" + totalValue +
+                ", items=" + items.size() +
+                ", removedProductIds=" + removedProductIds +
+                '}';
+    }
+}
@@ -0,0 +1,59 @@
+package com.autoflex.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Product quantities to produce. A {@link ProductionCalculationDTO} returned by
+ * the planner can be posted as is; only the product ids and quantities are read.
+ */
+public class ProductionRunDTO {
+
+    @NotEmpty(message = "Items are required")
+    public List<@Valid @NotNull(message = "Item must not be null") RunItemDTO> items = new ArrayList<>();
+
+    public ProductionRunDTO() {
+    }
+
+    public ProductionRunDTO(List<RunItemDTO> items) {
+        this.items = items;
+    }
+
+    public static class RunItemDTO {
+        @NotNull(message = "Product ID is required")
+        public Long productId;
+
+        @NotNull(message = "Quantity is required")
+        @Positive(message = "Quantity must be positive")
+        public BigDecimal quantity;
+
+        public RunItemDTO() {
+        }
+
+        public RunItemDTO(Long productId, BigDecimal quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+
+        @Override
+        public String toString() {
+            return "RunItemDTO{" +
+                    "productId=" + productId +
+                    ", quantity=" + quantity +
+                    '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProductionRunDTO{" +
+                "items=" + items +
+                '}';
+    }
+}
@@ -0,0 +1,46 @@
+package com.autoflex.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stock consumed by a committed production run, per raw material.
+ */
+public class ProductionRunResultDTO {
+
+    public List<ProductionRunDTO.RunItemDTO> items = new ArrayList<>();
+    public List<ConsumptionDTO> consumption = new ArrayList<>();
+
+    public static class ConsumptionDTO {
+        public Long rawMaterialId;
+        public BigDecimal consumed;
+        public BigDecimal remainingStock;
+
+        public ConsumptionDTO() {
+        }
+
+        public ConsumptionDTO(Long rawMaterialId, BigDecimal consumed, BigDecimal remainingStock) {
+            this.rawMaterialId = rawMaterialId;
+            this.consumed = consumed;
+            this.remainingStock = remainingStock;
+        }
+
+        @Override
+        public String toString() {
+            return "ConsumptionDTO{" +
+                    "rawMaterialId=" + rawMaterialId +
+                    ", consumed=" + consumed +
+                    ", remainingStock=" + remainingStock +
+                    '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProductionRunResultDTO{" +
+                "items=" + items +
+                ", consumption=" + consumption +
+                '}';
+    }
+}
@@ -0,0 +1,50 @@
+package com.autoflex.dto;
+
+import com.autoflex.dto.ProductionRunDTO.RunItemDTO;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stock held for a planned run until it is confirmed, released or expires.
+ */
+public class ReservationDTO {
+
+    public String id;
+    public List<RunItemDTO> items = new ArrayList<>();
+    public List<HoldDTO> holds = new ArrayList<>();
+    public Instant expiresAt;
+
+    public static class HoldDTO {
+        public Long rawMaterialId;
+        public BigDecimal quantity;
+
+        public HoldDTO() {
+        }
+
+        public HoldDTO(Long rawMaterialId, BigDecimal quantity) {
+            this.rawMaterialId = rawMaterialId;
+            this.quantity = quantity;
+        }
+
+        @Override
+        public String toString() {
+            return "HoldDTO{" +
+                    "rawMaterialId=" + rawMaterialId +
+                    ", quantity=" + quantity +
+                    '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationDTO{" +
+                "id='" + id + '\'' +
+                ", items=" + items +
+                ", holds=" + holds +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -0,0 +1,41 @@
+package com.autoflex.dto;
+
+import com.autoflex.dto.ProductionRunDTO.RunItemDTO;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Product quantities of a planned run whose raw materials should be held.
+ * Like a {@link ProductionRunDTO}, a plan returned by the planner can be
+ * posted as is.
+ */
+public class ReservationRequestDTO {
+
+    @NotEmpty(message = "Items are required")
+    public List<@Valid @NotNull(message = "Item must not be null") RunItemDTO> items = new ArrayList<>();
+
+    /** How long the stock is held unless confirmed or released; the configured default if null. */
+    @Positive(message = "TTL must be positive")
+    public Long ttlSeconds;
+
+    public ReservationRequestDTO() {
+    }
+
+    public ReservationRequestDTO(List<RunItemDTO> items, Long ttlSeconds) {
+        this.items = items;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationRequestDTO{" +
+                "items=" + items +
+                ", ttlSeconds=" + ttlSeconds +
+                '}';
+    }
+}
@@ -0,0 +1,63 @@
+package com.autoflex.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What-if scenarios for the production planner. Nothing is written; every
+ * scenario is planned against the current catalogue with its changes applied.
+ */
+public class SimulationRequestDTO {
+
+    @NotEmpty(message = "Scenarios are required")
+    public List<@Valid @NotNull(message = "Scenario must not be null") ScenarioDTO> scenarios = new ArrayList<>();
+
+    public SimulationRequestDTO() {
+    }
+
+    public SimulationRequestDTO(List<ScenarioDTO> scenarios) {
+        this.scenarios = scenarios;
+    }
+
+    public static class ScenarioDTO {
+        /** Free-form label echoed in the result. */
+        public String name;
+        /** Stock to assume, by raw material id. */
+        public Map<Long, BigDecimal> stock = new HashMap<>();
+        /** Amount to add to (or, if negative, take from) the stock, by raw material id. */
+        public Map<Long, BigDecimal> stockDelta = new HashMap<>();
+        /** Product value to assume, by product id. */
+        public Map<Long, BigDecimal> prices = new HashMap<>();
+
+        public ScenarioDTO() {
+        }
+
+        public ScenarioDTO(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return "ScenarioDTO{" +
+                    "name='" + name + '\'' +
+                    ", stock=" + stock +
+                    ", stockDelta=" + stockDelta +
+                    ", prices=" + prices +
+                    '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationRequestDTO{" +
+                "scenarios=" + scenarios.size() +
+                '}';
+    }
+}
@@ -0,0 +1,45 @@
+package com.autoflex.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One production plan per simulated scenario, in request order, all computed
+ * from the same catalogue version.
+ */
+public class SimulationResultDTO {
+
+    public long version;
+    public String strategy;
+    public List<ScenarioResultDTO> scenarios = new ArrayList<>();
+
+    public static class ScenarioResultDTO {
+        public String name;
+        public ProductionCalculationDTO result;
+
+        public ScenarioResultDTO() {
+        }
+
+        public ScenarioResultDTO(String name, ProductionCalculationDTO result) {
+            this.name = name;
+            this.result = result;
+        }
+
+        @Override
+        public String toString() {
+            return "ScenarioResultDTO{" +
+                    "name='" + name + '\'' +
+                    ", result=" + result +
+                    '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationResultDTO{" +
+                "version=" + version +
+                ", strategy='" + strategy + '\'' +
+                ", scenarios=" + scenarios.size() +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package com.autoflex.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of a stock count import: the counted stock of the raw material
+ * with the given code.
+ */
+public class StockCountDTO {
+
+    public String code;
+    public BigDecimal stockQuantity;
+
+    /** Line of the row in the request body, starting at 1. */
+    @JsonIgnore
+    public int line;
+
+    /** Why the row could not be parsed; set instead of failing the whole import. */
+    @JsonIgnore
+    public String error;
+
+    public StockCountDTO() {
+    }
+
+    public StockCountDTO(String code, BigDecimal stockQuantity) {
+        this.code = code;
+        this.stockQuantity = stockQuantity;
+    }
+
+    @Override
+    public String toString() {
+        return "StockCountDTO{" +
+                "code='" + code + '\'' +
+                ", stockQuantity=" + stockQuantity +
+                ", line=" + line +
+                '}';
+    }
+}
@@ -0,0 +1,63 @@
+package com.autoflex.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a stock count import: totals over all rows, plus the first
+ * {@link #MAX_ERRORS} failed rows.
+ */
+public class StockImportResultDTO {
+
+    public static final int MAX_ERRORS = 100;
+
+    public int rows;
+    /** Rows that changed the stock of a raw material. */
+    public int updated;
+    /** Rows whose count matched the stock already recorded; nothing was written for them. */
+    public int unchanged;
+    public int failed;
+    public List<RowErrorDTO> errors = new ArrayList<>();
+
+    public static class RowErrorDTO {
+        /** Line of the row in the request body, starting at 1. */
+        public int line;
+        public String code;
+        public String error;
+
+        public RowErrorDTO() {
+        }
+
+        public RowErrorDTO(int line, String code, String error) {
+            this.line = line;
+            this.code = code;
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            return "RowErrorDTO{" +
+                    "line=" + line +
+                    ", code='" + code + '\'' +
+                    ", error='" + error + '\'' +
+                    '}';
+        }
+    }
+
+    public void fail(int line, String code, String error) {
+        failed++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RowErrorDTO(line, code, error));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StockImportResultDTO{" +
+                "rows=" + rows +
+                ", updated=" + updated +
+                ", unchanged=" + unchanged +
+                ", failed=" + failed +
+                '}';
+    }
+}
@@ -0,0 +1,76 @@
+package com.autoflex.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Products affected by a set of raw materials, per raw material, taken from
+ * one catalogue version.
+ */
+public class WhereUsedDTO {
+
+    public long version;
+    public List<RawMaterialUsageDTO> rawMaterials = new ArrayList<>();
+
+    public static class RawMaterialUsageDTO {
+        public Long rawMaterialId;
+        /** Products using the raw material, highest value first. */
+        public List<ProductUsageDTO> products = new ArrayList<>();
+
+        public RawMaterialUsageDTO() {
+        }
+
+        public RawMaterialUsageDTO(Long rawMaterialId) {
+            this.rawMaterialId = rawMaterialId;
+        }
+
+        @Override
+        public String toString() {
+            return "RawMaterialUsageDTO{" +
+                    "rawMaterialId=" + rawMaterialId +
+                    ", products=" + products.size() +
+                    '}';
+        }
+    }
+
+    public static class ProductUsageDTO {
+        public Long productId;
+        public String productCode;
+        public String productName;
+        /** Per unit of the product, sub-assemblies included. */
+        public BigDecimal requiredQuantity;
+        /** {@code false} if the raw material is only used through sub-assemblies. */
+        public boolean direct;
+
+        public ProductUsageDTO() {
+        }
+
+        public ProductUsageDTO(Long productId, String productCode, String productName,
+                               BigDecimal requiredQuantity, boolean direct) {
+            this.productId = productId;
+            this.productCode = productCode;
+            this.productName = productName;
+            this.requiredQuantity = requiredQuantity;
+            this.direct = direct;
+        }
+
+        @Override
+        public String toString() {
+            return "ProductUsageDTO{" +
+                    "productId=" + productId +
+                    ", productCode='" + productCode + '\'' +
+                    ", requiredQuantity=" + requiredQuantity +
+                    ", direct=" + direct +
+                    '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WhereUsedDTO{" +
+                "version=" + version +
+                ", rawMaterials=" + rawMaterials.size() +
+                '}';
+    }
+}
@@ -0,0 +1,27 @@
+package com.autoflex.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public class WhereUsedRequestDTO {
+
+    @NotEmpty(message = "Raw material IDs are required")
+    public Set<@NotNull(message = "Raw material ID must not be null") Long> rawMaterialIds = new LinkedHashSet<>();
+
+    public WhereUsedRequestDTO() {
+    }
+
+    public WhereUsedRequestDTO(Set<Long> rawMaterialIds) {
+        this.rawMaterialIds = rawMaterialIds;
+    }
+
+    @Override
+    public String toString() {
+        return "WhereUsedRequestDTO{" +
+                "rawMaterialIds=" + rawMaterialIds.size() +
+                '}';
+    }
+}
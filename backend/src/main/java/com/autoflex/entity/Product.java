@@ -5,17 +5,24 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.hibernate.jpa.HibernateHints;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
 @Table(name = "products", uniqueConstraints = {
     @UniqueConstraint(columnNames = "code")
+}, indexes = {
+    @Index(name = "idx_products_value_name", columnList = "product_value DESC, name")
 })
 public class Product extends PanacheEntity {
 
+    /** Query cache region of {@link #findByCode}; invalidated by Hibernate on every write to the table. */
+    public static final String BY_CODE_CACHE_REGION = "product-by-code";
+
     @NotBlank(message = "Code is required")
     @Column(nullable = false, unique = true, length = 50)
     public String code;
@@ -32,6 +39,9 @@ public class Product extends PanacheEntity {
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     public List<ProductRawMaterial> rawMaterials = new ArrayList<>();
 
+    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    public List<ProductComponent> components = new ArrayList<>();
+
     public Product() {
     }
 
@@ -42,7 +52,10 @@ public class Product extends PanacheEntity {
     }
 
     public static Product findByCode(String code) {
-        return find("code", code).firstResult();
+        return find("code", code)
+            .withHint(HibernateHints.HINT_CACHEABLE, true)
+            .withHint(HibernateHints.HINT_CACHE_REGION, BY_CODE_CACHE_REGION)
+            .firstResult();
     }
 
     public static List<Product> findAllOrdered() {
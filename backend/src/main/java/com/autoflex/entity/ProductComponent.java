@@ -0,0 +1,63 @@
+package com.autoflex.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Sub-assembly line: making one unit of {@code product} takes
+ * {@code requiredQuantity} units of the {@code component} product.
+ */
+@Entity
+@Table(name = "product_components", indexes = {
+    @Index(name = "idx_product_components_product", columnList = "product_id"),
+    @Index(name = "idx_product_components_component", columnList = "component_id")
+})
+public class ProductComponent extends PanacheEntity {
+
+    @NotNull(message = "Product is required")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    public Product product;
+
+    @NotNull(message = "Component is required")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "component_id", nullable = false)
+    public Product component;
+
+    @NotNull(message = "Required quantity is required")
+    @Positive(message = "Required quantity must be positive")
+    @Column(nullable = false, precision = 10, scale = 3)
+    public BigDecimal requiredQuantity;
+
+    public ProductComponent() {
+    }
+
+    public ProductComponent(Product product, Product component, BigDecimal requiredQuantity) {
+        this.product = product;
+        this.component = component;
+        this.requiredQuantity = requiredQuantity;
+    }
+
+    public static List<ProductComponent> findByProductId(Long productId) {
+        return list("product.id", productId);
+    }
+
+    public static List<ProductComponent> findByComponentId(Long componentId) {
+        return list("component.id", componentId);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductComponent{" +
+                "id=" + id +
+                ", productId=" + (product != null ? product.id : null) +
+                ", componentId=" + (component != null ? component.id : null) +
+                ", requiredQuantity=" + requiredQuantity +
+                '}';
+    }
+}
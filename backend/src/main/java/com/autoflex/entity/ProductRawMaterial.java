@@ -9,7 +9,13 @@ import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
-@Table(name = "product_raw_materials")
+@Cacheable
+@Table(name = "product_raw_materials", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_product_raw_materials_product_raw_material",
+        columnNames = {"product_id", "raw_material_id"})
+}, indexes = {
+    @Index(name = "idx_product_raw_materials_raw_material_product", columnList = "raw_material_id, product_id")
+})
 public class ProductRawMaterial extends PanacheEntity {
 
     @NotNull(message = "Product is required")
@@ -5,16 +5,21 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
+import org.hibernate.jpa.HibernateHints;
 
 import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
+@Cacheable
 @Table(name = "raw_materials", uniqueConstraints = {
     @UniqueConstraint(columnNames = "code")
 })
 public class RawMaterial extends PanacheEntity {
 
+    /** Query cache region of {@link #findByCode}; invalidated by Hibernate on every write to the table. */
+    public static final String BY_CODE_CACHE_REGION = "raw-material-by-code";
+
     @NotBlank(message = "Code is required")
     @Column(nullable = false, unique = true, length = 50)
     public String code;
@@ -38,7 +43,10 @@ public class RawMaterial extends PanacheEntity {
     }
 
     public static RawMaterial findByCode(String code) {
-        return find("code", code).firstResult();
+        return find("code", code)
+            .withHint(HibernateHints.HINT_CACHEABLE, true)
+            .withHint(HibernateHints.HINT_CACHE_REGION, BY_CODE_CACHE_REGION)
+            .firstResult();
     }
 
     public static List<RawMaterial> findAllOrdered() {
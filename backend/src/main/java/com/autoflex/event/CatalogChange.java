@@ -0,0 +1,57 @@
+package com.autoflex.event;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * CDI event fired by the services whenever products, raw materials or
+ * BOM lines are written. {@link Scope#STOCK} changes only touch the stock of
+ * the listed raw materials, {@link Scope#RECIPE} changes only the BOM lines or
+ * components of the listed products; anything else is a {@link Scope#CATALOG} change.
+ */
+public class CatalogChange {
+
+    public enum Scope {
+        STOCK,
+        RECIPE,
+        CATALOG
+    }
+
+    public final Scope scope;
+    public final Set<Long> rawMaterialIds;
+    public final Set<Long> productIds;
+
+    private CatalogChange(Scope scope, Set<Long> rawMaterialIds, Set<Long> productIds) {
+        this.scope = scope;
+        this.rawMaterialIds = Collections.unmodifiableSet(rawMaterialIds);
+        this.productIds = Collections.unmodifiableSet(productIds);
+    }
+
+    public static CatalogChange catalog() {
+        return new CatalogChange(Scope.CATALOG, Set.of(), Set.of());
+    }
+
+    public static CatalogChange stock(Long rawMaterialId) {
+        return new CatalogChange(Scope.STOCK, Set.of(rawMaterialId), Set.of());
+    }
+
+    public static CatalogChange stock(Collection<Long> rawMaterialIds) {
+        return new CatalogChange(Scope.STOCK, new TreeSet<>(rawMaterialIds), Set.of());
+    }
+
+    public static CatalogChange recipe(Long... productIds) {
+        return new CatalogChange(Scope.RECIPE, Set.of(), new TreeSet<>(Arrays.asList(productIds)));
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogChange{" +
+                "scope=" + scope +
+                ", rawMaterialIds=" + rawMaterialIds +
+                ", productIds=" + productIds +
+                '}';
+    }
+}
@@ -0,0 +1,62 @@
+package com.autoflex.event;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+/**
+ * A committed write to a product, raw material, BOM line or product
+ * component, relayed from the outbox (see {@link com.autoflex.outbox.ChangeOutbox})
+ * to the configured sink and fired as a CDI event.
+ *
+ * Events are delivered at least once; {@link #id} identifies duplicates.
+ * Deleting a product deletes its BOM lines and components as well, without
+ * events of their own.
+ */
+public class ChangeEvent {
+
+    public enum Aggregate {
+        PRODUCT,
+        RAW_MATERIAL,
+        BOM_LINE,
+        PRODUCT_COMPONENT
+    }
+
+    public enum Operation {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    /** Position in the outbox; increases with the order the writes were appended. */
+    public long id;
+    public Aggregate aggregate;
+    public long aggregateId;
+    public Operation operation;
+    /** JSON object with the fields written, or null for deletes. */
+    @JsonRawValue
+    public String payload;
+    public Instant occurredAt;
+
+    public ChangeEvent() {
+    }
+
+    public ChangeEvent(Aggregate aggregate, long aggregateId, Operation operation, String payload) {
+        this.aggregate = aggregate;
+        this.aggregateId = aggregateId;
+        this.operation = operation;
+        this.payload = payload;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+                "id=" + id +
+                ", aggregate=" + aggregate +
+                ", aggregateId=" + aggregateId +
+                ", operation=" + operation +
+                ", payload=" + payload +
+                ", occurredAt=" + occurredAt +
+                '}';
+    }
+}
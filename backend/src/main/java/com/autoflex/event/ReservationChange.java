@@ -0,0 +1,29 @@
+package com.autoflex.event;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * CDI event fired whenever stock is held or released by a reservation
+ * (see {@link com.autoflex.service.ReservationLedger}). Unlike a
+ * {@link CatalogChange} it leaves the catalogue version as is: only the stock
+ * available to the planner changes.
+ */
+public class ReservationChange {
+
+    public final long ledgerVersion;
+    public final Set<Long> rawMaterialIds;
+
+    public ReservationChange(long ledgerVersion, Set<Long> rawMaterialIds) {
+        this.ledgerVersion = ledgerVersion;
+        this.rawMaterialIds = Collections.unmodifiableSet(rawMaterialIds);
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationChange{" +
+                "ledgerVersion=" + ledgerVersion +
+                ", rawMaterialIds=" + rawMaterialIds +
+                '}';
+    }
+}
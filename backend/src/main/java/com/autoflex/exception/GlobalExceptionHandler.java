@@ -3,6 +3,8 @@ package com.autoflex.exception;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
@@ -19,6 +21,10 @@ public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
 
     @Override
     public Response toResponse(Exception exception) {
+        if (exception instanceof ServiceUnavailableException) {
+            // Expected under overload; logged and counted by the limiter
+            return handleServiceUnavailableException((ServiceUnavailableException) exception);
+        }
         LOG.error("Exception caught", exception);
 
         if (exception instanceof NotFoundException) {
@@ -52,6 +58,18 @@ public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
         return Response.status(Response.Status.CONFLICT).entity(error).build();
     }
 
+    private Response handleServiceUnavailableException(ServiceUnavailableException exception) {
+        ErrorResponse error = new ErrorResponse(
+            Response.Status.SERVICE_UNAVAILABLE.getStatusCode(),
+            "Service unavailable",
+            exception.getMessage()
+        );
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, exception.getResponse().getHeaderString(HttpHeaders.RETRY_AFTER))
+            .entity(error)
+            .build();
+    }
+
     private Response handleIllegalArgumentException(IllegalArgumentException exception) {
         ErrorResponse error = new ErrorResponse(
             Response.Status.BAD_REQUEST.getStatusCode(),
@@ -0,0 +1,69 @@
+package com.autoflex.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Exports the Hibernate statistics as {@code hibernate.*} meters, bound once
+ * the application has started.
+ *
+ * Quarkus' own binding ({@code quarkus.hibernate-orm.metrics.enabled}) opens
+ * the session factory during runtime init, in no fixed order with the Flyway
+ * migration, and the schema validation then fails on a database that is not
+ * migrated yet. By startup the migration has run.
+ */
+@ApplicationScoped
+public class HibernateMetricsBinder {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    void onStart(@Observes StartupEvent event) {
+        Statistics statistics = sessionFactory.getStatistics();
+        counter(statistics, "hibernate.sessions.open", "Sessions opened", Statistics::getSessionOpenCount);
+        counter(statistics, "hibernate.sessions.closed", "Sessions closed", Statistics::getSessionCloseCount);
+        counter(statistics, "hibernate.transactions", "Transactions", Statistics::getTransactionCount);
+        counter(statistics, "hibernate.flushes", "Session flushes", Statistics::getFlushCount);
+        counter(statistics, "hibernate.connections.obtained", "JDBC connections obtained",
+            Statistics::getConnectCount);
+        counter(statistics, "hibernate.statements", "JDBC statements prepared", Statistics::getPrepareStatementCount,
+            "status", "prepared");
+        counter(statistics, "hibernate.statements", "JDBC statements closed", Statistics::getCloseStatementCount,
+            "status", "closed");
+        counter(statistics, "hibernate.query.executions", "Queries executed", Statistics::getQueryExecutionCount);
+        counter(statistics, "hibernate.entities.loads", "Entities loaded", Statistics::getEntityLoadCount);
+        counter(statistics, "hibernate.entities.inserts", "Entities inserted", Statistics::getEntityInsertCount);
+        counter(statistics, "hibernate.entities.updates", "Entities updated", Statistics::getEntityUpdateCount);
+        counter(statistics, "hibernate.entities.deletes", "Entities deleted", Statistics::getEntityDeleteCount);
+        counter(statistics, "hibernate.second.level.cache.requests", "Second-level cache hits",
+            Statistics::getSecondLevelCacheHitCount, "result", "hit");
+        counter(statistics, "hibernate.second.level.cache.requests", "Second-level cache misses",
+            Statistics::getSecondLevelCacheMissCount, "result", "miss");
+        counter(statistics, "hibernate.second.level.cache.puts", "Second-level cache puts",
+            Statistics::getSecondLevelCachePutCount);
+        counter(statistics, "hibernate.query.cache.requests", "Query cache hits",
+            Statistics::getQueryCacheHitCount, "result", "hit");
+        counter(statistics, "hibernate.query.cache.requests", "Query cache misses",
+            Statistics::getQueryCacheMissCount, "result", "miss");
+    }
+
+    private void counter(Statistics statistics, String name, String description,
+                         ToLongFunction<Statistics> count, String... tags) {
+        FunctionCounter.builder(name, statistics, s -> count.applyAsLong(s))
+            .description(description)
+            .tags(tags)
+            .tag("entityManagerFactory", "<default>")
+            .register(registry);
+    }
+}
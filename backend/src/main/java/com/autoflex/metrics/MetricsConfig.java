@@ -0,0 +1,41 @@
+package com.autoflex.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import java.time.Duration;
+
+/**
+ * Histogram buckets for the HTTP server timers and the application's own
+ * meters, so latency percentiles can be aggregated across instances in
+ * Prometheus.
+ */
+@Singleton
+public class MetricsConfig {
+
+    @Produces
+    @Singleton
+    public MeterFilter histograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                String name = id.getName();
+                if (!name.startsWith("http.server.requests") && !name.startsWith("autoflex.")) {
+                    return config;
+                }
+                DistributionStatisticConfig.Builder histogram = DistributionStatisticConfig.builder()
+                    .percentilesHistogram(true);
+                if (id.getType() == Meter.Type.TIMER) {
+                    histogram.minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                        .maximumExpectedValue((double) Duration.ofSeconds(30).toNanos());
+                } else {
+                    histogram.minimumExpectedValue(1.0).maximumExpectedValue(10_000.0);
+                }
+                return histogram.build().merge(config);
+            }
+        };
+    }
+}
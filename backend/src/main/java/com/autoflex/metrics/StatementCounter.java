@@ -0,0 +1,78 @@
+package com.autoflex.metrics;
+
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between
+ * {@link #begin()} and {@link #end(AtomicInteger)}. Each request runs on its
+ * own virtual thread, so this is the statement count of one request; work it
+ * hands to other threads is included if wrapped with {@link #propagate}.
+ */
+@PersistenceUnitExtension
+@ApplicationScoped
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<AtomicInteger> COUNT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        AtomicInteger count = COUNT.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        return sql;
+    }
+
+    /**
+     * Start counting on this thread.
+     *
+     * @return the enclosing count, to hand back to {@link #end(AtomicInteger)}
+     */
+    public static AtomicInteger begin() {
+        AtomicInteger enclosing = COUNT.get();
+        COUNT.set(new AtomicInteger());
+        return enclosing;
+    }
+
+    /**
+     * Stop counting and restore the enclosing count, which includes the
+     * statements counted since {@link #begin()}.
+     *
+     * @return statements prepared since the matching {@link #begin()}
+     */
+    public static int end(AtomicInteger enclosing) {
+        int counted = COUNT.get().get();
+        if (enclosing != null) {
+            enclosing.addAndGet(counted);
+            COUNT.set(enclosing);
+        } else {
+            COUNT.remove();
+        }
+        return counted;
+    }
+
+    /**
+     * {@code task} counting its statements towards the current thread's
+     * count, on whichever thread it runs.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        AtomicInteger count = COUNT.get();
+        if (count == null) {
+            return task;
+        }
+        return () -> {
+            AtomicInteger previous = COUNT.get();
+            COUNT.set(count);
+            try {
+                return task.call();
+            } finally {
+                COUNT.set(previous);
+            }
+        };
+    }
+}
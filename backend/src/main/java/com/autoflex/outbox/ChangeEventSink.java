@@ -0,0 +1,20 @@
+package com.autoflex.outbox;
+
+import com.autoflex.event.ChangeEvent;
+
+import java.util.List;
+
+/**
+ * Destination of the events relayed from the outbox, chosen by name with
+ * {@code autoflex.outbox.sink}: {@code log}, {@code file} or {@code memory}.
+ * Implementations are {@code @Named} beans; another transport (a message
+ * broker client) plugs in the same way.
+ */
+public interface ChangeEventSink {
+
+    /**
+     * Publish a batch of events, in order. The batch is marked as published
+     * only if this returns normally; otherwise it is retried later, in full.
+     */
+    void publish(List<ChangeEvent> events) throws Exception;
+}
@@ -0,0 +1,127 @@
+package com.autoflex.outbox;
+
+import com.autoflex.event.ChangeEvent;
+import com.autoflex.event.ChangeEvent.Aggregate;
+import com.autoflex.event.ChangeEvent.Operation;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.quarkus.hibernate.orm.panache.Panache;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.transaction.Transactional;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Appends {@link ChangeEvent}s to the {@code outbox_events} table in the
+ * transaction of the write they describe, so an event exists if and only if
+ * the write committed. {@link ChangeOutboxRelay} publishes them afterwards.
+ */
+@ApplicationScoped
+public class ChangeOutbox {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO outbox_events (aggregate, aggregate_id, operation, payload, occurred_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String APPENDED_KEY = ChangeOutbox.class.getName() + ".appended";
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    private ObjectWriter payloadWriter;
+    /** Set once an append commits, so the relay can skip polling an idle outbox; rows may be left from before a restart. */
+    private final AtomicBoolean appended = new AtomicBoolean(true);
+
+    @PostConstruct
+    void init() {
+        // Compact payloads: display-only fields of the DTOs are left out when unset
+        payloadWriter = objectMapper.copy()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .writer();
+    }
+
+    /**
+     * Event for a write, with {@code state} (a DTO or a map of the fields
+     * written) as its payload; null for deletes.
+     */
+    public ChangeEvent event(Aggregate aggregate, Operation operation, Long aggregateId, Object state) {
+        String payload;
+        try {
+            payload = state != null ? payloadWriter.writeValueAsString(state) : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the change of " + aggregate + " " + aggregateId, e);
+        }
+        return new ChangeEvent(aggregate, aggregateId, operation, payload);
+    }
+
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void append(Aggregate aggregate, Operation operation, Long aggregateId, Object state) {
+        append(List.of(event(aggregate, operation, aggregateId, state)));
+    }
+
+    /**
+     * Append the events as one JDBC batch, on the connection of the current transaction.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void append(Collection<ChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        Panache.getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (ChangeEvent event : events) {
+                    statement.setString(1, event.aggregate.name());
+                    statement.setLong(2, event.aggregateId);
+                    statement.setString(3, event.operation.name());
+                    statement.setString(4, event.payload);
+                    statement.setTimestamp(5, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+        if (transactionRegistry.getResource(APPENDED_KEY) == null) {
+            transactionRegistry.putResource(APPENDED_KEY, Boolean.TRUE);
+            // Not before the commit: a relay run in between would clear the flag without seeing the rows
+            transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == Status.STATUS_COMMITTED) {
+                        appended.set(true);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Whether an append committed since the last call, or since startup.
+     */
+    boolean takeAppended() {
+        return appended.getAndSet(false);
+    }
+
+    /** Have the next {@link #takeAppended()} return true, e.g. to retry a failed relay. */
+    void markAppended() {
+        appended.set(true);
+    }
+}
@@ -0,0 +1,201 @@
+package com.autoflex.outbox;
+
+import com.autoflex.event.CatalogChange;
+import com.autoflex.event.ChangeEvent;
+import com.autoflex.event.ChangeEvent.Aggregate;
+import com.autoflex.event.ChangeEvent.Operation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.literal.NamedLiteral;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.jboss.logging.Logger;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes the events of the outbox: every {@code autoflex.outbox.relay.interval},
+ * and right after each committed catalogue write, it reads the pending events
+ * in id order, in batches of {@code batch-size}, hands each batch to the
+ * configured {@link ChangeEventSink} and deletes it from the outbox in the
+ * same transaction. Each event is then fired as a CDI {@link ChangeEvent} for
+ * in-process observers.
+ *
+ * A batch the sink rejects stays in the outbox and is retried on the next
+ * run, so delivery is at least once. Scheduled runs with no append committed
+ * since the last one skip the database. Only one relay may run per database.
+ */
+@Startup
+@ApplicationScoped
+public class ChangeOutboxRelay {
+
+    private static final Logger LOG = Logger.getLogger(ChangeOutboxRelay.class);
+
+    private static final String PENDING_SQL =
+        "SELECT id, aggregate, aggregate_id, operation, payload, occurred_at FROM outbox_events ORDER BY id";
+    private static final String DELETE_SQL = "DELETE FROM outbox_events WHERE id = ?";
+
+    @ConfigProperty(name = "autoflex.outbox.sink", defaultValue = "log")
+    String sinkName;
+
+    @ConfigProperty(name = "autoflex.outbox.relay.interval", defaultValue = "1s")
+    Duration interval;
+
+    @ConfigProperty(name = "autoflex.outbox.relay.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @Inject
+    @Any
+    Instance<ChangeEventSink> sinks;
+
+    @Inject
+    ChangeOutbox outbox;
+
+    @Inject
+    Event<ChangeEvent> changeEvents;
+
+    @Inject
+    MeterRegistry registry;
+
+    private ChangeEventSink sink;
+    private ScheduledExecutorService scheduler;
+    private final AtomicBoolean nudged = new AtomicBoolean();
+    private Counter published;
+    private Counter failures;
+
+    @PostConstruct
+    void start() {
+        Instance<ChangeEventSink> selected = sinks.select(NamedLiteral.of(sinkName));
+        if (!selected.isResolvable()) {
+            throw new IllegalArgumentException("Invalid autoflex.outbox.sink: " + sinkName
+                + " (expected log, file or memory)");
+        }
+        sink = selected.get();
+        published = Counter.builder("autoflex.outbox.published")
+            .description("Outbox events handed to the sink")
+            .tag("sink", sinkName)
+            .register(registry);
+        failures = Counter.builder("autoflex.outbox.relay.failures")
+            .description("Outbox batches that could not be published and are retried")
+            .tag("sink", sinkName)
+            .register(registry);
+        // One thread, so batches leave in order
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::relay, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        LOG.info("Outbox relay started, publishing to the " + sinkName + " sink every " + interval);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    void onCommittedChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChange change) {
+        // A run queued but not started yet covers this write as well
+        if (nudged.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                nudged.set(false);
+                relay(true);
+            });
+        }
+    }
+
+    private void relay() {
+        relay(false);
+    }
+
+    /**
+     * Publish the pending events; unless {@code force}, only if an append
+     * committed since the last run. The write behind a nudge has committed,
+     * but its append may not have flagged the outbox yet.
+     */
+    private void relay(boolean force) {
+        // Cleared before reading, so appends committed after the read are relayed by the next run
+        if (!outbox.takeAppended() && !force) {
+            return;
+        }
+        try {
+            List<ChangeEvent> batch;
+            do {
+                batch = QuarkusTransaction.requiringNew().call(this::publishBatch);
+                published.increment(batch.size());
+                batch.forEach(this::fire);
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            outbox.markAppended();
+            failures.increment();
+            LOG.warn("Outbox relay to the " + sinkName + " sink failed, retrying in " + interval + ": " + e);
+        }
+    }
+
+    private List<ChangeEvent> publishBatch() throws Exception {
+        List<ChangeEvent> batch = new ArrayList<>();
+        session().doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(PENDING_SQL)) {
+                statement.setMaxRows(batchSize);
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        ChangeEvent event = new ChangeEvent(Aggregate.valueOf(rows.getString(2)), rows.getLong(3),
+                            Operation.valueOf(rows.getString(4)), rows.getString(5));
+                        event.id = rows.getLong(1);
+                        event.occurredAt = rows.getTimestamp(6).toInstant();
+                        batch.add(event);
+                    }
+                }
+            }
+        });
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        sink.publish(batch);
+
+        session().doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
+                for (ChangeEvent event : batch) {
+                    statement.setLong(1, event.id);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+        LOG.debug("Outbox relay published " + batch.size() + " events up to id " + batch.get(batch.size() - 1).id);
+        return batch;
+    }
+
+    /** The event is already published; a failing observer must not hold up the others. */
+    private void fire(ChangeEvent event) {
+        try {
+            changeEvents.fire(event);
+        } catch (RuntimeException e) {
+            LOG.warn("Observer of " + event + " failed: " + e);
+        }
+    }
+
+    private static Session session() {
+        return Panache.getEntityManager().unwrap(Session.class);
+    }
+}
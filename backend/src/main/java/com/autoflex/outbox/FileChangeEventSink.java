@@ -0,0 +1,47 @@
+package com.autoflex.outbox;
+
+import com.autoflex.event.ChangeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Appends each event as one JSON line to {@code autoflex.outbox.file.path},
+ * synced to disk before the batch counts as published.
+ */
+@ApplicationScoped
+@Named("file")
+public class FileChangeEventSink implements ChangeEventSink {
+
+    @ConfigProperty(name = "autoflex.outbox.file.path", defaultValue = "outbox/changes.ndjson")
+    Path path;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Override
+    public synchronized void publish(List<ChangeEvent> events) throws Exception {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileOutputStream file = new FileOutputStream(path.toFile(), true)) {
+            OutputStream output = new BufferedOutputStream(file);
+            for (ChangeEvent event : events) {
+                output.write(objectMapper.writeValueAsBytes(event));
+                output.write('\n');
+            }
+            output.flush();
+            file.getFD().sync();
+        }
+    }
+}
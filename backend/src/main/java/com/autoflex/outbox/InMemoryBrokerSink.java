@@ -0,0 +1,63 @@
+package com.autoflex.outbox;
+
+import com.autoflex.event.ChangeEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Named;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Local stand-in for a message broker: a single topic kept in memory, where
+ * every event gets the next offset and consumers read from the offset they
+ * are at, like a partition of a log-based broker. Only the last
+ * {@code autoflex.outbox.memory.capacity} events are retained.
+ */
+@ApplicationScoped
+@Named("memory")
+public class InMemoryBrokerSink implements ChangeEventSink {
+
+    @ConfigProperty(name = "autoflex.outbox.memory.capacity", defaultValue = "10000")
+    int capacity;
+
+    private final Deque<ChangeEvent> retained = new ArrayDeque<>();
+    /** Offset of the first retained event. */
+    private long firstOffset;
+
+    @Override
+    public synchronized void publish(List<ChangeEvent> events) {
+        for (ChangeEvent event : events) {
+            retained.addLast(event);
+            if (retained.size() > capacity) {
+                retained.removeFirst();
+                firstOffset++;
+            }
+        }
+    }
+
+    /**
+     * Up to {@code max} events from {@code offset} on; events before the
+     * first retained one are skipped.
+     */
+    public synchronized List<ChangeEvent> read(long offset, int max) {
+        List<ChangeEvent> events = new ArrayList<>(Math.min(max, retained.size()));
+        long position = firstOffset;
+        for (ChangeEvent event : retained) {
+            if (events.size() == max) {
+                break;
+            }
+            if (position++ >= offset) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /** Offset the next published event will get. */
+    public synchronized long endOffset() {
+        return firstOffset + retained.size();
+    }
+}
@@ -0,0 +1,30 @@
+package com.autoflex.outbox;
+
+import com.autoflex.event.ChangeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+
+/**
+ * Writes each event as one JSON line to the {@code com.autoflex.outbox.changes} log category.
+ */
+@ApplicationScoped
+@Named("log")
+public class LogChangeEventSink implements ChangeEventSink {
+
+    private static final Logger CHANGES = Logger.getLogger("com.autoflex.outbox.changes");
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Override
+    public void publish(List<ChangeEvent> events) throws Exception {
+        for (ChangeEvent event : events) {
+            CHANGES.info(objectMapper.writeValueAsString(event));
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.autoflex.planner;
+
+import com.autoflex.planner.BomSnapshot.BomLine;
+import com.autoflex.planner.BomSnapshot.ComponentLine;
+import com.autoflex.planner.BomSnapshot.ProductEntry;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bills of materials with sub-assemblies resolved into raw material requirements.
+ *
+ * Products are visited in topological order (components before the products
+ * using them), so the requirement vector of each product is computed once,
+ * from its own lines and the vectors of its components, however deep the tree.
+ * Vectors are kept exact; the lines handed to the planner round the
+ * requirements of products with components up to
+ * {@link ProductionEngine#QUANTITY_SCALE}, so a plan never needs more stock
+ * than it was planned against. Products without components keep their lines
+ * unchanged.
+ *
+ * An explosion can be derived from the previous one after some products
+ * changed: only those products and the products using them, directly or
+ * through other sub-assemblies, are exploded again.
+ */
+public final class BomExplosion {
+
+    private static final int VISITING = 1;
+    private static final int VISITED = 2;
+
+    private final Map<Long, Map<Long, BigDecimal>> vectors;
+    private final Map<Long, List<BomLine>> lines;
+    private final Set<Long> rebuiltProductIds;
+    private final int lineCount;
+
+    private BomExplosion(Map<Long, Map<Long, BigDecimal>> vectors, Map<Long, List<BomLine>> lines,
+                         Set<Long> rebuiltProductIds, int lineCount) {
+        this.vectors = vectors;
+        this.lines = lines;
+        this.rebuiltProductIds = Collections.unmodifiableSet(rebuiltProductIds);
+        this.lineCount = lineCount;
+    }
+
+    public static BomExplosion of(List<ProductEntry> products) {
+        return of(products, null, Set.of());
+    }
+
+    /**
+     * Explode {@code products}, reusing the vectors of {@code previous} for
+     * products that are not in {@code changedProductIds} and use no changed
+     * product. Products absent from {@code previous} are always exploded.
+     *
+     * @throws IllegalStateException if the components contain a cycle
+     */
+    public static BomExplosion of(List<ProductEntry> products, BomExplosion previous, Set<Long> changedProductIds) {
+        Map<Long, Map<Long, BigDecimal>> vectors = new HashMap<>();
+        Map<Long, List<BomLine>> lines = new HashMap<>();
+        Set<Long> rebuilt = new HashSet<>();
+        int lineCount = 0;
+        for (ProductEntry product : topologicalOrder(products)) {
+            boolean stale = previous == null
+                || changedProductIds.contains(product.id)
+                || !previous.vectors.containsKey(product.id);
+            for (int c = 0; !stale && c < product.components.size(); c++) {
+                stale = rebuilt.contains(product.components.get(c).productId);
+            }
+
+            List<BomLine> productLines;
+            if (stale) {
+                Map<Long, BigDecimal> vector = explode(product, vectors);
+                productLines = product.components.isEmpty() ? product.lines : toLines(vector);
+                vectors.put(product.id, vector);
+                rebuilt.add(product.id);
+            } else {
+                vectors.put(product.id, previous.vectors.get(product.id));
+                productLines = previous.lines.get(product.id);
+            }
+            lines.put(product.id, productLines);
+            lineCount += productLines.size();
+        }
+        return new BomExplosion(vectors, lines, rebuilt, lineCount);
+    }
+
+    /**
+     * Raw material lines of one unit of the product, sub-assemblies included;
+     * empty for unknown products.
+     */
+    public List<BomLine> lines(Long productId) {
+        return lines.getOrDefault(productId, List.of());
+    }
+
+    /**
+     * Exact raw material requirements of one unit of the product, by raw
+     * material id; empty for unknown products.
+     */
+    public Map<Long, BigDecimal> requirements(Long productId) {
+        Map<Long, BigDecimal> vector = vectors.get(productId);
+        return vector != null ? Collections.unmodifiableMap(vector) : Map.of();
+    }
+
+    public boolean contains(Long productId) {
+        return lines.containsKey(productId);
+    }
+
+    /**
+     * Products exploded by this instance rather than taken over from the
+     * previous explosion; every product if there was none.
+     */
+    public Set<Long> rebuiltProductIds() {
+        return rebuiltProductIds;
+    }
+
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Products ordered so that every product comes after its components.
+     * Components that are not among {@code products} are ignored.
+     */
+    static List<ProductEntry> topologicalOrder(List<ProductEntry> products) {
+        Map<Long, ProductEntry> byId = new HashMap<>();
+        for (ProductEntry product : products) {
+            byId.put(product.id, product);
+        }
+
+        // Iterative depth-first search; sub-assembly chains can be deeper than the call stack
+        Map<Long, Integer> state = new HashMap<>();
+        List<ProductEntry> order = new ArrayList<>(products.size());
+        ArrayDeque<ProductEntry> path = new ArrayDeque<>();
+        ArrayDeque<Integer> nextComponent = new ArrayDeque<>();
+        for (ProductEntry root : products) {
+            if (state.containsKey(root.id)) {
+                continue;
+            }
+            state.put(root.id, VISITING);
+            path.push(root);
+            nextComponent.push(0);
+            while (!path.isEmpty()) {
+                ProductEntry product = path.peek();
+                int c = nextComponent.pop();
+                if (c == product.components.size()) {
+                    path.pop();
+                    state.put(product.id, VISITED);
+                    order.add(product);
+                    continue;
+                }
+                nextComponent.push(c + 1);
+                ProductEntry component = byId.get(product.components.get(c).productId);
+                if (component == null) {
+                    continue;
+                }
+                Integer componentState = state.get(component.id);
+                if (componentState == null) {
+                    state.put(component.id, VISITING);
+                    path.push(component);
+                    nextComponent.push(0);
+                } else if (componentState == VISITING) {
+                    throw new IllegalStateException("Product components form a cycle through product " + component.id);
+                }
+            }
+        }
+        return order;
+    }
+
+    private static Map<Long, BigDecimal> explode(ProductEntry product, Map<Long, Map<Long, BigDecimal>> vectors) {
+        Map<Long, BigDecimal> vector = new LinkedHashMap<>();
+        for (BomLine line : product.lines) {
+            vector.merge(line.rawMaterialId, line.requiredQuantity, BigDecimal::add);
+        }
+        for (ComponentLine component : product.components) {
+            Map<Long, BigDecimal> componentVector = vectors.get(component.productId);
+            if (componentVector == null) {
+                continue;
+            }
+            componentVector.forEach((rawMaterialId, quantity) ->
+                vector.merge(rawMaterialId, quantity.multiply(component.requiredQuantity), BigDecimal::add));
+        }
+        return vector;
+    }
+
+    private static List<BomLine> toLines(Map<Long, BigDecimal> vector) {
+        List<BomLine> lines = new ArrayList<>(vector.size());
+        vector.forEach((rawMaterialId, quantity) -> lines.add(
+            new BomLine(rawMaterialId, quantity.setScale(ProductionEngine.QUANTITY_SCALE, RoundingMode.CEILING))));
+        return lines;
+    }
+}
@@ -0,0 +1,152 @@
+package com.autoflex.planner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory copy of everything the production planner needs:
+ * products in priority order (value DESC, name ASC, id ASC), the bill of materials
+ * of each product, its sub-assemblies, and the stock of every raw material.
+ * The bills of materials are exploded into raw material requirements once,
+ * when the snapshot is created.
+ */
+public final class BomSnapshot {
+
+    /**
+     * Order in which the planner considers products: value DESC, name ASC
+     * (by code point, whatever the database collation), then id ASC. Every
+     * snapshot is sorted with it, so a loaded and a re-priced snapshot agree.
+     */
+    public static final Comparator<ProductEntry> PRIORITY =
+        Comparator.comparing((ProductEntry product) -> product.value).reversed()
+            .thenComparing(product -> product.name)
+            .thenComparing(product -> product.id);
+
+    public final List<ProductEntry> products;
+    public final Map<Long, BigDecimal> stock;
+    public final BomExplosion explosion;
+
+    public BomSnapshot(List<ProductEntry> products, Map<Long, BigDecimal> stock) {
+        this(products, stock, BomExplosion.of(products));
+    }
+
+    /**
+     * @param explosion explosion of exactly these {@code products}
+     */
+    public BomSnapshot(List<ProductEntry> products, Map<Long, BigDecimal> stock, BomExplosion explosion) {
+        this.products = Collections.unmodifiableList(products);
+        this.stock = Collections.unmodifiableMap(stock);
+        this.explosion = explosion;
+    }
+
+    /**
+     * Copy of this snapshot with the stock of some raw materials replaced.
+     * Products, BOM lines and their explosion are shared with this instance.
+     */
+    public BomSnapshot withStock(Map<Long, BigDecimal> updates) {
+        Map<Long, BigDecimal> merged = new HashMap<>(stock);
+        merged.putAll(updates);
+        return new BomSnapshot(products, merged, explosion);
+    }
+
+    /**
+     * Copy of this snapshot with the value of some products replaced and the
+     * products re-sorted into priority order. Stock, BOM lines and their
+     * explosion are shared with this instance.
+     */
+    public BomSnapshot withValues(Map<Long, BigDecimal> values) {
+        List<ProductEntry> repriced = new ArrayList<>(products.size());
+        for (ProductEntry product : products) {
+            BigDecimal value = values.get(product.id);
+            repriced.add(value == null ? product : new ProductEntry(
+                product.id, product.code, product.name, value, product.lines, product.components));
+        }
+        repriced.sort(PRIORITY);
+        return new BomSnapshot(repriced, stock, explosion);
+    }
+
+    public static final class ProductEntry {
+        public final Long id;
+        public final String code;
+        public final String name;
+        public final BigDecimal value;
+        public final List<BomLine> lines;
+        public final List<ComponentLine> components;
+
+        public ProductEntry(Long id, String code, String name, BigDecimal value, List<BomLine> lines) {
+            this(id, code, name, value, lines, List.of());
+        }
+
+        public ProductEntry(Long id, String code, String name, BigDecimal value, List<BomLine> lines,
+                            List<ComponentLine> components) {
+            this.id = id;
+            this.code = code;
+            this.name = name;
+            this.value = value;
+            this.lines = Collections.unmodifiableList(lines);
+            this.components = Collections.unmodifiableList(components);
+        }
+
+        @Override
+        public String toString() {
+            return "ProductEntry{" +
+                    "id=" + id +
+                    ", code='" + code + '\'' +
+                    ", lines=" + lines.size() +
+                    ", components=" + components.size() +
+                    '}';
+        }
+    }
+
+    /**
+     * Sub-assembly: {@code requiredQuantity} units of another product.
+     */
+    public static final class ComponentLine {
+        public final Long productId;
+        public final BigDecimal requiredQuantity;
+
+        public ComponentLine(Long productId, BigDecimal requiredQuantity) {
+            this.productId = productId;
+            this.requiredQuantity = requiredQuantity;
+        }
+
+        @Override
+        public String toString() {
+            return "ComponentLine{" +
+                    "productId=" + productId +
+                    ", requiredQuantity=" + requiredQuantity +
+                    '}';
+        }
+    }
+
+    public static final class BomLine {
+        public final Long rawMaterialId;
+        public final BigDecimal requiredQuantity;
+
+        public BomLine(Long rawMaterialId, BigDecimal requiredQuantity) {
+            this.rawMaterialId = rawMaterialId;
+            this.requiredQuantity = requiredQuantity;
+        }
+
+        @Override
+        public String toString() {
+            return "BomLine{" +
+                    "rawMaterialId=" + rawMaterialId +
+                    ", requiredQuantity=" + requiredQuantity +
+                    '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BomSnapshot{" +
+                "products=" + products.size() +
+                ", rawMaterials=" + stock.size() +
+                '}';
+    }
+}
@@ -0,0 +1,143 @@
+package com.autoflex.planner;
+
+import com.autoflex.dto.ProductionAnalysisDTO;
+import com.autoflex.dto.ProductionCalculationDTO;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Result of the greedy pass together with what is needed to update it
+ * incrementally: the quantity of every product and the stock left at the end.
+ *
+ * The greedy decision for a product only depends on the products before it
+ * and on the stock of its own raw materials. After a change, every product
+ * before the first one that uses a changed raw material or whose BOM changed
+ * gets the same quantity as before, so {@link #replan} only replays the pass
+ * from that position. The stock at that position is rebuilt from the final
+ * stock by giving back what the products after it consumed; all of this is
+ * exact fixed-point arithmetic, so the result is identical to a full pass.
+ *
+ * Instances are immutable.
+ */
+public final class GreedyPlan {
+
+    private final ProductionEngine engine;
+    private final long[] quantities;
+    private final long[] finalStock;
+    private final int replayedFrom;
+
+    private GreedyPlan(ProductionEngine engine, long[] quantities, long[] finalStock, int replayedFrom) {
+        this.engine = engine;
+        this.quantities = quantities;
+        this.finalStock = finalStock;
+        this.replayedFrom = replayedFrom;
+    }
+
+    /**
+     * Full greedy pass.
+     */
+    public static GreedyPlan of(ProductionEngine engine) {
+        long[] stock = engine.newStock();
+        long[] quantities = new long[engine.productCount()];
+        engine.plan(stock, quantities);
+        return new GreedyPlan(engine, quantities, stock, 0);
+    }
+
+    /**
+     * Plan for {@code updated}, an engine compiled from the same products in
+     * the same order as this plan's engine, differing only in the stock of
+     * {@code rawMaterialIds} and in the BOM lines of {@code productIds}.
+     * Falls back to a full pass if the product order differs.
+     */
+    public GreedyPlan replan(ProductionEngine updated, Collection<Long> rawMaterialIds, Collection<Long> productIds) {
+        if (!Arrays.equals(engine.productIds, updated.productIds)) {
+            return of(updated);
+        }
+
+        int from = updated.productCount();
+        for (Long productId : productIds) {
+            Integer position = updated.productIndex.get(productId);
+            if (position != null) {
+                from = Math.min(from, position);
+            }
+        }
+        for (Long rawMaterialId : rawMaterialIds) {
+            Integer before = engine.materialIndex.get(rawMaterialId);
+            if (before != null) {
+                from = Math.min(from, engine.firstUse(before));
+            }
+            Integer after = updated.materialIndex.get(rawMaterialId);
+            if (after != null) {
+                from = Math.min(from, updated.firstUse(after));
+            }
+        }
+
+        // Stock before position 'from': what was left at the end, plus what the
+        // products from there on consumed, plus the change in initial stock
+        long[] stock = finalStock.clone();
+        for (int p = from; p < quantities.length; p++) {
+            if (quantities[p] > 0) {
+                engine.consume(p, -quantities[p], stock);
+            }
+        }
+        boolean sameMaterials = Arrays.equals(engine.materialIds, updated.materialIds);
+        long[] updatedStock = new long[updated.materialCount()];
+        for (int m = 0; m < updatedStock.length; m++) {
+            Integer before = sameMaterials
+                ? Integer.valueOf(m)
+                : engine.materialIndex.get(updated.materialIds[m]);
+            updatedStock[m] = before == null
+                ? updated.initialStock[m]
+                : stock[before] + updated.initialStock[m] - engine.initialStock[before];
+        }
+
+        long[] updatedQuantities = Arrays.copyOf(quantities, quantities.length);
+        updated.replay(from, updatedStock, updatedQuantities, 1);
+        return new GreedyPlan(updated, updatedQuantities, updatedStock, from);
+    }
+
+    public ProductionEngine engine() {
+        return engine;
+    }
+
+    /**
+     * Position the last {@link #replan} replayed from; 0 after a full pass,
+     * {@link ProductionEngine#productCount()} if nothing had to be replayed.
+     */
+    public int replayedFrom() {
+        return replayedFrom;
+    }
+
+    /**
+     * Products from {@link #replayedFrom()} on that got no quantity: those the
+     * last pass evaluated and could not produce.
+     */
+    public int skipped() {
+        int skipped = 0;
+        for (int p = replayedFrom; p < quantities.length; p++) {
+            if (quantities[p] == 0) {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Quantity per product position, in thousandths. Callers must not modify it.
+     */
+    long[] quantities() {
+        return quantities;
+    }
+
+    public ProductionCalculationDTO toCalculation() {
+        return engine.toCalculation(quantities);
+    }
+
+    /**
+     * @see ProductionEngine#toAnalysis
+     */
+    public ProductionAnalysisDTO toAnalysis(double[] shadowPrices) {
+        return engine.toAnalysis(quantities, shadowPrices);
+    }
+}
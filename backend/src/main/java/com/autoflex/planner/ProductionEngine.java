@@ -0,0 +1,395 @@
+package com.autoflex.planner;
+
+import com.autoflex.dto.ProductionAnalysisDTO;
+import com.autoflex.dto.ProductionAnalysisDTO.ItemAnalysisDTO;
+import com.autoflex.dto.ProductionAnalysisDTO.RawMaterialAnalysisDTO;
+import com.autoflex.dto.ProductionCalculationDTO;
+import com.autoflex.dto.ProductionCalculationDTO.ProductionItemDTO;
+import com.autoflex.planner.BomSnapshot.BomLine;
+import com.autoflex.planner.BomSnapshot.ProductEntry;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Greedy production planner working on dense, index-addressed fixed-point arrays.
+ *
+ * Quantities and required amounts use the same scale as the database columns
+ * ({@code scale = 3}, i.e. thousandths). Stock is kept in millionths because
+ * consuming {@code required x quantity} produces six decimal places; this keeps
+ * every intermediate value exact, so the plan is identical to the BigDecimal
+ * arithmetic the planner used before. Products are stored in CSR form: the BOM
+ * lines of the product at position {@code p} are {@code lineOffsets[p]} until
+ * {@code lineOffsets[p + 1]}. The reverse index is in the same form: the
+ * positions of the products using material {@code m} are
+ * {@code materialProducts[materialOffsets[m]]} until
+ * {@code materialProducts[materialOffsets[m + 1]]}, in priority order.
+ *
+ * Instances are immutable and can be shared between threads; {@link #plan}
+ * only writes to the arrays passed in by the caller.
+ */
+public final class ProductionEngine {
+
+    /** Decimal places of quantities and required amounts. */
+    public static final int QUANTITY_SCALE = 3;
+
+    /** Decimal places of stock amounts (quantity scale + required scale). */
+    public static final int STOCK_SCALE = 6;
+
+    /** One whole unit of product, in thousandths. */
+    public static final long WHOLE_UNIT = 1_000;
+
+    final long[] productIds;
+    final Map<Long, Integer> productIndex;
+    final String[] productCodes;
+    final String[] productNames;
+    final BigDecimal[] productValues;
+
+    final int[] lineOffsets;
+    final int[] lineMaterials;
+    final long[] lineRequired;
+
+    final long[] materialIds;
+    final Map<Long, Integer> materialIndex;
+    final long[] initialStock;
+
+    final int[] materialOffsets;
+    final int[] materialProducts;
+
+    private ProductionEngine(long[] productIds, Map<Long, Integer> productIndex, String[] productCodes,
+                             String[] productNames, BigDecimal[] productValues, int[] lineOffsets,
+                             int[] lineMaterials, long[] lineRequired, long[] materialIds,
+                             Map<Long, Integer> materialIndex, long[] initialStock,
+                             int[] materialOffsets, int[] materialProducts) {
+        this.productIds = productIds;
+        this.productIndex = productIndex;
+        this.productCodes = productCodes;
+        this.productNames = productNames;
+        this.productValues = productValues;
+        this.lineOffsets = lineOffsets;
+        this.lineMaterials = lineMaterials;
+        this.lineRequired = lineRequired;
+        this.materialIds = materialIds;
+        this.materialIndex = materialIndex;
+        this.initialStock = initialStock;
+        this.materialOffsets = materialOffsets;
+        this.materialProducts = materialProducts;
+    }
+
+    /**
+     * Convert a snapshot into the array representation. Products keep the
+     * snapshot's priority order and use their exploded BOM lines, so
+     * sub-assemblies are planned as the raw materials they consume.
+     */
+    public static ProductionEngine compile(BomSnapshot snapshot) {
+        Map<Long, Integer> materialIndex = new HashMap<>();
+        List<Long> materialIds = new ArrayList<>();
+        List<Long> initialStock = new ArrayList<>();
+        snapshot.stock.forEach((id, quantity) -> {
+            materialIndex.put(id, materialIds.size());
+            materialIds.add(id);
+            initialStock.add(toFixed(quantity, STOCK_SCALE));
+        });
+
+        int productCount = snapshot.products.size();
+        long[] productIds = new long[productCount];
+        Map<Long, Integer> productIndex = new HashMap<>();
+        String[] productCodes = new String[productCount];
+        String[] productNames = new String[productCount];
+        BigDecimal[] productValues = new BigDecimal[productCount];
+        int[] lineOffsets = new int[productCount + 1];
+        int[] lineMaterials = new int[snapshot.explosion.lineCount()];
+        long[] lineRequired = new long[lineMaterials.length];
+
+        int line = 0;
+        for (int p = 0; p < productCount; p++) {
+            ProductEntry product = snapshot.products.get(p);
+            productIds[p] = product.id;
+            productIndex.put(product.id, p);
+            productCodes[p] = product.code;
+            productNames[p] = product.name;
+            productValues[p] = product.value;
+            lineOffsets[p] = line;
+            for (BomLine bomLine : snapshot.explosion.lines(product.id)) {
+                Integer index = materialIndex.get(bomLine.rawMaterialId);
+                if (index == null) {
+                    // Line pointing to a material without stock: treat as zero stock
+                    index = materialIds.size();
+                    materialIndex.put(bomLine.rawMaterialId, index);
+                    materialIds.add(bomLine.rawMaterialId);
+                    initialStock.add(0L);
+                }
+                lineMaterials[line] = index;
+                lineRequired[line] = toFixed(bomLine.requiredQuantity, QUANTITY_SCALE);
+                line++;
+            }
+        }
+        lineOffsets[productCount] = line;
+
+        // Reverse index; walking the products in order keeps each list sorted
+        int materialCount = materialIds.size();
+        int[] materialOffsets = new int[materialCount + 1];
+        for (int l = 0; l < lineMaterials.length; l++) {
+            materialOffsets[lineMaterials[l] + 1]++;
+        }
+        for (int m = 0; m < materialCount; m++) {
+            materialOffsets[m + 1] += materialOffsets[m];
+        }
+        int[] materialProducts = new int[lineMaterials.length];
+        int[] next = Arrays.copyOf(materialOffsets, materialCount);
+        for (int p = 0; p < productCount; p++) {
+            for (int l = lineOffsets[p]; l < lineOffsets[p + 1]; l++) {
+                materialProducts[next[lineMaterials[l]]++] = p;
+            }
+        }
+
+        return new ProductionEngine(productIds, productIndex, productCodes, productNames, productValues,
+            lineOffsets, lineMaterials, lineRequired,
+            materialIds.stream().mapToLong(Long::longValue).toArray(),
+            materialIndex,
+            initialStock.stream().mapToLong(Long::longValue).toArray(),
+            materialOffsets, materialProducts);
+    }
+
+    /**
+     * Copy of this engine with the initial stock of some raw materials replaced.
+     * Product and BOM arrays are shared with this instance.
+     *
+     * @return the new engine, or {@code null} if an id is not part of this engine
+     */
+    public ProductionEngine withStock(Map<Long, BigDecimal> updates) {
+        long[] stock = initialStock.clone();
+        for (Map.Entry<Long, BigDecimal> update : updates.entrySet()) {
+            Integer index = materialIndex.get(update.getKey());
+            if (index == null) {
+                return null;
+            }
+            stock[index] = toFixed(update.getValue(), STOCK_SCALE);
+        }
+        return new ProductionEngine(productIds, productIndex, productCodes, productNames, productValues,
+            lineOffsets, lineMaterials, lineRequired, materialIds, materialIndex, stock,
+            materialOffsets, materialProducts);
+    }
+
+    public int productCount() {
+        return productIds.length;
+    }
+
+    public int materialCount() {
+        return materialIds.length;
+    }
+
+    public int lineCount() {
+        return lineMaterials.length;
+    }
+
+    /**
+     * Fresh, mutable copy of the initial stock, in millionths.
+     */
+    public long[] newStock() {
+        return initialStock.clone();
+    }
+
+    /**
+     * Run the greedy pass: for each product in priority order, produce the
+     * maximum quantity allowed by the remaining stock.
+     *
+     * @param stock      remaining stock per material index, in millionths; updated in place
+     * @param quantities output, quantity per product position, in thousandths
+     */
+    public void plan(long[] stock, long[] quantities) {
+        plan(stock, quantities, 1);
+    }
+
+    /**
+     * Greedy pass producing multiples of {@code step} only, e.g. {@link #WHOLE_UNIT}
+     * for whole units.
+     */
+    public void plan(long[] stock, long[] quantities, long step) {
+        replay(0, stock, quantities, step);
+    }
+
+    /**
+     * Greedy pass over the products from position {@code from} onwards;
+     * {@code stock} must be the stock remaining after the products before it.
+     * Quantities before {@code from} are left untouched.
+     */
+    void replay(int from, long[] stock, long[] quantities, long step) {
+        for (int p = from; p < productIds.length; p++) {
+            long quantity = roundDown(maxQuantity(p, stock), step);
+            if (quantity > 0) {
+                consume(p, quantity, stock);
+                quantities[p] = quantity;
+            } else {
+                quantities[p] = 0;
+            }
+        }
+    }
+
+    /**
+     * Maximum quantity of the product at position {@code p}, in thousandths.
+     * Equivalent to {@code available.divide(required, 3, RoundingMode.DOWN)}
+     * minimized over the BOM lines.
+     */
+    long maxQuantity(int p, long[] stock) {
+        long max = 0;
+        boolean bounded = false;
+        for (int l = lineOffsets[p], end = lineOffsets[p + 1]; l < end; l++) {
+            long required = lineRequired[l];
+            if (required == 0) {
+                continue; // Skip if no quantity required
+            }
+            // millionths / thousandths = thousandths, truncated towards zero
+            long possible = stock[lineMaterials[l]] / required;
+            if (!bounded || possible < max) {
+                max = possible;
+                bounded = true;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Position of the first product in priority order that uses the material
+     * at index {@code m}, or {@link #productCount()} if none does.
+     */
+    int firstUse(int m) {
+        return materialOffsets[m] < materialOffsets[m + 1]
+            ? materialProducts[materialOffsets[m]]
+            : productIds.length;
+    }
+
+    void consume(int p, long quantity, long[] stock) {
+        for (int l = lineOffsets[p], end = lineOffsets[p + 1]; l < end; l++) {
+            stock[lineMaterials[l]] -= lineRequired[l] * quantity;
+        }
+    }
+
+    static long roundDown(long quantity, long step) {
+        return step == 1 || quantity <= 0 ? quantity : quantity - quantity % step;
+    }
+
+    /**
+     * Total value of a plan, rounded per item exactly like {@link #toCalculation}.
+     */
+    public BigDecimal totalValue(long[] quantities) {
+        BigDecimal totalValue = BigDecimal.ZERO;
+        for (int p = 0; p < productIds.length; p++) {
+            if (quantities[p] > 0) {
+                totalValue = totalValue.add(productValues[p]
+                    .multiply(BigDecimal.valueOf(quantities[p], QUANTITY_SCALE))
+                    .setScale(2, RoundingMode.HALF_UP));
+            }
+        }
+        return totalValue;
+    }
+
+    /**
+     * Build the API representation of a plan. Items keep the priority order
+     * and only include products with a positive quantity.
+     */
+    public ProductionCalculationDTO toCalculation(long[] quantities) {
+        List<ProductionItemDTO> items = new ArrayList<>();
+        BigDecimal totalValue = BigDecimal.ZERO;
+        for (int p = 0; p < productIds.length; p++) {
+            if (quantities[p] <= 0) {
+                continue;
+            }
+            BigDecimal quantity = BigDecimal.valueOf(quantities[p], QUANTITY_SCALE);
+            BigDecimal itemTotalValue = productValues[p].multiply(quantity)
+                .setScale(2, RoundingMode.HALF_UP);
+            totalValue = totalValue.add(itemTotalValue);
+            items.add(new ProductionItemDTO(
+                productIds[p],
+                productCodes[p],
+                productNames[p],
+                productValues[p],
+                quantity,
+                itemTotalValue
+            ));
+        }
+        return new ProductionCalculationDTO(items, totalValue);
+    }
+
+    /**
+     * Where a plan runs out of raw materials. The plan is replayed in priority
+     * order; the bottleneck of a produced item is the raw material with the
+     * least left per unit of the product right after it was produced, which
+     * for the greedy plan is the one that stopped it.
+     *
+     * @param shadowPrices value of one more unit of stock by material index
+     *                     (see {@link ProductionOptimizer#shadowPrices}), or {@code null}
+     */
+    public ProductionAnalysisDTO toAnalysis(long[] quantities, double[] shadowPrices) {
+        ProductionAnalysisDTO analysis = new ProductionAnalysisDTO();
+        analysis.totalValue = totalValue(quantities);
+        analysis.shadowPricesAvailable = shadowPrices != null;
+
+        RawMaterialAnalysisDTO[] materials = new RawMaterialAnalysisDTO[materialIds.length];
+        for (int m = 0; m < materials.length; m++) {
+            materials[m] = new RawMaterialAnalysisDTO();
+            materials[m].rawMaterialId = materialIds[m];
+        }
+
+        long[] stock = newStock();
+        for (int p = 0; p < productIds.length; p++) {
+            if (quantities[p] <= 0) {
+                continue;
+            }
+            consume(p, quantities[p], stock);
+            int bottleneck = -1;
+            double least = Double.POSITIVE_INFINITY;
+            for (int l = lineOffsets[p]; l < lineOffsets[p + 1]; l++) {
+                if (lineRequired[l] > 0) {
+                    double left = (double) stock[lineMaterials[l]] / lineRequired[l];
+                    if (left < least) {
+                        least = left;
+                        bottleneck = lineMaterials[l];
+                    }
+                }
+            }
+            analysis.items.add(new ItemAnalysisDTO(productIds[p], productCodes[p], productNames[p],
+                BigDecimal.valueOf(quantities[p], QUANTITY_SCALE),
+                bottleneck >= 0 ? materialIds[bottleneck] : null));
+            if (bottleneck >= 0) {
+                materials[bottleneck].bottleneckOf.add(productIds[p]);
+            }
+        }
+
+        for (int m = 0; m < materials.length; m++) {
+            // Same rounding as a production run: consumption up, so the leftover is never overstated
+            RawMaterialAnalysisDTO material = materials[m];
+            material.stockQuantity = BigDecimal.valueOf(initialStock[m], STOCK_SCALE)
+                .setScale(QUANTITY_SCALE, RoundingMode.DOWN);
+            material.consumedQuantity = BigDecimal.valueOf(initialStock[m] - stock[m], STOCK_SCALE)
+                .setScale(QUANTITY_SCALE, RoundingMode.CEILING);
+            material.leftoverQuantity = material.stockQuantity.subtract(material.consumedQuantity);
+            if (shadowPrices != null) {
+                material.shadowPrice = BigDecimal.valueOf(Math.max(0, shadowPrices[m]))
+                    .setScale(4, RoundingMode.HALF_UP);
+            }
+        }
+        Arrays.sort(materials, Comparator
+            .comparing((RawMaterialAnalysisDTO material) ->
+                material.shadowPrice != null ? material.shadowPrice : BigDecimal.ZERO).reversed()
+            .thenComparing(material -> material.leftoverQuantity)
+            .thenComparing(material -> material.rawMaterialId));
+        analysis.rawMaterials.addAll(Arrays.asList(materials));
+        return analysis;
+    }
+
+    static long toFixed(BigDecimal value, int scale) {
+        try {
+            return value.movePointRight(scale).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(
+                "Value " + value + " does not fit a fixed-point number with scale " + scale, e);
+        }
+    }
+}
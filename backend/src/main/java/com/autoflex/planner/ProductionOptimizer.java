@@ -0,0 +1,445 @@
+package com.autoflex.planner;
+
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Value-maximizing production mix: maximize {@code sum(value x quantity)}
+ * subject to the raw-material stock, instead of the greedy value-first order.
+ *
+ * The continuous case is one linear program ({@link SimplexSolver}); whole-unit
+ * quantities are found by depth-first branch and bound on top of it. Both are
+ * warm-started from the greedy plan: it is the initial incumbent, so the
+ * result is never worse than greedy, and the simplex starts from the basis it
+ * implies instead of from nothing. When the time budget runs out the best
+ * plan found so far is returned, flagged as not proven optimal.
+ *
+ * LP solutions are in floating point; they are turned into exact fixed-point
+ * plans by taking each product up to its LP quantity in priority order
+ * (never beyond what the stock allows) and then filling leftover stock greedily.
+ */
+public final class ProductionOptimizer {
+
+    private static final Logger LOG = Logger.getLogger(ProductionOptimizer.class);
+
+    private static final double INTEGRALITY_TOLERANCE = 1e-6;
+    private static final int MAX_NODES = 100_000;
+
+    private final ProductionEngine engine;
+    private final long step;
+    private final long deadline;
+
+    // LP model: columns are candidate products, rows the raw materials they use
+    private final int[] columnProduct;
+    private final int[] materialRow;
+    private final SimplexSolver.Columns a;
+    private final double[] b;
+    private final double[] c;
+    private final double[] rowScale;
+
+    private int[] startRows;
+
+    private long[] incumbent;
+    private double incumbentValue;
+    private boolean provenOptimal;
+
+    private ProductionOptimizer(ProductionEngine engine, boolean wholeUnits, boolean outOfStock,
+                                Duration timeBudget) {
+        this.engine = engine;
+        this.step = wholeUnits ? ProductionEngine.WHOLE_UNIT : 1;
+        this.deadline = System.nanoTime() + timeBudget.toNanos();
+
+        boolean[] candidate = new boolean[engine.productCount()];
+        materialRow = new int[engine.materialCount()];
+        Arrays.fill(materialRow, -1);
+        int columns = 0;
+        int rows = 0;
+        for (int p = 0; p < engine.productCount(); p++) {
+            if (isCandidate(p, outOfStock)) {
+                candidate[p] = true;
+                columns++;
+                for (int l = engine.lineOffsets[p]; l < engine.lineOffsets[p + 1]; l++) {
+                    int material = engine.lineMaterials[l];
+                    if (engine.lineRequired[l] > 0 && materialRow[material] < 0) {
+                        materialRow[material] = rows++;
+                    }
+                }
+            }
+        }
+
+        columnProduct = new int[columns];
+        b = new double[rows];
+        c = new double[columns];
+        for (int m = 0; m < materialRow.length; m++) {
+            if (materialRow[m] >= 0) {
+                b[materialRow[m]] = engine.initialStock[m] / 1e6;
+            }
+        }
+
+        // One column per candidate product; a material listed twice is summed
+        int[] start = new int[columns + 1];
+        int[] index = new int[engine.lineMaterials.length];
+        double[] value = new double[engine.lineMaterials.length];
+        rowScale = new double[rows];
+        int column = 0;
+        int entries = 0;
+        for (int p = 0; p < engine.productCount(); p++) {
+            if (!candidate[p]) {
+                continue;
+            }
+            columnProduct[column] = p;
+            c[column] = engine.productValues[p].doubleValue();
+            start[column] = entries;
+            for (int l = engine.lineOffsets[p]; l < engine.lineOffsets[p + 1]; l++) {
+                if (engine.lineRequired[l] <= 0) {
+                    continue;
+                }
+                int row = materialRow[engine.lineMaterials[l]];
+                int existing = start[column];
+                while (existing < entries && index[existing] != row) {
+                    existing++;
+                }
+                if (existing == entries) {
+                    index[entries++] = row;
+                }
+                value[existing] += engine.lineRequired[l] / 1e3;
+                rowScale[row] = Math.max(rowScale[row], value[existing]);
+            }
+            column++;
+        }
+        start[columns] = entries;
+
+        // Scale rows to a largest coefficient of 1 for numerical stability
+        for (int k = 0; k < entries; k++) {
+            value[k] /= rowScale[index[k]];
+        }
+        for (int i = 0; i < rows; i++) {
+            b[i] /= rowScale[i];
+        }
+        a = new SimplexSolver.Columns(rows, start,
+            Arrays.copyOf(index, entries), Arrays.copyOf(value, entries));
+    }
+
+    public static final class Result {
+        /** Quantity per product position, in thousandths. */
+        public final long[] quantities;
+        /** {@code false} if the time budget or node limit ran out before the search finished. */
+        public final boolean optimal;
+
+        Result(long[] quantities, boolean optimal) {
+            this.quantities = quantities;
+            this.optimal = optimal;
+        }
+    }
+
+    /**
+     * @param wholeUnits {@code true} to only produce whole units of each product
+     */
+    public static Result optimize(ProductionEngine engine, boolean wholeUnits, Duration timeBudget) {
+        ProductionOptimizer optimizer = new ProductionOptimizer(engine, wholeUnits, false, timeBudget);
+        long start = System.nanoTime();
+        long[] quantities = optimizer.solve();
+        LOG.debug(String.format("Optimizer (%s): %d products x %d materials, %s in %d ms",
+            wholeUnits ? "integer" : "continuous", optimizer.c.length, optimizer.b.length,
+            optimizer.provenOptimal ? "optimal" : "best found",
+            Duration.ofNanos(System.nanoTime() - start).toMillis()));
+        return new Result(quantities, optimizer.provenOptimal);
+    }
+
+    /**
+     * Shadow price of every raw material: the value one more unit of it would
+     * add to the best continuous production mix, read from the dual of the LP.
+     * Products blocked by a material that is out of stock take part as well,
+     * so restocking that material shows up with its value.
+     *
+     * @return value per unit of stock, by material index, or {@code null} if
+     * the LP was not solved to optimality within the time budget
+     */
+    public static double[] shadowPrices(ProductionEngine engine, Duration timeBudget) {
+        ProductionOptimizer optimizer = new ProductionOptimizer(engine, false, true, timeBudget);
+        double[] prices = new double[engine.materialCount()];
+        if (optimizer.c.length == 0) {
+            return prices;
+        }
+        optimizer.startRows = optimizer.greedyBasis();
+        SimplexSolver.Result lp = SimplexSolver.maximize(
+            optimizer.a, optimizer.b, optimizer.c, optimizer.startRows, optimizer.deadline);
+        if (lp.status != SimplexSolver.Status.OPTIMAL) {
+            return null;
+        }
+        for (int m = 0; m < prices.length; m++) {
+            int row = optimizer.materialRow[m];
+            if (row >= 0) {
+                // Rows were divided by their scale, so one unit of stock is 1 / scale of the scaled row
+                prices[m] = lp.duals[row] / optimizer.rowScale[row];
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * A product takes part in the LP if it is worth something and all its
+     * raw materials are in stock; anything else cannot be produced anyway.
+     * With {@code outOfStock} the stock is not checked.
+     */
+    private boolean isCandidate(int p, boolean outOfStock) {
+        if (engine.productValues[p].signum() <= 0) {
+            return false;
+        }
+        boolean bounded = false;
+        for (int l = engine.lineOffsets[p]; l < engine.lineOffsets[p + 1]; l++) {
+            if (engine.lineRequired[l] > 0) {
+                if (!outOfStock && engine.initialStock[engine.lineMaterials[l]] <= 0) {
+                    return false;
+                }
+                bounded = true;
+            }
+        }
+        return bounded;
+    }
+
+    private long[] solve() {
+        // Warm start: the greedy plan is the first incumbent
+        long[] greedy = new long[engine.productCount()];
+        engine.plan(engine.newStock(), greedy, step);
+        offer(greedy);
+        startRows = greedyBasis();
+
+        if (c.length > 0) {
+            if (step == 1) {
+                solveContinuous();
+            } else {
+                solveInteger();
+            }
+        } else {
+            provenOptimal = true;
+        }
+
+        // Compare exactly; floating-point values only steer the search
+        BigDecimal greedyValue = engine.totalValue(greedy);
+        return engine.totalValue(incumbent).compareTo(greedyValue) >= 0 ? incumbent : greedy;
+    }
+
+    private void solveContinuous() {
+        SimplexSolver.Result lp = SimplexSolver.maximize(a, b, c, startRows, deadline);
+        provenOptimal = lp.status == SimplexSolver.Status.OPTIMAL;
+        offer(complete(lp.x, false));
+    }
+
+    private void solveInteger() {
+        Deque<double[][]> stack = new ArrayDeque<>();
+        double[] lower = new double[c.length];
+        double[] upper = new double[c.length];
+        Arrays.fill(upper, Double.POSITIVE_INFINITY);
+        stack.push(new double[][] {lower, upper});
+
+        int nodes = 0;
+        boolean exhausted = true;
+        while (!stack.isEmpty()) {
+            if (System.nanoTime() > deadline || nodes++ >= MAX_NODES) {
+                exhausted = false;
+                break;
+            }
+            double[][] node = stack.pop();
+            NodeResult result = solveNode(node[0], node[1]);
+            if (result == null) {
+                continue; // Infeasible branch
+            }
+            if (result.status != SimplexSolver.Status.OPTIMAL) {
+                offer(complete(result.x, true));
+                exhausted = false;
+                break;
+            }
+            if (result.value <= incumbentValue + INTEGRALITY_TOLERANCE) {
+                continue; // Cannot beat the incumbent
+            }
+
+            // Rounding down is always feasible for a packing problem
+            offer(complete(result.x, true));
+
+            int branch = mostFractional(result.x);
+            if (branch < 0) {
+                continue; // Integral: the offer above was exact
+            }
+            double value = result.x[branch];
+
+            double[] upLower = node[0].clone();
+            upLower[branch] = Math.ceil(value);
+            stack.push(new double[][] {upLower, node[1]});
+
+            double[] downUpper = node[1].clone();
+            downUpper[branch] = Math.floor(value);
+            stack.push(new double[][] {node[0], downUpper});
+        }
+        provenOptimal = exhausted;
+    }
+
+    private static final class NodeResult {
+        final SimplexSolver.Status status;
+        final double value;
+        final double[] x;
+
+        NodeResult(SimplexSolver.Status status, double value, double[] x) {
+            this.status = status;
+            this.value = value;
+            this.x = x;
+        }
+    }
+
+    /**
+     * LP relaxation with {@code lower <= x <= upper}, solved for {@code x - lower}
+     * so the right-hand side stays non-negative.
+     *
+     * @return {@code null} if the bounds are infeasible
+     */
+    private NodeResult solveNode(double[] lower, double[] upper) {
+        int rows = b.length;
+        int bounded = 0;
+        for (int j = 0; j < c.length; j++) {
+            if (upper[j] != Double.POSITIVE_INFINITY) {
+                if (upper[j] < lower[j]) {
+                    return null;
+                }
+                bounded++;
+            }
+        }
+
+        double offset = 0;
+        double[] nodeB = Arrays.copyOf(b, rows + bounded);
+        int[] start = new int[c.length + 1];
+        int[] index = new int[a.index.length + bounded];
+        double[] value = new double[a.index.length + bounded];
+        int entries = 0;
+        int boundRow = rows;
+        for (int j = 0; j < c.length; j++) {
+            offset += c[j] * lower[j];
+            start[j] = entries;
+            for (int k = a.start[j]; k < a.start[j + 1]; k++) {
+                nodeB[a.index[k]] -= a.value[k] * lower[j];
+                index[entries] = a.index[k];
+                value[entries++] = a.value[k];
+            }
+            if (upper[j] != Double.POSITIVE_INFINITY) {
+                nodeB[boundRow] = upper[j] - lower[j];
+                index[entries] = boundRow++;
+                value[entries++] = 1;
+            }
+        }
+        start[c.length] = entries;
+        for (int i = 0; i < rows; i++) {
+            if (nodeB[i] < -INTEGRALITY_TOLERANCE) {
+                return null;
+            }
+            nodeB[i] = Math.max(0, nodeB[i]);
+        }
+        SimplexSolver.Columns nodeA = new SimplexSolver.Columns(rows + bounded, start, index, value);
+
+        SimplexSolver.Result lp = SimplexSolver.maximize(nodeA, nodeB, c, startRows, deadline);
+        double[] x = lp.x;
+        for (int j = 0; j < c.length; j++) {
+            x[j] += lower[j];
+        }
+        return new NodeResult(lp.status, lp.value + offset, x);
+    }
+
+    /**
+     * Crash basis from the greedy plan: each product greedy makes enters the
+     * basis on the row of the raw material it runs out of. Greedy never makes
+     * anything from a material that is already used up, so the basis is
+     * triangular and its solution is the greedy plan itself.
+     */
+    private int[] greedyBasis() {
+        int[] rows = new int[c.length];
+        Arrays.fill(rows, -1);
+        boolean[] taken = new boolean[b.length];
+        long[] stock = engine.newStock();
+        for (int j = 0; j < c.length; j++) {
+            int p = columnProduct[j];
+            long quantity = ProductionEngine.roundDown(engine.maxQuantity(p, stock), step);
+            if (quantity <= 0) {
+                continue;
+            }
+            engine.consume(p, quantity, stock);
+            int bottleneck = -1;
+            double least = Double.POSITIVE_INFINITY;
+            for (int l = engine.lineOffsets[p]; l < engine.lineOffsets[p + 1]; l++) {
+                if (engine.lineRequired[l] > 0) {
+                    double left = (double) stock[engine.lineMaterials[l]] / engine.lineRequired[l];
+                    if (left < least) {
+                        least = left;
+                        bottleneck = materialRow[engine.lineMaterials[l]];
+                    }
+                }
+            }
+            if (!taken[bottleneck]) {
+                taken[bottleneck] = true;
+                rows[j] = bottleneck;
+            }
+        }
+        return rows;
+    }
+
+    private static int mostFractional(double[] x) {
+        int best = -1;
+        double bestDistance = INTEGRALITY_TOLERANCE;
+        for (int j = 0; j < x.length; j++) {
+            double fraction = x[j] - Math.floor(x[j]);
+            double distance = Math.min(fraction, 1 - fraction);
+            if (distance > bestDistance) {
+                best = j;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Exact plan from LP quantities: each product up to its LP quantity in
+     * priority order, then leftover stock filled greedily.
+     */
+    private long[] complete(double[] x, boolean wholeUnits) {
+        long[] target = new long[engine.productCount()];
+        for (int j = 0; j < x.length; j++) {
+            double units = wholeUnits ? Math.floor(x[j] + INTEGRALITY_TOLERANCE) : x[j];
+            target[columnProduct[j]] = (long) Math.floor(units * 1e3 + INTEGRALITY_TOLERANCE);
+        }
+
+        long[] stock = engine.newStock();
+        long[] quantities = new long[engine.productCount()];
+        for (int p = 0; p < quantities.length; p++) {
+            if (target[p] <= 0) {
+                continue;
+            }
+            long quantity = ProductionEngine.roundDown(
+                Math.min(target[p], engine.maxQuantity(p, stock)), step);
+            if (quantity > 0) {
+                engine.consume(p, quantity, stock);
+                quantities[p] = quantity;
+            }
+        }
+        for (int p = 0; p < quantities.length; p++) {
+            long extra = ProductionEngine.roundDown(engine.maxQuantity(p, stock), step);
+            if (extra > 0) {
+                engine.consume(p, extra, stock);
+                quantities[p] += extra;
+            }
+        }
+        return quantities;
+    }
+
+    private void offer(long[] quantities) {
+        double value = 0;
+        for (int p = 0; p < quantities.length; p++) {
+            value += engine.productValues[p].doubleValue() * quantities[p] / 1e3;
+        }
+        if (incumbent == null || value > incumbentValue) {
+            incumbent = quantities;
+            incumbentValue = value;
+        }
+    }
+}
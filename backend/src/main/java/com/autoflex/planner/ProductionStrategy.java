@@ -0,0 +1,36 @@
+package com.autoflex.planner;
+
+/**
+ * How the planner chooses production quantities.
+ */
+public enum ProductionStrategy {
+
+    /** Highest product value first, each product as much as the remaining stock allows. */
+    GREEDY("greedy"),
+
+    /** Maximize the total value with a linear program; fractional quantities allowed. */
+    OPTIMAL("optimal"),
+
+    /** Maximize the total value with whole-unit quantities (branch and bound). */
+    OPTIMAL_INTEGER("optimal-integer");
+
+    private final String param;
+
+    ProductionStrategy(String param) {
+        this.param = param;
+    }
+
+    public String param() {
+        return param;
+    }
+
+    public static ProductionStrategy fromParam(String param) {
+        for (ProductionStrategy strategy : values()) {
+            if (strategy.param.equalsIgnoreCase(param)) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("Invalid strategy: " + param
+            + " (expected greedy, optimal or optimal-integer)");
+    }
+}
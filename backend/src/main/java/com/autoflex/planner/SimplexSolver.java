@@ -0,0 +1,616 @@
+package com.autoflex.planner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Revised primal simplex for packing problems:
+ * maximize {@code c.x} subject to {@code A x <= b}, {@code x >= 0}, with {@code b >= 0}.
+ *
+ * Because {@code b >= 0} the all-slack basis is feasible and no phase one is
+ * needed; every intermediate basis is feasible, so a solve cut short by its
+ * deadline still returns a usable solution.
+ *
+ * A is stored column-wise and never densified. The basis inverse is kept in
+ * product form (a file of sparse eta columns) and rebuilt from the basic
+ * columns every {@link #REINVERT_INTERVAL} pivots, which bounds both fill-in
+ * and accumulated round-off.
+ */
+final class SimplexSolver {
+
+    enum Status {
+        OPTIMAL,
+        TIME_LIMIT,
+        UNBOUNDED
+    }
+
+    static final class Result {
+        final Status status;
+        final double value;
+        /** Primal solution, one entry per column of A. */
+        final double[] x;
+        /** Dual price per row of A; only meaningful when {@link #status} is OPTIMAL. */
+        final double[] duals;
+
+        Result(Status status, double value, double[] x, double[] duals) {
+            this.status = status;
+            this.value = value;
+            this.x = x;
+            this.duals = duals;
+        }
+    }
+
+    /**
+     * Sparse matrix in compressed sparse column form: the entries of column
+     * {@code j} are {@code start[j]} until {@code start[j + 1]}.
+     */
+    static final class Columns {
+        final int rows;
+        final int[] start;
+        final int[] index;
+        final double[] value;
+
+        Columns(int rows, int[] start, int[] index, double[] value) {
+            this.rows = rows;
+            this.start = start;
+            this.index = index;
+            this.value = value;
+        }
+
+        int count() {
+            return start.length - 1;
+        }
+    }
+
+    private static final double PIVOT_TOLERANCE = 1e-9;
+    private static final double COST_TOLERANCE = 1e-9;
+    private static final double FEASIBILITY_TOLERANCE = 1e-7;
+    private static final int REINVERT_INTERVAL = 100;
+    private static final int DEGENERATE_PIVOTS_BEFORE_BLAND = 50;
+
+    private final Columns a;
+    private final double[] c;
+    private final double[] b;
+    private final int m;
+    private final int n;
+
+    // Variables 0..n-1 are the columns of A, n..n+m-1 the slacks of each row
+    private final int[] head;
+    private final int[] position;
+    private double[] xB;
+    private EtaFile etas;
+
+    private SimplexSolver(Columns a, double[] b, double[] c) {
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.m = a.rows;
+        this.n = c.length;
+        this.head = new int[m];
+        this.position = new int[n + m];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < m; i++) {
+            head[i] = n + i;
+            position[n + i] = i;
+        }
+        this.xB = b.clone();
+        this.etas = new EtaFile();
+    }
+
+    /**
+     * @param a        constraint matrix, one column per variable; not modified
+     * @param b        right-hand side, one entry per row, must be non-negative
+     * @param c        objective coefficients
+     * @param deadline {@link System#nanoTime()} after which the current basis is returned
+     */
+    static Result maximize(Columns a, double[] b, double[] c, long deadline) {
+        return new SimplexSolver(a, b, c).solve(deadline);
+    }
+
+    /**
+     * Like {@link #maximize(Columns, double[], double[], long)}, starting from a
+     * crash basis instead of the all-slack one: column {@code j} replaces the
+     * slack of row {@code startRows[j]}, or stays nonbasic if that is -1.
+     * Falls back to the all-slack basis if the crash basis is singular or
+     * infeasible.
+     */
+    static Result maximize(Columns a, double[] b, double[] c, int[] startRows, long deadline) {
+        SimplexSolver solver = new SimplexSolver(a, b, c);
+        solver.crash(startRows);
+        return solver.solve(deadline);
+    }
+
+    private void crash(int[] startRows) {
+        for (int j = 0; j < n; j++) {
+            int r = startRows[j];
+            if (r >= 0 && position[n + r] >= 0) {
+                position[n + r] = -1;
+                head[r] = j;
+                position[j] = r;
+            }
+        }
+        double[] slackXB = xB;
+        if (!reinvert(FEASIBILITY_TOLERANCE)) {
+            Arrays.fill(position, -1);
+            for (int i = 0; i < m; i++) {
+                head[i] = n + i;
+                position[n + i] = i;
+            }
+            xB = slackXB;
+            etas = new EtaFile();
+        }
+    }
+
+    private Result solve(long deadline) {
+        double[] y = new double[m];
+        double[] alpha = new double[m];
+        int degeneratePivots = 0;
+        int pivotsSinceReinversion = 0;
+        Status status = Status.OPTIMAL;
+
+        while (true) {
+            if (System.nanoTime() > deadline) {
+                status = Status.TIME_LIMIT;
+                break;
+            }
+
+            prices(y);
+            int entering = entering(y, degeneratePivots > DEGENERATE_PIVOTS_BEFORE_BLAND);
+            if (entering < 0) {
+                break;
+            }
+
+            Arrays.fill(alpha, 0);
+            loadColumn(entering, alpha);
+            etas.ftran(alpha);
+
+            int r = leaving(alpha);
+            if (r < 0) {
+                status = Status.UNBOUNDED;
+                break;
+            }
+
+            double theta = xB[r] / alpha[r];
+            degeneratePivots = theta <= PIVOT_TOLERANCE ? degeneratePivots + 1 : 0;
+            for (int i = 0; i < m; i++) {
+                if (alpha[i] != 0) {
+                    xB[i] = Math.max(0, xB[i] - theta * alpha[i]);
+                }
+            }
+            xB[r] = theta;
+
+            etas.add(r, alpha);
+            position[head[r]] = -1;
+            head[r] = entering;
+            position[entering] = r;
+
+            if (++pivotsSinceReinversion >= REINVERT_INTERVAL) {
+                reinvert(Double.POSITIVE_INFINITY);
+                pivotsSinceReinversion = 0;
+            }
+        }
+
+        double[] x = new double[n];
+        double value = 0;
+        for (int i = 0; i < m; i++) {
+            if (head[i] < n) {
+                x[head[i]] = xB[i];
+                value += c[head[i]] * xB[i];
+            }
+        }
+        prices(y);
+        double[] duals = new double[m];
+        for (int i = 0; i < m; i++) {
+            duals[i] = Math.max(0, y[i]);
+        }
+        return new Result(status, value, x, duals);
+    }
+
+    /**
+     * Simplex multipliers {@code y = c_B B^-1}.
+     */
+    private void prices(double[] y) {
+        for (int i = 0; i < m; i++) {
+            y[i] = head[i] < n ? c[head[i]] : 0;
+        }
+        etas.btran(y);
+    }
+
+    /**
+     * Nonbasic variable with the largest reduced cost (or the lowest index with
+     * a positive one when avoiding cycles), or -1 if the basis is optimal.
+     */
+    private int entering(double[] y, boolean bland) {
+        int best = -1;
+        double bestCost = COST_TOLERANCE;
+        for (int j = 0; j < n + m; j++) {
+            if (position[j] >= 0) {
+                continue;
+            }
+            double reducedCost;
+            if (j < n) {
+                reducedCost = c[j];
+                for (int k = a.start[j]; k < a.start[j + 1]; k++) {
+                    reducedCost -= a.value[k] * y[a.index[k]];
+                }
+            } else {
+                reducedCost = -y[j - n];
+            }
+            if (reducedCost > bestCost) {
+                best = j;
+                bestCost = reducedCost;
+                if (bland) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private int leaving(double[] alpha) {
+        int best = -1;
+        double bestRatio = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < m; i++) {
+            if (alpha[i] <= PIVOT_TOLERANCE) {
+                continue;
+            }
+            double ratio = xB[i] / alpha[i];
+            if (ratio < bestRatio
+                || (ratio == bestRatio && alpha[i] > alpha[best])) {
+                best = i;
+                bestRatio = ratio;
+            }
+        }
+        return best;
+    }
+
+    private void loadColumn(int variable, double[] target) {
+        if (variable < n) {
+            for (int k = a.start[variable]; k < a.start[variable + 1]; k++) {
+                target[a.index[k]] = a.value[k];
+            }
+        } else {
+            target[variable - n] = 1;
+        }
+    }
+
+    /**
+     * Rebuild the eta file from the current basic columns. Slacks keep their
+     * own row; the basic columns of A are pivoted into the remaining rows in
+     * the order computed by {@link #pivotOrder}, which keeps the triangular
+     * parts of the basis free of fill-in. The basic solution is then
+     * recomputed from scratch; values below zero by at most {@code tolerance}
+     * are round-off and clamped.
+     *
+     * @return {@code false}, leaving the solver unchanged, if the basis is
+     * singular or its solution is further below zero than {@code tolerance}
+     */
+    private boolean reinvert(double tolerance) {
+        boolean[] free = new boolean[m];
+        int[] newHead = new int[m];
+        int basicCount = 0;
+        for (int i = 0; i < m; i++) {
+            free[i] = position[n + i] < 0;
+            newHead[i] = free[i] ? -1 : n + i;
+            if (head[i] < n) {
+                basicCount++;
+            }
+        }
+        int[] columns = new int[basicCount];
+        int[] rows = new int[basicCount];
+        int[] rowCount = new int[m];
+        int triangular = pivotOrder(free, columns, rows, rowCount);
+        if (triangular < 0) {
+            return false;
+        }
+        boolean[] bumpRows = free.clone();
+        for (int r : rows) {
+            if (r >= 0) {
+                bumpRows[r] = false;
+            }
+        }
+
+        EtaFile rebuilt = new EtaFile();
+        double[] alpha = new double[m];
+        for (int k = 0; k < triangular; k++) {
+            // No earlier pivot row touches a row singleton column
+            int column = columns[k];
+            int r = rows[k];
+            for (int e = a.start[column]; e < a.start[column + 1]; e++) {
+                if (a.index[e] == r && Math.abs(a.value[e]) <= PIVOT_TOLERANCE) {
+                    return false;
+                }
+            }
+            rebuilt.add(r, a.index, a.value, a.start[column], a.start[column + 1]);
+            bumpRows[r] = false;
+            newHead[r] = column;
+        }
+        for (int k = triangular; k < basicCount; k++) {
+            Arrays.fill(alpha, 0);
+            loadColumn(columns[k], alpha);
+            rebuilt.ftran(alpha);
+            int r = rows[k] >= 0 ? rows[k] : bumpPivot(alpha, bumpRows, rowCount);
+            if (r < 0 || Math.abs(alpha[r]) <= PIVOT_TOLERANCE) {
+                return false;
+            }
+            rebuilt.add(r, alpha);
+            bumpRows[r] = false;
+            newHead[r] = columns[k];
+        }
+
+        double[] values = b.clone();
+        rebuilt.ftran(values);
+        for (int i = 0; i < m; i++) {
+            if (values[i] < -tolerance) {
+                return false;
+            }
+            values[i] = Math.max(0, values[i]);
+        }
+
+        etas = rebuilt;
+        xB = values;
+        for (int i = 0; i < m; i++) {
+            head[i] = newHead[i];
+            position[newHead[i]] = i;
+        }
+        return true;
+    }
+
+    /**
+     * Order the basic columns of A for reinversion, looking only at their
+     * entries in the {@code free} rows. Row singletons go first and column
+     * singletons last, each with its pivot row in {@code rows}; both pivot on
+     * an untransformed column, so their etas have no fill-in. What is left
+     * (the bump) goes in between, sparsest first, with {@code rows} set to -1
+     * so the pivot is chosen numerically.
+     *
+     * @param rowCount receives, per row, the number of bump columns using it
+     * @return the number of leading row singletons, or -1 if some column has
+     * no entry in a free row
+     */
+    private int pivotOrder(boolean[] free, int[] columns, int[] rows, int[] rowCount) {
+        int[] columnCount = new int[n];
+        boolean[] columnDone = new boolean[n];
+        boolean[] rowDone = new boolean[m];
+        for (int i = 0; i < m; i++) {
+            rowDone[i] = !free[i];
+        }
+
+        // Row-wise view of the basic columns, restricted to free rows
+        int[] rowStart = new int[m + 1];
+        for (int i = 0; i < m; i++) {
+            if (head[i] < n) {
+                for (int k = a.start[head[i]]; k < a.start[head[i] + 1]; k++) {
+                    if (free[a.index[k]]) {
+                        rowStart[a.index[k] + 1]++;
+                        columnCount[head[i]]++;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < m; i++) {
+            rowCount[i] = rowStart[i + 1];
+            rowStart[i + 1] += rowStart[i];
+        }
+        int[] rowColumns = new int[rowStart[m]];
+        int[] fill = Arrays.copyOf(rowStart, m);
+        for (int i = 0; i < m; i++) {
+            if (head[i] < n) {
+                for (int k = a.start[head[i]]; k < a.start[head[i] + 1]; k++) {
+                    if (free[a.index[k]]) {
+                        rowColumns[fill[a.index[k]]++] = head[i];
+                    }
+                }
+            }
+        }
+
+        ArrayDeque<Integer> rowSingletons = new ArrayDeque<>();
+        ArrayDeque<Integer> columnSingletons = new ArrayDeque<>();
+        List<Integer> remaining = new ArrayList<>();
+        for (int i = 0; i < m; i++) {
+            if (rowCount[i] == 1) {
+                rowSingletons.add(i);
+            }
+            if (head[i] < n) {
+                if (columnCount[head[i]] == 0) {
+                    return -1;
+                }
+                remaining.add(head[i]);
+                if (columnCount[head[i]] == 1) {
+                    columnSingletons.add(head[i]);
+                }
+            }
+        }
+
+        int front = 0;
+        int back = columns.length;
+        while (!rowSingletons.isEmpty() || !columnSingletons.isEmpty()) {
+            while (!rowSingletons.isEmpty()) {
+                int r = rowSingletons.poll();
+                if (rowDone[r] || rowCount[r] != 1) {
+                    continue;
+                }
+                int column = -1;
+                for (int k = rowStart[r]; k < rowStart[r + 1]; k++) {
+                    if (!columnDone[rowColumns[k]]) {
+                        column = rowColumns[k];
+                    }
+                }
+                columns[front] = column;
+                rows[front++] = r;
+                columnDone[column] = true;
+                rowDone[r] = true;
+                for (int k = a.start[column]; k < a.start[column + 1]; k++) {
+                    int other = a.index[k];
+                    if (!rowDone[other] && --rowCount[other] == 1) {
+                        rowSingletons.add(other);
+                    }
+                }
+            }
+            while (!columnSingletons.isEmpty()) {
+                int column = columnSingletons.poll();
+                if (columnDone[column] || columnCount[column] != 1) {
+                    continue;
+                }
+                int r = -1;
+                for (int k = a.start[column]; k < a.start[column + 1]; k++) {
+                    if (!rowDone[a.index[k]]) {
+                        r = a.index[k];
+                    }
+                }
+                columns[--back] = column;
+                rows[back] = r;
+                columnDone[column] = true;
+                rowDone[r] = true;
+                for (int k = rowStart[r]; k < rowStart[r + 1]; k++) {
+                    int other = rowColumns[k];
+                    if (!columnDone[other]) {
+                        if (--columnCount[other] == 0) {
+                            return -1;
+                        }
+                        if (columnCount[other] == 1) {
+                            columnSingletons.add(other);
+                        }
+                    }
+                }
+            }
+        }
+
+        remaining.removeIf(column -> columnDone[column]);
+        remaining.sort((left, right) -> Integer.compare(columnCount[left], columnCount[right]));
+        int triangular = front;
+        for (int column : remaining) {
+            columns[front] = column;
+            rows[front++] = -1;
+        }
+        return triangular;
+    }
+
+    /**
+     * Pivot row for a bump column: among the free rows with an entry of at
+     * least a tenth of the largest, the one used by the fewest other columns.
+     */
+    private int bumpPivot(double[] alpha, boolean[] free, int[] rowCount) {
+        double largest = 0;
+        for (int i = 0; i < m; i++) {
+            if (free[i]) {
+                largest = Math.max(largest, Math.abs(alpha[i]));
+            }
+        }
+        if (largest <= PIVOT_TOLERANCE) {
+            return -1;
+        }
+        int best = -1;
+        for (int i = 0; i < m; i++) {
+            if (free[i] && Math.abs(alpha[i]) >= 0.1 * largest
+                && (best < 0 || rowCount[i] < rowCount[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Basis inverse in product form: {@code B^-1 = E_k ... E_1}, where each
+     * {@code E} is the identity except for one sparse column.
+     */
+    private static final class EtaFile {
+        private int[][] indices = new int[64][];
+        private double[][] values = new double[64][];
+        private int[] pivots = new int[64];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Append the eta column that pivots the dense column {@code alpha} on row {@code r}.
+         */
+        void add(int r, double[] alpha) {
+            int count = 0;
+            for (double entry : alpha) {
+                if (entry != 0) {
+                    count++;
+                }
+            }
+            int[] index = new int[count];
+            double[] value = new double[count];
+            int k = 0;
+            for (int i = 0; i < alpha.length; i++) {
+                if (alpha[i] != 0) {
+                    index[k] = i;
+                    value[k++] = alpha[i];
+                }
+            }
+            append(r, index, value);
+        }
+
+        /**
+         * Append the eta column that pivots the sparse column held in
+         * {@code index[from..to)} and {@code value[from..to)} on row {@code r}.
+         */
+        void add(int r, int[] index, double[] value, int from, int to) {
+            append(r, Arrays.copyOfRange(index, from, to), Arrays.copyOfRange(value, from, to));
+        }
+
+        private void append(int r, int[] index, double[] value) {
+            double pivot = 0;
+            for (int k = 0; k < index.length; k++) {
+                if (index[k] == r) {
+                    pivot = value[k];
+                }
+            }
+            for (int k = 0; k < index.length; k++) {
+                value[k] = index[k] == r ? 1 / pivot : -value[k] / pivot;
+            }
+            if (size == pivots.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+                pivots = Arrays.copyOf(pivots, size * 2);
+            }
+            indices[size] = index;
+            values[size] = value;
+            pivots[size++] = r;
+        }
+
+        /**
+         * {@code v = B^-1 v}, applying the oldest eta first.
+         */
+        void ftran(double[] v) {
+            for (int e = 0; e < size; e++) {
+                int r = pivots[e];
+                double pivotValue = v[r];
+                if (pivotValue == 0) {
+                    continue;
+                }
+                int[] index = indices[e];
+                double[] value = values[e];
+                for (int k = 0; k < index.length; k++) {
+                    if (index[k] == r) {
+                        v[r] = value[k] * pivotValue;
+                    } else {
+                        v[index[k]] += value[k] * pivotValue;
+                    }
+                }
+            }
+        }
+
+        /**
+         * {@code y = y B^-1}, applying the newest eta first.
+         */
+        void btran(double[] y) {
+            for (int e = size - 1; e >= 0; e--) {
+                int[] index = indices[e];
+                double[] value = values[e];
+                double sum = 0;
+                for (int k = 0; k < index.length; k++) {
+                    sum += value[k] * y[index[k]];
+                }
+                y[pivots[e]] = sum;
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.autoflex.planner;
+
+import com.autoflex.planner.BomSnapshot.BomLine;
+import com.autoflex.planner.BomSnapshot.ProductEntry;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reverse BOM: for every raw material, the products that consume it and how
+ * much one unit of each needs, sub-assemblies included. Built from a snapshot
+ * in one pass over its exploded requirements; products are listed in
+ * priority order.
+ *
+ * Instances are immutable. Stock does not affect the index, so it can be
+ * shared by snapshots that differ only in stock.
+ */
+public final class WhereUsedIndex {
+
+    private final Map<Long, List<Usage>> usages;
+
+    private WhereUsedIndex(Map<Long, List<Usage>> usages) {
+        this.usages = usages;
+    }
+
+    public static WhereUsedIndex of(BomSnapshot snapshot) {
+        Map<Long, List<Usage>> usages = new HashMap<>();
+        for (ProductEntry product : snapshot.products) {
+            Set<Long> direct = new HashSet<>();
+            for (BomLine line : product.lines) {
+                direct.add(line.rawMaterialId);
+            }
+            snapshot.explosion.requirements(product.id).forEach((rawMaterialId, required) ->
+                usages.computeIfAbsent(rawMaterialId, id -> new ArrayList<>())
+                    .add(new Usage(product, required, direct.contains(rawMaterialId))));
+        }
+        usages.replaceAll((id, list) -> Collections.unmodifiableList(list));
+        return new WhereUsedIndex(usages);
+    }
+
+    /**
+     * Products using the raw material, in priority order; empty if none does.
+     */
+    public List<Usage> usages(Long rawMaterialId) {
+        return usages.getOrDefault(rawMaterialId, List.of());
+    }
+
+    /**
+     * One product consuming a raw material.
+     */
+    public static final class Usage {
+        public final ProductEntry product;
+        /** Exact amount one unit of the product needs, through all of its sub-assemblies. */
+        public final BigDecimal requiredQuantity;
+        /** Whether the product has a BOM line of its own for the raw material. */
+        public final boolean direct;
+
+        Usage(ProductEntry product, BigDecimal requiredQuantity, boolean direct) {
+            this.product = product;
+            this.requiredQuantity = requiredQuantity;
+            this.direct = direct;
+        }
+
+        @Override
+        public String toString() {
+            return "Usage{" +
+                    "productId=" + product.id +
+                    ", requiredQuantity=" + requiredQuantity +
+                    ", direct=" + direct +
+                    '}';
+        }
+    }
+}
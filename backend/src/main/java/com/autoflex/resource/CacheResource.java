@@ -0,0 +1,38 @@
+package com.autoflex.resource;
+
+import com.autoflex.dto.CacheStatsDTO;
+import com.autoflex.service.BomSnapshotCache;
+import com.autoflex.service.EntityCacheService;
+import com.autoflex.service.ProductionService;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.jboss.logging.Logger;
+
+@Path("/api/cache")
+@Produces(MediaType.APPLICATION_JSON)
+public class CacheResource {
+
+    private static final Logger LOG = Logger.getLogger(CacheResource.class);
+
+    @Inject
+    BomSnapshotCache bomSnapshotCache;
+
+    @Inject
+    ProductionService productionService;
+
+    @Inject
+    EntityCacheService entityCacheService;
+
+    @GET
+    @Path("/stats")
+    public Response stats() {
+        LOG.debug("GET /api/cache/stats - Cache statistics");
+        CacheStatsDTO stats = new CacheStatsDTO(bomSnapshotCache.stats(), productionService.stats(),
+            entityCacheService.stats());
+        return Response.ok(stats).build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.autoflex.resource;
+
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Endpoints that use the database; each call holds a permit of
+ * {@link com.autoflex.service.DatabaseConcurrencyLimiter} while it runs.
+ */
+@InterceptorBinding
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DatabaseBound {
+}
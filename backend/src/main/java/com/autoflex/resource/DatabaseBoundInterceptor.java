@@ -0,0 +1,47 @@
+package com.autoflex.resource;
+
+import com.autoflex.metrics.StatementCounter;
+import com.autoflex.service.DatabaseConcurrencyLimiter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds a database permit while the endpoint runs and records how many SQL
+ * statements it prepared, per endpoint ({@code autoflex.db.statements}).
+ */
+@DatabaseBound
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class DatabaseBoundInterceptor {
+
+    @Inject
+    DatabaseConcurrencyLimiter limiter;
+
+    @Inject
+    MeterRegistry registry;
+
+    @AroundInvoke
+    Object limit(InvocationContext context) throws Exception {
+        return limiter.call(() -> {
+            AtomicInteger enclosing = StatementCounter.begin();
+            try {
+                return context.proceed();
+            } finally {
+                Method method = context.getMethod();
+                DistributionSummary.builder("autoflex.db.statements")
+                    .description("SQL statements prepared by one call of a database-bound endpoint")
+                    .tag("endpoint", method.getDeclaringClass().getSimpleName() + "." + method.getName())
+                    .register(registry)
+                    .record(StatementCounter.end(enclosing));
+            }
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package com.autoflex.resource;
+
+/**
+ * Body formats of the export endpoints.
+ */
+public enum ExportFormat {
+
+    /** Header line with the column names, then one comma-separated line per row. */
+    CSV("csv", "text/csv", "csv"),
+
+    /** One JSON object per line. */
+    NDJSON("ndjson", NdjsonWriter.MEDIA_TYPE, "ndjson"),
+
+    /** Binary, column by column in blocks of rows; see {@link ExportWriter}. */
+    COLUMNAR("columnar", "application/vnd.autoflex.columnar", "afc");
+
+    private final String param;
+    private final String mediaType;
+    private final String extension;
+
+    ExportFormat(String param, String mediaType, String extension) {
+        this.param = param;
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String param() {
+        return param;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public static ExportFormat fromParam(String param) {
+        for (ExportFormat format : values()) {
+            if (format.param.equalsIgnoreCase(param)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Invalid format: " + param
+            + " (expected csv, ndjson or columnar)");
+    }
+}
@@ -0,0 +1,129 @@
+package com.autoflex.resource;
+
+import com.autoflex.dto.BomLineDTO;
+import com.autoflex.dto.ProductDTO;
+import com.autoflex.dto.ProductionCalculationDTO.ProductionItemDTO;
+import com.autoflex.dto.RawMaterialDTO;
+import com.autoflex.planner.ProductionStrategy;
+import com.autoflex.service.ProductRawMaterialService;
+import com.autoflex.service.ProductService;
+import com.autoflex.service.ProductionService;
+import com.autoflex.service.ProductionService.CalculatedPlan;
+import com.autoflex.service.RawMaterialService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.jboss.logging.Logger;
+
+/**
+ * Full dumps of the catalogue and of the production plan for reporting, as
+ * CSV, NDJSON or the binary columnar format ({@code format} parameter).
+ * Catalogue rows are read a page at a time and written into the response as
+ * they arrive.
+ */
+@Path("/api/export")
+@Produces({"text/csv", NdjsonWriter.MEDIA_TYPE, "application/vnd.autoflex.columnar"})
+@RunOnVirtualThread
+@DatabaseBound
+public class ExportResource {
+
+    private static final Logger LOG = Logger.getLogger(ExportResource.class);
+
+    static final ExportTable<ProductDTO> PRODUCTS = new ExportTable<ProductDTO>("products")
+        .int64("id", product -> product.id)
+        .string("code", product -> product.code)
+        .string("name", product -> product.name)
+        .decimal("value", product -> product.value);
+
+    static final ExportTable<RawMaterialDTO> RAW_MATERIALS = new ExportTable<RawMaterialDTO>("raw-materials")
+        .int64("id", rawMaterial -> rawMaterial.id)
+        .string("code", rawMaterial -> rawMaterial.code)
+        .string("name", rawMaterial -> rawMaterial.name)
+        .decimal("stockQuantity", rawMaterial -> rawMaterial.stockQuantity);
+
+    static final ExportTable<BomLineDTO> BOM_LINES = new ExportTable<BomLineDTO>("bom-lines")
+        .string("productCode", line -> line.productCode)
+        .string("rawMaterialCode", line -> line.rawMaterialCode)
+        .decimal("requiredQuantity", line -> line.requiredQuantity);
+
+    static final ExportTable<ProductionItemDTO> PRODUCTION_PLAN = new ExportTable<ProductionItemDTO>("production-plan")
+        .int64("productId", item -> item.productId)
+        .string("productCode", item -> item.productCode)
+        .string("productName", item -> item.productName)
+        .decimal("unitValue", item -> item.unitValue)
+        .decimal("quantity", item -> item.quantity)
+        .decimal("totalValue", item -> item.totalValue);
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    RawMaterialService rawMaterialService;
+
+    @Inject
+    ProductRawMaterialService productRawMaterialService;
+
+    @Inject
+    ProductionService productionService;
+
+    @Inject
+    ExportWriter exportWriter;
+
+    @GET
+    @Path("/products")
+    public Response exportProducts(@QueryParam("format") @DefaultValue("csv") String formatParam) {
+        ExportFormat format = ExportFormat.fromParam(formatParam);
+        LOG.debug("GET /api/export/products - Export products (" + format.param() + ")");
+        return export(PRODUCTS, format, exportWriter.stream(PRODUCTS, format, productService::findPage));
+    }
+
+    @GET
+    @Path("/raw-materials")
+    public Response exportRawMaterials(@QueryParam("format") @DefaultValue("csv") String formatParam) {
+        ExportFormat format = ExportFormat.fromParam(formatParam);
+        LOG.debug("GET /api/export/raw-materials - Export raw materials (" + format.param() + ")");
+        return export(RAW_MATERIALS, format, exportWriter.stream(RAW_MATERIALS, format, rawMaterialService::findPage));
+    }
+
+    /**
+     * BOM lines by product and raw material code, in the shape
+     * {@code POST /api/product-raw-materials/bulk} accepts.
+     */
+    @GET
+    @Path("/bom-lines")
+    public Response exportBomLines(@QueryParam("format") @DefaultValue("csv") String formatParam) {
+        ExportFormat format = ExportFormat.fromParam(formatParam);
+        LOG.debug("GET /api/export/bom-lines - Export BOM lines (" + format.param() + ")");
+        return export(BOM_LINES, format,
+            exportWriter.stream(BOM_LINES, format, productRawMaterialService::findBomLinePage));
+    }
+
+    /**
+     * Items of the production plan of the given strategy. The plan is the
+     * one {@code GET /api/production/calculate} returns, already in memory;
+     * its items are written without copying them.
+     */
+    @GET
+    @Path("/production-plan")
+    public Response exportProductionPlan(@QueryParam("strategy") @DefaultValue("greedy") String strategyParam,
+                                         @QueryParam("format") @DefaultValue("csv") String formatParam) {
+        ProductionStrategy strategy = ProductionStrategy.fromParam(strategyParam);
+        ExportFormat format = ExportFormat.fromParam(formatParam);
+        LOG.debug("GET /api/export/production-plan - Export production plan (" + strategy.param()
+            + ", " + format.param() + ")");
+        CalculatedPlan plan = productionService.calculatePlan(strategy);
+        return export(PRODUCTION_PLAN, format, exportWriter.of(PRODUCTION_PLAN, format, plan.result.items));
+    }
+
+    private static Response export(ExportTable<?> table, ExportFormat format, StreamingOutput body) {
+        return Response.ok(body, format.mediaType())
+            .header("Content-Disposition", "attachment; filename=\"" + table.name() + "." + format.extension() + "\"")
+            .build();
+    }
+}
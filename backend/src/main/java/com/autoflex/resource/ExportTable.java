@@ -0,0 +1,67 @@
+package com.autoflex.resource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Columns of an export: a name, a type and how to read the value from a row.
+ * Values are read straight from the rows as they are written, so no
+ * intermediate representation of a row is built.
+ */
+public final class ExportTable<T> {
+
+    public enum Type {
+        INT64,
+        DECIMAL,
+        STRING
+    }
+
+    static final class Column<T> {
+        final String name;
+        final Type type;
+        final Function<T, ?> value;
+
+        Column(String name, Type type, Function<T, ?> value) {
+            this.name = name;
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+    private final String name;
+    private final List<Column<T>> columns = new ArrayList<>();
+
+    /**
+     * @param name base name of the exported file
+     */
+    public ExportTable(String name) {
+        this.name = name;
+    }
+
+    /** Column of numbers without a fractional part; never null. */
+    public ExportTable<T> int64(String column, Function<T, Long> value) {
+        columns.add(new Column<>(column, Type.INT64, value));
+        return this;
+    }
+
+    public ExportTable<T> decimal(String column, Function<T, BigDecimal> value) {
+        columns.add(new Column<>(column, Type.DECIMAL, value));
+        return this;
+    }
+
+    public ExportTable<T> string(String column, Function<T, String> value) {
+        columns.add(new Column<>(column, Type.STRING, value));
+        return this;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    List<Column<T>> columns() {
+        return Collections.unmodifiableList(columns);
+    }
+}
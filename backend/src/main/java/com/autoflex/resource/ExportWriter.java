@@ -0,0 +1,281 @@
+package com.autoflex.resource;
+
+import com.autoflex.resource.ExportTable.Column;
+import com.autoflex.service.DatabaseConcurrencyLimiter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Export response bodies, written row by row while the rows are produced.
+ * Each row is encoded directly into the output buffer, so memory use does not
+ * depend on the number of rows.
+ *
+ * The {@link ExportFormat#COLUMNAR} format stores each column of a block of
+ * rows together, so similar values sit next to each other and ids shrink to
+ * small deltas. Integers are varints (7 bits per byte, low bits first);
+ * signed ones are zigzag encoded first.
+ * <pre>
+ * "AFC1"                              magic
+ * varint column count, then per column: varint length and UTF-8 bytes of the name,
+ *                                     u8 type (0 INT64, 1 DECIMAL, 2 STRING)
+ * blocks of up to 4096 rows:          varint row count, then the values of each column in turn
+ *   INT64                             signed varint: difference from the previous value of the block (the first from 0)
+ *   DECIMAL                           i8 scale (-128 = null), signed varint unscaled value
+ *   STRING                            varint UTF-8 length + 1 (0 = null), the bytes
+ * varint 0                            end of the rows
+ * </pre>
+ */
+@ApplicationScoped
+public class ExportWriter {
+
+    static final byte[] COLUMNAR_MAGIC = {'A', 'F', 'C', '1'};
+    static final int COLUMNAR_BLOCK_ROWS = 4096;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    DatabaseConcurrencyLimiter limiter;
+
+    /**
+     * Body with every row of {@code source}, read when the body is written,
+     * after the resource method returned. Each page is read under its own
+     * database permit (see {@link KeysetPages}).
+     */
+    public <T> StreamingOutput stream(ExportTable<T> table, ExportFormat format, KeysetPages.Source<T> source) {
+        return output -> write(output, table, format, KeysetPages.of(limiter, source));
+    }
+
+    /**
+     * Body with the rows of {@code rows}, which are already in memory.
+     */
+    public <T> StreamingOutput of(ExportTable<T> table, ExportFormat format, Iterable<T> rows) {
+        return output -> write(output, table, format, rows::forEach);
+    }
+
+    private <T> void write(OutputStream output, ExportTable<T> table, ExportFormat format,
+                           Consumer<Consumer<T>> source) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(output, BUFFER_SIZE);
+        RowEncoder<T> encoder = switch (format) {
+            case CSV -> new CsvEncoder<>(table, buffered);
+            case NDJSON -> new NdjsonEncoder<>(table, objectMapper.getFactory().createGenerator(buffered));
+            case COLUMNAR -> new ColumnarEncoder<>(table, buffered);
+        };
+        try {
+            source.accept(row -> {
+                try {
+                    encoder.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        encoder.finish();
+        buffered.flush();
+    }
+
+    private interface RowEncoder<T> {
+        void write(T row) throws IOException;
+
+        /** Write whatever follows the last row and flush into the underlying stream. */
+        void finish() throws IOException;
+    }
+
+    private static final class CsvEncoder<T> implements RowEncoder<T> {
+        private final List<Column<T>> columns;
+        private final Writer writer;
+
+        CsvEncoder(ExportTable<T> table, OutputStream output) throws IOException {
+            this.columns = table.columns();
+            this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeField(columns.get(i).name);
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(T row) throws IOException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Column<T> column = columns.get(i);
+                Object value = column.value.apply(row);
+                if (value instanceof BigDecimal decimal) {
+                    writer.write(decimal.toPlainString());
+                } else if (value != null) {
+                    writeField(value.toString());
+                }
+            }
+            writer.write('\n');
+        }
+
+        /** Quoted if it contains a separator, quote or line break, with quotes doubled. */
+        private void writeField(String field) throws IOException {
+            if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0
+                    && field.indexOf('\r') < 0) {
+                writer.write(field);
+                return;
+            }
+            writer.write('"');
+            writer.write(field.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static final class NdjsonEncoder<T> implements RowEncoder<T> {
+        private final List<Column<T>> columns;
+        private final JsonGenerator generator;
+
+        NdjsonEncoder(ExportTable<T> table, JsonGenerator generator) {
+            this.columns = table.columns();
+            this.generator = generator;
+            // Rows are separated by the newline written after each of them
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(T row) throws IOException {
+            generator.writeStartObject();
+            for (Column<T> column : columns) {
+                Object value = column.value.apply(row);
+                generator.writeFieldName(column.name);
+                if (value == null) {
+                    generator.writeNull();
+                } else {
+                    switch (column.type) {
+                        case INT64 -> generator.writeNumber((Long) value);
+                        case DECIMAL -> generator.writeNumber((BigDecimal) value);
+                        case STRING -> generator.writeString((String) value);
+                    }
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class ColumnarEncoder<T> implements RowEncoder<T> {
+        private final List<Column<T>> columns;
+        private final OutputStream output;
+        private final List<T> block = new ArrayList<>(COLUMNAR_BLOCK_ROWS);
+
+        ColumnarEncoder(ExportTable<T> table, OutputStream output) throws IOException {
+            this.columns = table.columns();
+            this.output = output;
+            output.write(COLUMNAR_MAGIC);
+            writeVarint(columns.size());
+            for (Column<T> column : columns) {
+                byte[] name = column.name.getBytes(StandardCharsets.UTF_8);
+                writeVarint(name.length);
+                output.write(name);
+                output.write(column.type.ordinal());
+            }
+        }
+
+        @Override
+        public void write(T row) throws IOException {
+            block.add(row);
+            if (block.size() == COLUMNAR_BLOCK_ROWS) {
+                writeBlock();
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            writeVarint(block.size());
+            for (Column<T> column : columns) {
+                long previous = 0;
+                for (T row : block) {
+                    Object value = column.value.apply(row);
+                    switch (column.type) {
+                        case INT64 -> {
+                            long current = (Long) value;
+                            writeSignedVarint(current - previous);
+                            previous = current;
+                        }
+                        case DECIMAL -> writeDecimal((BigDecimal) value);
+                        case STRING -> writeString((String) value);
+                    }
+                }
+            }
+            block.clear();
+        }
+
+        private void writeDecimal(BigDecimal value) throws IOException {
+            if (value == null) {
+                output.write(Byte.MIN_VALUE);
+                return;
+            }
+            if (value.scale() <= Byte.MIN_VALUE || value.scale() > Byte.MAX_VALUE
+                    || value.unscaledValue().bitLength() > 63) {
+                throw new IllegalStateException("Decimal out of range for the columnar format: " + value);
+            }
+            output.write(value.scale());
+            writeSignedVarint(value.unscaledValue().longValue());
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1L);
+            output.write(bytes);
+        }
+
+        private void writeSignedVarint(long value) throws IOException {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                output.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            output.write((int) value);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!block.isEmpty()) {
+                writeBlock();
+            }
+            writeVarint(0);
+            output.flush();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.autoflex.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+/**
+ * Reads request bodies that are either a JSON array or newline-delimited JSON
+ * one item at a time, so bulk requests are never bound to a list in memory.
+ */
+@ApplicationScoped
+public class JsonItemReader {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Items of {@code body} in order. Malformed input surfaces as a runtime
+     * exception from the iterator when the offending item is reached.
+     */
+    public <T> Iterator<T> read(InputStream body, Class<T> type) {
+        try {
+            // A top-level array is unwrapped; otherwise values are read one after another
+            return objectMapper.readerFor(type).readValues(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
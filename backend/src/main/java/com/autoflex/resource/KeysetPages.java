@@ -0,0 +1,52 @@
+package com.autoflex.resource;
+
+import com.autoflex.dto.PageDTO;
+import com.autoflex.service.DatabaseConcurrencyLimiter;
+
+import java.util.function.Consumer;
+
+/**
+ * Reads a whole table for a streamed response one keyset page at a time.
+ * Each page is read holding a database permit, which is released again while
+ * the page is written out, so a slow client keeps neither a permit nor a
+ * cursor. Rows written between two pages may or may not be included.
+ */
+final class KeysetPages {
+
+    /** Rows read per database permit. */
+    static final int PAGE_SIZE = PageDTO.MAX_LIMIT;
+
+    /** Up to {@code limit} rows with an id greater than {@code after}, in id order. */
+    @FunctionalInterface
+    interface Source<T> {
+        PageDTO<T> page(long after, int limit);
+    }
+
+    private KeysetPages() {
+    }
+
+    /**
+     * Hands every row of {@code source} to its consumer, in id order.
+     */
+    static <T> Consumer<Consumer<T>> of(DatabaseConcurrencyLimiter limiter, Source<T> source) {
+        return action -> {
+            Long after = 0L;
+            while (after != null) {
+                PageDTO<T> page = read(limiter, source, after);
+                page.items.forEach(action);
+                after = page.nextAfter;
+            }
+        };
+    }
+
+    private static <T> PageDTO<T> read(DatabaseConcurrencyLimiter limiter, Source<T> source, long after) {
+        try {
+            return limiter.call(() -> source.page(after, PAGE_SIZE));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // Source.page declares no checked exceptions
+            throw new IllegalStateException(e);
+        }
+    }
+}
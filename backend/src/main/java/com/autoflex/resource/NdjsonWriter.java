@@ -0,0 +1,74 @@
+package com.autoflex.resource;
+
+import com.autoflex.service.DatabaseConcurrencyLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Newline-delimited JSON (one object per line) response bodies, written
+ * row by row while the rows are produced instead of serializing a list.
+ */
+@ApplicationScoped
+public class NdjsonWriter {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+    private static final MediaType NDJSON = MediaType.valueOf(MEDIA_TYPE);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    DatabaseConcurrencyLimiter limiter;
+
+    /**
+     * Whether the client prefers NDJSON: its most preferred acceptable media
+     * type is NDJSON itself, not a wildcard that JSON would satisfy as well.
+     */
+    public static boolean isRequested(HttpHeaders headers) {
+        List<MediaType> acceptable = headers.getAcceptableMediaTypes();
+        if (acceptable.isEmpty()) {
+            return false;
+        }
+        MediaType preferred = acceptable.get(0);
+        return !preferred.isWildcardType() && !preferred.isWildcardSubtype() && preferred.isCompatible(NDJSON);
+    }
+
+    /**
+     * Response body writing every row of {@code source} as one line, read
+     * when the body is written, after the resource method returned. Each page
+     * is read under its own database permit (see {@link KeysetPages}).
+     */
+    public <T> StreamingOutput stream(KeysetPages.Source<T> source) {
+        ObjectWriter writer = objectMapper.writer();
+        Consumer<Consumer<T>> rows = KeysetPages.of(limiter, source);
+        return output -> {
+            OutputStream buffered = new BufferedOutputStream(output, BUFFER_SIZE);
+            try {
+                rows.accept(row -> {
+                    try {
+                        buffered.write(writer.writeValueAsBytes(row));
+                        buffered.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            buffered.flush();
+        };
+    }
+}
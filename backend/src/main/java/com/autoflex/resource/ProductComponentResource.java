@@ -0,0 +1,82 @@
+package com.autoflex.resource;
+
+import com.autoflex.dto.ProductComponentDTO;
+import com.autoflex.service.ProductComponentService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+
+@Path("/api/product-components")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
+@DatabaseBound
+public class ProductComponentResource {
+
+    private static final Logger LOG = Logger.getLogger(ProductComponentResource.class);
+
+    @Inject
+    ProductComponentService productComponentService;
+
+    @GET
+    public Response findAll() {
+        LOG.debug("GET /api/product-components - Find all product components");
+        List<ProductComponentDTO> components = productComponentService.findAll();
+        return Response.ok(components).build();
+    }
+
+    @GET
+    @Path("/{id}")
+    public Response findById(@PathParam("id") Long id) {
+        validateId(id);
+        LOG.debug("GET /api/product-components/" + id);
+        ProductComponentDTO component = productComponentService.findById(id);
+        return Response.ok(component).build();
+    }
+
+    @GET
+    @Path("/product/{productId}")
+    public Response findByProductId(@PathParam("productId") Long productId) {
+        validateId(productId);
+        LOG.debug("GET /api/product-components/product/" + productId);
+        List<ProductComponentDTO> components = productComponentService.findByProductId(productId);
+        return Response.ok(components).build();
+    }
+
+    @POST
+    public Response create(@Valid ProductComponentDTO dto) {
+        LOG.debug("POST /api/product-components - Create product component: " + dto);
+        ProductComponentDTO created = productComponentService.create(dto);
+        return Response.status(Response.Status.CREATED).entity(created).build();
+    }
+
+    @PUT
+    @Path("/{id}")
+    public Response update(@PathParam("id") Long id, @Valid ProductComponentDTO dto) {
+        validateId(id);
+        LOG.debug("PUT /api/product-components/" + id + " - Update product component");
+        ProductComponentDTO updated = productComponentService.update(id, dto);
+        return Response.ok(updated).build();
+    }
+
+    @DELETE
+    @Path("/{id}")
+    public Response delete(@PathParam("id") Long id) {
+        validateId(id);
+        LOG.debug("DELETE /api/product-components/" + id);
+        productComponentService.delete(id);
+        return Response.noContent().build();
+    }
+
+    private void validateId(Long id) {
+        if (id == null || id <= 0) {
+            throw new IllegalArgumentException("Invalid id: must be a positive number");
+        }
+    }
+}
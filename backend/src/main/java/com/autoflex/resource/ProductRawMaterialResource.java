@@ -1,19 +1,32 @@
 package com.autoflex.resource;
 
+import com.autoflex.dto.BomLineDTO;
+import com.autoflex.dto.BulkResultDTO;
+import com.autoflex.dto.PageDTO;
 import com.autoflex.dto.ProductRawMaterialDTO;
+import com.autoflex.dto.WhereUsedDTO;
+import com.autoflex.dto.WhereUsedRequestDTO;
+import com.autoflex.service.BulkMode;
 import com.autoflex.service.ProductRawMaterialService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.jboss.logging.Logger;
 
+import java.io.InputStream;
 import java.util.List;
 
 @Path("/api/product-raw-materials")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
+@DatabaseBound
 public class ProductRawMaterialResource {
 
     private static final Logger LOG = Logger.getLogger(ProductRawMaterialResource.class);
@@ -21,11 +34,37 @@ public class ProductRawMaterialResource {
     @Inject
     ProductRawMaterialService productRawMaterialService;
 
+    @Inject
+    NdjsonWriter ndjsonWriter;
+
+    @Inject
+    JsonItemReader jsonItemReader;
+
+    /**
+     * Without parameters, all associations as one JSON array. With {@code limit}
+     * and/or {@code after}, one {@link PageDTO} of associations with an id greater
+     * than {@code after}. With {@code Accept: application/x-ndjson}, all
+     * associations streamed one per line.
+     */
     @GET
-    public Response findAll() {
+    @Produces({MediaType.APPLICATION_JSON, NdjsonWriter.MEDIA_TYPE})
+    public Response findAll(@QueryParam("limit") Integer limit,
+                            @QueryParam("after") Long after,
+                            @Context HttpHeaders headers) {
+        if (NdjsonWriter.isRequested(headers)) {
+            LOG.debug("GET /api/product-raw-materials - Stream all associations");
+            return Response.ok(ndjsonWriter.stream(productRawMaterialService::findPage), NdjsonWriter.MEDIA_TYPE).build();
+        }
+        if (limit != null || after != null) {
+            validatePage(limit, after);
+            LOG.debug("GET /api/product-raw-materials - Find associations after " + after + ", limit " + limit);
+            PageDTO<ProductRawMaterialDTO> page = productRawMaterialService.findPage(
+                after != null ? after : 0L, limit != null ? limit : PageDTO.DEFAULT_LIMIT);
+            return Response.ok(page, MediaType.APPLICATION_JSON).build();
+        }
         LOG.debug("GET /api/product-raw-materials - Find all associations");
         List<ProductRawMaterialDTO> associations = productRawMaterialService.findAll();
-        return Response.ok(associations).build();
+        return Response.ok(associations, MediaType.APPLICATION_JSON).build();
     }
 
     @GET
@@ -55,6 +94,18 @@ public class ProductRawMaterialResource {
         return Response.ok(associations).build();
     }
 
+    /**
+     * Products using any of the given raw materials, with their per-unit
+     * requirement, in one call. 404 if a raw material does not exist.
+     */
+    @POST
+    @Path("/where-used")
+    public Response whereUsed(@Valid @NotNull(message = "Request is required") WhereUsedRequestDTO request) {
+        LOG.debug("POST /api/product-raw-materials/where-used - " + request.rawMaterialIds.size() + " raw materials");
+        WhereUsedDTO result = productRawMaterialService.whereUsed(request.rawMaterialIds);
+        return Response.ok(result).build();
+    }
+
     @POST
     public Response create(@Valid ProductRawMaterialDTO dto) {
         LOG.debug("POST /api/product-raw-materials - Create association: " + dto);
@@ -62,6 +113,22 @@ public class ProductRawMaterialResource {
         return Response.status(Response.Status.CREATED).entity(created).build();
     }
 
+    /**
+     * Create and/or update BOM lines matched by product and raw material code. The body is a JSON
+     * array or NDJSON; each item gets its own result and failed items do not
+     * stop the others.
+     */
+    @POST
+    @Path("/bulk")
+    @Consumes({MediaType.APPLICATION_JSON, NdjsonWriter.MEDIA_TYPE})
+    public Response bulkWrite(@QueryParam("mode") @DefaultValue("upsert") String modeParam, InputStream body) {
+        BulkMode mode = BulkMode.fromParam(modeParam);
+        LOG.debug("POST /api/product-raw-materials/bulk - Bulk write BOM lines (" + mode.param() + ")");
+        BulkResultDTO result = productRawMaterialService.bulkWrite(jsonItemReader.read(body, BomLineDTO.class), mode);
+        LOG.debug("POST /api/product-raw-materials/bulk - " + result);
+        return Response.ok(result).build();
+    }
+
     @PUT
     @Path("/{id}")
     public Response update(@PathParam("id") Long id, @Valid ProductRawMaterialDTO dto) {
@@ -80,6 +147,15 @@ public class ProductRawMaterialResource {
         return Response.noContent().build();
     }
 
+    private void validatePage(Integer limit, Long after) {
+        if (limit != null && (limit < 1 || limit > PageDTO.MAX_LIMIT)) {
+            throw new IllegalArgumentException("Invalid limit: must be between 1 and " + PageDTO.MAX_LIMIT);
+        }
+        if (after != null && after < 0) {
+            throw new IllegalArgumentException("Invalid after: must not be negative");
+        }
+    }
+
     private void validateId(Long id) {
         if (id == null || id <= 0) {
             throw new IllegalArgumentException("Invalid id: must be a positive number");
@@ -1,19 +1,28 @@
 package com.autoflex.resource;
 
+import com.autoflex.dto.BulkResultDTO;
+import com.autoflex.dto.PageDTO;
 import com.autoflex.dto.ProductDTO;
+import com.autoflex.service.BulkMode;
 import com.autoflex.service.ProductService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.jboss.logging.Logger;
 
+import java.io.InputStream;
 import java.util.List;
 
 @Path("/api/products")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
+@DatabaseBound
 public class ProductResource {
 
     private static final Logger LOG = Logger.getLogger(ProductResource.class);
@@ -21,11 +30,37 @@ public class ProductResource {
     @Inject
     ProductService productService;
 
+    @Inject
+    NdjsonWriter ndjsonWriter;
+
+    @Inject
+    JsonItemReader jsonItemReader;
+
+    /**
+     * Without parameters, all products as one JSON array. With {@code limit}
+     * and/or {@code after}, one {@link PageDTO} of products with an id greater
+     * than {@code after}. With {@code Accept: application/x-ndjson}, all
+     * products streamed one per line.
+     */
     @GET
-    public Response findAll() {
+    @Produces({MediaType.APPLICATION_JSON, NdjsonWriter.MEDIA_TYPE})
+    public Response findAll(@QueryParam("limit") Integer limit,
+                            @QueryParam("after") Long after,
+                            @Context HttpHeaders headers) {
+        if (NdjsonWriter.isRequested(headers)) {
+            LOG.debug("GET /api/products - Stream all products");
+            return Response.ok(ndjsonWriter.stream(productService::findPage), NdjsonWriter.MEDIA_TYPE).build();
+        }
+        if (limit != null || after != null) {
+            validatePage(limit, after);
+            LOG.debug("GET /api/products - Find products after " + after + ", limit " + limit);
+            PageDTO<ProductDTO> page = productService.findPage(
+                after != null ? after : 0L, limit != null ? limit : PageDTO.DEFAULT_LIMIT);
+            return Response.ok(page, MediaType.APPLICATION_JSON).build();
+        }
         LOG.debug("GET /api/products - Find all products");
         List<ProductDTO> products = productService.findAll();
-        return Response.ok(products).build();
+        return Response.ok(products, MediaType.APPLICATION_JSON).build();
     }
 
     @GET
@@ -52,6 +87,22 @@ public class ProductResource {
         return Response.status(Response.Status.CREATED).entity(created).build();
     }
 
+    /**
+     * Create and/or update products matched by code. The body is a JSON
+     * array or NDJSON; each item gets its own result and failed items do not
+     * stop the others.
+     */
+    @POST
+    @Path("/bulk")
+    @Consumes({MediaType.APPLICATION_JSON, NdjsonWriter.MEDIA_TYPE})
+    public Response bulkWrite(@QueryParam("mode") @DefaultValue("upsert") String modeParam, InputStream body) {
+        BulkMode mode = BulkMode.fromParam(modeParam);
+        LOG.debug("POST /api/products/bulk - Bulk write products (" + mode.param() + ")");
+        BulkResultDTO result = productService.bulkWrite(jsonItemReader.read(body, ProductDTO.class), mode);
+        LOG.debug("POST /api/products/bulk - " + result);
+        return Response.ok(result).build();
+    }
+
     @PUT
     @Path("/{id}")
     public Response update(@PathParam("id") Long id, @Valid ProductDTO dto) {
@@ -70,6 +121,15 @@ public class ProductResource {
         return Response.noContent().build();
     }
 
+    private void validatePage(Integer limit, Long after) {
+        if (limit != null && (limit < 1 || limit > PageDTO.MAX_LIMIT)) {
+            throw new IllegalArgumentException("Invalid limit: must be between 1 and " + PageDTO.MAX_LIMIT);
+        }
+        if (after != null && after < 0) {
+            throw new IllegalArgumentException("Invalid after: must not be negative");
+        }
+    }
+
     private void validateId(Long id) {
         if (id == null || id <= 0) {
             throw new IllegalArgumentException("Invalid id: must be a positive number");
@@ -0,0 +1,311 @@
+package com.autoflex.resource;
+
+import com.autoflex.dto.ProductionCalculationDTO.ProductionItemDTO;
+import com.autoflex.dto.ProductionPlanUpdateDTO;
+import com.autoflex.event.CatalogChange;
+import com.autoflex.event.ReservationChange;
+import com.autoflex.planner.ProductionStrategy;
+import com.autoflex.service.DatabaseConcurrencyLimiter;
+import com.autoflex.service.ProductionService;
+import com.autoflex.service.ProductionService.CalculatedPlan;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.RequestContextController;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Subscribers of {@code GET /api/production/stream}, per strategy, and the
+ * plan updates pushed to them.
+ *
+ * Committed catalogue changes and reservation changes are coalesced: the plan
+ * is recomputed once the changes have been quiet for
+ * {@code autoflex.production.stream.debounce}, or at the latest
+ * {@code max-delay} after the first change of the burst, and only for strategies that have subscribers. Every subscriber then gets the
+ * same difference from the previous plan, serialized once.
+ */
+@ApplicationScoped
+public class ProductionPlanStream {
+
+    private static final Logger LOG = Logger.getLogger(ProductionPlanStream.class);
+
+    @Inject
+    ProductionService productionService;
+
+    @Inject
+    DatabaseConcurrencyLimiter limiter;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    RequestContextController requestContext;
+
+    @ConfigProperty(name = "autoflex.production.stream.debounce", defaultValue = "250ms")
+    Duration debounce;
+
+    @ConfigProperty(name = "autoflex.production.stream.max-delay", defaultValue = "2s")
+    Duration maxDelay;
+
+    /** Interval of the comments that keep idle connections open and detect gone subscribers. */
+    @ConfigProperty(name = "autoflex.production.stream.keep-alive", defaultValue = "30s")
+    Duration keepAlive;
+
+    private final Map<ProductionStrategy, Channel> channels = new EnumMap<>(ProductionStrategy.class);
+    private ScheduledExecutorService scheduler;
+    private volatile Sse sse;
+    private Counter recomputations;
+
+    private final Object burstLock = new Object();
+    private long burstStartNanos;
+    private long lastChangeNanos;
+    private ScheduledFuture<?> pendingRefresh;
+
+    @PostConstruct
+    void start() {
+        for (ProductionStrategy strategy : ProductionStrategy.values()) {
+            channels.put(strategy, new Channel(strategy));
+        }
+        // One thread, so refreshes never overlap and updates leave in version order
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "production-plan-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sendKeepAlive,
+            keepAlive.toMillis(), keepAlive.toMillis(), TimeUnit.MILLISECONDS);
+        Gauge.builder("autoflex.production.stream.subscribers", this, ProductionPlanStream::subscriberCount)
+            .description("Open GET /api/production/stream connections")
+            .register(registry);
+        recomputations = Counter.builder("autoflex.production.stream.recomputations")
+            .description("Plans recomputed for stream subscribers, one per burst of catalogue changes and strategy")
+            .register(registry);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+        for (Channel channel : channels.values()) {
+            channel.sinks.forEach(SseEventSink::close);
+            channel.sinks.clear();
+        }
+    }
+
+    /**
+     * Send the current plan of {@code strategy} to {@code sink} and keep
+     * sending it the updates. Runs on the request thread, which holds a
+     * database permit in case the plan needs to be computed.
+     */
+    public void subscribe(ProductionStrategy strategy, SseEventSink sink, Sse sse) {
+        this.sse = sse;
+        Channel channel = channels.get(strategy);
+        channel.lock.lock();
+        try {
+            CalculatedPlan plan = productionService.calculatePlan(strategy);
+            // Bring the other subscribers to the same version before the newcomer joins
+            channel.publish(plan);
+            ProductionPlanUpdateDTO full = new ProductionPlanUpdateDTO(plan.version, plan.reservationVersion,
+                strategy.param(), plan.result.totalValue);
+            full.items.addAll(plan.result.items);
+            send(channel, sink, event("plan", full));
+            channel.sinks.add(sink);
+        } finally {
+            channel.lock.unlock();
+        }
+        LOG.debug("Production stream subscriber added (" + strategy.param() + "), "
+            + channel.sinks.size() + " subscribed");
+    }
+
+    void onCommittedChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChange change) {
+        scheduleRefresh();
+    }
+
+    void onReservationChange(@Observes ReservationChange change) {
+        scheduleRefresh();
+    }
+
+    private void scheduleRefresh() {
+        if (subscriberCount() == 0) {
+            // Nobody to update; a new subscriber computes the current plan itself
+            return;
+        }
+        synchronized (burstLock) {
+            long now = System.nanoTime();
+            lastChangeNanos = now;
+            if (pendingRefresh == null) {
+                burstStartNanos = now;
+                pendingRefresh = scheduler.schedule(this::endOfBurst, debounce.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void endOfBurst() {
+        synchronized (burstLock) {
+            long now = System.nanoTime();
+            long quietFor = now - lastChangeNanos;
+            long burstAge = now - burstStartNanos;
+            if (quietFor < debounce.toNanos() && burstAge < maxDelay.toNanos()) {
+                long wait = Math.min(debounce.toNanos() - quietFor, maxDelay.toNanos() - burstAge);
+                pendingRefresh = scheduler.schedule(this::endOfBurst, wait, TimeUnit.NANOSECONDS);
+                return;
+            }
+            // Changes from now on start the next burst, refreshed after this one
+            pendingRefresh = null;
+        }
+        for (Channel channel : channels.values()) {
+            if (!channel.sinks.isEmpty()) {
+                refresh(channel);
+            }
+        }
+    }
+
+    private void refresh(Channel channel) {
+        channel.lock.lock();
+        // Incremental snapshot refreshes read the stock outside a transaction
+        requestContext.activate();
+        try {
+            CalculatedPlan plan = limiter.call(() -> productionService.calculatePlan(channel.strategy));
+            recomputations.increment();
+            channel.publish(plan);
+        } catch (Exception e) {
+            LOG.warn("Production stream refresh failed (" + channel.strategy.param() + "), retrying: " + e);
+            scheduleRefresh();
+        } finally {
+            requestContext.deactivate();
+            channel.lock.unlock();
+        }
+    }
+
+    private void sendKeepAlive() {
+        Sse current = sse;
+        if (current == null) {
+            return;
+        }
+        OutboundSseEvent comment = current.newEventBuilder().comment("keep-alive").build();
+        for (Channel channel : channels.values()) {
+            channel.sinks.forEach(sink -> send(channel, sink, comment));
+        }
+    }
+
+    private int subscriberCount() {
+        return channels.values().stream().mapToInt(channel -> channel.sinks.size()).sum();
+    }
+
+    private OutboundSseEvent event(String name, ProductionPlanUpdateDTO update) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(update);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + update, e);
+        }
+        // Already JSON text, written as is
+        return sse.newEventBuilder()
+            .name(name)
+            .id(update.version + "-" + update.reservationVersion)
+            .data(data)
+            .build();
+    }
+
+    private static void send(Channel channel, SseEventSink sink, OutboundSseEvent event) {
+        if (sink.isClosed()) {
+            channel.sinks.remove(sink);
+            return;
+        }
+        sink.send(event).whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                LOG.debug("Production stream subscriber gone: " + failure);
+                channel.sinks.remove(sink);
+                sink.close();
+            }
+        });
+    }
+
+    /**
+     * New and changed items of {@code next}, and the products of
+     * {@code previous} that are no longer in the plan.
+     */
+    static ProductionPlanUpdateDTO diff(CalculatedPlan previous, CalculatedPlan next) {
+        ProductionPlanUpdateDTO update = new ProductionPlanUpdateDTO(next.version, next.reservationVersion,
+            next.strategy.param(), next.result.totalValue);
+        Map<Long, ProductionItemDTO> before = new HashMap<>();
+        for (ProductionItemDTO item : previous.result.items) {
+            before.put(item.productId, item);
+        }
+        for (ProductionItemDTO item : next.result.items) {
+            ProductionItemDTO old = before.remove(item.productId);
+            if (old == null || !sameItem(old, item)) {
+                update.items.add(item);
+            }
+        }
+        update.removedProductIds.addAll(before.keySet());
+        return update;
+    }
+
+    private static boolean sameItem(ProductionItemDTO a, ProductionItemDTO b) {
+        return a.quantity.compareTo(b.quantity) == 0
+            && a.unitValue.compareTo(b.unitValue) == 0
+            && Objects.equals(a.productCode, b.productCode)
+            && Objects.equals(a.productName, b.productName);
+    }
+
+    private final class Channel {
+        final ProductionStrategy strategy;
+        final Set<SseEventSink> sinks = ConcurrentHashMap.newKeySet();
+        /** Held while computing and sending, so subscribers see the versions in order and none is missed. */
+        final ReentrantLock lock = new ReentrantLock();
+        /** Plan of the last event sent to the subscribers. */
+        CalculatedPlan last;
+
+        Channel(ProductionStrategy strategy) {
+            this.strategy = strategy;
+        }
+
+        void publish(CalculatedPlan plan) {
+            CalculatedPlan previous = last;
+            if (previous != null && (plan == previous || !plan.isAtLeast(previous))) {
+                return;
+            }
+            last = plan;
+            if (previous == null || sinks.isEmpty()) {
+                return;
+            }
+            ProductionPlanUpdateDTO update = diff(previous, plan);
+            if (update.items.isEmpty() && update.removedProductIds.isEmpty()
+                && update.totalValue.compareTo(previous.result.totalValue) == 0) {
+                // The changes did not affect this plan
+                return;
+            }
+            OutboundSseEvent event = event("update", update);
+            sinks.forEach(sink -> send(this, sink, event));
+            LOG.debug("Production stream update sent to " + sinks.size() + " subscribers: " + update);
+        }
+    }
+}
@@ -1,29 +1,156 @@
 package com.autoflex.resource;
 
-import com.autoflex.dto.ProductionCalculationDTO;
+import com.autoflex.dto.ProductionAnalysisDTO;
+import com.autoflex.dto.ProductionRunDTO;
+import com.autoflex.dto.ProductionRunResultDTO;
+import com.autoflex.dto.SimulationRequestDTO;
+import com.autoflex.dto.SimulationResultDTO;
+import com.autoflex.planner.ProductionStrategy;
+import com.autoflex.service.ProductionRunService;
 import com.autoflex.service.ProductionService;
+import com.autoflex.service.ProductionSimulationService;
+import com.autoflex.service.ProductionService.CalculatedPlan;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import org.jboss.logging.Logger;
 
+import java.security.SecureRandom;
+
 @Path("/api/production")
 @Produces(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class ProductionResource {
 
     private static final Logger LOG = Logger.getLogger(ProductionResource.class);
 
+    // Versions restart at zero with the process; the epoch keeps old tags from matching
+    private static final String ETAG_EPOCH = Long.toHexString(new SecureRandom().nextLong());
+
     @Inject
     ProductionService productionService;
 
+    @Inject
+    ProductionRunService productionRunService;
+
+    @Inject
+    ProductionSimulationService productionSimulationService;
+
+    @Inject
+    ProductionPlanStream planStream;
+
     @GET
     @Path("/calculate")
-    public Response calculateProduction() {
-        LOG.debug("GET /api/production/calculate - Calculate production");
-        ProductionCalculationDTO result = productionService.calculateProduction();
+    public Response calculateProduction(@QueryParam("strategy") @DefaultValue("greedy") String strategyParam,
+                                        @Context Request request) {
+        ProductionStrategy strategy = ProductionStrategy.fromParam(strategyParam);
+        LOG.debug("GET /api/production/calculate - Calculate production (" + strategy.param() + ")");
+
+        // Answer revalidations from the versions alone, without a database permit
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(
+            planTag(productionService.currentVersion(), productionService.currentReservationVersion(), strategy));
+        if (notModified != null) {
+            return notModified.cacheControl(revalidate()).build();
+        }
+
+        CalculatedPlan plan = calculateProduction(strategy);
+        Response.ResponseBuilder response = Response.ok(plan.result).cacheControl(revalidate());
+        // A plan cut short by the time budget gets no tag, so it is never revalidated as current
+        if (!Boolean.FALSE.equals(plan.result.optimal)) {
+            response.tag(planTag(plan.version, plan.reservationVersion, strategy));
+        }
+        return response.build();
+    }
+
+    @DatabaseBound
+    CalculatedPlan calculateProduction(ProductionStrategy strategy) {
+        return productionService.calculatePlan(strategy);
+    }
+
+    /**
+     * Server-sent events with the plan of the given strategy: a {@code plan}
+     * event with every item, then an {@code update} event with the changed
+     * items after each burst of catalogue changes (see {@link ProductionPlanStream}).
+     */
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @DatabaseBound
+    public void streamProduction(@QueryParam("strategy") @DefaultValue("greedy") String strategyParam,
+                                 @Context SseEventSink sink, @Context Sse sse) {
+        ProductionStrategy strategy = ProductionStrategy.fromParam(strategyParam);
+        LOG.debug("GET /api/production/stream - Subscribe to production plan (" + strategy.param() + ")");
+        planStream.subscribe(strategy, sink, sse);
+    }
+
+    /**
+     * Bottleneck raw material per produced item, leftover stock and shadow
+     * price per raw material, for the plan of the given strategy.
+     */
+    @GET
+    @Path("/analysis")
+    @DatabaseBound
+    public Response analyzeProduction(@QueryParam("strategy") @DefaultValue("greedy") String strategyParam) {
+        ProductionStrategy strategy = ProductionStrategy.fromParam(strategyParam);
+        LOG.debug("GET /api/production/analysis - Analyze production (" + strategy.param() + ")");
+        ProductionAnalysisDTO analysis = productionService.analyze(strategy);
+        return Response.ok(analysis).build();
+    }
+
+    /**
+     * Take the raw materials consumed by the given product quantities out of
+     * stock, all or nothing: 409 if any raw material has too little left.
+     */
+    @POST
+    @Path("/runs")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @DatabaseBound
+    public Response commitRun(@Valid @NotNull(message = "Production run is required") ProductionRunDTO run) {
+        LOG.debug("POST /api/production/runs - Commit production run: " + run);
+        ProductionRunResultDTO result = productionRunService.commit(run);
         return Response.ok(result).build();
     }
+
+    /**
+     * Plan hypothetical stock and price changes without writing anything;
+     * one production plan per scenario. Takes a database permit only while
+     * loading the snapshot (see {@link ProductionSimulationService}).
+     */
+    @POST
+    @Path("/simulate")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response simulate(@QueryParam("strategy") @DefaultValue("greedy") String strategyParam,
+                             @Valid @NotNull(message = "Simulation request is required") SimulationRequestDTO request) {
+        ProductionStrategy strategy = ProductionStrategy.fromParam(strategyParam);
+        LOG.debug("POST /api/production/simulate - Simulate " + request.scenarios.size()
+            + " scenarios (" + strategy.param() + ")");
+        SimulationResultDTO result = productionSimulationService.simulate(request, strategy);
+        return Response.ok(result).build();
+    }
+
+    private static EntityTag planTag(long version, long reservationVersion, ProductionStrategy strategy) {
+        return new EntityTag(ETAG_EPOCH + "-" + version + "-" + reservationVersion + "-" + strategy.param());
+    }
+
+    private static CacheControl revalidate() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        return cacheControl;
+    }
 }
@@ -1,19 +1,30 @@
 package com.autoflex.resource;
 
+import com.autoflex.dto.BulkResultDTO;
+import com.autoflex.dto.PageDTO;
 import com.autoflex.dto.RawMaterialDTO;
+import com.autoflex.dto.StockImportResultDTO;
+import com.autoflex.service.BulkMode;
 import com.autoflex.service.RawMaterialService;
+import com.autoflex.service.StockImportService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.jboss.logging.Logger;
 
+import java.io.InputStream;
 import java.util.List;
 
 @Path("/api/raw-materials")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
+@DatabaseBound
 public class RawMaterialResource {
 
     private static final Logger LOG = Logger.getLogger(RawMaterialResource.class);
@@ -21,11 +32,43 @@ public class RawMaterialResource {
     @Inject
     RawMaterialService rawMaterialService;
 
+    @Inject
+    NdjsonWriter ndjsonWriter;
+
+    @Inject
+    JsonItemReader jsonItemReader;
+
+    @Inject
+    StockImportService stockImportService;
+
+    @Inject
+    StockCountReader stockCountReader;
+
+    /**
+     * Without parameters, all raw materials as one JSON array. With {@code limit}
+     * and/or {@code after}, one {@link PageDTO} of raw materials with an id greater
+     * than {@code after}. With {@code Accept: application/x-ndjson}, all
+     * raw materials streamed one per line.
+     */
     @GET
-    public Response findAll() {
+    @Produces({MediaType.APPLICATION_JSON, NdjsonWriter.MEDIA_TYPE})
+    public Response findAll(@QueryParam("limit") Integer limit,
+                            @QueryParam("after") Long after,
+                            @Context HttpHeaders headers) {
+        if (NdjsonWriter.isRequested(headers)) {
+            LOG.debug("GET /api/raw-materials - Stream all raw materials");
+            return Response.ok(ndjsonWriter.stream(rawMaterialService::findPage), NdjsonWriter.MEDIA_TYPE).build();
+        }
+        if (limit != null || after != null) {
+            validatePage(limit, after);
+            LOG.debug("GET /api/raw-materials - Find raw materials after " + after + ", limit " + limit);
+            PageDTO<RawMaterialDTO> page = rawMaterialService.findPage(
+                after != null ? after : 0L, limit != null ? limit : PageDTO.DEFAULT_LIMIT);
+            return Response.ok(page, MediaType.APPLICATION_JSON).build();
+        }
         LOG.debug("GET /api/raw-materials - Find all raw materials");
         List<RawMaterialDTO> rawMaterials = rawMaterialService.findAll();
-        return Response.ok(rawMaterials).build();
+        return Response.ok(rawMaterials, MediaType.APPLICATION_JSON).build();
     }
 
     @GET
@@ -52,6 +95,39 @@ public class RawMaterialResource {
         return Response.status(Response.Status.CREATED).entity(created).build();
     }
 
+    /**
+     * Create and/or update raw materials matched by code. The body is a JSON
+     * array or NDJSON; each item gets its own result and failed items do not
+     * stop the others.
+     */
+    @POST
+    @Path("/bulk")
+    @Consumes({MediaType.APPLICATION_JSON, NdjsonWriter.MEDIA_TYPE})
+    public Response bulkWrite(@QueryParam("mode") @DefaultValue("upsert") String modeParam, InputStream body) {
+        BulkMode mode = BulkMode.fromParam(modeParam);
+        LOG.debug("POST /api/raw-materials/bulk - Bulk write raw materials (" + mode.param() + ")");
+        BulkResultDTO result = rawMaterialService.bulkWrite(jsonItemReader.read(body, RawMaterialDTO.class), mode);
+        LOG.debug("POST /api/raw-materials/bulk - " + result);
+        return Response.ok(result).build();
+    }
+
+    /**
+     * Apply a full stock count from the warehouse system: CSV with a header
+     * naming the {@code code} and {@code stockQuantity} columns, or NDJSON
+     * objects with those fields. The body is read as it arrives; only counts
+     * that differ from the recorded stock are written.
+     */
+    @POST
+    @Path("/stock-import")
+    @Consumes({StockCountReader.CSV, NdjsonWriter.MEDIA_TYPE})
+    public Response importStock(@Context HttpHeaders headers, InputStream body) {
+        LOG.debug("POST /api/raw-materials/stock-import - Import stock counts (" + headers.getMediaType() + ")");
+        StockImportResultDTO result = stockImportService.importStock(
+            stockCountReader.read(body, headers.getMediaType()));
+        LOG.debug("POST /api/raw-materials/stock-import - " + result);
+        return Response.ok(result).build();
+    }
+
     @PUT
     @Path("/{id}")
     public Response update(@PathParam("id") Long id, @Valid RawMaterialDTO dto) {
@@ -70,6 +146,15 @@ public class RawMaterialResource {
         return Response.noContent().build();
     }
 
+    private void validatePage(Integer limit, Long after) {
+        if (limit != null && (limit < 1 || limit > PageDTO.MAX_LIMIT)) {
+            throw new IllegalArgumentException("Invalid limit: must be between 1 and " + PageDTO.MAX_LIMIT);
+        }
+        if (after != null && after < 0) {
+            throw new IllegalArgumentException("Invalid after: must not be negative");
+        }
+    }
+
     private void validateId(Long id) {
         if (id == null || id <= 0) {
             throw new IllegalArgumentException("Invalid id: must be a positive number");
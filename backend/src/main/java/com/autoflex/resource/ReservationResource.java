@@ -0,0 +1,76 @@
+package com.autoflex.resource;
+
+import com.autoflex.dto.ProductionRunResultDTO;
+import com.autoflex.dto.ReservationDTO;
+import com.autoflex.dto.ReservationRequestDTO;
+import com.autoflex.service.ReservationService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.jboss.logging.Logger;
+
+/**
+ * Stock reservations for planned runs. Confirming uses the database;
+ * reserving, reading and releasing work on the in-memory ledger, so they
+ * do not take a database permit, unless a reservation has to refresh the
+ * catalogue snapshot first (see {@link ReservationService}).
+ */
+@Path("/api/reservations")
+@Produces(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
+public class ReservationResource {
+
+    private static final Logger LOG = Logger.getLogger(ReservationResource.class);
+
+    @Inject
+    ReservationService reservationService;
+
+    /**
+     * Hold the raw materials a run of the given product quantities would
+     * consume: 409 if any of them has too little unheld stock left.
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response reserve(@Valid @NotNull(message = "Reservation is required") ReservationRequestDTO request) {
+        LOG.debug("POST /api/reservations - Reserve: " + request);
+        ReservationDTO reservation = reservationService.reserve(request);
+        return Response.status(Response.Status.CREATED).entity(reservation).build();
+    }
+
+    @GET
+    @Path("/{id}")
+    public Response findById(@PathParam("id") String id) {
+        LOG.debug("GET /api/reservations/" + id);
+        return Response.ok(reservationService.findById(id)).build();
+    }
+
+    /**
+     * Commit the reserved run, taking the held stock out of stock.
+     */
+    @POST
+    @Path("/{id}/confirm")
+    @DatabaseBound
+    public Response confirm(@PathParam("id") String id) {
+        LOG.debug("POST /api/reservations/" + id + "/confirm");
+        ProductionRunResultDTO result = reservationService.confirm(id);
+        return Response.ok(result).build();
+    }
+
+    @DELETE
+    @Path("/{id}")
+    public Response release(@PathParam("id") String id) {
+        LOG.debug("DELETE /api/reservations/" + id);
+        reservationService.release(id);
+        return Response.noContent().build();
+    }
+}
@@ -0,0 +1,199 @@
+package com.autoflex.resource;
+
+import com.autoflex.dto.StockCountDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads stock count rows from CSV or NDJSON request bodies one line at a
+ * time, so an import never holds more than one row of the body in memory.
+ *
+ * CSV bodies start with a header naming the {@code code} and
+ * {@code stockQuantity} columns, in any order and among any others. NDJSON
+ * bodies have one object with those fields per line. A row that cannot be
+ * parsed is returned with its {@link StockCountDTO#error} set, and reading
+ * goes on with the next line.
+ */
+@ApplicationScoped
+public class StockCountReader {
+
+    public static final String CSV = "text/csv";
+    private static final MediaType CSV_TYPE = MediaType.valueOf(CSV);
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Rows of {@code body}, a CSV body if {@code type} is {@code text/csv} and NDJSON otherwise.
+     *
+     * @throws IllegalArgumentException if a CSV header lacks the code or stockQuantity column
+     */
+    public Iterator<StockCountDTO> read(InputStream body, MediaType type) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        if (type != null && type.isCompatible(CSV_TYPE)) {
+            return new CsvRows(reader);
+        }
+        ObjectReader json = objectMapper.readerFor(StockCountDTO.class);
+        return new LineRows(reader) {
+            @Override
+            StockCountDTO parse(String line) {
+                StockCountDTO row;
+                try {
+                    row = json.readValue(line);
+                } catch (JsonProcessingException e) {
+                    row = new StockCountDTO();
+                    row.error = "Malformed JSON: " + e.getOriginalMessage();
+                }
+                if (row == null) {
+                    row = new StockCountDTO();
+                    row.error = "Row must be a JSON object";
+                }
+                return row;
+            }
+        };
+    }
+
+    /**
+     * Non-blank lines of a body, each parsed into a row tagged with its line number.
+     */
+    private abstract static class LineRows implements Iterator<StockCountDTO> {
+        private final BufferedReader reader;
+        private int lineNumber;
+        private StockCountDTO next;
+
+        LineRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        abstract StockCountDTO parse(String line);
+
+        /** Next non-blank line, or {@code null} at the end of the body. */
+        String nextLine() {
+            try {
+                String line;
+                do {
+                    line = reader.readLine();
+                    lineNumber++;
+                } while (line != null && line.isBlank());
+                return line;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                String line = nextLine();
+                if (line != null) {
+                    next = parse(line);
+                    next.line = lineNumber;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public StockCountDTO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            StockCountDTO row = next;
+            next = null;
+            return row;
+        }
+    }
+
+    private static final class CsvRows extends LineRows {
+        private final int codeColumn;
+        private final int quantityColumn;
+        private final int columns;
+
+        CsvRows(BufferedReader reader) {
+            super(reader);
+            String header = nextLine();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV body is empty; expected a header with code and stockQuantity");
+            }
+            // A byte order mark left by spreadsheet exports would stick to the first column name
+            List<String> names = fields(header.startsWith("\uFEFF") ? header.substring(1) : header);
+            List<String> normalized = names.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+            codeColumn = normalized.indexOf("code");
+            quantityColumn = normalized.indexOf("stockquantity");
+            if (codeColumn < 0 || quantityColumn < 0) {
+                throw new IllegalArgumentException("CSV header must name the code and stockQuantity columns, got: " + header);
+            }
+            columns = Math.max(codeColumn, quantityColumn) + 1;
+        }
+
+        @Override
+        StockCountDTO parse(String line) {
+            List<String> fields = fields(line);
+            StockCountDTO row = new StockCountDTO();
+            if (fields.size() < columns) {
+                row.error = "Expected at least " + columns + " columns, got " + fields.size();
+                return row;
+            }
+            row.code = fields.get(codeColumn).trim();
+            String quantity = fields.get(quantityColumn).trim();
+            if (!quantity.isEmpty()) {
+                try {
+                    row.stockQuantity = new BigDecimal(quantity);
+                } catch (NumberFormatException e) {
+                    row.error = "Invalid stock quantity: " + quantity;
+                }
+            }
+            return row;
+        }
+
+        /**
+         * Comma-separated fields of one line. Fields may be enclosed in double
+         * quotes, with {@code ""} standing for a quote inside them; quoted line
+         * breaks are not supported.
+         */
+        static List<String> fields(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
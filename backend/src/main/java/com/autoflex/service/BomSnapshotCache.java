@@ -0,0 +1,349 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.CacheStatsDTO.BomSnapshotStatsDTO;
+import com.autoflex.event.CatalogChange;
+import com.autoflex.planner.BomSnapshot;
+import com.autoflex.planner.ProductionEngine;
+import com.autoflex.planner.WhereUsedIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Application-wide cache of the BOM snapshot and its compiled {@link ProductionEngine}.
+ *
+ * Every committed {@link CatalogChange} bumps a monotonically increasing version.
+ * Readers get the published entry with a single volatile read as long as its
+ * version is current; otherwise one reader refreshes it while holding a lock.
+ * Stock-only changes are applied incrementally by reloading just the affected
+ * raw materials; any other change reloads the whole snapshot, re-exploding
+ * only the BOMs that BOM line or component changes can affect. Entries
+ * refreshed after stock or BOM changes only record what changed since the
+ * entry they replace, so plans derived from that entry can be updated
+ * incrementally.
+ *
+ * A transaction that has written to the catalogue but not committed yet
+ * reads a private, uncached snapshot so it sees its own changes.
+ */
+@ApplicationScoped
+public class BomSnapshotCache {
+
+    private static final Logger LOG = Logger.getLogger(BomSnapshotCache.class);
+    private static final String UNCOMMITTED_CHANGES_KEY = BomSnapshotCache.class.getName() + ".uncommitted";
+
+    @Inject
+    BomSnapshotLoader loader;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Entry current;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final Object pendingLock = new Object();
+    private boolean pendingFullReload = true;
+    private Set<Long> pendingStockIds = new HashSet<>();
+    private Set<Long> pendingRecipeProductIds = new HashSet<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final AtomicLong fullRebuilds = new AtomicLong();
+    private final AtomicLong incrementalRefreshes = new AtomicLong();
+    private final AtomicLong lastRebuildNanos = new AtomicLong();
+    private final AtomicLong totalRebuildNanos = new AtomicLong();
+
+    private Timer fullLoadTimer;
+    private Timer recipeLoadTimer;
+    private Timer stockUpdateTimer;
+    private Timer compileTimer;
+
+    @PostConstruct
+    void registerMeters() {
+        fullLoadTimer = loadTimer("full");
+        recipeLoadTimer = loadTimer("recipe");
+        stockUpdateTimer = Timer.builder("autoflex.snapshot.stock_update")
+            .description("Patching the cached snapshot and engine after stock-only changes")
+            .register(registry);
+        compileTimer = Timer.builder("autoflex.snapshot.compile")
+            .description("Compiling a loaded snapshot into the production engine")
+            .register(registry);
+        catalogueGauge("products", snapshot -> snapshot.products.size());
+        catalogueGauge("raw_materials", snapshot -> snapshot.stock.size());
+        catalogueGauge("bom_lines", snapshot -> snapshot.products.stream().mapToInt(p -> p.lines.size()).sum());
+        catalogueGauge("components", snapshot -> snapshot.products.stream().mapToInt(p -> p.components.size()).sum());
+        Gauge.builder("autoflex.catalogue.version", version, AtomicLong::get)
+            .description("Version of the committed catalogue data")
+            .register(registry);
+    }
+
+    private Timer loadTimer(String scope) {
+        return Timer.builder("autoflex.snapshot.load")
+            .description("Loading the BOM snapshot from the database and exploding its BOMs")
+            .tag("scope", scope)
+            .register(registry);
+    }
+
+    /** Size of the cached catalogue; NaN until the first snapshot is loaded. */
+    private void catalogueGauge(String kind, ToIntFunction<BomSnapshot> size) {
+        Gauge.builder("autoflex.catalogue.size", this, cache -> {
+                Entry entry = cache.current;
+                return entry != null ? size.applyAsInt(entry.snapshot) : Double.NaN;
+            })
+            .description("Rows in the cached catalogue snapshot")
+            .tag("kind", kind)
+            .register(registry);
+    }
+
+    /**
+     * Snapshot reflecting every committed change, refreshed if needed.
+     */
+    @WithSpan
+    public Entry current() {
+        Span span = Span.current();
+        if (hasUncommittedChanges()) {
+            bypasses.increment();
+            span.setAttribute("autoflex.snapshot.outcome", "bypass");
+            BomSnapshot snapshot = loader.load();
+            return new Entry(version.get(), false, snapshot, ProductionEngine.compile(snapshot), null);
+        }
+        Entry entry = current;
+        if (entry != null && entry.version == version.get()) {
+            hits.increment();
+            span.setAttribute("autoflex.snapshot.outcome", "hit");
+            return entry;
+        }
+        misses.increment();
+        span.setAttribute("autoflex.snapshot.outcome", "refresh");
+        return refresh();
+    }
+
+    /**
+     * The cached snapshot if it reflects every committed change, or null if
+     * {@link #current()} would have to read the database. Never touches it.
+     */
+    public Entry cached() {
+        Entry entry = current;
+        if (hasUncommittedChanges() || entry == null || entry.version != version.get()) {
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * Version of the committed catalogue data. Cheap; never touches the database.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Force a full reload, e.g. after the tables were changed without going
+     * through the services. Takes effect when the current transaction commits,
+     * or immediately outside a transaction.
+     */
+    public void invalidate() {
+        catalogChanges.fire(CatalogChange.catalog());
+    }
+
+    void onChange(@Observes CatalogChange change) {
+        if (transactionRegistry.getTransactionKey() != null) {
+            transactionRegistry.putResource(UNCOMMITTED_CHANGES_KEY, Boolean.TRUE);
+        }
+    }
+
+    void onCommittedChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChange change) {
+        synchronized (pendingLock) {
+            switch (change.scope) {
+                case STOCK -> pendingStockIds.addAll(change.rawMaterialIds);
+                case RECIPE -> pendingRecipeProductIds.addAll(change.productIds);
+                default -> pendingFullReload = true;
+            }
+            version.incrementAndGet();
+        }
+        LOG.debug("Catalogue version bumped to " + version.get() + " by " + change);
+    }
+
+    public BomSnapshotStatsDTO stats() {
+        Entry entry = current;
+        BomSnapshotStatsDTO stats = new BomSnapshotStatsDTO();
+        stats.version = version.get();
+        stats.cachedVersion = entry != null ? entry.version : null;
+        stats.hits = hits.sum();
+        stats.misses = misses.sum();
+        stats.bypasses = bypasses.sum();
+        stats.fullRebuilds = fullRebuilds.get();
+        stats.incrementalRefreshes = incrementalRefreshes.get();
+        stats.lastRebuildMillis = TimeUnit.NANOSECONDS.toMillis(lastRebuildNanos.get());
+        stats.totalRebuildMillis = TimeUnit.NANOSECONDS.toMillis(totalRebuildNanos.get());
+        return stats;
+    }
+
+    private boolean hasUncommittedChanges() {
+        return transactionRegistry.getTransactionKey() != null
+            && transactionRegistry.getResource(UNCOMMITTED_CHANGES_KEY) != null;
+    }
+
+    private Entry refresh() {
+        refreshLock.lock();
+        try {
+            Entry entry = current;
+            if (entry != null && entry.version == version.get()) {
+                return entry; // Refreshed by another thread while we waited
+            }
+
+            long targetVersion;
+            boolean fullReload;
+            Set<Long> stockIds;
+            Set<Long> recipeProductIds;
+            synchronized (pendingLock) {
+                targetVersion = version.get();
+                fullReload = pendingFullReload || entry == null;
+                stockIds = pendingStockIds;
+                recipeProductIds = pendingRecipeProductIds;
+                pendingFullReload = false;
+                pendingStockIds = new HashSet<>();
+                pendingRecipeProductIds = new HashSet<>();
+            }
+
+            long start = System.nanoTime();
+            try {
+                Entry refreshed = fullReload || !recipeProductIds.isEmpty()
+                    ? null
+                    : stockUpdateTimer.record(() -> applyStockChanges(entry, targetVersion, stockIds));
+                if (refreshed == null) {
+                    // BOM explosions are reused for products unaffected by the recipe changes
+                    BomSnapshot snapshot = fullReload
+                        ? fullLoadTimer.record(() -> loader.loadConcurrently(null, Set.of()))
+                        : recipeLoadTimer.record(() -> loader.loadConcurrently(entry.snapshot, recipeProductIds));
+                    Changes changes = fullReload
+                        ? null
+                        : new Changes(entry.version, stockIds, snapshot.explosion.rebuiltProductIds());
+                    ProductionEngine engine = compileTimer.record(() -> ProductionEngine.compile(snapshot));
+                    refreshed = new Entry(targetVersion, true, snapshot, engine, changes);
+                    fullRebuilds.incrementAndGet();
+                } else {
+                    incrementalRefreshes.incrementAndGet();
+                }
+                current = refreshed;
+                return refreshed;
+            } catch (RuntimeException e) {
+                synchronized (pendingLock) {
+                    pendingFullReload |= fullReload;
+                    pendingStockIds.addAll(stockIds);
+                    pendingRecipeProductIds.addAll(recipeProductIds);
+                }
+                throw e;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                lastRebuildNanos.set(elapsed);
+                totalRebuildNanos.addAndGet(elapsed);
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * @return the patched entry, or {@code null} if a full reload is needed
+     */
+    private Entry applyStockChanges(Entry entry, long targetVersion, Set<Long> stockIds) {
+        Map<Long, BigDecimal> updates = loader.loadStock(stockIds);
+        if (updates.size() != stockIds.size()) {
+            return null; // Some raw material disappeared
+        }
+        ProductionEngine engine = entry.engine.withStock(updates);
+        if (engine == null) {
+            return null;
+        }
+        return new Entry(targetVersion, true, entry.snapshot.withStock(updates), engine,
+            new Changes(entry.version, stockIds, Set.of()), entry.whereUsed);
+    }
+
+    /**
+     * Immutable cache entry: a snapshot and its compiled engine at a version.
+     * The where-used index is built on first use and carried over by entries
+     * that only change stock.
+     * {@code committed} is false for the private snapshots read by transactions
+     * with uncommitted changes; results derived from those must not be cached.
+     * {@code changes} is {@code null} unless the entry differs from the one at
+     * {@code changes.baseVersion} only in stock and BOM lines.
+     */
+    public static final class Entry {
+        public final long version;
+        public final boolean committed;
+        public final BomSnapshot snapshot;
+        public final ProductionEngine engine;
+        public final Changes changes;
+        private volatile WhereUsedIndex whereUsed;
+
+        Entry(long version, boolean committed, BomSnapshot snapshot, ProductionEngine engine, Changes changes) {
+            this(version, committed, snapshot, engine, changes, null);
+        }
+
+        Entry(long version, boolean committed, BomSnapshot snapshot, ProductionEngine engine, Changes changes,
+              WhereUsedIndex whereUsed) {
+            this.version = version;
+            this.committed = committed;
+            this.snapshot = snapshot;
+            this.engine = engine;
+            this.changes = changes;
+            this.whereUsed = whereUsed;
+        }
+
+        public WhereUsedIndex whereUsed() {
+            WhereUsedIndex index = whereUsed;
+            if (index == null) {
+                // Racing threads build equal indexes; either one may be kept
+                index = WhereUsedIndex.of(snapshot);
+                whereUsed = index;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Raw materials whose stock changed and products whose exploded BOM lines
+     * may have changed since the entry at {@code baseVersion}.
+     */
+    public static final class Changes {
+        public final long baseVersion;
+        public final Set<Long> rawMaterialIds;
+        public final Set<Long> productIds;
+
+        Changes(long baseVersion, Set<Long> rawMaterialIds, Set<Long> productIds) {
+            this.baseVersion = baseVersion;
+            this.rawMaterialIds = Collections.unmodifiableSet(rawMaterialIds);
+            this.productIds = Collections.unmodifiableSet(productIds);
+        }
+    }
+}
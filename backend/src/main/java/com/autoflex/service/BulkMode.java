@@ -0,0 +1,36 @@
+package com.autoflex.service;
+
+/**
+ * What a bulk write does with each item, matched by its natural key.
+ */
+public enum BulkMode {
+
+    /** Insert new items; items whose key already exists fail. */
+    CREATE("create"),
+
+    /** Update existing items; items whose key does not exist fail. */
+    UPDATE("update"),
+
+    /** Insert new items and update existing ones. */
+    UPSERT("upsert");
+
+    private final String param;
+
+    BulkMode(String param) {
+        this.param = param;
+    }
+
+    public String param() {
+        return param;
+    }
+
+    public static BulkMode fromParam(String param) {
+        for (BulkMode mode : values()) {
+            if (mode.param.equalsIgnoreCase(param)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Invalid mode: " + param
+            + " (expected create, update or upsert)");
+    }
+}
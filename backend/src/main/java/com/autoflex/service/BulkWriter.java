@@ -0,0 +1,156 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.BulkResultDTO;
+import com.autoflex.dto.BulkResultDTO.ItemResultDTO;
+import com.autoflex.dto.BulkResultDTO.Status;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs bulk writes in chunks, each chunk in its own transaction, so a large
+ * import neither holds one huge transaction nor pays one transaction per item.
+ *
+ * Items that fail bean validation never reach the chunk writer. A chunk whose
+ * transaction fails to commit has all its items reported as failed; earlier
+ * chunks stay committed.
+ */
+@ApplicationScoped
+class BulkWriter {
+
+    private static final Logger LOG = Logger.getLogger(BulkWriter.class);
+
+    @Inject
+    Validator validator;
+
+    @ConfigProperty(name = "autoflex.bulk.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    /**
+     * One submitted item while its chunk is written; the chunk writer marks it
+     * created, updated or failed.
+     */
+    static final class Item<T> {
+        final T value;
+        final ItemResultDTO result = new ItemResultDTO();
+
+        private Item(int index, T value, String key) {
+            this.value = value;
+            result.index = index;
+            result.key = key;
+        }
+
+        boolean isFailed() {
+            return result.status == Status.FAILED;
+        }
+
+        void created(Long id) {
+            result.status = Status.CREATED;
+            result.id = id;
+        }
+
+        void updated(Long id) {
+            result.status = Status.UPDATED;
+            result.id = id;
+        }
+
+        void failed(String error) {
+            result.status = Status.FAILED;
+            result.id = null;
+            result.error = error;
+        }
+    }
+
+    /**
+     * Write every item {@code items} yields. {@code chunkWriter} runs inside the
+     * chunk's transaction and must mark each valid item it is given.
+     */
+    <T> BulkResultDTO write(Iterator<T> items, Function<T, String> key, Consumer<List<Item<T>>> chunkWriter) {
+        BulkResultDTO result = new BulkResultDTO();
+        List<Item<T>> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        while (true) {
+            T value;
+            try {
+                if (!items.hasNext()) {
+                    break;
+                }
+                value = items.next();
+            } catch (RuntimeException e) {
+                // The input cannot be read past a malformed item
+                Item<T> malformed = new Item<>(index, null, null);
+                malformed.failed("Malformed item: " + rootMessage(e));
+                chunk.add(malformed);
+                break;
+            }
+            Item<T> item = new Item<>(index++, value, value != null ? key.apply(value) : null);
+            validate(item);
+            chunk.add(item);
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, chunkWriter, result);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        writeChunk(chunk, chunkWriter, result);
+        return result;
+    }
+
+    private <T> void validate(Item<T> item) {
+        if (item.value == null) {
+            item.failed("Item must not be null");
+            return;
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(item.value);
+        if (!violations.isEmpty()) {
+            item.failed(violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private <T> void writeChunk(List<Item<T>> chunk, Consumer<List<Item<T>>> chunkWriter, BulkResultDTO result) {
+        List<Item<T>> valid = chunk.stream().filter(item -> !item.isFailed()).collect(Collectors.toList());
+        if (!valid.isEmpty()) {
+            try {
+                QuarkusTransaction.requiringNew().run(() -> chunkWriter.accept(valid));
+            } catch (RuntimeException e) {
+                LOG.warn("Bulk chunk starting at item " + chunk.get(0).result.index + " rolled back", e);
+                String error = "Chunk rolled back: " + rootMessage(e);
+                for (Item<T> item : valid) {
+                    if (!item.isFailed()) {
+                        item.failed(error);
+                    }
+                }
+            }
+        }
+        for (Item<T> item : chunk) {
+            switch (item.result.status) {
+                case CREATED -> result.created++;
+                case UPDATED -> result.updated++;
+                case FAILED -> result.failed++;
+            }
+            result.items.add(item.result);
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,136 @@
+package com.autoflex.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ServiceUnavailableException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the requests working against the database at once, below the size of
+ * the JDBC pool so that snapshot refreshes and background workers always find
+ * free connections. By default the cap is the pool size minus those
+ * connections; a configured cap that leaves fewer free fails startup.
+ *
+ * Requests run on virtual threads, so thousands of them can be in flight
+ * while only a handful of connections exist. Without the cap they would all
+ * queue inside the connection pool, whose locks pin virtual threads to their
+ * carriers. Here they wait on a fair semaphore instead, and a request that
+ * cannot get a permit within the acquire timeout fails fast with 503.
+ */
+@Startup
+@ApplicationScoped
+public class DatabaseConcurrencyLimiter {
+
+    private static final Logger LOG = Logger.getLogger(DatabaseConcurrencyLimiter.class);
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    /**
+     * Connections taken without a permit: the concurrent BOM snapshot queries,
+     * plus one each for the outbox relay and the reservation store flusher.
+     */
+    static final int RESERVED_CONNECTIONS = BomSnapshotLoader.CONCURRENT_QUERIES + 2;
+
+    @ConfigProperty(name = "autoflex.db.max-concurrent-requests")
+    Optional<Integer> maxConcurrentRequests;
+
+    @ConfigProperty(name = "quarkus.datasource.jdbc.max-size", defaultValue = "20")
+    int poolSize;
+
+    @ConfigProperty(name = "autoflex.db.acquire-timeout", defaultValue = "5s")
+    Duration acquireTimeout;
+
+    @Inject
+    MeterRegistry registry;
+
+    private Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        int limit = maxConcurrentRequests.orElse(poolSize - RESERVED_CONNECTIONS);
+        if (limit < 1) {
+            throw new IllegalArgumentException("autoflex.db.max-concurrent-requests must be at least 1, "
+                + "and quarkus.datasource.jdbc.max-size above " + RESERVED_CONNECTIONS);
+        }
+        if (limit + RESERVED_CONNECTIONS > poolSize) {
+            throw new IllegalArgumentException(String.format(
+                "autoflex.db.max-concurrent-requests (%d) plus %d connections for snapshot refreshes and "
+                    + "background workers exceeds quarkus.datasource.jdbc.max-size (%d)",
+                limit, RESERVED_CONNECTIONS, poolSize));
+        }
+        LOG.info(String.format("Up to %d requests use the database at once (pool of %d)", limit, poolSize));
+        permits = new Semaphore(limit, true);
+        Gauge.builder("autoflex.db.permits.available", permits, Semaphore::availablePermits)
+            .description("Database permits not held by a request")
+            .register(registry);
+        Gauge.builder("autoflex.db.permits.waiting", permits, Semaphore::getQueueLength)
+            .description("Requests waiting for a database permit")
+            .register(registry);
+        FunctionCounter.builder("autoflex.db.permits.rejected", rejected, LongAdder::sum)
+            .description("Requests rejected with 503 for lack of a database permit")
+            .register(registry);
+    }
+
+    /**
+     * Run {@code work} holding a permit.
+     *
+     * @throws ServiceUnavailableException if no permit became free within the acquire timeout
+     */
+    public <T> T call(Callable<T> work) throws Exception {
+        acquire();
+        try {
+            return work.call();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Like {@link #call}, for work without a result.
+     */
+    public void run(Runnable work) {
+        acquire();
+        try {
+            work.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            LOG.debug("No database permit within " + acquireTimeout + ", rejecting request");
+            throw new ServiceUnavailableException("Too many concurrent requests, try again later",
+                RETRY_AFTER_SECONDS);
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+}
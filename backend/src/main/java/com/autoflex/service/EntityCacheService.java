@@ -0,0 +1,91 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.CacheStatsDTO.RegionStatsDTO;
+import com.autoflex.dto.CacheStatsDTO.SecondLevelCacheStatsDTO;
+import com.autoflex.entity.RawMaterial;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.jboss.logging.Logger;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Keeps the Hibernate second-level cache of the catalogue entities in step
+ * with writes Hibernate does not see, and reports its statistics.
+ *
+ * Writes through the entities and HQL updates invalidate the cached entities
+ * and code lookups by themselves. Production runs and stock imports write
+ * stock with plain JDBC, so they invalidate the raw materials they write
+ * through {@link #invalidateStock} in the same transaction.
+ */
+@ApplicationScoped
+public class EntityCacheService {
+
+    private static final Logger LOG = Logger.getLogger(EntityCacheService.class);
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    EntityManager em;
+
+    /**
+     * Invalidate the cached raw materials whose stock the current transaction
+     * writes with plain JDBC, the way Hibernate does for an entity update: the
+     * entries stay invalid until the transaction completes, so a load that
+     * read the old row meanwhile cannot put it back afterwards. Call it before
+     * the write.
+     */
+    public void invalidateStock(Collection<Long> rawMaterialIds) {
+        SessionFactoryImplementor factory = sessionFactory.unwrap(SessionFactoryImplementor.class);
+        EntityPersister persister = factory.getMappingMetamodel().getEntityDescriptor(RawMaterial.class);
+        EntityDataAccess cacheAccess = persister.getCacheAccessStrategy();
+        if (cacheAccess == null) {
+            return;
+        }
+        SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+        for (Long rawMaterialId : rawMaterialIds) {
+            cacheAccess.remove(session,
+                cacheAccess.generateCacheKey(rawMaterialId, persister, factory, session.getTenantIdentifier()));
+        }
+        LOG.debug("Invalidated " + rawMaterialIds.size() + " raw materials in the second-level cache");
+    }
+
+    public SecondLevelCacheStatsDTO stats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        SecondLevelCacheStatsDTO stats = new SecondLevelCacheStatsDTO();
+        stats.statisticsEnabled = statistics.isStatisticsEnabled();
+        stats.hits = statistics.getSecondLevelCacheHitCount();
+        stats.misses = statistics.getSecondLevelCacheMissCount();
+        stats.puts = statistics.getSecondLevelCachePutCount();
+        stats.queryHits = statistics.getQueryCacheHitCount();
+        stats.queryMisses = statistics.getQueryCacheMissCount();
+        stats.queryPuts = statistics.getQueryCachePutCount();
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+        for (String regionName : regionNames) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(regionName);
+            if (regionStatistics == null) {
+                continue;
+            }
+            RegionStatsDTO region = new RegionStatsDTO();
+            region.name = regionName;
+            region.hits = regionStatistics.getHitCount();
+            region.misses = regionStatistics.getMissCount();
+            region.puts = regionStatistics.getPutCount();
+            long entries = regionStatistics.getElementCountInMemory();
+            region.entries = entries == CacheRegionStatistics.NO_EXTENDED_STAT_SUPPORT_RETURN ? -1 : entries;
+            stats.regions.add(region);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,32 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.PageDTO;
+import com.autoflex.entity.Product;
+import jakarta.persistence.EntityManager;
+
+import java.util.function.Function;
+
+/**
+ * Keyset pagination for the list endpoints and streamed responses. It runs a
+ * projection query ({@code SELECT new ...DTO(...) FROM Entity alias}) ordered
+ * by id, so no entity is materialized and the persistence context stays empty.
+ */
+final class KeysetQueries {
+
+    private KeysetQueries() {
+    }
+
+    /**
+     * Rows with an id greater than {@code after}, at most {@code limit} of them.
+     */
+    static <T> PageDTO<T> page(String select, String alias, Class<T> type, Function<T, Long> id,
+                               long after, int limit) {
+        EntityManager em = Product.getEntityManager();
+        return PageDTO.of(
+            em.createQuery(select + " WHERE " + alias + ".id > :after ORDER BY " + alias + ".id", type)
+                .setParameter("after", after)
+                .setMaxResults(limit + 1)
+                .getResultList(),
+            limit, id);
+    }
+}
@@ -0,0 +1,139 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.ProductComponentDTO;
+import com.autoflex.entity.Product;
+import com.autoflex.entity.ProductComponent;
+import com.autoflex.event.CatalogChange;
+import com.autoflex.event.ChangeEvent.Aggregate;
+import com.autoflex.event.ChangeEvent.Operation;
+import com.autoflex.exception.ConflictException;
+import com.autoflex.outbox.ChangeOutbox;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.NotFoundException;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sub-assembly lines between products. Lines that would make a product
+ * (indirectly) a component of itself are rejected.
+ */
+@ApplicationScoped
+public class ProductComponentService {
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
+
+    @Inject
+    ChangeOutbox outbox;
+
+    public List<ProductComponentDTO> findAll() {
+        return ProductComponent.<ProductComponent>listAll()
+            .stream()
+            .map(ProductComponentDTO::fromEntity)
+            .collect(Collectors.toList());
+    }
+
+    public ProductComponentDTO findById(Long id) {
+        ProductComponent pc = ProductComponent.findById(id);
+        if (pc == null) {
+            throw new NotFoundException("Product component not found with id: " + id);
+        }
+        return ProductComponentDTO.fromEntity(pc);
+    }
+
+    public List<ProductComponentDTO> findByProductId(Long productId) {
+        return ProductComponent.findByProductId(productId)
+            .stream()
+            .map(ProductComponentDTO::fromEntity)
+            .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public ProductComponentDTO create(ProductComponentDTO dto) {
+        Product product = findProduct(dto.productId);
+        Product component = findProduct(dto.componentId);
+        checkNoCycle(product, component);
+
+        ProductComponent pc = new ProductComponent(product, component, dto.requiredQuantity);
+        pc.persist();
+        outbox.append(Aggregate.PRODUCT_COMPONENT, Operation.CREATED, pc.id, componentState(pc));
+        catalogChanges.fire(CatalogChange.recipe(product.id));
+        return ProductComponentDTO.fromEntity(pc);
+    }
+
+    @Transactional
+    public ProductComponentDTO update(Long id, ProductComponentDTO dto) {
+        ProductComponent pc = ProductComponent.findById(id);
+        if (pc == null) {
+            throw new NotFoundException("Product component not found with id: " + id);
+        }
+
+        Long previousProductId = pc.product.id;
+        Product product = pc.product.id.equals(dto.productId) ? pc.product : findProduct(dto.productId);
+        Product component = pc.component.id.equals(dto.componentId) ? pc.component : findProduct(dto.componentId);
+        if (product != pc.product || component != pc.component) {
+            checkNoCycle(product, component);
+        }
+
+        pc.product = product;
+        pc.component = component;
+        pc.requiredQuantity = dto.requiredQuantity;
+        pc.persist();
+        outbox.append(Aggregate.PRODUCT_COMPONENT, Operation.UPDATED, id, componentState(pc));
+        catalogChanges.fire(CatalogChange.recipe(previousProductId, product.id));
+
+        return ProductComponentDTO.fromEntity(pc);
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        ProductComponent pc = ProductComponent.findById(id);
+        if (pc == null) {
+            throw new NotFoundException("Product component not found with id: " + id);
+        }
+        Long productId = pc.product.id;
+        pc.delete();
+        outbox.append(Aggregate.PRODUCT_COMPONENT, Operation.DELETED, id, null);
+        catalogChanges.fire(CatalogChange.recipe(productId));
+    }
+
+    /** Outbox payload of a component: the ids it links and the quantity, without display names. */
+    private static ProductComponentDTO componentState(ProductComponent pc) {
+        return new ProductComponentDTO(pc.id, pc.product.id, pc.component.id, pc.requiredQuantity);
+    }
+
+    private Product findProduct(Long id) {
+        Product product = Product.findById(id);
+        if (product == null) {
+            throw new NotFoundException("Product not found with id: " + id);
+        }
+        return product;
+    }
+
+    /**
+     * Walk down from {@code component} one level per query; reaching
+     * {@code product} means the new line would close a cycle.
+     */
+    private void checkNoCycle(Product product, Product component) {
+        Set<Long> seen = new HashSet<>(Set.of(component.id));
+        Set<Long> level = Set.of(component.id);
+        while (!level.isEmpty()) {
+            if (level.contains(product.id)) {
+                throw new ConflictException("Product " + component.code + " cannot be a component of "
+                    + product.code + ": it would become a component of itself");
+            }
+            level = Product.getEntityManager()
+                .createQuery("SELECT pc.component.id FROM ProductComponent pc WHERE pc.product.id IN :ids", Long.class)
+                .setParameter("ids", level)
+                .getResultStream()
+                .filter(seen::add)
+                .collect(Collectors.toSet());
+        }
+    }
+}
@@ -1,19 +1,61 @@
 package com.autoflex.service;
 
+import com.autoflex.dto.BomLineDTO;
+import com.autoflex.dto.BulkResultDTO;
+import com.autoflex.dto.PageDTO;
 import com.autoflex.dto.ProductRawMaterialDTO;
+import com.autoflex.dto.WhereUsedDTO;
+import com.autoflex.dto.WhereUsedDTO.ProductUsageDTO;
+import com.autoflex.dto.WhereUsedDTO.RawMaterialUsageDTO;
 import com.autoflex.entity.Product;
 import com.autoflex.entity.ProductRawMaterial;
 import com.autoflex.entity.RawMaterial;
+import com.autoflex.event.CatalogChange;
+import com.autoflex.event.ChangeEvent;
+import com.autoflex.event.ChangeEvent.Aggregate;
+import com.autoflex.event.ChangeEvent.Operation;
+import com.autoflex.exception.ConflictException;
+import com.autoflex.outbox.ChangeOutbox;
+import com.autoflex.planner.WhereUsedIndex;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class ProductRawMaterialService {
 
+    private static final String SELECT_DTO =
+        "SELECT new com.autoflex.dto.ProductRawMaterialDTO(prm.id, p.id, rm.id, prm.requiredQuantity, p.name, rm.name) " +
+        "FROM ProductRawMaterial prm JOIN prm.product p JOIN prm.rawMaterial rm";
+    private static final String SELECT_BOM_LINE =
+        "SELECT prm.id, p.code, rm.code, prm.requiredQuantity " +
+        "FROM ProductRawMaterial prm JOIN prm.product p JOIN prm.rawMaterial rm";
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
+
+    @Inject
+    ChangeOutbox outbox;
+
+    @Inject
+    BulkWriter bulkWriter;
+
+    @Inject
+    BomSnapshotCache snapshotCache;
+
     public List<ProductRawMaterialDTO> findAll() {
         return ProductRawMaterial.<ProductRawMaterial>listAll()
             .stream()
@@ -21,6 +63,31 @@ public class ProductRawMaterialService {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Up to {@code limit} associations with an id greater than {@code after}, in id order.
+     */
+    public PageDTO<ProductRawMaterialDTO> findPage(long after, int limit) {
+        return KeysetQueries.page(SELECT_DTO, "prm", ProductRawMaterialDTO.class, dto -> dto.id, after, limit);
+    }
+
+    /**
+     * Like {@link #findPage}, with the product and raw material of each line
+     * identified by code, as the bulk endpoint accepts them.
+     */
+    public PageDTO<BomLineDTO> findBomLinePage(long after, int limit) {
+        List<Object[]> rows = ProductRawMaterial.getEntityManager()
+            .createQuery(SELECT_BOM_LINE + " WHERE prm.id > :after ORDER BY prm.id", Object[].class)
+            .setParameter("after", after)
+            .setMaxResults(limit + 1)
+            .getResultList();
+        PageDTO<Object[]> page = PageDTO.of(rows, limit, row -> (Long) row[0]);
+        List<BomLineDTO> lines = new ArrayList<>(page.items.size());
+        for (Object[] row : page.items) {
+            lines.add(new BomLineDTO((String) row[1], (String) row[2], (BigDecimal) row[3]));
+        }
+        return new PageDTO<>(lines, page.nextAfter);
+    }
+
     public ProductRawMaterialDTO findById(Long id) {
         ProductRawMaterial prm = ProductRawMaterial.findById(id);
         if (prm == null) {
@@ -30,17 +97,45 @@ public class ProductRawMaterialService {
     }
 
     public List<ProductRawMaterialDTO> findByProductId(Long productId) {
-        return ProductRawMaterial.findByProductId(productId)
-            .stream()
-            .map(ProductRawMaterialDTO::fromEntity)
-            .collect(Collectors.toList());
+        return ProductRawMaterial.getEntityManager()
+            .createQuery(SELECT_DTO + " WHERE p.id = :id ORDER BY prm.id", ProductRawMaterialDTO.class)
+            .setParameter("id", productId)
+            .getResultList();
     }
 
     public List<ProductRawMaterialDTO> findByRawMaterialId(Long rawMaterialId) {
-        return ProductRawMaterial.findByRawMaterialId(rawMaterialId)
-            .stream()
-            .map(ProductRawMaterialDTO::fromEntity)
-            .collect(Collectors.toList());
+        return ProductRawMaterial.getEntityManager()
+            .createQuery(SELECT_DTO + " WHERE rm.id = :id ORDER BY prm.id", ProductRawMaterialDTO.class)
+            .setParameter("id", rawMaterialId)
+            .getResultList();
+    }
+
+    /**
+     * Every product affected by each of the given raw materials, with what one
+     * unit of it needs, sub-assemblies included. Served from the where-used
+     * index of the cached snapshot; the database is only read when the
+     * catalogue changed since the snapshot was built.
+     */
+    public WhereUsedDTO whereUsed(Collection<Long> rawMaterialIds) {
+        BomSnapshotCache.Entry entry = snapshotCache.current();
+        for (Long rawMaterialId : rawMaterialIds) {
+            if (!entry.snapshot.stock.containsKey(rawMaterialId)) {
+                throw new NotFoundException("Raw material not found with id: " + rawMaterialId);
+            }
+        }
+
+        WhereUsedIndex index = entry.whereUsed();
+        WhereUsedDTO result = new WhereUsedDTO();
+        result.version = entry.version;
+        for (Long rawMaterialId : rawMaterialIds) {
+            RawMaterialUsageDTO material = new RawMaterialUsageDTO(rawMaterialId);
+            for (WhereUsedIndex.Usage usage : index.usages(rawMaterialId)) {
+                material.products.add(new ProductUsageDTO(usage.product.id, usage.product.code,
+                    usage.product.name, usage.requiredQuantity, usage.direct));
+            }
+            result.rawMaterials.add(material);
+        }
+        return result;
     }
 
     @Transactional
@@ -55,11 +150,15 @@ public class ProductRawMaterialService {
             throw new NotFoundException("Raw material not found with id: " + dto.rawMaterialId);
         }
 
+        requireNewLine(product, rawMaterial);
+
         ProductRawMaterial prm = new ProductRawMaterial();
         prm.product = product;
         prm.rawMaterial = rawMaterial;
         prm.requiredQuantity = dto.requiredQuantity;
         prm.persist();
+        outbox.append(Aggregate.BOM_LINE, Operation.CREATED, prm.id, bomLineState(prm));
+        catalogChanges.fire(CatalogChange.recipe(product.id));
         return ProductRawMaterialDTO.fromEntity(prm);
     }
 
@@ -70,6 +169,9 @@ public class ProductRawMaterialService {
             throw new NotFoundException("Product-RawMaterial association not found with id: " + id);
         }
 
+        Long previousProductId = prm.product.id;
+        Long previousRawMaterialId = prm.rawMaterial.id;
+
         // If product or raw material changed, validate they exist
         if (!prm.product.id.equals(dto.productId)) {
             Product product = Product.findById(dto.productId);
@@ -87,18 +189,113 @@ public class ProductRawMaterialService {
             prm.rawMaterial = rawMaterial;
         }
 
+        if (!prm.product.id.equals(previousProductId) || !prm.rawMaterial.id.equals(previousRawMaterialId)) {
+            requireNewLine(prm.product, prm.rawMaterial);
+        }
+
         prm.requiredQuantity = dto.requiredQuantity;
         prm.persist();
+        outbox.append(Aggregate.BOM_LINE, Operation.UPDATED, id, bomLineState(prm));
+        catalogChanges.fire(CatalogChange.recipe(previousProductId, prm.product.id));
 
         return ProductRawMaterialDTO.fromEntity(prm);
     }
 
+    /**
+     * Create and/or update BOM lines matched by product and raw material code,
+     * in chunked transactions. The products, raw materials and existing lines
+     * of a chunk are loaded with one query each and all inserts and updates are
+     * flushed as JDBC batches at commit.
+     */
+    public BulkResultDTO bulkWrite(Iterator<BomLineDTO> items, BulkMode mode) {
+        return bulkWriter.write(items, dto -> dto.productCode + "/" + dto.rawMaterialCode, chunk -> {
+            Set<String> productCodes = chunk.stream().map(item -> item.value.productCode).collect(Collectors.toSet());
+            Set<String> rawMaterialCodes = chunk.stream().map(item -> item.value.rawMaterialCode).collect(Collectors.toSet());
+            Map<String, Product> products = new HashMap<>();
+            for (Product product : Product.<Product>list("code IN ?1", productCodes)) {
+                products.put(product.code, product);
+            }
+            Map<String, RawMaterial> rawMaterials = new HashMap<>();
+            for (RawMaterial rawMaterial : RawMaterial.<RawMaterial>list("code IN ?1", rawMaterialCodes)) {
+                rawMaterials.put(rawMaterial.code, rawMaterial);
+            }
+            Map<String, ProductRawMaterial> lines = new HashMap<>();
+            for (ProductRawMaterial prm : ProductRawMaterial.<ProductRawMaterial>list(
+                    "FROM ProductRawMaterial prm JOIN FETCH prm.product p JOIN FETCH prm.rawMaterial rm " +
+                    "WHERE p.code IN ?1 AND rm.code IN ?2 ORDER BY prm.id", productCodes, rawMaterialCodes)) {
+                lines.putIfAbsent(prm.product.code + "/" + prm.rawMaterial.code, prm);
+            }
+
+            Set<Long> productIds = new HashSet<>();
+            List<ChangeEvent> changes = new ArrayList<>();
+            for (BulkWriter.Item<BomLineDTO> item : chunk) {
+                BomLineDTO dto = item.value;
+                String key = item.result.key;
+                ProductRawMaterial prm = lines.get(key);
+                if (prm == null) {
+                    if (mode == BulkMode.UPDATE) {
+                        item.failed("BOM line not found for product " + dto.productCode
+                            + " and raw material " + dto.rawMaterialCode);
+                        continue;
+                    }
+                    Product product = products.get(dto.productCode);
+                    if (product == null) {
+                        item.failed("Product not found with code: " + dto.productCode);
+                        continue;
+                    }
+                    RawMaterial rawMaterial = rawMaterials.get(dto.rawMaterialCode);
+                    if (rawMaterial == null) {
+                        item.failed("Raw material not found with code: " + dto.rawMaterialCode);
+                        continue;
+                    }
+                    prm = new ProductRawMaterial(product, rawMaterial, dto.requiredQuantity);
+                    prm.persist();
+                    lines.put(key, prm);
+                    item.created(prm.id);
+                    changes.add(outbox.event(Aggregate.BOM_LINE, Operation.CREATED, prm.id, bomLineState(prm)));
+                } else {
+                    if (mode == BulkMode.CREATE) {
+                        item.failed("BOM line for product " + dto.productCode
+                            + " and raw material " + dto.rawMaterialCode + " already exists");
+                        continue;
+                    }
+                    prm.requiredQuantity = dto.requiredQuantity;
+                    item.updated(prm.id);
+                    changes.add(outbox.event(Aggregate.BOM_LINE, Operation.UPDATED, prm.id, bomLineState(prm)));
+                }
+                productIds.add(prm.product.id);
+            }
+            if (!productIds.isEmpty()) {
+                outbox.append(changes);
+                catalogChanges.fire(CatalogChange.recipe(productIds.toArray(Long[]::new)));
+            }
+        });
+    }
+
     @Transactional
     public void delete(Long id) {
         ProductRawMaterial prm = ProductRawMaterial.findById(id);
         if (prm == null) {
             throw new NotFoundException("Product-RawMaterial association not found with id: " + id);
         }
+        Long productId = prm.product.id;
         prm.delete();
+        outbox.append(Aggregate.BOM_LINE, Operation.DELETED, id, null);
+        catalogChanges.fire(CatalogChange.recipe(productId));
+    }
+
+    /** Outbox payload of a BOM line: the ids it links and the quantity, without display names. */
+    private static ProductRawMaterialDTO bomLineState(ProductRawMaterial prm) {
+        return new ProductRawMaterialDTO(prm.id, prm.product.id, prm.rawMaterial.id, prm.requiredQuantity);
+    }
+
+    /**
+     * A product has at most one BOM line per raw material.
+     */
+    private static void requireNewLine(Product product, RawMaterial rawMaterial) {
+        if (ProductRawMaterial.count("product.id = ?1 AND rawMaterial.id = ?2", product.id, rawMaterial.id) > 0) {
+            throw new ConflictException("Raw material " + rawMaterial.code + " is already in the BOM of product "
+                + product.code);
+        }
     }
 }
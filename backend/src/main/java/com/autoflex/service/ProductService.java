@@ -1,18 +1,45 @@
 package com.autoflex.service;
 
+import com.autoflex.dto.BulkResultDTO;
+import com.autoflex.dto.PageDTO;
 import com.autoflex.dto.ProductDTO;
 import com.autoflex.entity.Product;
+import com.autoflex.entity.ProductComponent;
+import com.autoflex.event.CatalogChange;
+import com.autoflex.event.ChangeEvent;
+import com.autoflex.event.ChangeEvent.Aggregate;
+import com.autoflex.event.ChangeEvent.Operation;
 import com.autoflex.exception.ConflictException;
+import com.autoflex.outbox.ChangeOutbox;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class ProductService {
 
+    private static final String SELECT_DTO =
+        "SELECT new com.autoflex.dto.ProductDTO(p.id, p.code, p.name, p.value) FROM Product p";
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
+
+    @Inject
+    ChangeOutbox outbox;
+
+    @Inject
+    BulkWriter bulkWriter;
+
     public List<ProductDTO> findAll() {
         return Product.<Product>listAll()
             .stream()
@@ -20,6 +47,13 @@ public class ProductService {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Up to {@code limit} products with an id greater than {@code after}, in id order.
+     */
+    public PageDTO<ProductDTO> findPage(long after, int limit) {
+        return KeysetQueries.page(SELECT_DTO, "p", ProductDTO.class, dto -> dto.id, after, limit);
+    }
+
     public ProductDTO findById(Long id) {
         Product product = Product.findById(id);
         if (product == null) {
@@ -49,7 +83,10 @@ public class ProductService {
         product.name = dto.name;
         product.value = dto.value;
         product.persist();
-        return ProductDTO.fromEntity(product);
+        ProductDTO created = ProductDTO.fromEntity(product);
+        outbox.append(Aggregate.PRODUCT, Operation.CREATED, product.id, created);
+        catalogChanges.fire(CatalogChange.catalog());
+        return created;
     }
 
     @Transactional
@@ -71,8 +108,58 @@ public class ProductService {
         product.name = dto.name;
         product.value = dto.value;
         product.persist();
+        ProductDTO updated = ProductDTO.fromEntity(product);
+        outbox.append(Aggregate.PRODUCT, Operation.UPDATED, id, updated);
+        catalogChanges.fire(CatalogChange.catalog());
 
-        return ProductDTO.fromEntity(product);
+        return updated;
+    }
+
+    /**
+     * Create and/or update products matched by code, in chunked transactions.
+     * Existing products of a chunk are loaded with one query and all inserts
+     * and updates are flushed as JDBC batches at commit.
+     */
+    public BulkResultDTO bulkWrite(Iterator<ProductDTO> items, BulkMode mode) {
+        return bulkWriter.write(items, dto -> dto.code, chunk -> {
+            Set<String> codes = chunk.stream().map(item -> item.value.code).collect(Collectors.toSet());
+            Map<String, Product> products = new HashMap<>();
+            for (Product product : Product.<Product>list("code IN ?1", codes)) {
+                products.put(product.code, product);
+            }
+
+            List<ChangeEvent> changes = new ArrayList<>();
+            for (BulkWriter.Item<ProductDTO> item : chunk) {
+                ProductDTO dto = item.value;
+                Product product = products.get(dto.code);
+                if (product == null) {
+                    if (mode == BulkMode.UPDATE) {
+                        item.failed("Product not found with code: " + dto.code);
+                        continue;
+                    }
+                    product = new Product(dto.code, dto.name, dto.value);
+                    product.persist();
+                    products.put(product.code, product);
+                    item.created(product.id);
+                    changes.add(outbox.event(Aggregate.PRODUCT, Operation.CREATED, product.id,
+                        ProductDTO.fromEntity(product)));
+                } else {
+                    if (mode == BulkMode.CREATE) {
+                        item.failed("Product with code " + dto.code + " already exists");
+                        continue;
+                    }
+                    product.name = dto.name;
+                    product.value = dto.value;
+                    item.updated(product.id);
+                    changes.add(outbox.event(Aggregate.PRODUCT, Operation.UPDATED, product.id,
+                        ProductDTO.fromEntity(product)));
+                }
+            }
+            if (!changes.isEmpty()) {
+                outbox.append(changes);
+                catalogChanges.fire(CatalogChange.catalog());
+            }
+        });
     }
 
     @Transactional
@@ -81,6 +168,11 @@ public class ProductService {
         if (product == null) {
             throw new NotFoundException("Product not found with id: " + id);
         }
+        if (ProductComponent.count("component.id", id) > 0) {
+            throw new ConflictException("Product " + product.code + " is a component of other products");
+        }
         product.delete();
+        outbox.append(Aggregate.PRODUCT, Operation.DELETED, id, null);
+        catalogChanges.fire(CatalogChange.catalog());
     }
 }
@@ -0,0 +1,223 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.ProductionRunDTO;
+import com.autoflex.dto.ProductionRunDTO.RunItemDTO;
+import com.autoflex.dto.ProductionRunResultDTO;
+import com.autoflex.dto.ProductionRunResultDTO.ConsumptionDTO;
+import com.autoflex.event.CatalogChange;
+import com.autoflex.event.ChangeEvent;
+import com.autoflex.event.ChangeEvent.Aggregate;
+import com.autoflex.event.ChangeEvent.Operation;
+import com.autoflex.exception.ConflictException;
+import com.autoflex.outbox.ChangeOutbox;
+import com.autoflex.planner.BomExplosion;
+import com.autoflex.planner.ProductionEngine;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.NotFoundException;
+import org.hibernate.Session;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Commits production runs by taking the consumed raw materials out of stock.
+ *
+ * Stock is decremented with guarded updates ({@code ... WHERE stockQuantity >= ?})
+ * sent as one JDBC batch, in raw material id order. No row is read and written
+ * back, so concurrent runs cannot lose each other's updates and only hold their
+ * row locks for the duration of the batch. A run that would take any raw
+ * material below what reservations hold of it ({@link ReservationLedger}),
+ * not counting its own reservation, changes nothing. Transactions aborted by
+ * the database (deadlock, serialization failure) are retried.
+ */
+@ApplicationScoped
+public class ProductionRunService {
+
+    private static final Logger LOG = Logger.getLogger(ProductionRunService.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final String CONSUME_SQL =
+        "UPDATE raw_materials SET stockQuantity = stockQuantity - ? WHERE id = ? AND stockQuantity >= ?";
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    BomSnapshotCache snapshotCache;
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
+
+    @Inject
+    ChangeOutbox outbox;
+
+    @Inject
+    EntityCacheService entityCacheService;
+
+    @Inject
+    ReservationLedger ledger;
+
+    public ProductionRunResultDTO commit(ProductionRunDTO run) {
+        return commit(quantities(run.items), null, null);
+    }
+
+    /**
+     * Commit a run whose raw material consumption was worked out beforehand,
+     * e.g. the stock held by a reservation. {@code inTransaction} runs in the
+     * run's transaction once the stock was taken.
+     */
+    public ProductionRunResultDTO commit(Map<Long, BigDecimal> quantities, SortedMap<Long, BigDecimal> consumption,
+                                         Runnable inTransaction) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return QuarkusTransaction.requiringNew().call(() -> consume(quantities, consumption, inTransaction));
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS || !isTransient(e)) {
+                    throw e;
+                }
+                LOG.debug("Production run aborted by the database, retrying (attempt " + attempt + ")", e);
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Quantity per product of the given items, validated like a run.
+     */
+    public static Map<Long, BigDecimal> quantities(List<RunItemDTO> items) {
+        Map<Long, BigDecimal> quantities = new LinkedHashMap<>();
+        for (RunItemDTO item : items) {
+            if (item.quantity.stripTrailingZeros().scale() > ProductionEngine.QUANTITY_SCALE) {
+                throw new IllegalArgumentException("Invalid quantity for product " + item.productId
+                    + ": at most " + ProductionEngine.QUANTITY_SCALE + " decimal places");
+            }
+            quantities.merge(item.productId, item.quantity, BigDecimal::add);
+        }
+        return quantities;
+    }
+
+    /**
+     * Raw materials a run of the given product quantities consumes, by raw
+     * material id, at the scale of the stock column.
+     */
+    public static TreeMap<Long, BigDecimal> consumption(BomExplosion explosion, Map<Long, BigDecimal> quantities) {
+        for (Long productId : quantities.keySet()) {
+            if (!explosion.contains(productId)) {
+                throw new NotFoundException("Product not found with id: " + productId);
+            }
+        }
+        // Sub-assemblies are consumed as the raw materials they are made of
+        TreeMap<Long, BigDecimal> consumption = new TreeMap<>();
+        quantities.forEach((productId, quantity) -> explosion.requirements(productId).forEach(
+            (rawMaterialId, required) -> consumption.merge(rawMaterialId, quantity.multiply(required), BigDecimal::add)));
+        // Never take out less than the run needs
+        consumption.replaceAll((id, quantity) ->
+            quantity.setScale(ProductionEngine.QUANTITY_SCALE, RoundingMode.CEILING));
+        return consumption;
+    }
+
+    private ProductionRunResultDTO consume(Map<Long, BigDecimal> quantities, SortedMap<Long, BigDecimal> held,
+                                           Runnable inTransaction) {
+        // Sorted by raw material id so concurrent runs lock rows in the same order
+        SortedMap<Long, BigDecimal> consumption = held != null
+            ? held
+            : consumption(snapshotCache.current().snapshot.explosion, quantities);
+
+        List<Long> insufficient = new ArrayList<>();
+        entityCacheService.invalidateStock(consumption.keySet());
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(CONSUME_SQL)) {
+                for (Map.Entry<Long, BigDecimal> entry : consumption.entrySet()) {
+                    statement.setBigDecimal(1, entry.getValue());
+                    statement.setLong(2, entry.getKey());
+                    statement.setBigDecimal(3, entry.getValue().add(heldByOthers(entry.getKey(), held)));
+                    statement.addBatch();
+                }
+                int[] updated = statement.executeBatch();
+                int i = 0;
+                for (Long rawMaterialId : consumption.keySet()) {
+                    if (updated[i++] == 0) {
+                        insufficient.add(rawMaterialId);
+                    }
+                }
+            }
+        });
+        if (!insufficient.isEmpty()) {
+            throw new ConflictException("Insufficient stock for raw materials: " + insufficient);
+        }
+        if (inTransaction != null) {
+            inTransaction.run();
+        }
+
+        ProductionRunResultDTO result = new ProductionRunResultDTO();
+        quantities.forEach((productId, quantity) -> result.items.add(new RunItemDTO(productId, quantity)));
+        if (consumption.isEmpty()) {
+            return result;
+        }
+        Map<Long, BigDecimal> remaining = new TreeMap<>();
+        em.createQuery("SELECT rm.id, rm.stockQuantity FROM RawMaterial rm WHERE rm.id IN :ids", Object[].class)
+            .setParameter("ids", consumption.keySet())
+            .getResultList()
+            .forEach(row -> remaining.put((Long) row[0], (BigDecimal) row[1]));
+        List<ChangeEvent> changes = new ArrayList<>(consumption.size());
+        consumption.forEach((rawMaterialId, consumed) -> {
+            result.consumption.add(new ConsumptionDTO(rawMaterialId, consumed, remaining.get(rawMaterialId)));
+            changes.add(outbox.event(Aggregate.RAW_MATERIAL, Operation.UPDATED, rawMaterialId,
+                Map.of("stockQuantity", remaining.get(rawMaterialId))));
+        });
+        outbox.append(changes);
+
+        catalogChanges.fire(CatalogChange.stock(consumption.keySet()));
+        return result;
+    }
+
+    /**
+     * Stock of the raw material that reservations hold, less what the run's
+     * own reservation ({@code held}, if any) holds of it.
+     */
+    private BigDecimal heldByOthers(Long rawMaterialId, SortedMap<Long, BigDecimal> held) {
+        BigDecimal reserved = BigDecimal.valueOf(ledger.held(rawMaterialId), ProductionEngine.QUANTITY_SCALE);
+        return held != null ? reserved.subtract(held.get(rawMaterialId)).max(BigDecimal.ZERO) : reserved;
+    }
+
+    /**
+     * Whether the database aborted the transaction and it can simply be run
+     * again: SQLSTATE class 40 (serialization failure, deadlock).
+     */
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getSQLState() != null
+                    && sql.getSQLState().startsWith("40")) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(5, 25) * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying production run", e);
+        }
+    }
+}
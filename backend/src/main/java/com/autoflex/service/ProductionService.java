@@ -1,131 +1,322 @@
 package com.autoflex.service;
 
+import com.autoflex.dto.CacheStatsDTO.ProductionPlanStatsDTO;
+import com.autoflex.dto.ProductionAnalysisDTO;
 import com.autoflex.dto.ProductionCalculationDTO;
-import com.autoflex.dto.ProductionCalculationDTO.ProductionItemDTO;
-import com.autoflex.entity.Product;
-import com.autoflex.entity.ProductRawMaterial;
+import com.autoflex.planner.BomSnapshot;
+import com.autoflex.planner.GreedyPlan;
+import com.autoflex.planner.ProductionEngine;
+import com.autoflex.planner.ProductionOptimizer;
+import com.autoflex.planner.ProductionStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.instrumentation.annotations.SpanAttribute;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.*;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 @ApplicationScoped
 public class ProductionService {
 
     private static final Logger LOG = Logger.getLogger(ProductionService.class);
 
+    @Inject
+    BomSnapshotCache snapshotCache;
+
+    @Inject
+    ReservationLedger reservationLedger;
+
+    @ConfigProperty(name = "autoflex.production.optimizer.time-budget", defaultValue = "800ms")
+    Duration optimizerTimeBudget;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final Map<ProductionStrategy, CalculatedPlan> lastPlans = new ConcurrentHashMap<>();
+    private volatile ShadowPrices lastShadowPrices;
+
+    private final LongAdder planHits = new LongAdder();
+    private final LongAdder planMisses = new LongAdder();
+    private final LongAdder incrementalPlans = new LongAdder();
+
     /**
      * Calculate which products can be produced with available raw materials,
      * prioritizing products by highest value.
-     * 
+     *
      * Algorithm:
-     * 1. Get all products ordered by value (descending)
+     * 1. Take the cached BOM snapshot (products ordered by value descending,
+     *    their raw materials and the current stock), compiled into
+     *    fixed-point arrays (see {@link BomSnapshotCache}, {@link ProductionEngine}),
+     *    less the stock held by reservations (see {@link ReservationLedger})
      * 2. For each product, calculate maximum quantity that can be produced
      * 3. Select products greedily by value until stock is exhausted
      * 4. Return production plan with total value
      */
     public ProductionCalculationDTO calculateProduction() {
-        LOG.debug("Starting production calculation");
-
-        // Get all products ordered by value (highest first)
-        List<Product> products = Product.findAllOrdered();
-        LOG.debug("Found " + products.size() + " products");
-
-        // Track remaining stock (mutable copy)
-        Map<Long, BigDecimal> availableStock = new HashMap<>();
-        
-        // Initialize available stock from database
-        Product.getEntityManager()
-            .createQuery("SELECT rm.id, rm.stockQuantity FROM RawMaterial rm", Object[].class)
-            .getResultList()
-            .forEach(row -> availableStock.put((Long) row[0], (BigDecimal) row[1]));
-
-        LOG.debug("Available stock initialized with " + availableStock.size() + " raw materials");
-
-        List<ProductionItemDTO> productionItems = new ArrayList<>();
-        BigDecimal totalValue = BigDecimal.ZERO;
-
-        // Process each product by priority (highest value first)
-        for (Product product : products) {
-            BigDecimal maxQuantity = calculateMaxQuantity(product, availableStock);
-            
-            if (maxQuantity.compareTo(BigDecimal.ZERO) > 0) {
-                // Update stock after production
-                updateStock(product, maxQuantity, availableStock);
-                
-                BigDecimal itemTotalValue = product.value.multiply(maxQuantity)
-                    .setScale(2, RoundingMode.HALF_UP);
-                totalValue = totalValue.add(itemTotalValue);
-
-                ProductionItemDTO item = new ProductionItemDTO(
-                    product.id,
-                    product.code,
-                    product.name,
-                    product.value,
-                    maxQuantity,
-                    itemTotalValue
-                );
-                productionItems.add(item);
-
-                LOG.debug(String.format("Product %s: quantity=%.2f, value=%.2f", 
-                    product.code, maxQuantity, itemTotalValue));
-            }
-        }
+        return calculatePlan(ProductionStrategy.GREEDY).result;
+    }
 
-        LOG.info(String.format("Production calculation complete: %d items, total value=%.2f", 
-            productionItems.size(), totalValue));
+    /**
+     * Calculate a production plan with the given strategy. {@link ProductionStrategy#OPTIMAL}
+     * and {@link ProductionStrategy#OPTIMAL_INTEGER} maximize the total value instead of
+     * following the value order, within {@code autoflex.production.optimizer.time-budget}.
+     */
+    public ProductionCalculationDTO calculateProduction(ProductionStrategy strategy) {
+        return calculatePlan(strategy).result;
+    }
 
-        return new ProductionCalculationDTO(productionItems, totalValue);
+    /**
+     * Same as {@link #calculateProduction(ProductionStrategy)}, together with the
+     * catalogue and reservation ledger versions the plan was computed from. Plans
+     * are memoized per strategy and versions, so repeated calls without catalogue
+     * or reservation changes return the same instance, which callers must not modify.
+     *
+     * After stock, reservation or BOM line changes the greedy plan is updated
+     * incrementally from the previous one (see {@link GreedyPlan#replan}) instead
+     * of being recomputed from scratch.
+     */
+    @WithSpan
+    public CalculatedPlan calculatePlan(@SpanAttribute("autoflex.production.strategy") ProductionStrategy strategy) {
+        return calculatePlan(strategy, snapshotCache.current());
     }
 
     /**
-     * Calculate maximum quantity of a product that can be produced
-     * given the available stock of raw materials.
+     * Bottleneck raw material of every item of the plan calculated with the given
+     * strategy, and per raw material the leftover stock and its shadow price.
+     *
+     * Shadow prices are the dual prices of the continuous LP over the same
+     * catalogue, whatever the strategy: the value one more unit of a raw material
+     * adds to the best production mix. They are computed once per catalogue version.
      */
-    private BigDecimal calculateMaxQuantity(Product product, Map<Long, BigDecimal> availableStock) {
-        // Fetch raw materials for this product
-        List<ProductRawMaterial> rawMaterials = ProductRawMaterial.findByProductId(product.id);
-        
-        if (rawMaterials.isEmpty()) {
-            LOG.debug("Product " + product.code + " has no raw materials configured");
-            return BigDecimal.ZERO;
+    @WithSpan
+    public ProductionAnalysisDTO analyze(@SpanAttribute("autoflex.production.strategy") ProductionStrategy strategy) {
+        BomSnapshotCache.Entry entry = snapshotCache.current();
+        CalculatedPlan plan = calculatePlan(strategy, entry);
+        double[] shadowPrices = shadowPrices(entry, plan);
+
+        ProductionAnalysisDTO analysis = plan.greedy != null
+            ? plan.greedy.toAnalysis(shadowPrices)
+            : plan.engine.toAnalysis(plan.quantities, shadowPrices);
+        analysis.version = plan.version;
+        analysis.strategy = strategy.param();
+        analysis.optimal = plan.result.optimal;
+        LOG.debug(String.format("Production analysis (%s): %d items, %d raw materials, shadow prices %s",
+            strategy.param(), analysis.items.size(), analysis.rawMaterials.size(),
+            shadowPrices != null ? "available" : "unavailable"));
+        return analysis;
+    }
+
+    private CalculatedPlan calculatePlan(ProductionStrategy strategy, BomSnapshotCache.Entry entry) {
+        Span span = Span.current();
+        span.setAttribute("autoflex.catalogue.version", entry.version);
+        span.setAttribute("autoflex.production.products", entry.engine.productCount());
+        span.setAttribute("autoflex.production.bom_lines", entry.engine.lineCount());
+        ReservationLedger.Holds holds = reservationLedger.holds();
+        span.setAttribute("autoflex.reservation.ledger_version", holds.version);
+        CalculatedPlan plan = lastPlans.get(strategy);
+        if (entry.committed && plan != null && plan.version == entry.version
+            && plan.reservationVersion == holds.version) {
+            planHits.increment();
+            span.setAttribute("autoflex.production.plan_cached", true);
+            span.setAttribute("autoflex.production.result_items", plan.result.items.size());
+            return plan;
         }
+        planMisses.increment();
+        span.setAttribute("autoflex.production.plan_cached", false);
 
-        BigDecimal maxQuantity = null;
+        ProductionEngine engine = available(entry, holds);
+        if (strategy == ProductionStrategy.GREEDY) {
+            CalculatedPlan previous = plan;
+            GreedyPlan greedy = phaseTimer("plan", strategy).record(() -> greedyPlan(entry, engine, holds, previous));
+            countProducts(strategy, engine.productCount() - greedy.replayedFrom(), greedy.skipped());
+            ProductionCalculationDTO result = phaseTimer("dto_build", strategy).record(greedy::toCalculation);
+            plan = new CalculatedPlan(entry.version, holds, strategy, result, engine, greedy, null);
+        } else {
+            ProductionOptimizer.Result optimized = phaseTimer("plan", strategy).record(() -> optimize(engine, strategy));
+            long[] quantities = optimized.quantities;
+            countProducts(strategy, quantities.length, (int) Arrays.stream(quantities).filter(q -> q == 0).count());
+            ProductionCalculationDTO result = phaseTimer("dto_build", strategy)
+                .record(() -> engine.toCalculation(quantities));
+            result.optimal = optimized.optimal;
+            plan = new CalculatedPlan(entry.version, holds, strategy, result, engine, null, quantities);
+        }
+        LOG.info(String.format("Production calculation complete (%s): %d items, total value=%.2f",
+            strategy.param(), plan.result.items.size(), plan.result.totalValue));
+        span.setAttribute("autoflex.production.result_items", plan.result.items.size());
 
-        for (ProductRawMaterial prm : rawMaterials) {
-            BigDecimal available = availableStock.getOrDefault(prm.rawMaterial.id, BigDecimal.ZERO);
-            BigDecimal required = prm.requiredQuantity;
+        // A plan cut short by the time budget is not cached, so the next request gets another try
+        if (entry.committed && !Boolean.FALSE.equals(plan.result.optimal)) {
+            lastPlans.merge(strategy, plan, (previous, latest) -> latest.isAtLeast(previous) ? latest : previous);
+        }
+        return plan;
+    }
 
-            if (required.compareTo(BigDecimal.ZERO) == 0) {
-                continue; // Skip if no quantity required
+    /**
+     * The entry's engine planning with the stock that is not held by reservations.
+     */
+    static ProductionEngine available(BomSnapshotCache.Entry entry, ReservationLedger.Holds holds) {
+        return holds.amounts.isEmpty() ? entry.engine : entry.engine.withStock(availableStock(entry.snapshot, holds));
+    }
+
+    /**
+     * Stock not held by reservations, for the raw materials of the snapshot that have holds.
+     */
+    static Map<Long, BigDecimal> availableStock(BomSnapshot snapshot, ReservationLedger.Holds holds) {
+        Map<Long, BigDecimal> stock = new HashMap<>();
+        holds.amounts.keySet().forEach(rawMaterialId -> {
+            BigDecimal physical = snapshot.stock.get(rawMaterialId);
+            if (physical != null) {
+                stock.put(rawMaterialId, holds.available(rawMaterialId, physical));
             }
+        });
+        return stock;
+    }
 
-            // Calculate how many units can be produced with this raw material
-            BigDecimal possibleQuantity = available.divide(required, 3, RoundingMode.DOWN);
+    private Timer phaseTimer(String phase, ProductionStrategy strategy) {
+        return Timer.builder("autoflex.planner.phase")
+            .description("Production planning phases: the plan itself and building its response")
+            .tag("phase", phase)
+            .tag("strategy", strategy.param())
+            .register(registry);
+    }
+
+    private void countProducts(ProductionStrategy strategy, int evaluated, int skipped) {
+        registry.counter("autoflex.planner.products.evaluated", "strategy", strategy.param()).increment(evaluated);
+        registry.counter("autoflex.planner.products.skipped", "strategy", strategy.param()).increment(skipped);
+    }
+
+    /**
+     * Version of the committed catalogue; a plan computed now would be
+     * tagged with at least this version. Never touches the database.
+     */
+    public long currentVersion() {
+        return snapshotCache.version();
+    }
+
+    /**
+     * Version of the reservation ledger; a plan computed now would be tagged
+     * with at least this version.
+     */
+    public long currentReservationVersion() {
+        return reservationLedger.version();
+    }
+
+    public ProductionPlanStatsDTO stats() {
+        CalculatedPlan plan = lastPlans.get(ProductionStrategy.GREEDY);
+        ProductionPlanStatsDTO stats = new ProductionPlanStatsDTO();
+        stats.cachedVersion = plan != null ? plan.version : null;
+        stats.hits = planHits.sum();
+        stats.misses = planMisses.sum();
+        stats.incrementalUpdates = incrementalPlans.sum();
+        return stats;
+    }
 
-            // Take minimum across all raw materials (bottleneck)
-            if (maxQuantity == null || possibleQuantity.compareTo(maxQuantity) < 0) {
-                maxQuantity = possibleQuantity;
+    private GreedyPlan greedyPlan(BomSnapshotCache.Entry entry, ProductionEngine engine,
+                                  ReservationLedger.Holds holds, CalculatedPlan previous) {
+        BomSnapshotCache.Changes changes = entry.changes;
+        boolean sameCatalogue = previous != null && previous.version == entry.version;
+        if (previous == null || previous.greedy == null
+            || !sameCatalogue && (changes == null || previous.version != changes.baseVersion)) {
+            LOG.debug("Full greedy pass over " + engine.productCount() + " products");
+            return GreedyPlan.of(engine);
+        }
+        Set<Long> rawMaterialIds = new HashSet<>(sameCatalogue ? Set.of() : changes.rawMaterialIds);
+        Set<Long> productIds = sameCatalogue ? Set.of() : changes.productIds;
+        // Raw materials whose held stock changed count as stock changes
+        Set<Long> heldIds = new HashSet<>(holds.amounts.keySet());
+        heldIds.addAll(previous.holds.amounts.keySet());
+        for (Long rawMaterialId : heldIds) {
+            if (!Objects.equals(holds.amounts.get(rawMaterialId), previous.holds.amounts.get(rawMaterialId))) {
+                rawMaterialIds.add(rawMaterialId);
             }
         }
+        GreedyPlan greedy = previous.greedy.replan(engine, rawMaterialIds, productIds);
+        incrementalPlans.increment();
+        LOG.debug(String.format("Greedy plan replayed from position %d of %d",
+            greedy.replayedFrom(), engine.productCount()));
+        return greedy;
+    }
 
-        return maxQuantity != null ? maxQuantity : BigDecimal.ZERO;
+    private ProductionOptimizer.Result optimize(ProductionEngine engine, ProductionStrategy strategy) {
+        LOG.debug("Optimizing production (" + strategy.param() + ") over " + engine.productCount()
+            + " products and " + engine.materialCount() + " raw materials");
+        return ProductionOptimizer.optimize(engine,
+            strategy == ProductionStrategy.OPTIMAL_INTEGER, optimizerTimeBudget);
+    }
+
+    private double[] shadowPrices(BomSnapshotCache.Entry entry, CalculatedPlan plan) {
+        ShadowPrices cached = lastShadowPrices;
+        if (entry.committed && cached != null && cached.version == plan.version
+            && cached.reservationVersion == plan.reservationVersion) {
+            return cached.prices;
+        }
+        double[] prices = ProductionOptimizer.shadowPrices(plan.engine, optimizerTimeBudget);
+        // A timed-out solve is not cached, so the next request gets another try
+        if (entry.committed && prices != null) {
+            lastShadowPrices = new ShadowPrices(plan.version, plan.reservationVersion, prices);
+        }
+        return prices;
+    }
+
+    private static final class ShadowPrices {
+        final long version;
+        final long reservationVersion;
+        final double[] prices;
+
+        ShadowPrices(long version, long reservationVersion, double[] prices) {
+            this.version = version;
+            this.reservationVersion = reservationVersion;
+            this.prices = prices;
+        }
     }
 
     /**
-     * Update the available stock after producing a quantity of a product.
+     * A production plan and the catalogue and reservation ledger versions it
+     * was computed from.
      */
-    private void updateStock(Product product, BigDecimal quantity, Map<Long, BigDecimal> availableStock) {
-        List<ProductRawMaterial> rawMaterials = ProductRawMaterial.findByProductId(product.id);
-        
-        for (ProductRawMaterial prm : rawMaterials) {
-            BigDecimal consumed = prm.requiredQuantity.multiply(quantity);
-            BigDecimal current = availableStock.getOrDefault(prm.rawMaterial.id, BigDecimal.ZERO);
-            BigDecimal remaining = current.subtract(consumed);
-            availableStock.put(prm.rawMaterial.id, remaining);
+    public static final class CalculatedPlan {
+        public final long version;
+        public final long reservationVersion;
+        public final ProductionStrategy strategy;
+        public final ProductionCalculationDTO result;
+        /** Held stock the plan was computed without. */
+        final ReservationLedger.Holds holds;
+        /** Engine with the held stock taken out. */
+        final ProductionEngine engine;
+        /** State for incremental updates; only set for {@link ProductionStrategy#GREEDY}. */
+        final GreedyPlan greedy;
+        /** Quantity per product position of the other strategies. */
+        final long[] quantities;
+
+        CalculatedPlan(long version, ReservationLedger.Holds holds, ProductionStrategy strategy,
+                       ProductionCalculationDTO result, ProductionEngine engine, GreedyPlan greedy, long[] quantities) {
+            this.version = version;
+            this.reservationVersion = holds.version;
+            this.holds = holds;
+            this.strategy = strategy;
+            this.result = result;
+            this.engine = engine;
+            this.greedy = greedy;
+            this.quantities = quantities;
+        }
+
+        /** Whether this plan is computed from data at least as recent as {@code other}'s. */
+        public boolean isAtLeast(CalculatedPlan other) {
+            return version >= other.version && reservationVersion >= other.reservationVersion;
         }
     }
 }
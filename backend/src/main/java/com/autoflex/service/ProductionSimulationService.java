@@ -0,0 +1,297 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.ProductionCalculationDTO;
+import com.autoflex.dto.SimulationRequestDTO;
+import com.autoflex.dto.SimulationRequestDTO.ScenarioDTO;
+import com.autoflex.dto.SimulationResultDTO;
+import com.autoflex.dto.SimulationResultDTO.ScenarioResultDTO;
+import com.autoflex.planner.BomSnapshot;
+import com.autoflex.planner.GreedyPlan;
+import com.autoflex.planner.ProductionEngine;
+import com.autoflex.planner.ProductionOptimizer;
+import com.autoflex.planner.ProductionStrategy;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.ServiceUnavailableException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What-if production plans. All scenarios of a request are planned in
+ * parallel against the same immutable snapshot and compiled engine, on a
+ * dedicated pool so simulations cannot starve the request threads. Like the
+ * plans of {@link ProductionService}, they plan with the stock that is not
+ * held by reservations; scenario stock is physical stock, held amounts are
+ * taken out of it as well.
+ *
+ * Scenarios that only change stock reuse the engine's arrays and, for the
+ * greedy strategy, update the current plan incrementally. Price changes
+ * reorder the products, so those scenarios compile their own engine.
+ *
+ * Only loading the snapshot and the current plan takes a database permit;
+ * planning the scenarios is CPU-only. All scenarios of a request share one
+ * deadline ({@code autoflex.production.simulation.timeout}): requests for an
+ * optimal strategy with more scenarios than could use their whole optimizer
+ * budget within it are rejected up front, and a simulation still running at
+ * the deadline fails with 503.
+ */
+@ApplicationScoped
+public class ProductionSimulationService {
+
+    private static final Logger LOG = Logger.getLogger(ProductionSimulationService.class);
+
+    @Inject
+    BomSnapshotCache snapshotCache;
+
+    @Inject
+    ProductionService productionService;
+
+    @Inject
+    ReservationLedger reservationLedger;
+
+    @Inject
+    DatabaseConcurrencyLimiter limiter;
+
+    @ConfigProperty(name = "autoflex.production.optimizer.time-budget", defaultValue = "800ms")
+    Duration optimizerTimeBudget;
+
+    /** Threads simulating scenarios; 0 for one per available processor. */
+    @ConfigProperty(name = "autoflex.production.simulation.parallelism", defaultValue = "0")
+    int parallelism;
+
+    @ConfigProperty(name = "autoflex.production.simulation.max-scenarios", defaultValue = "1000")
+    int maxScenarios;
+
+    @ConfigProperty(name = "autoflex.production.simulation.timeout", defaultValue = "10s")
+    Duration timeout;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void start() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Scenarios of an optimal strategy that fit in the timeout even if each
+     * runs the optimizer for its whole time budget.
+     */
+    int maxOptimizedScenarios() {
+        return (int) Math.min(maxScenarios,
+            timeout.toMillis() * pool.getParallelism() / Math.max(1, optimizerTimeBudget.toMillis()));
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    public SimulationResultDTO simulate(SimulationRequestDTO request, ProductionStrategy strategy) {
+        if (request.scenarios.size() > maxScenarios) {
+            throw new IllegalArgumentException("Too many scenarios: at most " + maxScenarios + " per request");
+        }
+        if (strategy != ProductionStrategy.GREEDY && request.scenarios.size() > maxOptimizedScenarios()) {
+            throw new IllegalArgumentException("Too many scenarios for strategy " + strategy.param() + ": at most "
+                + maxOptimizedScenarios() + " per request");
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Baseline baseline = baseline(strategy);
+        BomSnapshotCache.Entry entry = baseline.entry;
+        ReservationLedger.Holds holds = baseline.holds;
+        ProductionEngine available = baseline.available;
+        GreedyPlan base = baseline.greedy;
+
+        // Validate everything up front so a bad scenario fails the request before any work starts
+        List<Callable<ProductionCalculationDTO>> tasks = new ArrayList<>(request.scenarios.size());
+        for (ScenarioDTO scenario : request.scenarios) {
+            Map<Long, BigDecimal> stock = stockChanges(entry.snapshot, scenario);
+            stock.replaceAll(holds::available);
+            Map<Long, BigDecimal> prices = priceChanges(entry.snapshot, scenario);
+            tasks.add(() -> plan(entry, holds, available, base, stock, prices, strategy));
+        }
+
+        long start = System.nanoTime();
+        List<Future<ProductionCalculationDTO>> results = invokeAll(tasks, deadline);
+        SimulationResultDTO result = new SimulationResultDTO();
+        result.version = entry.version;
+        result.strategy = strategy.param();
+        for (int i = 0; i < results.size(); i++) {
+            result.scenarios.add(new ScenarioResultDTO(request.scenarios.get(i).name, await(results.get(i))));
+        }
+        LOG.debug(String.format("Simulated %d scenarios (%s) in %d ms", tasks.size(), strategy.param(),
+            (System.nanoTime() - start) / 1_000_000));
+        return result;
+    }
+
+    /**
+     * Snapshot, holds and, for the greedy strategy, the current plan, loaded
+     * under a database permit.
+     */
+    private Baseline baseline(ProductionStrategy strategy) {
+        try {
+            return limiter.call(() -> {
+                BomSnapshotCache.Entry entry = snapshotCache.current();
+                ReservationLedger.Holds holds = reservationLedger.holds();
+                ProductionEngine available = ProductionService.available(entry, holds);
+                GreedyPlan greedy = strategy == ProductionStrategy.GREEDY ? basePlan(entry, holds, available) : null;
+                return new Baseline(entry, holds, available, greedy);
+            });
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // The loading declares no checked exceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<Future<ProductionCalculationDTO>> invokeAll(List<Callable<ProductionCalculationDTO>> tasks,
+                                                             long deadline) {
+        List<Future<ProductionCalculationDTO>> results;
+        try {
+            results = pool.invokeAll(tasks, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating", e);
+        }
+        if (results.stream().anyMatch(Future::isCancelled)) {
+            throw new ServiceUnavailableException("Simulation did not finish within " + timeout.toMillis()
+                + " ms, try fewer scenarios");
+        }
+        return results;
+    }
+
+    private GreedyPlan basePlan(BomSnapshotCache.Entry entry, ReservationLedger.Holds holds,
+                                ProductionEngine available) {
+        ProductionService.CalculatedPlan current = productionService.calculatePlan(ProductionStrategy.GREEDY);
+        return current.version == entry.version && current.reservationVersion == holds.version
+            && current.greedy != null
+            ? current.greedy
+            : GreedyPlan.of(available);
+    }
+
+    /**
+     * @param available the entry's engine without the held stock
+     * @param stock     stock overrides of the scenario, without the held stock
+     */
+    private ProductionCalculationDTO plan(BomSnapshotCache.Entry entry, ReservationLedger.Holds holds,
+                                          ProductionEngine available, GreedyPlan base, Map<Long, BigDecimal> stock,
+                                          Map<Long, BigDecimal> prices, ProductionStrategy strategy) {
+        ProductionEngine engine;
+        if (prices.isEmpty()) {
+            engine = stock.isEmpty() ? available : available.withStock(stock);
+        } else {
+            Map<Long, BigDecimal> availableStock = ProductionService.availableStock(entry.snapshot, holds);
+            availableStock.putAll(stock);
+            engine = ProductionEngine.compile(entry.snapshot.withStock(availableStock).withValues(prices));
+        }
+        if (strategy == ProductionStrategy.GREEDY) {
+            // Value changes alone do not change greedy quantities, only the order and the totals
+            return base.replan(engine, stock.keySet(), prices.keySet()).toCalculation();
+        }
+        ProductionOptimizer.Result optimized = ProductionOptimizer.optimize(engine,
+            strategy == ProductionStrategy.OPTIMAL_INTEGER, optimizerTimeBudget);
+        ProductionCalculationDTO result = engine.toCalculation(optimized.quantities);
+        result.optimal = optimized.optimal;
+        return result;
+    }
+
+    /**
+     * Absolute stock per raw material after the scenario's overrides and deltas.
+     */
+    private static Map<Long, BigDecimal> stockChanges(BomSnapshot snapshot, ScenarioDTO scenario) {
+        Map<Long, BigDecimal> stock = new HashMap<>();
+        if (scenario.stock != null) {
+            scenario.stock.forEach((id, quantity) -> stock.put(id, requireStock(snapshot, id, quantity)));
+        }
+        if (scenario.stockDelta != null) {
+            scenario.stockDelta.forEach((id, delta) -> {
+                BigDecimal current = stock.getOrDefault(id, requireStock(snapshot, id, snapshot.stock.get(id)));
+                stock.put(id, current.add(requireValue(delta, "stock delta of raw material " + id)));
+            });
+        }
+        stock.forEach((id, quantity) -> {
+            if (quantity.signum() < 0) {
+                throw new IllegalArgumentException("Stock of raw material " + id + " would be negative");
+            }
+            if (quantity.stripTrailingZeros().scale() > ProductionEngine.QUANTITY_SCALE) {
+                throw new IllegalArgumentException("Invalid stock for raw material " + id
+                    + ": at most " + ProductionEngine.QUANTITY_SCALE + " decimal places");
+            }
+        });
+        return stock;
+    }
+
+    private static Map<Long, BigDecimal> priceChanges(BomSnapshot snapshot, ScenarioDTO scenario) {
+        if (scenario.prices == null || scenario.prices.isEmpty()) {
+            return Map.of();
+        }
+        scenario.prices.forEach((id, value) -> {
+            if (!snapshot.explosion.contains(id)) {
+                throw new NotFoundException("Product not found with id: " + id);
+            }
+            if (requireValue(value, "value of product " + id).signum() <= 0) {
+                throw new IllegalArgumentException("Value of product " + id + " must be positive");
+            }
+        });
+        return scenario.prices;
+    }
+
+    private static BigDecimal requireStock(BomSnapshot snapshot, Long id, BigDecimal quantity) {
+        if (!snapshot.stock.containsKey(id)) {
+            throw new NotFoundException("Raw material not found with id: " + id);
+        }
+        return requireValue(quantity, "stock of raw material " + id);
+    }
+
+    private static BigDecimal requireValue(BigDecimal value, String what) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + what);
+        }
+        return value;
+    }
+
+    /** What every scenario of a request is planned from. */
+    private static final class Baseline {
+        final BomSnapshotCache.Entry entry;
+        final ReservationLedger.Holds holds;
+        final ProductionEngine available;
+        final GreedyPlan greedy;
+
+        Baseline(BomSnapshotCache.Entry entry, ReservationLedger.Holds holds, ProductionEngine available,
+                 GreedyPlan greedy) {
+            this.entry = entry;
+            this.holds = holds;
+            this.available = available;
+            this.greedy = greedy;
+        }
+    }
+
+    private static ProductionCalculationDTO await(Future<ProductionCalculationDTO> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        }
+    }
+}
@@ -1,18 +1,45 @@
 package com.autoflex.service;
 
+import com.autoflex.dto.BulkResultDTO;
+import com.autoflex.dto.PageDTO;
 import com.autoflex.dto.RawMaterialDTO;
 import com.autoflex.entity.RawMaterial;
+import com.autoflex.event.CatalogChange;
+import com.autoflex.event.ChangeEvent;
+import com.autoflex.event.ChangeEvent.Aggregate;
+import com.autoflex.event.ChangeEvent.Operation;
 import com.autoflex.exception.ConflictException;
+import com.autoflex.outbox.ChangeOutbox;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class RawMaterialService {
 
+    private static final String SELECT_DTO =
+        "SELECT new com.autoflex.dto.RawMaterialDTO(rm.id, rm.code, rm.name, rm.stockQuantity) FROM RawMaterial rm";
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
+
+    @Inject
+    ChangeOutbox outbox;
+
+    @Inject
+    BulkWriter bulkWriter;
+
     public List<RawMaterialDTO> findAll() {
         return RawMaterial.<RawMaterial>listAll()
             .stream()
@@ -20,6 +47,13 @@ public class RawMaterialService {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Up to {@code limit} raw materials with an id greater than {@code after}, in id order.
+     */
+    public PageDTO<RawMaterialDTO> findPage(long after, int limit) {
+        return KeysetQueries.page(SELECT_DTO, "rm", RawMaterialDTO.class, dto -> dto.id, after, limit);
+    }
+
     public RawMaterialDTO findById(Long id) {
         RawMaterial rawMaterial = RawMaterial.findById(id);
         if (rawMaterial == null) {
@@ -49,7 +83,10 @@ public class RawMaterialService {
         rawMaterial.name = dto.name;
         rawMaterial.stockQuantity = dto.stockQuantity;
         rawMaterial.persist();
-        return RawMaterialDTO.fromEntity(rawMaterial);
+        RawMaterialDTO created = RawMaterialDTO.fromEntity(rawMaterial);
+        outbox.append(Aggregate.RAW_MATERIAL, Operation.CREATED, rawMaterial.id, created);
+        catalogChanges.fire(CatalogChange.catalog());
+        return created;
     }
 
     @Transactional
@@ -71,8 +108,66 @@ public class RawMaterialService {
         rawMaterial.name = dto.name;
         rawMaterial.stockQuantity = dto.stockQuantity;
         rawMaterial.persist();
+        RawMaterialDTO updated = RawMaterialDTO.fromEntity(rawMaterial);
+        outbox.append(Aggregate.RAW_MATERIAL, Operation.UPDATED, id, updated);
+        // The planner only sees the stock of a raw material, not its code or name
+        catalogChanges.fire(CatalogChange.stock(id));
 
-        return RawMaterialDTO.fromEntity(rawMaterial);
+        return updated;
+    }
+
+    /**
+     * Create and/or update raw materials matched by code, in chunked
+     * transactions. Existing raw materials of a chunk are loaded with one query
+     * and all inserts and updates are flushed as JDBC batches at commit.
+     */
+    public BulkResultDTO bulkWrite(Iterator<RawMaterialDTO> items, BulkMode mode) {
+        return bulkWriter.write(items, dto -> dto.code, chunk -> {
+            Set<String> codes = chunk.stream().map(item -> item.value.code).collect(Collectors.toSet());
+            Map<String, RawMaterial> rawMaterials = new HashMap<>();
+            for (RawMaterial rawMaterial : RawMaterial.<RawMaterial>list("code IN ?1", codes)) {
+                rawMaterials.put(rawMaterial.code, rawMaterial);
+            }
+
+            boolean created = false;
+            Set<Long> updatedIds = new HashSet<>();
+            List<ChangeEvent> changes = new ArrayList<>();
+            for (BulkWriter.Item<RawMaterialDTO> item : chunk) {
+                RawMaterialDTO dto = item.value;
+                RawMaterial rawMaterial = rawMaterials.get(dto.code);
+                if (rawMaterial == null) {
+                    if (mode == BulkMode.UPDATE) {
+                        item.failed("Raw material not found with code: " + dto.code);
+                        continue;
+                    }
+                    rawMaterial = new RawMaterial(dto.code, dto.name, dto.stockQuantity);
+                    rawMaterial.persist();
+                    rawMaterials.put(rawMaterial.code, rawMaterial);
+                    item.created(rawMaterial.id);
+                    changes.add(outbox.event(Aggregate.RAW_MATERIAL, Operation.CREATED, rawMaterial.id,
+                        RawMaterialDTO.fromEntity(rawMaterial)));
+                    created = true;
+                } else {
+                    if (mode == BulkMode.CREATE) {
+                        item.failed("Raw material with code " + dto.code + " already exists");
+                        continue;
+                    }
+                    rawMaterial.name = dto.name;
+                    rawMaterial.stockQuantity = dto.stockQuantity;
+                    item.updated(rawMaterial.id);
+                    updatedIds.add(rawMaterial.id);
+                    changes.add(outbox.event(Aggregate.RAW_MATERIAL, Operation.UPDATED, rawMaterial.id,
+                        RawMaterialDTO.fromEntity(rawMaterial)));
+                }
+            }
+            outbox.append(changes);
+            // Like update(), changes to existing raw materials only touch the planner's stock
+            if (created) {
+                catalogChanges.fire(CatalogChange.catalog());
+            } else if (!updatedIds.isEmpty()) {
+                catalogChanges.fire(CatalogChange.stock(updatedIds));
+            }
+        });
     }
 
     @Transactional
@@ -82,5 +177,7 @@ public class RawMaterialService {
             throw new NotFoundException("Raw material not found with id: " + id);
         }
         rawMaterial.delete();
+        outbox.append(Aggregate.RAW_MATERIAL, Operation.DELETED, id, null);
+        catalogChanges.fire(CatalogChange.catalog());
     }
 }
@@ -0,0 +1,149 @@
+package com.autoflex.service;
+
+import com.autoflex.planner.ProductionEngine;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Stock held by reservations, per raw material, in thousandths (the scale of
+ * the stock column).
+ *
+ * Every raw material has its own counter, updated with compare-and-set, so
+ * reservations of different raw materials never contend and those of the same
+ * raw material never block: no lock and no database row is involved. A
+ * reservation of several raw materials holds them one at a time in id order
+ * and gives back what it already held if one of them falls short, so
+ * concurrent reservations can see each other's partial holds for an instant
+ * and fail where they would just have fit, but together never hold more than
+ * the stock.
+ *
+ * Every change bumps {@link #version()}, which tags the plans computed from
+ * the holds.
+ */
+@ApplicationScoped
+public class ReservationLedger {
+
+    private final ConcurrentHashMap<Long, AtomicLong> held = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Hold {@code amounts} (thousandths by raw material id) if each fits in
+     * {@code stock} (thousandths, by raw material id) minus what is already held.
+     *
+     * @return the raw materials that did not fit, in id order; empty if everything was held
+     */
+    public List<Long> hold(SortedMap<Long, Long> amounts, LongUnaryOperator stock) {
+        List<Long> insufficient = new ArrayList<>();
+        List<Map.Entry<Long, Long>> acquired = new ArrayList<>(amounts.size());
+        for (Map.Entry<Long, Long> amount : amounts.entrySet()) {
+            Long rawMaterialId = amount.getKey();
+            if (!insufficient.isEmpty()) {
+                // Nothing more is held; only find the others that fall short
+                if (held(rawMaterialId) + amount.getValue() > stock.applyAsLong(rawMaterialId)) {
+                    insufficient.add(rawMaterialId);
+                }
+            } else if (tryHold(counter(rawMaterialId), amount.getValue(), stock.applyAsLong(rawMaterialId))) {
+                acquired.add(amount);
+            } else {
+                insufficient.add(rawMaterialId);
+            }
+        }
+        if (!insufficient.isEmpty()) {
+            acquired.forEach(amount -> counter(amount.getKey()).addAndGet(-amount.getValue()));
+            return insufficient;
+        }
+        version.incrementAndGet();
+        return insufficient;
+    }
+
+    /**
+     * Hold {@code amounts} whatever the stock, e.g. reservations recovered at startup.
+     */
+    public void restore(Map<Long, Long> amounts) {
+        amounts.forEach((rawMaterialId, amount) -> counter(rawMaterialId).addAndGet(amount));
+        version.incrementAndGet();
+    }
+
+    public void release(Map<Long, Long> amounts) {
+        amounts.forEach((rawMaterialId, amount) -> counter(rawMaterialId).addAndGet(-amount));
+        version.incrementAndGet();
+    }
+
+    /**
+     * Thousandths of the raw material currently held.
+     */
+    public long held(Long rawMaterialId) {
+        AtomicLong counter = held.get(rawMaterialId);
+        return counter != null ? counter.get() : 0;
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Current holds with a version they are at least as recent as.
+     */
+    public Holds holds() {
+        long at = version.get();
+        Map<Long, Long> amounts = new HashMap<>();
+        held.forEach((rawMaterialId, counter) -> {
+            long amount = counter.get();
+            if (amount != 0) {
+                amounts.put(rawMaterialId, amount);
+            }
+        });
+        return new Holds(at, amounts);
+    }
+
+    private AtomicLong counter(Long rawMaterialId) {
+        AtomicLong counter = held.get(rawMaterialId);
+        return counter != null ? counter : held.computeIfAbsent(rawMaterialId, id -> new AtomicLong());
+    }
+
+    private static boolean tryHold(AtomicLong counter, long amount, long stock) {
+        for (;;) {
+            long current = counter.get();
+            if (current + amount > stock) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + amount)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Thousandths held per raw material at a ledger version. Immutable.
+     */
+    public static final class Holds {
+        public final long version;
+        public final Map<Long, Long> amounts;
+
+        Holds(long version, Map<Long, Long> amounts) {
+            this.version = version;
+            this.amounts = Collections.unmodifiableMap(amounts);
+        }
+
+        /**
+         * What is left of {@code stock} of the raw material once the held
+         * amount is taken out, never below zero.
+         */
+        public BigDecimal available(Long rawMaterialId, BigDecimal stock) {
+            Long held = amounts.get(rawMaterialId);
+            return held == null
+                ? stock
+                : stock.subtract(BigDecimal.valueOf(held, ProductionEngine.QUANTITY_SCALE)).max(BigDecimal.ZERO);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.ProductionRunDTO.RunItemDTO;
+import com.autoflex.dto.ProductionRunResultDTO;
+import com.autoflex.dto.ReservationDTO;
+import com.autoflex.dto.ReservationDTO.HoldDTO;
+import com.autoflex.dto.ReservationRequestDTO;
+import com.autoflex.event.ReservationChange;
+import com.autoflex.exception.ConflictException;
+import com.autoflex.planner.BomSnapshot;
+import com.autoflex.planner.ProductionEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds raw materials for planned runs without touching their stock: a
+ * reservation holds what a run of the given products would consume in the
+ * {@link ReservationLedger}, and the planner plans with the stock minus what
+ * is held. Confirming a reservation commits the run, taking exactly the held
+ * stock; releasing it, or letting it expire after its TTL, frees the stock.
+ *
+ * Reserving and releasing do not wait for the database: they check the held
+ * amounts against the cached snapshot's stock and change them in memory, and
+ * {@link ReservationStore} writes the reservations behind. Only a reservation
+ * that finds the snapshot out of date reads the catalogue, under a database
+ * permit.
+ */
+@Startup
+@ApplicationScoped
+public class ReservationService {
+
+    private static final Logger LOG = Logger.getLogger(ReservationService.class);
+
+    @ConfigProperty(name = "autoflex.reservation.ttl", defaultValue = "15m")
+    Duration defaultTtl;
+
+    @ConfigProperty(name = "autoflex.reservation.max-ttl", defaultValue = "24h")
+    Duration maxTtl;
+
+    @ConfigProperty(name = "autoflex.reservation.sweep-interval", defaultValue = "1s")
+    Duration sweepInterval;
+
+    @Inject
+    ReservationLedger ledger;
+
+    @Inject
+    ReservationStore store;
+
+    @Inject
+    BomSnapshotCache snapshotCache;
+
+    @Inject
+    ProductionRunService productionRunService;
+
+    @Inject
+    DatabaseConcurrencyLimiter limiter;
+
+    @Inject
+    Event<ReservationChange> reservationChanges;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+    private Counter held;
+    private Counter rejected;
+    private Counter confirmed;
+    private Counter released;
+    private Counter expired;
+
+    @PostConstruct
+    void start() {
+        held = outcomeCounter("held");
+        rejected = outcomeCounter("rejected");
+        confirmed = outcomeCounter("confirmed");
+        released = outcomeCounter("released");
+        expired = outcomeCounter("expired");
+        Gauge.builder("autoflex.reservations.active", reservations, Map::size)
+            .description("Reservations holding stock")
+            .register(registry);
+
+        Instant now = Instant.now();
+        for (Reservation reservation : QuarkusTransaction.requiringNew().call(store::load)) {
+            if (reservation.expiresAt.isAfter(now)) {
+                reservations.put(reservation.id, reservation);
+                ledger.restore(reservation.holds);
+            } else {
+                store.deleted(reservation.id);
+            }
+        }
+        if (!reservations.isEmpty()) {
+            LOG.info("Recovered " + reservations.size() + " reservations");
+        }
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::expire,
+            sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        sweeper.shutdownNow();
+    }
+
+    private Counter outcomeCounter(String outcome) {
+        return Counter.builder("autoflex.reservations")
+            .description("Reservation requests and how they ended")
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+
+    /**
+     * Hold the raw materials a run of the requested products would consume;
+     * 409 if any of them has too little stock left that is not held yet.
+     */
+    public ReservationDTO reserve(ReservationRequestDTO request) {
+        Duration ttl = request.ttlSeconds != null ? Duration.ofSeconds(request.ttlSeconds) : defaultTtl;
+        if (ttl.compareTo(maxTtl) > 0) {
+            throw new IllegalArgumentException("Invalid TTL: at most " + maxTtl.toSeconds() + " seconds");
+        }
+        Map<Long, BigDecimal> quantities = ProductionRunService.quantities(request.items);
+        BomSnapshot snapshot = snapshot();
+        SortedMap<Long, Long> amounts = new TreeMap<>();
+        ProductionRunService.consumption(snapshot.explosion, quantities)
+            .forEach((rawMaterialId, quantity) -> amounts.put(rawMaterialId, toThousandths(quantity)));
+
+        List<Long> insufficient = ledger.hold(amounts, rawMaterialId -> {
+            BigDecimal stock = snapshot.stock.get(rawMaterialId);
+            return stock != null ? toThousandths(stock.max(BigDecimal.ZERO)) : 0;
+        });
+        if (!insufficient.isEmpty()) {
+            rejected.increment();
+            throw new ConflictException("Insufficient stock for raw materials: " + insufficient);
+        }
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), quantities, amounts,
+            Instant.now().plus(ttl));
+        reservations.put(reservation.id, reservation);
+        store.inserted(reservation);
+        held.increment();
+        changed(reservation);
+        return reservation.toDTO();
+    }
+
+    private BomSnapshot snapshot() {
+        BomSnapshotCache.Entry entry = snapshotCache.cached();
+        if (entry != null) {
+            return entry.snapshot;
+        }
+        try {
+            return limiter.call(snapshotCache::current).snapshot;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // BomSnapshotCache.current declares no checked exceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public ReservationDTO findById(String id) {
+        return active(id).toDTO();
+    }
+
+    /**
+     * Commit the production run of the reservation, taking the held stock out
+     * of stock. If that fails (e.g. 409 because the stock was lowered since)
+     * the reservation stays as it is.
+     */
+    public ProductionRunResultDTO confirm(String id) {
+        Reservation reservation = active(id);
+        if (!reservation.state.compareAndSet(State.ACTIVE, State.CONFIRMING)) {
+            throw notActive(reservation);
+        }
+        ProductionRunResultDTO result;
+        store.confirming(id);
+        try {
+            result = productionRunService.commit(reservation.quantities,
+                reservation.consumption(), () -> store.deleteNow(id));
+        } catch (RuntimeException e) {
+            store.confirmFailed(id);
+            reservation.state.set(State.ACTIVE);
+            throw e;
+        }
+        store.confirmed(id);
+        // The run has changed the stock; only now stop holding it
+        remove(reservation);
+        confirmed.increment();
+        return result;
+    }
+
+    public void release(String id) {
+        Reservation reservation = active(id);
+        if (!reservation.state.compareAndSet(State.ACTIVE, State.DONE)) {
+            throw notActive(reservation);
+        }
+        remove(reservation);
+        store.deleted(id);
+        released.increment();
+    }
+
+    private Reservation active(String id) {
+        Reservation reservation = reservations.get(id);
+        if (reservation != null && !reservation.expiresAt.isAfter(Instant.now())) {
+            expire(reservation);
+            reservation = null;
+        }
+        if (reservation == null || reservation.state.get() == State.DONE) {
+            throw new NotFoundException("Reservation not found with id: " + id);
+        }
+        return reservation;
+    }
+
+    private static RuntimeException notActive(Reservation reservation) {
+        return reservation.state.get() == State.CONFIRMING
+            ? new ConflictException("Reservation " + reservation.id + " is being confirmed")
+            : new NotFoundException("Reservation not found with id: " + reservation.id);
+    }
+
+    private void expire() {
+        Instant now = Instant.now();
+        try {
+            for (Reservation reservation : reservations.values()) {
+                if (!reservation.expiresAt.isAfter(now)) {
+                    expire(reservation);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Expiring reservations failed: " + e);
+        }
+    }
+
+    /** Reservations being confirmed are left to the confirmation. */
+    private void expire(Reservation reservation) {
+        if (reservation.state.compareAndSet(State.ACTIVE, State.DONE)) {
+            remove(reservation);
+            store.deleted(reservation.id);
+            expired.increment();
+            LOG.debug("Reservation " + reservation.id + " expired");
+        }
+    }
+
+    private void remove(Reservation reservation) {
+        reservation.state.set(State.DONE);
+        reservations.remove(reservation.id);
+        ledger.release(reservation.holds);
+        changed(reservation);
+    }
+
+    private void changed(Reservation reservation) {
+        reservationChanges.fire(new ReservationChange(ledger.version(), reservation.holds.keySet()));
+    }
+
+    private static long toThousandths(BigDecimal quantity) {
+        return quantity.setScale(ProductionEngine.QUANTITY_SCALE, RoundingMode.DOWN).unscaledValue().longValueExact();
+    }
+
+    enum State {
+        ACTIVE,
+        CONFIRMING,
+        DONE
+    }
+
+    /**
+     * A reservation: the products of the planned run and the thousandths of
+     * each raw material it holds.
+     */
+    static final class Reservation {
+        final String id;
+        final Map<Long, BigDecimal> quantities;
+        final SortedMap<Long, Long> holds;
+        final Instant expiresAt;
+        final AtomicReference<State> state = new AtomicReference<>(State.ACTIVE);
+
+        Reservation(String id, Map<Long, BigDecimal> quantities, SortedMap<Long, Long> holds, Instant expiresAt) {
+            this.id = id;
+            this.quantities = Collections.unmodifiableMap(quantities);
+            this.holds = Collections.unmodifiableSortedMap(holds);
+            this.expiresAt = expiresAt;
+        }
+
+        SortedMap<Long, BigDecimal> consumption() {
+            SortedMap<Long, BigDecimal> consumption = new TreeMap<>();
+            holds.forEach((rawMaterialId, amount) ->
+                consumption.put(rawMaterialId, BigDecimal.valueOf(amount, ProductionEngine.QUANTITY_SCALE)));
+            return consumption;
+        }
+
+        ReservationDTO toDTO() {
+            ReservationDTO dto = new ReservationDTO();
+            dto.id = id;
+            quantities.forEach((productId, quantity) -> dto.items.add(new RunItemDTO(productId, quantity)));
+            holds.forEach((rawMaterialId, amount) ->
+                dto.holds.add(new HoldDTO(rawMaterialId, BigDecimal.valueOf(amount, ProductionEngine.QUANTITY_SCALE))));
+            dto.expiresAt = expiresAt;
+            return dto;
+        }
+    }
+}
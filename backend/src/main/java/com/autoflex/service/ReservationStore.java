@@ -0,0 +1,321 @@
+package com.autoflex.service;
+
+import com.autoflex.service.ReservationService.Reservation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Writes the active reservations of {@link ReservationService} behind to the
+ * {@code reservations} table, so they survive a restart.
+ *
+ * Reservations and releases are queued and written every
+ * {@code autoflex.reservation.store.interval} on one thread, in transactions
+ * of up to {@code batch-size} rows sent as JDBC batches. A reservation
+ * released before its row was written is never written at all. The table
+ * has no foreign keys, so writing it takes no lock on the catalogue. When a
+ * batch fails its changes are written one at a time, and a change that still
+ * fails after {@code max-attempts} is dropped and logged, so it cannot hold up
+ * the others for good; like a crash, that loses only its persistence. A crash
+ * loses the changes of the last interval: reservations made in it no longer
+ * hold stock, and released ones hold it again until they expire. Confirmed
+ * reservations are deleted in the transaction that takes their stock, so
+ * they are never confirmed twice; their writes are held back while that
+ * transaction runs, see {@link #confirming}.
+ */
+@ApplicationScoped
+public class ReservationStore {
+
+    private static final Logger LOG = Logger.getLogger(ReservationStore.class);
+
+    private static final String INSERT_SQL =
+        "INSERT INTO reservations (id, items, holds, expires_at, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM reservations WHERE id = ?";
+    private static final String SELECT_SQL = "SELECT id, items, holds, expires_at FROM reservations";
+
+    private static final TypeReference<TreeMap<Long, BigDecimal>> ITEMS = new TypeReference<>() { };
+    private static final TypeReference<TreeMap<Long, Long>> HOLDS = new TypeReference<>() { };
+
+    @ConfigProperty(name = "autoflex.reservation.store.interval", defaultValue = "200ms")
+    Duration interval;
+
+    @ConfigProperty(name = "autoflex.reservation.store.batch-size", defaultValue = "1000")
+    int batchSize;
+
+    @ConfigProperty(name = "autoflex.reservation.store.max-attempts", defaultValue = "10")
+    int maxAttempts;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final ConcurrentLinkedQueue<Write> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    /** Writes that failed or were held back, written before the queue; only used by the writing thread. */
+    private final LinkedHashMap<String, Write> retries = new LinkedHashMap<>();
+    /** Reservations being confirmed, whose writes the flush holds back. */
+    private final Set<String> confirming = ConcurrentHashMap.newKeySet();
+    /** Write side held while flushing, read side while updating {@link #confirming}. */
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+    private ScheduledExecutorService scheduler;
+    private Counter failures;
+    private Counter dropped;
+
+    @PostConstruct
+    void start() {
+        failures = Counter.builder("autoflex.reservations.store.failures")
+            .description("Reservation write batches that failed and were written one change at a time")
+            .register(registry);
+        dropped = Counter.builder("autoflex.reservations.store.dropped")
+            .description("Reservation changes given up on after failing max-attempts times")
+            .register(registry);
+        Gauge.builder("autoflex.reservations.store.pending", this, store -> store.queued.get())
+            .description("Reservation changes not written to the database yet")
+            .register(registry);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    void inserted(Reservation reservation) {
+        queue.add(new Write(reservation.id, reservation));
+        queued.incrementAndGet();
+    }
+
+    void deleted(String id) {
+        queue.add(new Write(id, null));
+        queued.incrementAndGet();
+    }
+
+    /**
+     * Delete the row of a reservation in the current transaction.
+     */
+    void deleteNow(String id) {
+        session().doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
+                statement.setString(1, id);
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Hold back the writes of a reservation about to be confirmed, waiting for
+     * a flush in progress to finish. From then on its row is either already
+     * written, and deleted by the confirming transaction with {@link #deleteNow},
+     * or its insert stays queued until {@link #confirmed} cancels it.
+     */
+    void confirming(String id) {
+        flushLock.readLock().lock();
+        try {
+            confirming.add(id);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The confirming transaction committed: queue the deletion and stop holding
+     * back, in one step so no flush writes the insert without the deletion.
+     */
+    void confirmed(String id) {
+        flushLock.readLock().lock();
+        try {
+            deleted(id);
+            confirming.remove(id);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /** The confirming transaction failed; the reservation is still active. */
+    void confirmFailed(String id) {
+        confirming.remove(id);
+    }
+
+    /**
+     * Every reservation in the table, expired or not. Needs a transaction.
+     */
+    List<Reservation> load() {
+        List<Reservation> reservations = new ArrayList<>();
+        session().doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_SQL);
+                 ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    reservations.add(new Reservation(rows.getString(1),
+                        read(rows.getString(2), ITEMS), read(rows.getString(3), HOLDS),
+                        rows.getTimestamp(4).toInstant()));
+                }
+            }
+        });
+        return reservations;
+    }
+
+    private void flush() {
+        flushLock.writeLock().lock();
+        try {
+            Map<String, Write> writes = retries;
+            for (Write write; (write = queue.poll()) != null; ) {
+                queued.decrementAndGet();
+                Write previous = writes.get(write.id);
+                if (write.reservation == null && previous != null && previous.reservation != null) {
+                    writes.remove(write.id); // Released before it was written
+                } else {
+                    writes.put(write.id, write);
+                }
+            }
+            List<Write> pending = new ArrayList<>(writes.size());
+            for (Write write : writes.values()) {
+                if (!confirming.contains(write.id)) {
+                    pending.add(write);
+                }
+            }
+            for (int from = 0; from < pending.size(); from += batchSize) {
+                List<Write> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+                try {
+                    QuarkusTransaction.requiringNew().run(() -> write(batch));
+                } catch (RuntimeException e) {
+                    failures.increment();
+                    LOG.warn("Writing " + batch.size() + " reservation changes failed, writing them one at a time: "
+                        + e);
+                    writeOneByOne(batch, writes);
+                    return;
+                }
+                batch.forEach(write -> writes.remove(write.id));
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Write the changes of a failed batch one per transaction, up to the first
+     * that fails again, which is dropped once it failed {@code maxAttempts}
+     * times. The rest are retried with the next flush.
+     */
+    private void writeOneByOne(List<Write> batch, Map<String, Write> writes) {
+        for (Write write : batch) {
+            try {
+                QuarkusTransaction.requiringNew().run(() -> write(List.of(write)));
+                writes.remove(write.id);
+            } catch (RuntimeException e) {
+                if (++write.attempts < maxAttempts) {
+                    LOG.warn("Writing reservations failed, " + writes.size() + " changes retried in " + interval
+                        + ": " + e);
+                    return;
+                }
+                writes.remove(write.id);
+                dropped.increment();
+                LOG.error("Dropping " + write + " after " + write.attempts + " failed attempts", e);
+            }
+        }
+    }
+
+    private void write(List<Write> batch) {
+        Timestamp now = Timestamp.from(Instant.now());
+        session().doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL);
+                 PreparedStatement delete = connection.prepareStatement(DELETE_SQL)) {
+                for (Write write : batch) {
+                    if (write.reservation != null) {
+                        insert.setString(1, write.id);
+                        insert.setString(2, json(write.reservation.quantities));
+                        insert.setString(3, json(write.reservation.holds));
+                        insert.setTimestamp(4, Timestamp.from(write.reservation.expiresAt));
+                        insert.setTimestamp(5, now);
+                        insert.addBatch();
+                    } else {
+                        delete.setString(1, write.id);
+                        delete.addBatch();
+                    }
+                }
+                insert.executeBatch();
+                delete.executeBatch();
+            }
+        });
+        LOG.debug("Wrote " + batch.size() + " reservation changes");
+    }
+
+    private String json(Map<Long, ?> map) {
+        try {
+            return objectMapper.writeValueAsString(map);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + map, e);
+        }
+    }
+
+    private <T> T read(String json, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read reservation column: " + json, e);
+        }
+    }
+
+    private static Session session() {
+        return Panache.getEntityManager().unwrap(Session.class);
+    }
+
+    /** Insert of a reservation, or deletion if {@code reservation} is null. */
+    private static final class Write {
+        final String id;
+        final Reservation reservation;
+        /** Failed attempts to write it on its own; only used by the writing thread. */
+        int attempts;
+
+        Write(String id, Reservation reservation) {
+            this.id = id;
+            this.reservation = reservation;
+        }
+
+        @Override
+        public String toString() {
+            return reservation == null
+                ? "deletion of reservation " + id
+                : "reservation " + id + " holding " + reservation.holds + " until " + reservation.expiresAt;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.StockCountDTO;
+import com.autoflex.dto.StockImportResultDTO;
+import com.autoflex.entity.RawMaterial;
+import com.autoflex.event.CatalogChange;
+import com.autoflex.event.ChangeEvent;
+import com.autoflex.event.ChangeEvent.Aggregate;
+import com.autoflex.event.ChangeEvent.Operation;
+import com.autoflex.outbox.ChangeOutbox;
+import com.autoflex.planner.ProductionEngine;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies full stock counts exported by the warehouse system.
+ *
+ * Codes are resolved against a code to id map loaded with one query at the
+ * start, and rows whose count matches the recorded stock are skipped. The
+ * changed counts are written with batched UPDATEs, one transaction per
+ * {@code autoflex.bulk.chunk-size} rows, and announced with a single
+ * {@link CatalogChange} once the import ends, so the catalogue version is
+ * bumped and the caches refreshed once per import instead of once per row.
+ * Importing the same count again writes nothing.
+ */
+@ApplicationScoped
+public class StockImportService {
+
+    private static final Logger LOG = Logger.getLogger(StockImportService.class);
+
+    // Same precision as the raw material stock column
+    private static final int STOCK_INTEGER_DIGITS = 7;
+
+    private static final String UPDATE_SQL = "UPDATE raw_materials SET stockQuantity = ? WHERE id = ?";
+
+    @Inject
+    Event<CatalogChange> catalogChanges;
+
+    @Inject
+    ChangeOutbox outbox;
+
+    @Inject
+    EntityCacheService entityCacheService;
+
+    @ConfigProperty(name = "autoflex.bulk.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    /** Recorded stock of a raw material, as of the last row applied to it. */
+    private static final class Stock {
+        final Long id;
+        BigDecimal quantity;
+
+        Stock(Long id, BigDecimal quantity) {
+            this.id = id;
+            this.quantity = quantity;
+        }
+    }
+
+    /**
+     * Apply every row {@code counts} yields. Rows that fail validation are
+     * reported and skipped; a later row for the same code wins over an earlier one.
+     */
+    public StockImportResultDTO importStock(Iterator<StockCountDTO> counts) {
+        Map<String, Stock> stockByCode = QuarkusTransaction.requiringNew().call(this::loadStock);
+        StockImportResultDTO result = new StockImportResultDTO();
+        Map<Long, StockCountDTO> chunk = new HashMap<>();
+        Set<Long> changedIds = new HashSet<>();
+        try {
+            while (counts.hasNext()) {
+                StockCountDTO count = counts.next();
+                result.rows++;
+                String error = validate(count);
+                Stock stock = error == null ? stockByCode.get(count.code) : null;
+                if (error == null && stock == null) {
+                    error = "Raw material not found with code: " + count.code;
+                }
+                if (error != null) {
+                    result.fail(count.line, count.code, error);
+                    continue;
+                }
+                if (stock.quantity.compareTo(count.stockQuantity) == 0) {
+                    result.unchanged++;
+                    continue;
+                }
+                stock.quantity = count.stockQuantity;
+                // A repeated code replaces its pending row in the chunk, which is written once
+                if (chunk.put(stock.id, count) == null) {
+                    result.updated++;
+                    if (chunk.size() == chunkSize) {
+                        write(chunk, changedIds, result);
+                        chunk = new HashMap<>();
+                    }
+                }
+            }
+            write(chunk, changedIds, result);
+        } finally {
+            // Chunks written before a failure stay committed and must reach the caches as well
+            if (!changedIds.isEmpty()) {
+                catalogChanges.fire(CatalogChange.stock(changedIds));
+            }
+        }
+        LOG.info("Stock import complete: " + result);
+        return result;
+    }
+
+    private Map<String, Stock> loadStock() {
+        Map<String, Stock> stockByCode = new HashMap<>();
+        RawMaterial.getEntityManager()
+            .createQuery("SELECT rm.code, rm.id, rm.stockQuantity FROM RawMaterial rm", Object[].class)
+            .getResultStream()
+            .forEach(row -> stockByCode.put((String) row[0], new Stock((Long) row[1], (BigDecimal) row[2])));
+        return stockByCode;
+    }
+
+    private static String validate(StockCountDTO count) {
+        if (count.error != null) {
+            return count.error;
+        }
+        if (count.code == null || count.code.isBlank()) {
+            return "Code is required";
+        }
+        if (count.stockQuantity == null) {
+            return "Stock quantity is required";
+        }
+        if (count.stockQuantity.signum() < 0) {
+            return "Stock quantity must be zero or positive";
+        }
+        BigDecimal quantity = count.stockQuantity.stripTrailingZeros();
+        if (quantity.scale() > ProductionEngine.QUANTITY_SCALE) {
+            return "Stock quantity must have at most " + ProductionEngine.QUANTITY_SCALE + " decimal places";
+        }
+        if (quantity.precision() - quantity.scale() > STOCK_INTEGER_DIGITS) {
+            return "Stock quantity must have at most " + STOCK_INTEGER_DIGITS + " integer digits";
+        }
+        return null;
+    }
+
+    /**
+     * Write one chunk of changed counts in its own transaction, as a single
+     * JDBC batch. Hibernate is bypassed, so the cached entities are
+     * invalidated in the same transaction.
+     */
+    private void write(Map<Long, StockCountDTO> chunk, Set<Long> changedIds, StockImportResultDTO result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(chunk.keySet());
+        // Sorted so concurrent writers lock rows in the same order
+        ids.sort(null);
+        int[] updated = new int[ids.size()];
+        QuarkusTransaction.requiringNew().run(() -> {
+            entityCacheService.invalidateStock(ids);
+            RawMaterial.getEntityManager().unwrap(Session.class).doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+                    for (Long id : ids) {
+                        statement.setBigDecimal(1, chunk.get(id).stockQuantity);
+                        statement.setLong(2, id);
+                        statement.addBatch();
+                    }
+                    System.arraycopy(statement.executeBatch(), 0, updated, 0, updated.length);
+                }
+            });
+            List<ChangeEvent> changes = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                if (updated[i] > 0) {
+                    StockCountDTO count = chunk.get(ids.get(i));
+                    Map<String, Object> state = new LinkedHashMap<>();
+                    state.put("code", count.code);
+                    state.put("stockQuantity", count.stockQuantity);
+                    changes.add(outbox.event(Aggregate.RAW_MATERIAL, Operation.UPDATED, ids.get(i), state));
+                }
+            }
+            outbox.append(changes);
+        });
+        for (int i = 0; i < ids.size(); i++) {
+            StockCountDTO count = chunk.get(ids.get(i));
+            if (updated[i] == 0) {
+                // Deleted since the import started
+                result.updated--;
+                result.fail(count.line, count.code, "Raw material not found with code: " + count.code);
+            } else {
+                changedIds.add(ids.get(i));
+            }
+        }
+        LOG.debug("Stock import wrote " + ids.size() + " changed counts");
+    }
+}
@@ -0,0 +1,34 @@
+-- Schema as generated by Hibernate before migrations were introduced.
+-- Databases created that way are baselined at this version and start at V2.
+
+CREATE SEQUENCE products_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE raw_materials_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE product_raw_materials_SEQ START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE products (
+    id BIGINT NOT NULL,
+    code VARCHAR(50) NOT NULL,
+    name VARCHAR(200) NOT NULL,
+    product_value NUMERIC(10, 2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_products_code UNIQUE (code)
+);
+
+CREATE TABLE raw_materials (
+    id BIGINT NOT NULL,
+    code VARCHAR(50) NOT NULL,
+    name VARCHAR(200) NOT NULL,
+    stockQuantity NUMERIC(10, 3) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_raw_materials_code UNIQUE (code)
+);
+
+CREATE TABLE product_raw_materials (
+    id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    raw_material_id BIGINT NOT NULL,
+    requiredQuantity NUMERIC(10, 3) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_product_raw_materials_product FOREIGN KEY (product_id) REFERENCES products (id),
+    CONSTRAINT fk_product_raw_materials_raw_material FOREIGN KEY (raw_material_id) REFERENCES raw_materials (id)
+);
@@ -0,0 +1,14 @@
+-- Sub-assemblies: a product used as a component of another product. Not part
+-- of the schema Hibernate generated, so databases baselined at V1 get it here.
+
+CREATE SEQUENCE product_components_SEQ START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE product_components (
+    id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    component_id BIGINT NOT NULL,
+    requiredQuantity NUMERIC(10, 3) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_product_components_product FOREIGN KEY (product_id) REFERENCES products (id),
+    CONSTRAINT fk_product_components_component FOREIGN KEY (component_id) REFERENCES products (id)
+);
@@ -0,0 +1,38 @@
+-- Indexes for the access paths the API uses, and one BOM line per
+-- (product, raw material) pair. Portable between H2 and PostgreSQL.
+
+-- Merge duplicate BOM lines into the oldest one, summing their quantities. The
+-- planner before this migration checked each duplicate line against the stock on
+-- its own while consuming all of them, so it could plan more than the stock
+-- covered; after the merge such products are planned on the summed quantity.
+UPDATE product_raw_materials prm
+SET requiredQuantity = (
+    SELECT SUM(d.requiredQuantity) FROM product_raw_materials d
+    WHERE d.product_id = prm.product_id AND d.raw_material_id = prm.raw_material_id)
+WHERE EXISTS (
+    SELECT 1 FROM product_raw_materials o
+    WHERE o.product_id = prm.product_id AND o.raw_material_id = prm.raw_material_id AND o.id > prm.id)
+  AND NOT EXISTS (
+    SELECT 1 FROM product_raw_materials o
+    WHERE o.product_id = prm.product_id AND o.raw_material_id = prm.raw_material_id AND o.id < prm.id);
+
+DELETE FROM product_raw_materials prm
+WHERE EXISTS (
+    SELECT 1 FROM product_raw_materials o
+    WHERE o.product_id = prm.product_id AND o.raw_material_id = prm.raw_material_id AND o.id < prm.id);
+
+-- BOM of a product (/product/{id}, product deletes); the leading column serves product_id lookups
+ALTER TABLE product_raw_materials
+    ADD CONSTRAINT uk_product_raw_materials_product_raw_material UNIQUE (product_id, raw_material_id);
+
+-- Where-used by raw material (/raw-material/{id}, raw material deletes), covering the product id
+DROP INDEX IF EXISTS idx_product_raw_materials_raw_material;
+CREATE INDEX idx_product_raw_materials_raw_material_product
+    ON product_raw_materials (raw_material_id, product_id);
+
+-- Planner order: Product.findAllOrdered and the BOM snapshot load
+CREATE INDEX idx_products_value_name ON products (product_value DESC, name);
+
+-- Sub-assemblies of a product and the products using a component (cycle check, product deletes)
+CREATE INDEX idx_product_components_product ON product_components (product_id);
+CREATE INDEX idx_product_components_component ON product_components (component_id);
@@ -0,0 +1,13 @@
+-- Transactional outbox: one row per write to the catalogue, appended in the
+-- writing transaction and deleted by ChangeOutboxRelay once published.
+-- Portable between H2 and PostgreSQL.
+
+CREATE TABLE outbox_events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    aggregate VARCHAR(32) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    operation VARCHAR(16) NOT NULL,
+    payload VARCHAR(4000),
+    occurred_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,16 @@
+-- Active stock reservations, written behind the in-memory ledger by
+-- ReservationStore so they survive a restart. Rows are deleted once the
+-- reservation is confirmed, released or expired. No foreign keys: writing
+-- a reservation must not lock or check the catalogue rows it holds.
+-- items and holds are JSON objects: quantity per product id, and thousandths
+-- held per raw material id. TEXT, as their length grows with the request.
+-- Portable between H2 and PostgreSQL.
+
+CREATE TABLE reservations (
+    id VARCHAR(36) NOT NULL,
+    items TEXT NOT NULL,
+    holds TEXT NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id)
+);
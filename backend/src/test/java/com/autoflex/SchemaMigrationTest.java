@@ -0,0 +1,64 @@
+package com.autoflex;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SchemaMigrationTest {
+
+    private static final String URL = "jdbc:h2:mem:hibernate-created;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void testMigratesDatabaseCreatedByHibernate() throws Exception {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            // The schema Hibernate generated before the migrations, with no Flyway history
+            statement.execute(resource("/db/migration/V1__initial_schema.sql"));
+            statement.execute("INSERT INTO products VALUES (1, 'P001', 'Chair', 50.00)");
+            statement.execute("INSERT INTO raw_materials VALUES (1, 'RM001', 'Steel', 100.000)");
+            statement.execute("INSERT INTO product_raw_materials VALUES (1, 1, 1, 2.000)");
+            statement.execute("INSERT INTO product_raw_materials VALUES (2, 1, 1, 0.500)");
+
+            Flyway.configure()
+                .dataSource(URL, "sa", "")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+            try (ResultSet lines = statement.executeQuery(
+                    "SELECT id, requiredQuantity FROM product_raw_materials ORDER BY id")) {
+                assertThat(lines.next()).isTrue();
+                assertThat(lines.getLong(1)).isEqualTo(1L);
+                assertThat(lines.getBigDecimal(2)).isEqualByComparingTo("2.500");
+                assertThat(lines.next()).isFalse();
+            }
+            assertThat(count(statement, "SELECT COUNT(*) FROM product_components")).isZero();
+            assertThat(count(statement, "SELECT COUNT(*) FROM outbox_events")).isZero();
+            assertThat(count(statement, "SELECT COUNT(*) FROM reservations")).isZero();
+        }
+    }
+
+    private static long count(Statement statement, String sql) throws SQLException {
+        try (ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private static String resource(String path) throws IOException {
+        try (InputStream in = SchemaMigrationTest.class.getResourceAsStream(path)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.autoflex.outbox;
+
+import com.autoflex.event.ChangeEvent;
+import com.autoflex.event.ChangeEvent.Aggregate;
+import com.autoflex.event.ChangeEvent.Operation;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@QuarkusTest
+class ChangeOutboxTest {
+
+    @Inject
+    InMemoryBrokerSink broker;
+
+    @Inject
+    ChangeEventCollector collector;
+
+    @Inject
+    ChangeOutbox outbox;
+
+    /** In-process observer of the relayed events. */
+    @ApplicationScoped
+    static class ChangeEventCollector {
+        private final List<ChangeEvent> events = new CopyOnWriteArrayList<>();
+
+        void onChange(@Observes ChangeEvent event) {
+            events.add(event);
+        }
+
+        List<Long> ids() {
+            return events.stream().map(event -> event.id).toList();
+        }
+    }
+
+    @Test
+    void testProductWritesArePublishedInOrder() throws InterruptedException {
+        long offset = broker.endOffset();
+        String code = "P-OUTBOX-" + System.currentTimeMillis();
+        Map<String, Object> product = new HashMap<>();
+        product.put("code", code);
+        product.put("name", "Product for outbox");
+        product.put("value", new BigDecimal("10.00"));
+        long id = given().contentType(ContentType.JSON).body(product)
+            .when().post("/api/products")
+            .then().statusCode(201)
+            .extract().jsonPath().getLong("id");
+        // Rolled back: no event
+        given().contentType(ContentType.JSON).body(product)
+            .when().post("/api/products")
+            .then().statusCode(409);
+        product.put("value", new BigDecimal("12.50"));
+        given().contentType(ContentType.JSON).body(product)
+            .when().put("/api/products/" + id)
+            .then().statusCode(200);
+        given().when().delete("/api/products/" + id)
+            .then().statusCode(204);
+
+        List<ChangeEvent> events = await(offset, event -> event.aggregate == Aggregate.PRODUCT
+            && event.aggregateId == id, 3);
+        assertThat(events).extracting(event -> event.operation)
+            .containsExactly(Operation.CREATED, Operation.UPDATED, Operation.DELETED);
+        assertThat(events.get(0).payload).contains("\"code\":\"" + code + "\"").contains("\"value\":10.00");
+        assertThat(events.get(1).payload).contains("\"value\":12.50");
+        assertThat(events.get(2).payload).isNull();
+        assertThat(events).extracting(event -> event.id).isSorted();
+        // Fired once the batch is published and deleted from the outbox
+        List<Long> ids = events.stream().map(event -> event.id).toList();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!collector.ids().containsAll(ids) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(collector.ids()).containsAll(ids);
+    }
+
+    @Test
+    void testBulkStockChangesArePublishedPerRawMaterial() throws InterruptedException {
+        long offset = broker.endOffset();
+        String prefix = "RM-OUTBOX-" + System.currentTimeMillis();
+        given().contentType(ContentType.JSON)
+            .body("[{\"code\":\"" + prefix + "-1\",\"name\":\"Outbox 1\",\"stockQuantity\":1}," +
+                  "{\"code\":\"" + prefix + "-2\",\"name\":\"Outbox 2\",\"stockQuantity\":2}]")
+            .when().post("/api/raw-materials/bulk")
+            .then().statusCode(200);
+        given().contentType("text/csv")
+            .body("code,stockQuantity\n" + prefix + "-1,5\n" + prefix + "-2,2\n")
+            .when().post("/api/raw-materials/stock-import")
+            .then().statusCode(200);
+
+        Predicate<ChangeEvent> ours = event -> event.aggregate == Aggregate.RAW_MATERIAL
+            && event.payload != null && event.payload.contains(prefix);
+        List<ChangeEvent> events = await(offset, ours, 3);
+        assertThat(events).extracting(event -> event.operation)
+            .containsExactly(Operation.CREATED, Operation.CREATED, Operation.UPDATED);
+        // Only the count that changed the stock
+        assertThat(events.get(2).payload).isEqualTo("{\"code\":\"" + prefix + "-1\",\"stockQuantity\":5}");
+    }
+
+    @Test
+    void testAppendCommittedAfterRelayRunIsPublished() throws InterruptedException {
+        long offset = broker.endOffset();
+        String code = "P-OUTBOX-LATE-" + System.currentTimeMillis();
+        QuarkusTransaction.requiringNew().run(() -> {
+            outbox.append(Aggregate.PRODUCT, Operation.UPDATED, -1L, Map.of("code", code));
+            // Scheduled relay runs go by while the append is uncommitted
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        List<ChangeEvent> events = await(offset, event -> event.payload != null && event.payload.contains(code), 1);
+        assertThat(events).hasSize(1);
+    }
+
+    private List<ChangeEvent> await(long offset, Predicate<ChangeEvent> filter, int count)
+        throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        List<ChangeEvent> events = List.of();
+        while (System.nanoTime() < deadline) {
+            events = broker.read(offset, Integer.MAX_VALUE).stream().filter(filter).toList();
+            if (events.size() >= count) {
+                return events;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Expected " + count + " events, published: " + events);
+    }
+}
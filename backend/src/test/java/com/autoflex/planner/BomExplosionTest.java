@@ -0,0 +1,144 @@
+package com.autoflex.planner;
+
+import com.autoflex.planner.BomSnapshot.BomLine;
+import com.autoflex.planner.BomSnapshot.ComponentLine;
+import com.autoflex.planner.BomSnapshot.ProductEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BomExplosionTest {
+
+    @Test
+    void testExplodesNestedComponents() {
+        // Bike = 2 wheels + frame; wheel = 1.5 steel + 0.25 rubber + 32 spokes; spoke = 0.01 steel
+        List<ProductEntry> products = List.of(
+            product(1L, List.of(new BomLine(10L, new BigDecimal("4.000"))),
+                new ComponentLine(2L, new BigDecimal("2.000"))),
+            product(2L, List.of(new BomLine(10L, new BigDecimal("1.500")), new BomLine(11L, new BigDecimal("0.250"))),
+                new ComponentLine(3L, new BigDecimal("32.000"))),
+            product(3L, List.of(new BomLine(10L, new BigDecimal("0.010")))));
+
+        BomExplosion explosion = BomExplosion.of(products);
+
+        assertThat(explosion.requirements(2L)).containsOnlyKeys(10L, 11L);
+        assertThat(explosion.requirements(2L).get(10L)).isEqualByComparingTo("1.82");
+        assertThat(explosion.requirements(1L).get(10L)).isEqualByComparingTo("7.64");
+        assertThat(explosion.requirements(1L).get(11L)).isEqualByComparingTo("0.5");
+        assertThat(explosion.lines(3L)).isSameAs(products.get(2).lines);
+        assertThat(explosion.lineCount()).isEqualTo(5);
+    }
+
+    @Test
+    void testRoundsExplodedRequirementsUp() {
+        List<ProductEntry> products = List.of(
+            product(1L, List.of(), new ComponentLine(2L, new BigDecimal("0.333"))),
+            product(2L, List.of(new BomLine(10L, new BigDecimal("0.333")))));
+
+        BomExplosion explosion = BomExplosion.of(products);
+
+        // 0.333 x 0.333 = 0.110889
+        assertThat(explosion.lines(1L)).singleElement()
+            .satisfies(line -> assertThat(line.requiredQuantity).isEqualTo(new BigDecimal("0.111")));
+    }
+
+    @Test
+    void testDetectsCycles() {
+        List<ProductEntry> products = List.of(
+            product(1L, List.of(), new ComponentLine(2L, BigDecimal.ONE)),
+            product(2L, List.of(), new ComponentLine(3L, BigDecimal.ONE)),
+            product(3L, List.of(), new ComponentLine(1L, BigDecimal.ONE)));
+
+        assertThatThrownBy(() -> BomExplosion.of(products))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("cycle");
+    }
+
+    @Test
+    void testHandlesDeepChains() {
+        List<ProductEntry> products = new ArrayList<>();
+        for (long id = 1; id <= 50_000; id++) {
+            products.add(id == 50_000
+                ? product(id, List.of(new BomLine(10L, new BigDecimal("1.000"))))
+                : product(id, List.of(), new ComponentLine(id + 1, BigDecimal.ONE)));
+        }
+
+        BomExplosion explosion = BomExplosion.of(products);
+
+        assertThat(explosion.requirements(1L).get(10L)).isEqualByComparingTo("1");
+    }
+
+    @Test
+    void testDerivedExplosionMatchesFullExplosion() {
+        Random random = new Random(5);
+        for (int run = 0; run < 200; run++) {
+            List<ProductEntry> products = randomCatalogue(random, 1 + random.nextInt(30));
+            Map<Long, BigDecimal> stock = new HashMap<>();
+            for (long m = 1; m <= 5; m++) {
+                stock.put(m, BigDecimal.valueOf(random.nextInt(2_000_000), 3));
+            }
+            BomSnapshot snapshot = new BomSnapshot(products, stock);
+            GreedyPlan plan = GreedyPlan.of(ProductionEngine.compile(snapshot));
+
+            Set<Long> changed = new HashSet<>();
+            List<ProductEntry> updated = new ArrayList<>(products);
+            for (int edit = 1 + random.nextInt(2); edit > 0; edit--) {
+                int position = random.nextInt(updated.size());
+                ProductEntry product = updated.get(position);
+                updated.set(position, new ProductEntry(product.id, product.code, product.name, product.value,
+                    randomLines(random), product.components));
+                changed.add(product.id);
+            }
+            BomExplosion derived = BomExplosion.of(updated, snapshot.explosion, changed);
+            BomExplosion full = BomExplosion.of(updated);
+
+            for (ProductEntry product : updated) {
+                assertThat(derived.requirements(product.id)).isEqualTo(full.requirements(product.id));
+                if (!derived.rebuiltProductIds().contains(product.id)) {
+                    assertThat(snapshot.explosion.requirements(product.id)).isEqualTo(full.requirements(product.id));
+                }
+            }
+
+            BomSnapshot updatedSnapshot = new BomSnapshot(updated, stock, derived);
+            GreedyPlan replanned = plan.replan(ProductionEngine.compile(updatedSnapshot), Set.of(),
+                derived.rebuiltProductIds());
+            assertThat(replanned.quantities())
+                .isEqualTo(GreedyPlan.of(ProductionEngine.compile(new BomSnapshot(updated, stock))).quantities());
+        }
+    }
+
+    /**
+     * Products in priority order where each product may use products with a
+     * higher id as components, so the graph is acyclic.
+     */
+    private static List<ProductEntry> randomCatalogue(Random random, int size) {
+        List<ProductEntry> products = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            List<ComponentLine> components = new ArrayList<>();
+            for (long componentId = id + 1; componentId <= size; componentId++) {
+                if (random.nextInt(4) == 0) {
+                    components.add(new ComponentLine(componentId, BigDecimal.valueOf(1 + random.nextInt(3_000), 3)));
+                }
+            }
+            products.add(new ProductEntry(id, "P" + id, "Product " + id,
+                BigDecimal.valueOf(100 + random.nextInt(10_000), 2), randomLines(random), components));
+        }
+        products.sort(BomSnapshot.PRIORITY);
+        return products;
+    }
+
+    private static List<BomLine> randomLines(Random random) {
+        List<BomLine> lines = new ArrayList<>();
+        for (int l = random.nextInt(3); l > 0; l--) {
+            lines.add(new BomLine(1L + random.nextInt(5), BigDecimal.valueOf(1 + random.nextInt(5_000), 3)));
+        }
+        return lines;
+    }
+
+    private static ProductEntry product(long id, List<BomLine> lines, ComponentLine... components) {
+        return new ProductEntry(id, "P" + id, "Product " + id, BigDecimal.TEN, lines, List.of(components));
+    }
+}
@@ -0,0 +1,125 @@
+package com.autoflex.planner;
+
+import com.autoflex.planner.BomSnapshot.BomLine;
+import com.autoflex.planner.BomSnapshot.ProductEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static com.autoflex.planner.ProductionEngineTest.*;
+import static org.assertj.core.api.Assertions.*;
+
+class GreedyPlanTest {
+
+    @Test
+    void testStockChangesMatchFullRecompute() {
+        Random random = new Random(7);
+        for (int run = 0; run < 300; run++) {
+            BomSnapshot snapshot = randomSnapshot(random, 1 + random.nextInt(40), 1 + random.nextInt(15));
+            GreedyPlan plan = GreedyPlan.of(ProductionEngine.compile(snapshot));
+
+            // Chain several updates so errors in the kept final stock accumulate
+            for (int change = 0; change < 5; change++) {
+                Map<Long, BigDecimal> updates = randomStock(random, snapshot);
+                snapshot = snapshot.withStock(updates);
+                ProductionEngine updated = plan.engine().withStock(updates);
+
+                plan = plan.replan(updated, updates.keySet(), Set.of());
+
+                assertSameAsFullRecompute(plan, snapshot);
+            }
+        }
+    }
+
+    @Test
+    void testRecipeChangesMatchFullRecompute() {
+        Random random = new Random(11);
+        for (int run = 0; run < 300; run++) {
+            BomSnapshot snapshot = randomSnapshot(random, 1 + random.nextInt(40), 1 + random.nextInt(15));
+            GreedyPlan plan = GreedyPlan.of(ProductionEngine.compile(snapshot));
+
+            for (int change = 0; change < 5; change++) {
+                Set<Long> productIds = new HashSet<>();
+                List<ProductEntry> products = new ArrayList<>(snapshot.products);
+                for (int edit = 1 + random.nextInt(2); edit > 0; edit--) {
+                    int position = random.nextInt(products.size());
+                    ProductEntry product = products.get(position);
+                    products.set(position, new ProductEntry(product.id, product.code, product.name,
+                        product.value, randomLines(random, snapshot.stock.keySet())));
+                    productIds.add(product.id);
+                }
+                Map<Long, BigDecimal> updates = random.nextBoolean() ? randomStock(random, snapshot) : Map.of();
+                snapshot = new BomSnapshot(products, snapshot.stock).withStock(updates);
+
+                plan = plan.replan(ProductionEngine.compile(snapshot), updates.keySet(), productIds);
+
+                assertSameAsFullRecompute(plan, snapshot);
+            }
+        }
+    }
+
+    @Test
+    void testReplaysFromFirstProductUsingTheChangedMaterial() {
+        BomSnapshot snapshot = new BomSnapshot(
+            List.of(
+                product(1L, "30.00", new BomLine(1L, new BigDecimal("2.000"))),
+                product(2L, "20.00", new BomLine(2L, new BigDecimal("1.000"))),
+                product(3L, "10.00", new BomLine(1L, new BigDecimal("1.000")),
+                    new BomLine(2L, new BigDecimal("1.000")))),
+            Map.of(1L, new BigDecimal("10.000"), 2L, new BigDecimal("10.000"), 3L, new BigDecimal("5.000")));
+        GreedyPlan plan = GreedyPlan.of(ProductionEngine.compile(snapshot));
+
+        Map<Long, BigDecimal> updates = Map.of(2L, new BigDecimal("12.000"));
+        GreedyPlan updated = plan.replan(plan.engine().withStock(updates), updates.keySet(), Set.of());
+
+        assertThat(updated.replayedFrom()).isEqualTo(1);
+        assertSameAsFullRecompute(updated, snapshot.withStock(updates));
+    }
+
+    @Test
+    void testChangeToUnusedMaterialReplaysNothing() {
+        BomSnapshot snapshot = new BomSnapshot(
+            List.of(product(1L, "30.00", new BomLine(1L, new BigDecimal("2.000")))),
+            Map.of(1L, new BigDecimal("10.000"), 2L, new BigDecimal("10.000")));
+        GreedyPlan plan = GreedyPlan.of(ProductionEngine.compile(snapshot));
+
+        Map<Long, BigDecimal> updates = Map.of(2L, new BigDecimal("0.000"));
+        GreedyPlan updated = plan.replan(plan.engine().withStock(updates), updates.keySet(), Set.of());
+
+        assertThat(updated.replayedFrom()).isEqualTo(1);
+        assertThat(updated.quantities()).isEqualTo(plan.quantities());
+    }
+
+    private static void assertSameAsFullRecompute(GreedyPlan plan, BomSnapshot snapshot) {
+        GreedyPlan full = GreedyPlan.of(ProductionEngine.compile(snapshot));
+        assertThat(plan.quantities()).isEqualTo(full.quantities());
+        assertSameCalculation(plan.toCalculation(), referencePlan(snapshot));
+    }
+
+    private static Map<Long, BigDecimal> randomStock(Random random, BomSnapshot snapshot) {
+        List<Long> materials = new ArrayList<>(snapshot.stock.keySet());
+        Map<Long, BigDecimal> updates = new HashMap<>();
+        for (int i = 1 + random.nextInt(3); i > 0; i--) {
+            long id = materials.get(random.nextInt(materials.size()));
+            updates.put(id, random.nextInt(4) == 0
+                ? BigDecimal.ZERO.setScale(3)
+                : BigDecimal.valueOf(random.nextInt(5_000_000), 3));
+        }
+        return updates;
+    }
+
+    private static List<BomLine> randomLines(Random random, Set<Long> materialIds) {
+        List<Long> materials = new ArrayList<>(materialIds);
+        Collections.shuffle(materials, random);
+        List<BomLine> lines = new ArrayList<>();
+        for (int l = random.nextInt(Math.min(5, materials.size()) + 1); l > 0; l--) {
+            lines.add(new BomLine(materials.get(l - 1), BigDecimal.valueOf(1 + random.nextInt(20_000), 3)));
+        }
+        return lines;
+    }
+
+    private static ProductEntry product(long id, String value, BomLine... lines) {
+        return new ProductEntry(id, "P" + id, "Product " + id, new BigDecimal(value), List.of(lines));
+    }
+}
@@ -0,0 +1,169 @@
+package com.autoflex.planner;
+
+import com.autoflex.dto.ProductionAnalysisDTO;
+import com.autoflex.dto.ProductionAnalysisDTO.RawMaterialAnalysisDTO;
+import com.autoflex.dto.ProductionCalculationDTO;
+import com.autoflex.dto.ProductionCalculationDTO.ProductionItemDTO;
+import com.autoflex.planner.BomSnapshot.BomLine;
+import com.autoflex.planner.BomSnapshot.ProductEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ProductionEngineTest {
+
+    @Test
+    void testPlanMatchesBigDecimalReferenceOnRandomCatalogues() {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            BomSnapshot snapshot = randomSnapshot(random, 1 + random.nextInt(40), 1 + random.nextInt(15));
+
+            ProductionEngine engine = ProductionEngine.compile(snapshot);
+            long[] quantities = new long[engine.productCount()];
+            engine.plan(engine.newStock(), quantities);
+
+            assertSameCalculation(engine.toCalculation(quantities), referencePlan(snapshot));
+        }
+    }
+
+    @Test
+    void testPlanKeepsFractionalQuantities() {
+        BomSnapshot snapshot = new BomSnapshot(
+            List.of(new ProductEntry(1L, "P001", "Product 1", new BigDecimal("10.00"),
+                List.of(new BomLine(1L, new BigDecimal("3.000"))))),
+            Map.of(1L, new BigDecimal("10.000")));
+
+        ProductionEngine engine = ProductionEngine.compile(snapshot);
+        long[] stock = engine.newStock();
+        long[] quantities = new long[1];
+        engine.plan(stock, quantities);
+        ProductionCalculationDTO result = engine.toCalculation(quantities);
+
+        assertThat(result.items.get(0).quantity).isEqualTo(new BigDecimal("3.333"));
+        assertThat(result.totalValue).isEqualTo(new BigDecimal("33.33"));
+        // 10.000 - 3.000 x 3.333 = 0.001, kept exactly in millionths
+        assertThat(stock[0]).isEqualTo(1_000L);
+    }
+
+    @Test
+    void testProductWithoutLinesIsNotProduced() {
+        BomSnapshot snapshot = new BomSnapshot(
+            List.of(new ProductEntry(1L, "P001", "Product 1", new BigDecimal("10.00"), List.of())),
+            Map.of());
+
+        ProductionEngine engine = ProductionEngine.compile(snapshot);
+        long[] quantities = new long[1];
+        engine.plan(engine.newStock(), quantities);
+
+        assertThat(engine.toCalculation(quantities).items).isEmpty();
+    }
+
+    @Test
+    void testCompileRejectsValuesBeyondColumnScale() {
+        BomSnapshot snapshot = new BomSnapshot(
+            List.of(new ProductEntry(1L, "P001", "Product 1", new BigDecimal("10.00"),
+                List.of(new BomLine(1L, new BigDecimal("0.0001"))))),
+            Map.of(1L, BigDecimal.ONE));
+
+        assertThatThrownBy(() -> ProductionEngine.compile(snapshot))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testAnalysisReportsBottlenecksAndLeftoverStock() {
+        // Table: 4 (wood runs out), then Chair: 1.5 (plastic runs out), 22.5 steel left
+        BomSnapshot snapshot = new BomSnapshot(List.of(
+            new ProductEntry(1L, "P001", "Table", new BigDecimal("300.00"),
+                List.of(new BomLine(3L, new BigDecimal("10.000")), new BomLine(1L, new BigDecimal("20.000")))),
+            new ProductEntry(2L, "P002", "Chair", new BigDecimal("100.00"),
+                List.of(new BomLine(1L, new BigDecimal("5.000")), new BomLine(2L, new BigDecimal("2.000"))))),
+            Map.of(1L, new BigDecimal("110.000"), 2L, new BigDecimal("3.000"), 3L, new BigDecimal("40.000")));
+        ProductionEngine engine = ProductionEngine.compile(snapshot);
+        long[] quantities = new long[engine.productCount()];
+        engine.plan(engine.newStock(), quantities);
+
+        ProductionAnalysisDTO analysis = engine.toAnalysis(quantities, null);
+
+        assertThat(analysis.totalValue).isEqualByComparingTo("1350.00");
+        assertThat(analysis.shadowPricesAvailable).isFalse();
+        assertThat(analysis.items).extracting(item -> item.bottleneckRawMaterialId).containsExactly(3L, 2L);
+        assertThat(analysis.rawMaterials).extracting(material -> material.rawMaterialId).containsExactly(2L, 3L, 1L);
+        RawMaterialAnalysisDTO steel = analysis.rawMaterials.get(2);
+        assertThat(steel.consumedQuantity).isEqualByComparingTo("87.500");
+        assertThat(steel.leftoverQuantity).isEqualByComparingTo("22.500");
+        assertThat(steel.shadowPrice).isNull();
+        assertThat(steel.bottleneckOf).isEmpty();
+        assertThat(analysis.rawMaterials.get(0).bottleneckOf).containsExactly(2L);
+    }
+
+    static BomSnapshot randomSnapshot(Random random, int productCount, int materialCount) {
+        Map<Long, BigDecimal> stock = new HashMap<>();
+        for (long m = 1; m <= materialCount; m++) {
+            stock.put(m, BigDecimal.valueOf(random.nextInt(5_000_000), 3));
+        }
+        List<ProductEntry> products = new ArrayList<>();
+        for (long p = 1; p <= productCount; p++) {
+            List<BomLine> lines = new ArrayList<>();
+            int fanOut = random.nextInt(Math.min(5, materialCount) + 1);
+            List<Long> materials = new ArrayList<>(stock.keySet());
+            Collections.shuffle(materials, random);
+            for (int l = 0; l < fanOut; l++) {
+                lines.add(new BomLine(materials.get(l), BigDecimal.valueOf(1 + random.nextInt(20_000), 3)));
+            }
+            products.add(new ProductEntry(p, "P" + p, "Product " + p,
+                BigDecimal.valueOf(1 + random.nextInt(100_000), 2), lines));
+        }
+        products.sort(BomSnapshot.PRIORITY);
+        return new BomSnapshot(products, stock);
+    }
+
+    /**
+     * The BigDecimal greedy algorithm the engine replaces.
+     */
+    static ProductionCalculationDTO referencePlan(BomSnapshot snapshot) {
+        Map<Long, BigDecimal> availableStock = new HashMap<>(snapshot.stock);
+        List<ProductionItemDTO> items = new ArrayList<>();
+        BigDecimal totalValue = BigDecimal.ZERO;
+        for (ProductEntry product : snapshot.products) {
+            BigDecimal maxQuantity = null;
+            for (BomLine line : product.lines) {
+                BigDecimal available = availableStock.getOrDefault(line.rawMaterialId, BigDecimal.ZERO);
+                if (line.requiredQuantity.compareTo(BigDecimal.ZERO) == 0) {
+                    continue;
+                }
+                BigDecimal possible = available.divide(line.requiredQuantity, 3, RoundingMode.DOWN);
+                if (maxQuantity == null || possible.compareTo(maxQuantity) < 0) {
+                    maxQuantity = possible;
+                }
+            }
+            if (maxQuantity == null || maxQuantity.compareTo(BigDecimal.ZERO) <= 0) {
+                continue;
+            }
+            for (BomLine line : product.lines) {
+                BigDecimal current = availableStock.getOrDefault(line.rawMaterialId, BigDecimal.ZERO);
+                availableStock.put(line.rawMaterialId, current.subtract(line.requiredQuantity.multiply(maxQuantity)));
+            }
+            BigDecimal itemTotalValue = product.value.multiply(maxQuantity).setScale(2, RoundingMode.HALF_UP);
+            totalValue = totalValue.add(itemTotalValue);
+            items.add(new ProductionItemDTO(product.id, product.code, product.name, product.value,
+                maxQuantity, itemTotalValue));
+        }
+        return new ProductionCalculationDTO(items, totalValue);
+    }
+
+    static void assertSameCalculation(ProductionCalculationDTO actual, ProductionCalculationDTO expected) {
+        assertThat(actual.totalValue).isEqualTo(expected.totalValue);
+        assertThat(actual.items).hasSameSizeAs(expected.items);
+        for (int i = 0; i < expected.items.size(); i++) {
+            ProductionItemDTO actualItem = actual.items.get(i);
+            ProductionItemDTO expectedItem = expected.items.get(i);
+            assertThat(actualItem.productId).isEqualTo(expectedItem.productId);
+            assertThat(actualItem.quantity).isEqualTo(expectedItem.quantity);
+            assertThat(actualItem.totalValue).isEqualTo(expectedItem.totalValue);
+        }
+    }
+}
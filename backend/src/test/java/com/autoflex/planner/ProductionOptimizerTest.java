@@ -0,0 +1,145 @@
+package com.autoflex.planner;
+
+import com.autoflex.planner.BomSnapshot.BomLine;
+import com.autoflex.planner.BomSnapshot.ProductEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ProductionOptimizerTest {
+
+    private static final Duration BUDGET = Duration.ofSeconds(5);
+
+    @Test
+    void testOptimalBeatsGreedyWhenHighValueProductStarvesOthers() {
+        // Greedy makes 1 x Expensive (500); 2 x Cheap earn 600 with the same steel
+        BomSnapshot snapshot = new BomSnapshot(List.of(
+            new ProductEntry(1L, "P001", "Expensive", new BigDecimal("500.00"),
+                List.of(new BomLine(1L, new BigDecimal("100.000")))),
+            new ProductEntry(2L, "P002", "Cheap", new BigDecimal("300.00"),
+                List.of(new BomLine(1L, new BigDecimal("50.000"))))),
+            Map.of(1L, new BigDecimal("100.000")));
+        ProductionEngine engine = ProductionEngine.compile(snapshot);
+
+        long[] quantities = ProductionOptimizer.optimize(engine, false, BUDGET).quantities;
+
+        assertThat(engine.toCalculation(quantities).totalValue).isEqualByComparingTo("600.00");
+        assertThat(quantities).containsExactly(0L, 2_000L);
+    }
+
+    @Test
+    void testShadowPricesIncludeOutOfStockMaterials() {
+        // Steel earns 15 per unit in tables; one unit of plastic makes half a
+        // chair (+50) for 2.5 steel taken from tables (-37.5)
+        BomSnapshot snapshot = new BomSnapshot(List.of(
+            new ProductEntry(1L, "P001", "Table", new BigDecimal("300.00"),
+                List.of(new BomLine(1L, new BigDecimal("20.000")))),
+            new ProductEntry(2L, "P002", "Chair", new BigDecimal("100.00"),
+                List.of(new BomLine(1L, new BigDecimal("5.000")), new BomLine(2L, new BigDecimal("2.000"))))),
+            Map.of(1L, new BigDecimal("100.000"), 2L, new BigDecimal("0.000"), 3L, new BigDecimal("7.000")));
+        ProductionEngine engine = ProductionEngine.compile(snapshot);
+
+        double[] prices = ProductionOptimizer.shadowPrices(engine, BUDGET);
+
+        assertThat(prices[engine.materialIndex.get(1L)]).isCloseTo(15.0, within(1e-6));
+        assertThat(prices[engine.materialIndex.get(2L)]).isCloseTo(12.5, within(1e-6));
+        assertThat(prices[engine.materialIndex.get(3L)]).isZero();
+    }
+
+    @Test
+    void testOptimalIsFeasibleAndNeverWorseThanGreedy() {
+        Random random = new Random(7);
+        for (int run = 0; run < 50; run++) {
+            ProductionEngine engine = ProductionEngine.compile(
+                ProductionEngineTest.randomSnapshot(random, 1 + random.nextInt(30), 1 + random.nextInt(10)));
+
+            long[] greedy = new long[engine.productCount()];
+            engine.plan(engine.newStock(), greedy);
+            long[] optimal = ProductionOptimizer.optimize(engine, false, BUDGET).quantities;
+
+            assertFeasible(engine, optimal);
+            assertThat(engine.totalValue(optimal)).isGreaterThanOrEqualTo(engine.totalValue(greedy));
+        }
+    }
+
+    @Test
+    void testOptimalIntegerMatchesBruteForceOnSmallCatalogues() {
+        Random random = new Random(11);
+        for (int run = 0; run < 30; run++) {
+            List<ProductEntry> products = List.of(
+                product(random, 1L), product(random, 2L), product(random, 3L));
+            Map<Long, BigDecimal> stock = Map.of(
+                1L, BigDecimal.valueOf(5 + random.nextInt(20)),
+                2L, BigDecimal.valueOf(5 + random.nextInt(20)));
+            ProductionEngine engine = ProductionEngine.compile(new BomSnapshot(products, stock));
+
+            long[] quantities = ProductionOptimizer.optimize(engine, true, BUDGET).quantities;
+
+            assertFeasible(engine, quantities);
+            for (long quantity : quantities) {
+                assertThat(quantity % ProductionEngine.WHOLE_UNIT).isZero();
+            }
+            assertThat(engine.totalValue(quantities)).isEqualByComparingTo(bruteForceIntegerOptimum(engine));
+        }
+    }
+
+    @Test
+    void testResultOutOfTimeIsFlaggedAndNoWorseThanGreedy() {
+        ProductionEngine engine = ProductionEngine.compile(
+            ProductionEngineTest.randomSnapshot(new Random(13), 30, 10));
+        long[] greedy = new long[engine.productCount()];
+        engine.plan(engine.newStock(), greedy, ProductionEngine.WHOLE_UNIT);
+
+        ProductionOptimizer.Result complete = ProductionOptimizer.optimize(engine, true, BUDGET);
+        ProductionOptimizer.Result truncated = ProductionOptimizer.optimize(engine, true, Duration.ZERO);
+
+        assertThat(complete.optimal).isTrue();
+        assertThat(truncated.optimal).isFalse();
+        assertFeasible(engine, truncated.quantities);
+        assertThat(engine.totalValue(truncated.quantities)).isGreaterThanOrEqualTo(engine.totalValue(greedy));
+    }
+
+    private static ProductEntry product(Random random, long id) {
+        return new ProductEntry(id, "P" + id, "Product " + id, BigDecimal.valueOf(1 + random.nextInt(50)),
+            List.of(new BomLine(1L, BigDecimal.valueOf(1 + random.nextInt(6))),
+                new BomLine(2L, BigDecimal.valueOf(1 + random.nextInt(6)))));
+    }
+
+    private static BigDecimal bruteForceIntegerOptimum(ProductionEngine engine) {
+        BigDecimal best = BigDecimal.ZERO;
+        for (long x = 0; x <= 25; x++) {
+            for (long y = 0; y <= 25; y++) {
+                for (long z = 0; z <= 25; z++) {
+                    long[] quantities = {x * 1_000, y * 1_000, z * 1_000};
+                    if (isFeasible(engine, quantities) && engine.totalValue(quantities).compareTo(best) > 0) {
+                        best = engine.totalValue(quantities);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static void assertFeasible(ProductionEngine engine, long[] quantities) {
+        assertThat(isFeasible(engine, quantities)).isTrue();
+    }
+
+    private static boolean isFeasible(ProductionEngine engine, long[] quantities) {
+        long[] stock = engine.newStock();
+        for (int p = 0; p < quantities.length; p++) {
+            engine.consume(p, quantities[p], stock);
+        }
+        for (long remaining : stock) {
+            if (remaining < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,41 @@
+package com.autoflex.planner;
+
+import com.autoflex.planner.BomSnapshot.BomLine;
+import com.autoflex.planner.BomSnapshot.ComponentLine;
+import com.autoflex.planner.BomSnapshot.ProductEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class WhereUsedIndexTest {
+
+    @Test
+    void testListsDirectAndSubAssemblyUsesInPriorityOrder() {
+        // Bike = 4 steel + 2 wheels; wheel = 1.5 steel + 0.25 rubber
+        BomSnapshot snapshot = new BomSnapshot(List.of(
+            new ProductEntry(1L, "P001", "Bike", new BigDecimal("500.00"),
+                List.of(new BomLine(10L, new BigDecimal("4.000"))),
+                List.of(new ComponentLine(2L, new BigDecimal("2.000")))),
+            new ProductEntry(2L, "P002", "Wheel", new BigDecimal("80.00"),
+                List.of(new BomLine(10L, new BigDecimal("1.500")), new BomLine(11L, new BigDecimal("0.250"))))),
+            Map.of(10L, new BigDecimal("100.000"), 11L, new BigDecimal("10.000"), 12L, new BigDecimal("5.000")));
+
+        WhereUsedIndex index = WhereUsedIndex.of(snapshot);
+
+        assertThat(index.usages(10L)).extracting(usage -> usage.product.id).containsExactly(1L, 2L);
+        assertThat(index.usages(10L).get(0).requiredQuantity).isEqualByComparingTo("7.000");
+        assertThat(index.usages(10L).get(0).direct).isTrue();
+
+        assertThat(index.usages(11L)).extracting(usage -> usage.product.id).containsExactly(1L, 2L);
+        assertThat(index.usages(11L).get(0).requiredQuantity).isEqualByComparingTo("0.500");
+        assertThat(index.usages(11L).get(0).direct).isFalse();
+        assertThat(index.usages(11L).get(1).direct).isTrue();
+
+        assertThat(index.usages(12L)).isEmpty();
+        assertThat(index.usages(99L)).isEmpty();
+    }
+}
@@ -0,0 +1,182 @@
+package com.autoflex.resource;
+
+import com.autoflex.dto.PageDTO;
+import com.autoflex.service.DatabaseConcurrencyLimiter;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.*;
+
+@QuarkusTest
+class ExportResourceTest {
+
+    @Inject
+    DatabaseConcurrencyLimiter limiter;
+
+    @Test
+    void testExportProductsAsCsv() {
+        String code = "P-EXPORT-" + System.currentTimeMillis();
+        given()
+            .contentType(ContentType.JSON)
+            .body("[{\"code\":\"" + code + "\",\"name\":\"Export, \\\"quoted\\\"\",\"value\":12.50}]")
+            .when().post("/api/products/bulk")
+            .then()
+            .statusCode(200);
+        int count = given().when().get("/api/products")
+            .then().statusCode(200)
+            .extract().jsonPath().getList("$").size();
+
+        String body = given()
+            .when().get("/api/export/products")
+            .then()
+            .statusCode(200)
+            .contentType("text/csv")
+            .header("Content-Disposition", equalTo("attachment; filename=\"products.csv\""))
+            .extract().asString();
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines.get(0)).isEqualTo("id,code,name,value");
+        assertThat(lines).hasSize(count + 1)
+            .anyMatch(line -> line.endsWith("," + code + ",\"Export, \"\"quoted\"\"\",12.50"));
+    }
+
+    @Test
+    void testExportBomLinesAsNdjson() {
+        int count = given().when().get("/api/product-raw-materials")
+            .then().statusCode(200)
+            .extract().jsonPath().getList("$").size();
+
+        String body = given()
+            .queryParam("format", "ndjson")
+            .when().get("/api/export/bom-lines")
+            .then()
+            .statusCode(200)
+            .contentType("application/x-ndjson")
+            .extract().asString();
+
+        assertThat(body.lines().toList()).hasSize(count)
+            .allMatch(line -> line.startsWith("{\"productCode\":") && line.contains("\"requiredQuantity\":"));
+    }
+
+    @Test
+    void testExportRawMaterialsAsColumnar() throws IOException {
+        List<Long> ids = given().when().get("/api/raw-materials")
+            .then().statusCode(200)
+            .extract().jsonPath().getList("id", Long.class);
+
+        byte[] body = given()
+            .queryParam("format", "columnar")
+            .when().get("/api/export/raw-materials")
+            .then()
+            .statusCode(200)
+            .contentType("application/vnd.autoflex.columnar")
+            .extract().asByteArray();
+
+        ByteArrayInputStream in = new ByteArrayInputStream(body);
+        assertThat(in.readNBytes(4)).isEqualTo(ExportWriter.COLUMNAR_MAGIC);
+        long columns = readVarint(in);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < columns; i++) {
+            names.add(new String(in.readNBytes((int) readVarint(in)), StandardCharsets.UTF_8));
+            in.read();
+        }
+        assertThat(names).containsExactly("id", "code", "name", "stockQuantity");
+
+        List<Long> exportedIds = new ArrayList<>();
+        for (long rows = readVarint(in); rows > 0; rows = readVarint(in)) {
+            long id = 0;
+            for (int row = 0; row < rows; row++) {
+                id += readSignedVarint(in);
+                exportedIds.add(id);
+            }
+            for (int column = 0; column < 2; column++) {
+                for (int row = 0; row < rows; row++) {
+                    in.readNBytes((int) readVarint(in) - 1);
+                }
+            }
+            for (int row = 0; row < rows; row++) {
+                int scale = (byte) in.read();
+                assertThat(BigDecimal.valueOf(readSignedVarint(in), scale)).isNotNegative();
+            }
+        }
+        assertThat(exportedIds).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(in.available()).isZero();
+    }
+
+    private static long readVarint(ByteArrayInputStream in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long readSignedVarint(ByteArrayInputStream in) {
+        long zigzag = readVarint(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    @Test
+    void testExportProductionPlanMatchesCalculation() {
+        List<String> codes = given().when().get("/api/production/calculate")
+            .then().statusCode(200)
+            .extract().jsonPath().getList("items.productCode", String.class);
+
+        String body = given()
+            .when().get("/api/export/production-plan")
+            .then()
+            .statusCode(200)
+            .extract().asString();
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines.get(0)).isEqualTo("productId,productCode,productName,unitValue,quantity,totalValue");
+        assertThat(lines.subList(1, lines.size()))
+            .extracting(line -> line.split(",")[1])
+            .containsExactlyElementsOf(codes);
+    }
+
+    @Test
+    void testStreamedRowsHoldPermitOnlyWhileReadingPage() {
+        int permits = limiter.availablePermits();
+        long rows = KeysetPages.PAGE_SIZE * 2L + 1;
+        List<Integer> permitsWhileReading = new ArrayList<>();
+        KeysetPages.Source<Long> source = (after, limit) -> {
+            permitsWhileReading.add(limiter.availablePermits());
+            List<Long> ids = LongStream.rangeClosed(after + 1, Math.min(after + limit + 1, rows)).boxed().toList();
+            return PageDTO.of(ids, limit, id -> id);
+        };
+
+        List<Long> written = new ArrayList<>();
+        KeysetPages.of(limiter, source).accept(id -> {
+            assertThat(limiter.availablePermits()).isEqualTo(permits);
+            written.add(id);
+        });
+
+        assertThat(written).hasSize((int) rows).startsWith(1L).endsWith(rows);
+        assertThat(permitsWhileReading).containsExactly(permits - 1, permits - 1, permits - 1);
+    }
+
+    @Test
+    void testExportWithInvalidFormatReturnsBadRequest() {
+        given()
+            .queryParam("format", "xml")
+            .when().get("/api/export/products")
+            .then()
+            .statusCode(400);
+    }
+}
@@ -0,0 +1,75 @@
+package com.autoflex.resource;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.*;
+
+@QuarkusTest
+class ProductComponentResourceTest {
+
+    @Test
+    void testGetAllProductComponents() {
+        given()
+            .when().get("/api/product-components")
+            .then()
+            .statusCode(200)
+            .contentType(ContentType.JSON);
+    }
+
+    @Test
+    void testCreateProductComponentAndRejectCycle() {
+        Integer assembly = createProduct("P-ASM-");
+        Integer part = createProduct("P-PART-");
+
+        Map<String, Object> component = new HashMap<>();
+        component.put("productId", assembly);
+        component.put("componentId", part);
+        component.put("requiredQuantity", new BigDecimal("4.000"));
+        given()
+            .contentType(ContentType.JSON)
+            .body(component)
+            .when().post("/api/product-components")
+            .then()
+            .statusCode(201)
+            .body("id", notNullValue())
+            .body("componentId", equalTo(part));
+
+        component.put("productId", part);
+        component.put("componentId", assembly);
+        given()
+            .contentType(ContentType.JSON)
+            .body(component)
+            .when().post("/api/product-components")
+            .then()
+            .statusCode(409);
+    }
+
+    @Test
+    void testGetProductComponentByIdNotFound() {
+        given()
+            .when().get("/api/product-components/99999")
+            .then()
+            .statusCode(404);
+    }
+
+    private static Integer createProduct(String prefix) {
+        Map<String, Object> product = new HashMap<>();
+        product.put("code", prefix + System.nanoTime());
+        product.put("name", "Component Test Product");
+        product.put("value", new BigDecimal("10.00"));
+        return given()
+            .contentType(ContentType.JSON)
+            .body(product)
+            .when().post("/api/products")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+    }
+}
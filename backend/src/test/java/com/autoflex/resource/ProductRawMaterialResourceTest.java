@@ -6,9 +6,11 @@ import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.*;
 
 @QuarkusTest
@@ -23,6 +25,16 @@ class ProductRawMaterialResourceTest {
             .contentType(ContentType.JSON);
     }
 
+    @Test
+    void testStreamAssociationsAsNdjson() {
+        given()
+            .accept("application/x-ndjson")
+            .when().get("/api/product-raw-materials")
+            .then()
+            .statusCode(200)
+            .contentType("application/x-ndjson");
+    }
+
     @Test
     void testGetAssociationsByProductId() {
         given()
@@ -89,4 +101,134 @@ class ProductRawMaterialResourceTest {
             .then()
             .statusCode(404);
     }
+
+    @Test
+    void testBulkUpsertBomLinesByCode() {
+        String suffix = String.valueOf(System.currentTimeMillis());
+        Map<String, Object> product = new HashMap<>();
+        product.put("code", "P-BOM-" + suffix);
+        product.put("name", "Bulk BOM Product");
+        product.put("value", new BigDecimal("10.00"));
+        given().contentType(ContentType.JSON).body(product)
+            .when().post("/api/products")
+            .then().statusCode(201);
+        Map<String, Object> rawMaterial = new HashMap<>();
+        rawMaterial.put("code", "RM-BOM-" + suffix);
+        rawMaterial.put("name", "Bulk BOM Raw Material");
+        rawMaterial.put("stockQuantity", new BigDecimal("100"));
+        given().contentType(ContentType.JSON).body(rawMaterial)
+            .when().post("/api/raw-materials")
+            .then().statusCode(201);
+
+        List<Map<String, Object>> lines = List.of(
+            Map.of("productCode", "P-BOM-" + suffix, "rawMaterialCode", "RM-BOM-" + suffix, "requiredQuantity", 2),
+            Map.of("productCode", "P-BOM-" + suffix, "rawMaterialCode", "RM-MISSING-" + suffix, "requiredQuantity", 1),
+            Map.of("productCode", "P-BOM-" + suffix, "rawMaterialCode", "RM-BOM-" + suffix, "requiredQuantity", 3));
+
+        List<Integer> ids = given()
+            .contentType(ContentType.JSON)
+            .body(lines)
+            .when().post("/api/product-raw-materials/bulk")
+            .then()
+            .statusCode(200)
+            .body("created", equalTo(1))
+            .body("updated", equalTo(1))
+            .body("failed", equalTo(1))
+            .body("items[1].error", containsString("Raw material not found"))
+            .extract().path("items.id");
+
+        assertThat(ids.get(2)).isEqualTo(ids.get(0));
+        given()
+            .when().get("/api/product-raw-materials/" + ids.get(0))
+            .then()
+            .statusCode(200)
+            .body("requiredQuantity", equalTo(3.0f));
+    }
+
+    @Test
+    void testWhereUsed() {
+        String suffix = String.valueOf(System.nanoTime());
+        Long productId = ((Number) given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("code", "P-WU-" + suffix, "name", "Where-used product", "value", new BigDecimal("10.00")))
+            .when().post("/api/products")
+            .then()
+            .statusCode(201)
+            .extract().path("id")).longValue();
+        Long rawMaterialId = ((Number) given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("code", "RM-WU-" + suffix, "name", "Where-used material", "stockQuantity", new BigDecimal("5")))
+            .when().post("/api/raw-materials")
+            .then()
+            .statusCode(201)
+            .extract().path("id")).longValue();
+        given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("productId", productId, "rawMaterialId", rawMaterialId, "requiredQuantity", new BigDecimal("2.5")))
+            .when().post("/api/product-raw-materials")
+            .then()
+            .statusCode(201);
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("rawMaterialIds", List.of(rawMaterialId)))
+            .when().post("/api/product-raw-materials/where-used")
+            .then()
+            .statusCode(200)
+            .body("rawMaterials[0].rawMaterialId", equalTo(rawMaterialId.intValue()))
+            .body("rawMaterials[0].products[0].productId", equalTo(productId.intValue()))
+            .body("rawMaterials[0].products[0].requiredQuantity", equalTo(2.5f))
+            .body("rawMaterials[0].products[0].direct", equalTo(true));
+    }
+
+    @Test
+    void testWhereUsedRejectsUnknownAndEmptyIds() {
+        given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("rawMaterialIds", List.of(99999)))
+            .when().post("/api/product-raw-materials/where-used")
+            .then()
+            .statusCode(404);
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("rawMaterialIds", List.of()))
+            .when().post("/api/product-raw-materials/where-used")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    void testCreateDuplicateAssociationConflicts() {
+        String suffix = String.valueOf(System.nanoTime());
+        Long productId = ((Number) given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("code", "P-DUP-" + suffix, "name", "Duplicate line product", "value", new BigDecimal("10.00")))
+            .when().post("/api/products")
+            .then()
+            .statusCode(201)
+            .extract().path("id")).longValue();
+        Long rawMaterialId = ((Number) given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("code", "RM-DUP-" + suffix, "name", "Duplicate line material", "stockQuantity", new BigDecimal("5")))
+            .when().post("/api/raw-materials")
+            .then()
+            .statusCode(201)
+            .extract().path("id")).longValue();
+        Map<String, Object> association = Map.of(
+            "productId", productId, "rawMaterialId", rawMaterialId, "requiredQuantity", new BigDecimal("1"));
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(association)
+            .when().post("/api/product-raw-materials")
+            .then()
+            .statusCode(201);
+        given()
+            .contentType(ContentType.JSON)
+            .body(association)
+            .when().post("/api/product-raw-materials")
+            .then()
+            .statusCode(409);
+    }
 }
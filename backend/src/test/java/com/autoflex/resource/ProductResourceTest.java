@@ -1,12 +1,18 @@
 package com.autoflex.resource;
 
+import com.autoflex.service.DatabaseConcurrencyLimiter;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.*;
@@ -15,6 +21,9 @@ import static org.hamcrest.Matchers.containsString;
 @QuarkusTest
 class ProductResourceTest {
 
+    @Inject
+    DatabaseConcurrencyLimiter limiter;
+
     @Test
     void testGetAllProducts() {
         given()
@@ -89,4 +98,57 @@ class ProductResourceTest {
             .body("message", equalTo("Conflict"))
             .body("details", containsString("already exists"));
     }
+
+    @Test
+    void testGetProductsWithNegativeAfter() {
+        given()
+            .queryParam("after", -1)
+            .when().get("/api/products")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    void testGetProductsPageUsesDefaultLimit() {
+        given()
+            .queryParam("after", 0)
+            .when().get("/api/products")
+            .then()
+            .statusCode(200)
+            .contentType(ContentType.JSON)
+            .body("items", notNullValue());
+    }
+
+    @Test
+    void testRequestsBeyondDatabaseLimitGet503() throws Exception {
+        int permits = limiter.availablePermits();
+        CountDownLatch holding = new CountDownLatch(permits);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(permits);
+        try {
+            for (int i = 0; i < permits; i++) {
+                executor.submit(() -> limiter.call(() -> {
+                    holding.countDown();
+                    return release.await(10, TimeUnit.SECONDS);
+                }));
+            }
+            holding.await(10, TimeUnit.SECONDS);
+
+            given()
+                .when().get("/api/products")
+                .then()
+                .statusCode(503)
+                .header("Retry-After", equalTo("1"))
+                .body("message", equalTo("Service unavailable"));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        given()
+            .when().get("/api/products")
+            .then()
+            .statusCode(200);
+    }
 }
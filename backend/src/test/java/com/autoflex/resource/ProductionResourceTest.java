@@ -1,15 +1,73 @@
 package com.autoflex.resource;
 
+import com.autoflex.service.BomSnapshotCache;
+import com.autoflex.service.DatabaseConcurrencyLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.quarkus.test.common.http.TestHTTPResource;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
 import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.*;
 
 @QuarkusTest
 class ProductionResourceTest {
 
+    @Inject
+    BomSnapshotCache snapshotCache;
+
+    @Inject
+    DatabaseConcurrencyLimiter limiter;
+
+    @Inject
+    InMemorySpanExporter spans;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @TestHTTPResource("/api/production/stream")
+    URI streamUri;
+
+    /** Picked up by the {@code cdi} traces exporter, in place of OTLP. */
+    @ApplicationScoped
+    static class SpanExporterProducer {
+
+        @Produces
+        @Singleton
+        InMemorySpanExporter spanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
     @Test
     void testCalculateProduction() {
         given()
@@ -30,4 +88,399 @@ class ProductionResourceTest {
             .body("items", any(java.util.List.class))
             .body("totalValue", any(Number.class));
     }
+
+    @Test
+    void testCalculateProductionWithOptimalStrategy() {
+        given()
+            .queryParam("strategy", "optimal")
+            .when().get("/api/production/calculate")
+            .then()
+            .statusCode(200)
+            .body("items", notNullValue())
+            .body("totalValue", notNullValue())
+            .body("optimal", equalTo(true));
+    }
+
+    @Test
+    void testCalculateProductionWithInvalidStrategy() {
+        given()
+            .queryParam("strategy", "cheapest")
+            .when().get("/api/production/calculate")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    void testCalculateProductionAnswersNotModifiedForCurrentETag() {
+        String etag = given()
+            .when().get("/api/production/calculate")
+            .then()
+            .statusCode(200)
+            .header("ETag", notNullValue())
+            .extract().header("ETag");
+
+        given()
+            .header("If-None-Match", etag)
+            .when().get("/api/production/calculate")
+            .then()
+            .statusCode(304)
+            .header("ETag", equalTo(etag));
+    }
+
+    @Test
+    void testCalculateProductionAnswersNotModifiedWithoutDatabasePermit() throws Exception {
+        String etag = given()
+            .when().get("/api/production/calculate")
+            .then()
+            .statusCode(200)
+            .extract().header("ETag");
+
+        int permits = limiter.availablePermits();
+        CountDownLatch holding = new CountDownLatch(permits);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(permits);
+        try {
+            for (int i = 0; i < permits; i++) {
+                executor.submit(() -> limiter.call(() -> {
+                    holding.countDown();
+                    return release.await(10, TimeUnit.SECONDS);
+                }));
+            }
+            holding.await(10, TimeUnit.SECONDS);
+
+            given()
+                .header("If-None-Match", etag)
+                .when().get("/api/production/calculate")
+                .then()
+                .statusCode(304);
+            given()
+                .when().get("/api/production/calculate")
+                .then()
+                .statusCode(503);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testCalculateProductionChangesETagAfterCatalogueWrite() {
+        String etag = given()
+            .when().get("/api/production/calculate")
+            .then()
+            .statusCode(200)
+            .extract().header("ETag");
+
+        Map<String, Object> product = new HashMap<>();
+        product.put("code", "P-ETAG-" + System.currentTimeMillis());
+        product.put("name", "Product for ETag");
+        product.put("value", new BigDecimal("10.00"));
+        given()
+            .contentType(ContentType.JSON)
+            .body(product)
+            .when().post("/api/products")
+            .then()
+            .statusCode(201);
+
+        given()
+            .header("If-None-Match", etag)
+            .when().get("/api/production/calculate")
+            .then()
+            .statusCode(200)
+            .header("ETag", not(equalTo(etag)));
+    }
+
+    @Test
+    void testCalculateProductionChangesETagAfterReservation() {
+        Map<String, Object> product = new HashMap<>();
+        product.put("code", "P-ETAG-RES-" + System.currentTimeMillis());
+        product.put("name", "Product for reservation ETag");
+        product.put("value", new BigDecimal("10.00"));
+        long productId = given()
+            .contentType(ContentType.JSON)
+            .body(product)
+            .when().post("/api/products")
+            .then()
+            .statusCode(201)
+            .extract().jsonPath().getLong("id");
+        String etag = given()
+            .when().get("/api/production/calculate")
+            .then()
+            .statusCode(200)
+            .extract().header("ETag");
+
+        // Holds no stock at all, but the plan's ledger version moves on
+        String reservationId = given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("items", List.of(Map.of("productId", productId, "quantity", 1))))
+            .when().post("/api/reservations")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        String reserved = given()
+            .header("If-None-Match", etag)
+            .when().get("/api/production/calculate")
+            .then()
+            .statusCode(200)
+            .header("ETag", not(equalTo(etag)))
+            .extract().header("ETag");
+        given().when().delete("/api/reservations/" + reservationId)
+            .then().statusCode(204);
+        given()
+            .header("If-None-Match", reserved)
+            .when().get("/api/production/calculate")
+            .then()
+            .statusCode(200);
+    }
+
+    @Test
+    void testCommitProductionRunWithoutItems() {
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"items\": []}")
+            .when().post("/api/production/runs")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    void testCommitProductionRunWithTooManyDecimals() {
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"items\": [{\"productId\": 1, \"quantity\": 0.0001}]}")
+            .when().post("/api/production/runs")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    void testSimulateProduction() {
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"scenarios\": [{\"name\": \"as is\"}, {\"name\": \"no changes\", \"stockDelta\": {}}]}")
+            .when().post("/api/production/simulate")
+            .then()
+            .statusCode(200)
+            .body("strategy", equalTo("greedy"))
+            .body("scenarios[0].name", equalTo("as is"))
+            .body("scenarios[1].name", equalTo("no changes"))
+            .body("scenarios[0].result.items", notNullValue());
+    }
+
+    @Test
+    void testSimulateProductionWithoutScenarios() {
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"scenarios\": []}")
+            .when().post("/api/production/simulate")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    void testAnalyzeProduction() {
+        given()
+            .when().get("/api/production/analysis?strategy=optimal")
+            .then()
+            .statusCode(200)
+            .body("strategy", equalTo("optimal"))
+            .body("items", notNullValue())
+            .body("rawMaterials", notNullValue());
+    }
+
+    @Test
+    void testMetricsCoverProductionCalculation() {
+        // Force a snapshot reload and a new plan so every phase is timed
+        snapshotCache.invalidate();
+        given()
+            .when().get("/api/production/calculate")
+            .then()
+            .statusCode(200);
+
+        given()
+            .when().get("/q/metrics")
+            .then()
+            .statusCode(200)
+            .body(containsString("http_server_requests_seconds_bucket{"))
+            .body(containsString("uri=\"/api/production/calculate\""))
+            .body(containsString("autoflex_db_statements_count{endpoint=\"ProductionResource.calculateProduction\""))
+            .body(containsString("autoflex_snapshot_load_seconds_count{scope=\"full\""))
+            .body(containsString("autoflex_snapshot_compile_seconds_count"))
+            .body(containsString("autoflex_planner_phase_seconds_bucket{phase=\"plan\",strategy=\"greedy\""))
+            .body(containsString("autoflex_planner_phase_seconds_count{phase=\"dto_build\",strategy=\"greedy\""))
+            .body(containsString("autoflex_planner_products_evaluated_total{strategy=\"greedy\""))
+            .body(containsString("autoflex_catalogue_size{kind=\"products\""))
+            .body(containsString("autoflex_db_permits_available"))
+            .body(containsString("hibernate_sessions_open_total"))
+            .body(containsString("hibernate_second_level_cache_requests_total"));
+    }
+
+    @Test
+    void testTracingCoversProductionCalculation() throws InterruptedException {
+        snapshotCache.invalidate();
+        spans.reset();
+        given()
+            .when().get("/api/production/calculate")
+            .then()
+            .statusCode(200);
+
+        // The server span ends last, after every span below it
+        SpanData server = awaitSpan("GET /api/production/calculate");
+        List<SpanData> trace = spans.getFinishedSpanItems().stream()
+            .filter(span -> span.getTraceId().equals(server.getTraceId()))
+            .toList();
+        SpanData calculation = span(trace, "ProductionService.calculatePlan");
+        SpanData load = span(trace, "BomSnapshotLoader.loadConcurrently");
+
+        assertThat(server.getKind()).isEqualTo(SpanKind.SERVER);
+        assertThat(calculation.getAttributes().get(AttributeKey.stringKey("autoflex.production.strategy")))
+            .isEqualTo("GREEDY");
+        assertThat(calculation.getAttributes().get(AttributeKey.longKey("autoflex.production.products"))).isNotNull();
+        assertThat(calculation.getAttributes().get(AttributeKey.longKey("autoflex.production.bom_lines"))).isNotNull();
+        assertThat(calculation.getAttributes().get(AttributeKey.longKey("autoflex.production.result_items")))
+            .isNotNull();
+        assertThat(load.getAttributes().get(AttributeKey.longKey("autoflex.bom.lines"))).isNotNull();
+        // The four snapshot queries run on loader threads, each as a JDBC span below the load
+        assertThat(trace)
+            .filteredOn(span -> span.getParentSpanId().equals(load.getSpanId()))
+            .filteredOn(span -> span.getAttributes().get(AttributeKey.stringKey("db.statement")) != null)
+            .hasSizeGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void testStreamProductionSendsPlanThenCoalescedDiffs() throws Exception {
+        BlockingQueue<String[]> events = new LinkedBlockingQueue<>();
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient().send(
+            HttpRequest.newBuilder(streamUri).header("Accept", "text/event-stream").build(),
+            HttpResponse.BodyHandlers.ofLines());
+        assertThat(response.statusCode()).isEqualTo(200);
+        Thread reader = Thread.ofVirtual().start(() -> readEvents(response.body(), events));
+        try {
+            int planned = given().when().get("/api/production/calculate")
+                .then().statusCode(200)
+                .extract().jsonPath().getList("items").size();
+            JsonNode plan = nextEvent(events, "plan");
+            assertThat(plan.get("strategy").asText()).isEqualTo("greedy");
+            assertThat(plan.get("items")).hasSize(planned);
+
+            // A product worth more than any other, made from its own raw material
+            String suffix = Long.toString(System.currentTimeMillis());
+            Map<String, Object> rawMaterial = new HashMap<>();
+            rawMaterial.put("code", "RM-STREAM-" + suffix);
+            rawMaterial.put("name", "Raw material for stream");
+            rawMaterial.put("stockQuantity", new BigDecimal("10"));
+            long rawMaterialId = given().contentType(ContentType.JSON).body(rawMaterial)
+                .when().post("/api/raw-materials")
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+            long productId = given().contentType(ContentType.JSON)
+                .body(Map.of("code", "P-STREAM-" + suffix, "name", "Product for stream",
+                    "value", new BigDecimal("1000000.00")))
+                .when().post("/api/products")
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+            given().contentType(ContentType.JSON)
+                .body(Map.of("productId", productId, "rawMaterialId", rawMaterialId,
+                    "requiredQuantity", BigDecimal.ONE))
+                .when().post("/api/product-raw-materials")
+                .then().statusCode(201);
+            JsonNode added = nextEvent(events, "update");
+            while (!containsItem(added, productId)) {
+                added = nextEvent(events, "update");
+            }
+
+            // Three stock changes within the debounce interval make a single update
+            for (String stock : List.of("20", "30", "40")) {
+                rawMaterial.put("stockQuantity", new BigDecimal(stock));
+                given().contentType(ContentType.JSON).body(rawMaterial)
+                    .when().put("/api/raw-materials/" + rawMaterialId)
+                    .then().statusCode(200);
+            }
+            JsonNode update = nextEvent(events, "update");
+            assertThat(update.get("version").asLong()).isGreaterThan(added.get("version").asLong());
+            assertThat(update.get("items")).hasSize(1);
+            assertThat(update.get("items").get(0).get("productId").asLong()).isEqualTo(productId);
+            assertThat(update.get("items").get(0).get("quantity").decimalValue()).isEqualByComparingTo("40");
+            assertThat(update.get("removedProductIds")).isEmpty();
+            assertThat(update.get("totalValue").decimalValue())
+                .isEqualByComparingTo(added.get("totalValue").decimalValue().add(new BigDecimal("30000000")));
+
+            rawMaterial.put("stockQuantity", BigDecimal.ZERO);
+            given().contentType(ContentType.JSON).body(rawMaterial)
+                .when().put("/api/raw-materials/" + rawMaterialId)
+                .then().statusCode(200);
+            JsonNode removed = nextEvent(events, "update");
+            assertThat(removed.get("items")).isEmpty();
+            assertThat(removed.get("removedProductIds")).hasSize(1);
+            assertThat(removed.get("removedProductIds").get(0).asLong()).isEqualTo(productId);
+        } finally {
+            response.body().close();
+            reader.interrupt();
+        }
+    }
+
+    @Test
+    void testStreamProductionWithInvalidStrategy() {
+        given()
+            .queryParam("strategy", "cheapest")
+            .when().get("/api/production/stream")
+            .then()
+            .statusCode(400);
+    }
+
+    /** Name and data of each server-sent event, comments skipped. */
+    private static void readEvents(Stream<String> lines, BlockingQueue<String[]> events) {
+        String[] event = new String[2];
+        try {
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (line.startsWith("event:")) {
+                    event[0] = line.substring("event:".length()).trim();
+                } else if (line.startsWith("data:")) {
+                    event[1] = line.substring("data:".length()).trim();
+                } else if (line.isEmpty() && event[1] != null) {
+                    events.add(event);
+                    event = new String[2];
+                }
+            }
+        } catch (RuntimeException e) {
+            // Stream closed by the test
+        }
+    }
+
+    private JsonNode nextEvent(BlockingQueue<String[]> events, String name) throws InterruptedException, IOException {
+        String[] event = events.poll(10, TimeUnit.SECONDS);
+        assertThat(event).as("event " + name).isNotNull();
+        assertThat(event[0]).isEqualTo(name);
+        return objectMapper.readTree(event[1]);
+    }
+
+    private static boolean containsItem(JsonNode update, long productId) {
+        for (JsonNode item : update.get("items")) {
+            if (item.get("productId").asLong() == productId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private SpanData awaitSpan(String name) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            Optional<SpanData> span = spans.getFinishedSpanItems().stream()
+                .filter(candidate -> candidate.getName().equals(name))
+                .findFirst();
+            if (span.isPresent()) {
+                return span.get();
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("No span " + name + " exported");
+    }
+
+    private static SpanData span(List<SpanData> trace, String name) {
+        return trace.stream().filter(span -> span.getName().equals(name)).findFirst()
+            .orElseThrow(() -> new AssertionError("No span " + name + " in the trace"));
+    }
 }
@@ -1,19 +1,31 @@
 package com.autoflex.resource;
 
+import com.autoflex.service.BomSnapshotCache;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
+import io.restassured.response.ExtractableResponse;
+import io.restassured.response.Response;
+import jakarta.inject.Inject;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 @QuarkusTest
 class RawMaterialResourceTest {
 
+    @Inject
+    BomSnapshotCache snapshotCache;
+
     @Test
     void testGetAllRawMaterials() {
         given()
@@ -88,4 +100,221 @@ class RawMaterialResourceTest {
             .then()
             .statusCode(409);
     }
+
+    @Test
+    void testPageThroughRawMaterials() {
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> rawMaterial = new HashMap<>();
+            rawMaterial.put("code", "RM-PAGE-" + System.nanoTime());
+            rawMaterial.put("name", "Paged Raw Material");
+            rawMaterial.put("stockQuantity", new BigDecimal("1"));
+            given().contentType(ContentType.JSON).body(rawMaterial)
+                .when().post("/api/raw-materials")
+                .then().statusCode(201);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        Long after = 0L;
+        while (after != null) {
+            ExtractableResponse<Response> page = given()
+                .queryParam("limit", 2)
+                .queryParam("after", after)
+                .when().get("/api/raw-materials")
+                .then()
+                .statusCode(200)
+                .body("items.size()", lessThanOrEqualTo(2))
+                .extract();
+            ids.addAll(page.jsonPath().getList("items.id", Long.class));
+            after = page.jsonPath().getObject("nextAfter", Long.class);
+        }
+
+        List<Long> all = given().when().get("/api/raw-materials")
+            .then().statusCode(200)
+            .extract().jsonPath().getList("id", Long.class);
+        assertThat(ids).isSorted().containsExactlyInAnyOrderElementsOf(all);
+    }
+
+    @Test
+    void testGetRawMaterialsWithInvalidLimit() {
+        given()
+            .queryParam("limit", 0)
+            .when().get("/api/raw-materials")
+            .then()
+            .statusCode(400);
+
+        given()
+            .queryParam("limit", 1001)
+            .when().get("/api/raw-materials")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    void testStreamRawMaterialsAsNdjson() {
+        int count = given().when().get("/api/raw-materials")
+            .then().statusCode(200)
+            .extract().jsonPath().getList("$").size();
+
+        String body = given()
+            .accept("application/x-ndjson")
+            .when().get("/api/raw-materials")
+            .then()
+            .statusCode(200)
+            .contentType("application/x-ndjson")
+            .extract().asString();
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(count).allMatch(line -> line.startsWith("{\"id\":"));
+    }
+
+    @Test
+    void testBulkUpsertRawMaterialsFromNdjson() {
+        String code = "RM-BULK-" + System.currentTimeMillis();
+        String body = "{\"code\":\"" + code + "-1\",\"name\":\"Bulk 1\",\"stockQuantity\":10}\n"
+            + "{\"code\":\"" + code + "-2\",\"name\":\"\",\"stockQuantity\":10}\n"
+            + "{\"code\":\"" + code + "-1\",\"name\":\"Bulk 1\",\"stockQuantity\":25.5}\n";
+
+        given()
+            .contentType("application/x-ndjson")
+            .body(body.getBytes(StandardCharsets.UTF_8))
+            .when().post("/api/raw-materials/bulk")
+            .then()
+            .statusCode(200)
+            .body("created", equalTo(1))
+            .body("updated", equalTo(1))
+            .body("failed", equalTo(1))
+            .body("items[1].key", equalTo(code + "-2"))
+            .body("items[1].status", equalTo("FAILED"))
+            .body("items[1].error", equalTo("Name is required"));
+
+        given()
+            .when().get("/api/raw-materials/code/" + code + "-1")
+            .then()
+            .statusCode(200)
+            .body("stockQuantity", equalTo(25.5f));
+    }
+
+    @Test
+    void testBulkWithInvalidModeReturnsBadRequest() {
+        given()
+            .contentType(ContentType.JSON)
+            .body("[]")
+            .queryParam("mode", "merge")
+            .when().post("/api/raw-materials/bulk")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    void testImportStockFromCsv() {
+        String code = "RM-COUNT-" + System.currentTimeMillis();
+        String body = "[{\"code\":\"" + code + "-1\",\"name\":\"Count 1\",\"stockQuantity\":10},"
+            + "{\"code\":\"" + code + "-2\",\"name\":\"Count 2\",\"stockQuantity\":20}]";
+        given()
+            .contentType(ContentType.JSON)
+            .body(body)
+            .when().post("/api/raw-materials/bulk")
+            .then()
+            .statusCode(200)
+            .body("created", equalTo(2));
+        long version = snapshotCache.version();
+
+        String csv = "name,stockQuantity,code\n"
+            + "\"Count, first\",12.5," + code + "-1\n"
+            + "Count 2,20.000," + code + "-2\n"
+            + "\n"
+            + "Unknown,5," + code + "-404\n"
+            + "Count 2,many," + code + "-2\n"
+            + "Count 2,1.2345," + code + "-2\n";
+        given()
+            .contentType("text/csv")
+            .body(csv.getBytes(StandardCharsets.UTF_8))
+            .when().post("/api/raw-materials/stock-import")
+            .then()
+            .statusCode(200)
+            .body("rows", equalTo(5))
+            .body("updated", equalTo(1))
+            .body("unchanged", equalTo(1))
+            .body("failed", equalTo(3))
+            .body("errors[0].line", equalTo(5))
+            .body("errors[0].error", equalTo("Raw material not found with code: " + code + "-404"))
+            .body("errors[1].error", equalTo("Invalid stock quantity: many"))
+            .body("errors[2].line", equalTo(7));
+
+        // One version bump for the whole import
+        assertThat(snapshotCache.version()).isEqualTo(version + 1);
+        given()
+            .when().get("/api/raw-materials/code/" + code + "-1")
+            .then()
+            .statusCode(200)
+            .body("stockQuantity", equalTo(12.5f));
+    }
+
+    @Test
+    void testImportStockFromNdjsonWithoutChangesKeepsVersion() {
+        String code = "RM-COUNT-ND-" + System.currentTimeMillis();
+        given()
+            .contentType(ContentType.JSON)
+            .body("[{\"code\":\"" + code + "\",\"name\":\"Count\",\"stockQuantity\":7}]")
+            .when().post("/api/raw-materials/bulk")
+            .then()
+            .statusCode(200);
+        long version = snapshotCache.version();
+
+        String ndjson = "{\"code\":\"" + code + "\",\"stockQuantity\":7.000}\n"
+            + "{\"code\":\"" + code + "\",\"stockQuantity\":}\n";
+        given()
+            .contentType("application/x-ndjson")
+            .body(ndjson.getBytes(StandardCharsets.UTF_8))
+            .when().post("/api/raw-materials/stock-import")
+            .then()
+            .statusCode(200)
+            .body("rows", equalTo(2))
+            .body("unchanged", equalTo(1))
+            .body("failed", equalTo(1))
+            .body("errors[0].line", equalTo(2))
+            .body("errors[0].error", startsWith("Malformed JSON"));
+
+        assertThat(snapshotCache.version()).isEqualTo(version);
+    }
+
+    @Test
+    void testImportStockCountsRepeatedCodeInOneChunkOnce() {
+        String code = "RM-COUNT-REP-" + System.currentTimeMillis();
+        given()
+            .contentType(ContentType.JSON)
+            .body("[{\"code\":\"" + code + "\",\"name\":\"Count\",\"stockQuantity\":7}]")
+            .when().post("/api/raw-materials/bulk")
+            .then()
+            .statusCode(200);
+
+        String csv = "code,stockQuantity\n"
+            + code + ",8\n"
+            + code + ",9\n";
+        given()
+            .contentType("text/csv")
+            .body(csv.getBytes(StandardCharsets.UTF_8))
+            .when().post("/api/raw-materials/stock-import")
+            .then()
+            .statusCode(200)
+            .body("rows", equalTo(2))
+            .body("updated", equalTo(1))
+            .body("unchanged", equalTo(0));
+
+        given()
+            .when().get("/api/raw-materials/code/" + code)
+            .then()
+            .statusCode(200)
+            .body("stockQuantity", equalTo(9.0f));
+    }
+
+    @Test
+    void testImportStockWithoutCodeColumnReturnsBadRequest() {
+        given()
+            .contentType("text/csv")
+            .body("sku,stockQuantity\nA,1\n".getBytes(StandardCharsets.UTF_8))
+            .when().post("/api/raw-materials/stock-import")
+            .then()
+            .statusCode(400);
+    }
 }
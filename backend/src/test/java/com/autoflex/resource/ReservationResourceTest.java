@@ -0,0 +1,166 @@
+package com.autoflex.resource;
+
+import com.autoflex.service.BomSnapshotCache;
+import com.autoflex.service.DatabaseConcurrencyLimiter;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.*;
+
+@QuarkusTest
+class ReservationResourceTest {
+
+    @Inject
+    DatabaseConcurrencyLimiter limiter;
+
+    @Inject
+    BomSnapshotCache snapshotCache;
+
+    @Test
+    void testReserveAndRelease() {
+        long rawMaterialId = createRawMaterial("10.000");
+        long productId = createProduct(rawMaterialId, "2.000");
+
+        String id = given().contentType(ContentType.JSON)
+            .body(Map.of("items", List.of(Map.of("productId", productId, "quantity", 3))))
+            .when().post("/api/reservations")
+            .then()
+            .statusCode(201)
+            .body("id", notNullValue())
+            .body("holds[0].rawMaterialId", equalTo((int) rawMaterialId))
+            .body("holds[0].quantity", equalTo(6.0f))
+            .body("expiresAt", notNullValue())
+            .extract().path("id");
+
+        given().when().get("/api/reservations/" + id)
+            .then().statusCode(200).body("id", equalTo(id));
+        given().when().delete("/api/reservations/" + id)
+            .then().statusCode(204);
+        given().when().delete("/api/reservations/" + id)
+            .then().statusCode(404);
+    }
+
+    @Test
+    void testReserveBeyondStock() {
+        long rawMaterialId = createRawMaterial("1.000");
+        long productId = createProduct(rawMaterialId, "2.000");
+
+        given().contentType(ContentType.JSON)
+            .body(Map.of("items", List.of(Map.of("productId", productId, "quantity", 1))))
+            .when().post("/api/reservations")
+            .then()
+            .statusCode(409);
+    }
+
+    @Test
+    void testReserveWithoutItems() {
+        given().contentType(ContentType.JSON)
+            .body(Map.of("items", List.of()))
+            .when().post("/api/reservations")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    void testConfirmTakesStock() {
+        long rawMaterialId = createRawMaterial("10.000");
+        long productId = createProduct(rawMaterialId, "2.000");
+        String id = given().contentType(ContentType.JSON)
+            .body(Map.of("items", List.of(Map.of("productId", productId, "quantity", 2)), "ttlSeconds", 60))
+            .when().post("/api/reservations")
+            .then().statusCode(201)
+            .extract().path("id");
+
+        given().when().post("/api/reservations/" + id + "/confirm")
+            .then()
+            .statusCode(200)
+            .body("consumption[0].remainingStock", equalTo(6.0f));
+        given().when().get("/api/reservations/" + id)
+            .then().statusCode(404);
+    }
+
+    @Test
+    void testReserveTakesDatabasePermitOnlyToRefreshSnapshot() throws Exception {
+        long rawMaterialId = createRawMaterial("10.000");
+        long productId = createProduct(rawMaterialId, "1.000");
+        Map<String, Object> request = Map.of("items", List.of(Map.of("productId", productId, "quantity", 1)));
+        // Brings the snapshot up to date
+        given().contentType(ContentType.JSON).body(request)
+            .when().post("/api/reservations")
+            .then().statusCode(201);
+
+        int permits = limiter.availablePermits();
+        CountDownLatch holding = new CountDownLatch(permits);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(permits);
+        try {
+            for (int i = 0; i < permits; i++) {
+                executor.submit(() -> limiter.call(() -> {
+                    holding.countDown();
+                    return release.await(10, TimeUnit.SECONDS);
+                }));
+            }
+            holding.await(10, TimeUnit.SECONDS);
+
+            given().contentType(ContentType.JSON).body(request)
+                .when().post("/api/reservations")
+                .then().statusCode(201);
+            snapshotCache.invalidate();
+            given().contentType(ContentType.JSON).body(request)
+                .when().post("/api/reservations")
+                .then().statusCode(503);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testConfirmUnknownReservation() {
+        given().when().post("/api/reservations/unknown/confirm")
+            .then().statusCode(404);
+    }
+
+    private static long createRawMaterial(String stock) {
+        Map<String, Object> rawMaterial = new HashMap<>();
+        rawMaterial.put("code", "RM-RES-" + System.nanoTime());
+        rawMaterial.put("name", "Raw material for reservations");
+        rawMaterial.put("stockQuantity", new BigDecimal(stock));
+        return given().contentType(ContentType.JSON).body(rawMaterial)
+            .when().post("/api/raw-materials")
+            .then().statusCode(201)
+            .extract().jsonPath().getLong("id");
+    }
+
+    private static long createProduct(long rawMaterialId, String required) {
+        Map<String, Object> product = new HashMap<>();
+        product.put("code", "P-RES-" + System.nanoTime());
+        product.put("name", "Product for reservations");
+        product.put("value", new BigDecimal("10.00"));
+        long productId = given().contentType(ContentType.JSON).body(product)
+            .when().post("/api/products")
+            .then().statusCode(201)
+            .extract().jsonPath().getLong("id");
+        Map<String, Object> line = new HashMap<>();
+        line.put("productId", productId);
+        line.put("rawMaterialId", rawMaterialId);
+        line.put("requiredQuantity", new BigDecimal(required));
+        given().contentType(ContentType.JSON).body(line)
+            .when().post("/api/product-raw-materials")
+            .then().statusCode(201);
+        return productId;
+    }
+}
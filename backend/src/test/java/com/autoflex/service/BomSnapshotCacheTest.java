@@ -0,0 +1,154 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.CacheStatsDTO.BomSnapshotStatsDTO;
+import com.autoflex.dto.ProductComponentDTO;
+import com.autoflex.dto.ProductDTO;
+import com.autoflex.dto.ProductRawMaterialDTO;
+import com.autoflex.dto.RawMaterialDTO;
+import com.autoflex.entity.Product;
+import com.autoflex.entity.ProductComponent;
+import com.autoflex.entity.ProductRawMaterial;
+import com.autoflex.entity.RawMaterial;
+import com.autoflex.planner.BomSnapshot;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+@QuarkusTest
+class BomSnapshotCacheTest {
+
+    @Inject
+    BomSnapshotCache snapshotCache;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    RawMaterialService rawMaterialService;
+
+    @Inject
+    ProductRawMaterialService productRawMaterialService;
+
+    @Inject
+    ProductComponentService productComponentService;
+
+    @Inject
+    BomSnapshotLoader loader;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        ProductComponent.deleteAll();
+        ProductRawMaterial.deleteAll();
+        Product.deleteAll();
+        RawMaterial.deleteAll();
+        snapshotCache.invalidate();
+    }
+
+    @Test
+    void testRepeatedReadsHitTheCache() {
+        BomSnapshotCache.Entry first = snapshotCache.current();
+        long hitsBefore = snapshotCache.stats().hits;
+
+        BomSnapshotCache.Entry second = snapshotCache.current();
+
+        assertThat(second).isSameAs(first);
+        assertThat(snapshotCache.stats().hits).isEqualTo(hitsBefore + 1);
+    }
+
+    @Test
+    void testStockUpdateRefreshesIncrementally() {
+        RawMaterialDTO steel = rawMaterialService.create(
+            new RawMaterialDTO(null, "RM001", "Steel", new BigDecimal("100.000")));
+        ProductDTO product = productService.create(
+            new ProductDTO(null, "P001", "Product 1", new BigDecimal("10.00")));
+        productRawMaterialService.create(
+            new ProductRawMaterialDTO(null, product.id, steel.id, new BigDecimal("10.000")));
+
+        BomSnapshotCache.Entry before = snapshotCache.current();
+        long versionBefore = snapshotCache.version();
+        long incrementalBefore = snapshotCache.stats().incrementalRefreshes;
+
+        rawMaterialService.update(steel.id,
+            new RawMaterialDTO(steel.id, "RM001", "Steel", new BigDecimal("250.000")));
+
+        assertThat(snapshotCache.version()).isGreaterThan(versionBefore);
+        BomSnapshotCache.Entry after = snapshotCache.current();
+        BomSnapshotStatsDTO stats = snapshotCache.stats();
+
+        assertThat(stats.incrementalRefreshes).isEqualTo(incrementalBefore + 1);
+        assertThat(after.snapshot.products).isSameAs(before.snapshot.products);
+        assertThat(after.snapshot.stock.get(steel.id)).isEqualByComparingTo("250.000");
+    }
+
+    @Test
+    void testCatalogueChangeRebuildsSnapshot() {
+        BomSnapshotCache.Entry before = snapshotCache.current();
+        long rebuildsBefore = snapshotCache.stats().fullRebuilds;
+
+        productService.create(new ProductDTO(null, "P001", "Product 1", new BigDecimal("10.00")));
+        BomSnapshotCache.Entry after = snapshotCache.current();
+
+        assertThat(after.version).isGreaterThan(before.version);
+        assertThat(after.snapshot.products).extracting(product -> product.code).containsExactly("P001");
+        assertThat(snapshotCache.stats().fullRebuilds).isEqualTo(rebuildsBefore + 1);
+    }
+
+    @Test
+    @Transactional
+    void testUncommittedChangesAreVisibleInsideTheTransaction() {
+        snapshotCache.current();
+
+        productService.create(new ProductDTO(null, "P001", "Product 1", new BigDecimal("10.00")));
+
+        assertThat(snapshotCache.current().snapshot.products)
+            .extracting(product -> product.code)
+            .containsExactly("P001");
+    }
+
+    @Test
+    void testConcurrentLoadMatchesSerialLoad() {
+        RawMaterialDTO steel = rawMaterialService.create(
+            new RawMaterialDTO(null, "RM001", "Steel", new BigDecimal("100.000")));
+        ProductDTO wheel = productService.create(
+            new ProductDTO(null, "P001", "Wheel", new BigDecimal("10.00")));
+        ProductDTO bike = productService.create(
+            new ProductDTO(null, "P002", "Bike", new BigDecimal("90.00")));
+        productRawMaterialService.create(
+            new ProductRawMaterialDTO(null, wheel.id, steel.id, new BigDecimal("2.500")));
+        productComponentService.create(
+            new ProductComponentDTO(null, bike.id, wheel.id, new BigDecimal("2.000")));
+
+        BomSnapshot serial = QuarkusTransaction.requiringNew().call(() -> loader.load());
+        BomSnapshot concurrent = loader.loadConcurrently(null, Set.of());
+
+        assertThat(concurrent.products).usingRecursiveFieldByFieldElementComparator()
+            .containsExactlyElementsOf(serial.products);
+        assertThat(concurrent.stock).isEqualTo(serial.stock);
+        assertThat(concurrent.explosion.requirements(bike.id)).isEqualTo(serial.explosion.requirements(bike.id));
+        assertThat(concurrent.explosion.requirements(bike.id).get(steel.id)).isEqualByComparingTo("5.000");
+    }
+
+    @Test
+    void testLoadedProductsFollowPlannerPriority() {
+        productService.create(new ProductDTO(null, "P001", "apple", new BigDecimal("10.00")));
+        productService.create(new ProductDTO(null, "P002", "Banana", new BigDecimal("10.00")));
+        productService.create(new ProductDTO(null, "P003", "Cherry", new BigDecimal("20.00")));
+
+        BomSnapshot loaded = QuarkusTransaction.requiringNew().call(() -> loader.load());
+
+        assertThat(loaded.products).extracting(product -> product.name)
+            .containsExactly("Cherry", "Banana", "apple");
+        assertThat(loaded.withValues(Map.of()).products).extracting(product -> product.id)
+            .containsExactlyElementsOf(loaded.products.stream().map(product -> product.id).toList());
+    }
+}
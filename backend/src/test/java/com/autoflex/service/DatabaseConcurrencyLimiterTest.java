@@ -0,0 +1,46 @@
+package com.autoflex.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DatabaseConcurrencyLimiterTest {
+
+    @Test
+    void testDefaultLeavesReservedConnectionsFree() {
+        DatabaseConcurrencyLimiter limiter = limiter(16, Optional.empty());
+
+        limiter.init();
+
+        assertThat(limiter.availablePermits()).isEqualTo(16 - DatabaseConcurrencyLimiter.RESERVED_CONNECTIONS);
+    }
+
+    @Test
+    void testRejectsLimitThatTakesReservedConnections() {
+        DatabaseConcurrencyLimiter limiter = limiter(16, Optional.of(12));
+
+        assertThatThrownBy(limiter::init)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("quarkus.datasource.jdbc.max-size (16)");
+    }
+
+    @Test
+    void testRejectsPoolTooSmallForReservedConnections() {
+        DatabaseConcurrencyLimiter limiter = limiter(DatabaseConcurrencyLimiter.RESERVED_CONNECTIONS, Optional.empty());
+
+        assertThatThrownBy(limiter::init).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static DatabaseConcurrencyLimiter limiter(int poolSize, Optional<Integer> maxConcurrentRequests) {
+        DatabaseConcurrencyLimiter limiter = new DatabaseConcurrencyLimiter();
+        limiter.poolSize = poolSize;
+        limiter.maxConcurrentRequests = maxConcurrentRequests;
+        limiter.acquireTimeout = Duration.ofMillis(500);
+        limiter.registry = new SimpleMeterRegistry();
+        return limiter;
+    }
+}
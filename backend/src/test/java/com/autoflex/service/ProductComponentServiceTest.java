@@ -0,0 +1,129 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.ProductComponentDTO;
+import com.autoflex.dto.ProductDTO;
+import com.autoflex.dto.ProductRawMaterialDTO;
+import com.autoflex.dto.ProductionCalculationDTO;
+import com.autoflex.dto.ProductionRunDTO;
+import com.autoflex.dto.ProductionRunDTO.RunItemDTO;
+import com.autoflex.dto.RawMaterialDTO;
+import com.autoflex.entity.Product;
+import com.autoflex.entity.ProductComponent;
+import com.autoflex.entity.ProductRawMaterial;
+import com.autoflex.entity.RawMaterial;
+import com.autoflex.exception.ConflictException;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@QuarkusTest
+class ProductComponentServiceTest {
+
+    @Inject
+    ProductComponentService productComponentService;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    RawMaterialService rawMaterialService;
+
+    @Inject
+    ProductRawMaterialService productRawMaterialService;
+
+    @Inject
+    ProductionService productionService;
+
+    @Inject
+    ProductionRunService productionRunService;
+
+    private RawMaterialDTO steel;
+    private ProductDTO bike;
+    private ProductDTO wheel;
+    private ProductDTO spoke;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            ProductComponent.deleteAll();
+            ProductRawMaterial.deleteAll();
+            Product.deleteAll();
+            RawMaterial.deleteAll();
+        });
+        steel = rawMaterialService.create(new RawMaterialDTO(null, "RM001", "Steel", new BigDecimal("100.000")));
+        bike = productService.create(new ProductDTO(null, "P001", "Bike", new BigDecimal("500.00")));
+        wheel = productService.create(new ProductDTO(null, "P002", "Wheel", new BigDecimal("1.00")));
+        spoke = productService.create(new ProductDTO(null, "P003", "Spoke", new BigDecimal("0.10")));
+        productRawMaterialService.create(new ProductRawMaterialDTO(null, spoke.id, steel.id, new BigDecimal("0.250")));
+        productRawMaterialService.create(new ProductRawMaterialDTO(null, wheel.id, steel.id, new BigDecimal("1.000")));
+    }
+
+    @Test
+    void testPlansOverExplodedRequirements() {
+        productComponentService.create(new ProductComponentDTO(null, wheel.id, spoke.id, new BigDecimal("20.000")));
+        productComponentService.create(new ProductComponentDTO(null, bike.id, wheel.id, new BigDecimal("2.000")));
+
+        // A bike takes 2 x (1 + 20 x 0.25) = 12 steel
+        ProductionCalculationDTO plan = productionService.calculateProduction();
+
+        assertThat(plan.items.get(0).productId).isEqualTo(bike.id);
+        assertThat(plan.items.get(0).quantity).isEqualByComparingTo("8.333");
+    }
+
+    @Test
+    void testComponentChangeUpdatesPlanOfProductsUsingIt() {
+        productComponentService.create(new ProductComponentDTO(null, wheel.id, spoke.id, new BigDecimal("20.000")));
+        productComponentService.create(new ProductComponentDTO(null, bike.id, wheel.id, new BigDecimal("2.000")));
+        productionService.calculateProduction();
+
+        // Only the spoke recipe changes; the bike is two levels up
+        ProductRawMaterialDTO spokeSteel = productRawMaterialService.findByProductId(spoke.id).get(0);
+        spokeSteel.requiredQuantity = new BigDecimal("0.100");
+        productRawMaterialService.update(spokeSteel.id, spokeSteel);
+
+        // A bike now takes 2 x (1 + 20 x 0.1) = 6 steel
+        ProductionCalculationDTO plan = productionService.calculateProduction();
+        assertThat(plan.items.get(0).quantity).isEqualByComparingTo("16.666");
+    }
+
+    @Test
+    void testRejectsCycles() {
+        productComponentService.create(new ProductComponentDTO(null, bike.id, wheel.id, new BigDecimal("2.000")));
+        productComponentService.create(new ProductComponentDTO(null, wheel.id, spoke.id, new BigDecimal("20.000")));
+
+        assertThatThrownBy(() -> productComponentService.create(
+                new ProductComponentDTO(null, spoke.id, bike.id, BigDecimal.ONE)))
+            .isInstanceOf(ConflictException.class);
+        assertThatThrownBy(() -> productComponentService.create(
+                new ProductComponentDTO(null, wheel.id, wheel.id, BigDecimal.ONE)))
+            .isInstanceOf(ConflictException.class);
+        assertThat(productComponentService.findAll()).hasSize(2);
+    }
+
+    @Test
+    void testCannotDeleteProductUsedAsComponent() {
+        productComponentService.create(new ProductComponentDTO(null, bike.id, wheel.id, new BigDecimal("2.000")));
+
+        assertThatThrownBy(() -> productService.delete(wheel.id)).isInstanceOf(ConflictException.class);
+
+        productService.delete(bike.id);
+        assertThat(productComponentService.findAll()).isEmpty();
+    }
+
+    @Test
+    void testProductionRunConsumesSubAssemblyRawMaterials() {
+        productComponentService.create(new ProductComponentDTO(null, wheel.id, spoke.id, new BigDecimal("20.000")));
+        productComponentService.create(new ProductComponentDTO(null, bike.id, wheel.id, new BigDecimal("2.000")));
+
+        productionRunService.commit(new ProductionRunDTO(List.of(new RunItemDTO(bike.id, new BigDecimal("3")))));
+
+        assertThat(rawMaterialService.findById(steel.id).stockQuantity).isEqualByComparingTo("64.000");
+    }
+}
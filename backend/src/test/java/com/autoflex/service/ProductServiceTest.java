@@ -1,18 +1,27 @@
 package com.autoflex.service;
 
+import com.autoflex.dto.BulkResultDTO;
+import com.autoflex.dto.BulkResultDTO.Status;
 import com.autoflex.dto.ProductDTO;
 import com.autoflex.entity.Product;
+import com.autoflex.entity.ProductComponent;
 import com.autoflex.entity.ProductRawMaterial;
 import com.autoflex.exception.ConflictException;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -25,6 +34,7 @@ class ProductServiceTest {
     @BeforeEach
     @Transactional
     void setUp() {
+        ProductComponent.deleteAll();
         ProductRawMaterial.deleteAll();
         Product.deleteAll();
     }
@@ -68,6 +78,28 @@ class ProductServiceTest {
         assertThat(found.code).isEqualTo("P001");
     }
 
+    @Test
+    void testFindByCodeIsServedFromSecondLevelCache() {
+        productService.create(new ProductDTO(null, "P001", "Product 1", new BigDecimal("100.00")));
+        Statistics statistics = Product.getEntityManager()
+            .getEntityManagerFactory()
+            .unwrap(SessionFactory.class)
+            .getStatistics();
+        QuarkusTransaction.requiringNew().call(() -> productService.findByCode("P001"));
+
+        statistics.clear();
+        ProductDTO found = QuarkusTransaction.requiringNew().call(() -> productService.findByCode("P001"));
+
+        assertThat(found.name).isEqualTo("Product 1");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryRegionStatistics(Product.BY_CODE_CACHE_REGION).getHitCount()).isEqualTo(1);
+
+        productService.update(found.id, new ProductDTO(null, "P001", "Renamed", new BigDecimal("100.00")));
+
+        assertThat(QuarkusTransaction.requiringNew().call(() -> productService.findByCode("P001")).name)
+            .isEqualTo("Renamed");
+    }
+
     @Test
     void testFindByIdNotFoundShouldThrow() {
         assertThatThrownBy(() -> productService.findById(999L))
@@ -122,4 +154,56 @@ class ProductServiceTest {
         assertThatThrownBy(() -> productService.findById(created.id))
             .isInstanceOf(NotFoundException.class);
     }
+
+    @Test
+    void testBulkWriteUpsertsByCodeAcrossChunks() {
+        QuarkusTransaction.requiringNew().run(() -> new Product("BULK-0", "Old name", new BigDecimal("1.00")).persist());
+
+        List<ProductDTO> items = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            items.add(new ProductDTO(null, "BULK-" + i, "Bulk " + i, new BigDecimal("10.00")));
+        }
+        BulkResultDTO result = productService.bulkWrite(items.iterator(), BulkMode.UPSERT);
+
+        assertThat(result.created).isEqualTo(2499);
+        assertThat(result.updated).isEqualTo(1);
+        assertThat(result.failed).isZero();
+        assertThat(result.items).extracting(item -> item.index)
+            .containsExactlyElementsOf(IntStream.range(0, 2500).boxed().toList());
+        assertThat(Product.count()).isEqualTo(2500);
+        assertThat(productService.findByCode("BULK-0").name).isEqualTo("Bulk 0");
+    }
+
+    @Test
+    void testBulkWriteReportsFailuresPerItem() {
+        QuarkusTransaction.requiringNew().run(() -> new Product("BULK-EXISTS", "Existing", new BigDecimal("1.00")).persist());
+
+        List<ProductDTO> items = Arrays.asList(
+            new ProductDTO(null, "BULK-NEW", "New", new BigDecimal("5.00")),
+            new ProductDTO(null, "BULK-EXISTS", "Existing again", new BigDecimal("5.00")),
+            new ProductDTO(null, "BULK-BAD", "Bad", new BigDecimal("-5.00")),
+            null,
+            new ProductDTO(null, "BULK-NEW", "New again", new BigDecimal("6.00")));
+        BulkResultDTO result = productService.bulkWrite(items.iterator(), BulkMode.CREATE);
+
+        assertThat(result.created).isEqualTo(1);
+        assertThat(result.failed).isEqualTo(4);
+        assertThat(result.items).extracting(item -> item.status).containsExactly(
+            Status.CREATED, Status.FAILED, Status.FAILED, Status.FAILED, Status.FAILED);
+        assertThat(result.items.get(1).error).contains("already exists");
+        assertThat(result.items.get(2).error).isEqualTo("Value must be positive");
+        assertThat(result.items.get(4).error).contains("already exists");
+        assertThat(productService.findByCode("BULK-NEW").name).isEqualTo("New");
+    }
+
+    @Test
+    void testBulkWriteUpdateModeRequiresExistingCode() {
+        BulkResultDTO result = productService.bulkWrite(
+            List.of(new ProductDTO(null, "BULK-MISSING", "Missing", new BigDecimal("5.00"))).iterator(),
+            BulkMode.UPDATE);
+
+        assertThat(result.failed).isEqualTo(1);
+        assertThat(result.items.get(0).error).contains("not found");
+        assertThat(Product.count()).isZero();
+    }
 }
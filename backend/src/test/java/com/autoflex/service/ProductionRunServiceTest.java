@@ -0,0 +1,171 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.ProductDTO;
+import com.autoflex.dto.ProductRawMaterialDTO;
+import com.autoflex.dto.ProductionRunDTO;
+import com.autoflex.dto.ProductionRunDTO.RunItemDTO;
+import com.autoflex.dto.ProductionRunResultDTO;
+import com.autoflex.dto.RawMaterialDTO;
+import com.autoflex.entity.Product;
+import com.autoflex.entity.ProductComponent;
+import com.autoflex.entity.ProductRawMaterial;
+import com.autoflex.entity.RawMaterial;
+import com.autoflex.exception.ConflictException;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+@QuarkusTest
+class ProductionRunServiceTest {
+
+    @Inject
+    ProductionRunService productionRunService;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    RawMaterialService rawMaterialService;
+
+    @Inject
+    ProductRawMaterialService productRawMaterialService;
+
+    private RawMaterialDTO steel;
+    private RawMaterialDTO plastic;
+    private ProductDTO chair;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            ProductComponent.deleteAll();
+            ProductRawMaterial.deleteAll();
+            Product.deleteAll();
+            RawMaterial.deleteAll();
+        });
+        steel = rawMaterialService.create(new RawMaterialDTO(null, "RM001", "Steel", new BigDecimal("100.000")));
+        plastic = rawMaterialService.create(new RawMaterialDTO(null, "RM002", "Plastic", new BigDecimal("10.000")));
+        chair = productService.create(new ProductDTO(null, "P001", "Chair", new BigDecimal("50.00")));
+        productRawMaterialService.create(new ProductRawMaterialDTO(null, chair.id, steel.id, new BigDecimal("3.000")));
+        productRawMaterialService.create(new ProductRawMaterialDTO(null, chair.id, plastic.id, new BigDecimal("0.333")));
+    }
+
+    @Test
+    void testCommitRunDecrementsStock() {
+        ProductionRunResultDTO result = productionRunService.commit(run(chair.id, "2.5"));
+
+        // 2.5 x 0.333 = 0.8325 is rounded up so stock never covers less than was used
+        assertThat(result.consumption).extracting(c -> c.rawMaterialId).containsExactly(steel.id, plastic.id);
+        assertThat(result.consumption.get(0).consumed).isEqualByComparingTo("7.500");
+        assertThat(result.consumption.get(1).consumed).isEqualByComparingTo("0.833");
+        assertThat(rawMaterialService.findById(steel.id).stockQuantity).isEqualByComparingTo("92.500");
+        assertThat(rawMaterialService.findById(plastic.id).stockQuantity).isEqualByComparingTo("9.167");
+        assertThat(result.consumption.get(1).remainingStock).isEqualByComparingTo("9.167");
+    }
+
+    @Test
+    void testCommitRunEvictsCachedRawMaterials() {
+        Cache cache = RawMaterial.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        // Each read in its own transaction, so it only shares the second-level cache
+        Callable<RawMaterialDTO> readSteel = () -> rawMaterialService.findById(steel.id);
+        assertThat(QuarkusTransaction.requiringNew().call(readSteel).stockQuantity).isEqualByComparingTo("100.000");
+        assertThat(cache.containsEntity(RawMaterial.class, steel.id)).isTrue();
+
+        // Stock is written with plain JDBC, which the second-level cache does not see
+        productionRunService.commit(run(chair.id, "2.5"));
+
+        assertThat(cache.containsEntity(RawMaterial.class, steel.id)).isFalse();
+        assertThat(QuarkusTransaction.requiringNew().call(readSteel).stockQuantity).isEqualByComparingTo("92.500");
+    }
+
+    @Test
+    void testLoadDuringRunDoesNotCacheOldStock() throws Exception {
+        Cache cache = RawMaterial.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        Callable<RawMaterialDTO> readSteel = () -> QuarkusTransaction.requiringNew()
+            .call(() -> rawMaterialService.findById(steel.id));
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            productionRunService.commit(Map.of(chair.id, new BigDecimal("2.5")), null, () -> {
+                try {
+                    // Reads the committed row from before the run, while the run is still open
+                    assertThat(reader.submit(readSteel).get().stockQuantity).isEqualByComparingTo("100.000");
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                assertThat(cache.containsEntity(RawMaterial.class, steel.id)).isFalse();
+            });
+        } finally {
+            reader.shutdownNow();
+        }
+
+        assertThat(readSteel.call().stockQuantity).isEqualByComparingTo("92.500");
+    }
+
+    @Test
+    void testCommitRunWithInsufficientStockChangesNothing() {
+        assertThatThrownBy(() -> productionRunService.commit(run(chair.id, "31")))
+            .isInstanceOf(ConflictException.class)
+            .hasMessageContaining(String.valueOf(plastic.id));
+
+        // Steel alone would have been enough, but the run is all or nothing
+        assertThat(rawMaterialService.findById(steel.id).stockQuantity).isEqualByComparingTo("100.000");
+        assertThat(rawMaterialService.findById(plastic.id).stockQuantity).isEqualByComparingTo("10.000");
+    }
+
+    @Test
+    void testCommitRunWithUnknownProduct() {
+        assertThatThrownBy(() -> productionRunService.commit(run(99999L, "1")))
+            .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void testConcurrentRunsNeverOversell() throws Exception {
+        // Steel allows 33 chairs; 10 threads try to produce 5 each
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Callable<Boolean>> runs = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                runs.add(() -> {
+                    try {
+                        productionRunService.commit(run(chair.id, "5"));
+                        return true;
+                    } catch (ConflictException e) {
+                        return false;
+                    }
+                });
+            }
+            int committed = 0;
+            for (Future<Boolean> outcome : executor.invokeAll(runs)) {
+                if (outcome.get()) {
+                    committed++;
+                }
+            }
+
+            // Plastic (0.333 x 5 = 1.665 per run) is the limit: 6 runs fit in 10.000
+            assertThat(committed).isEqualTo(6);
+            assertThat(rawMaterialService.findById(steel.id).stockQuantity).isEqualByComparingTo("10.000");
+            assertThat(rawMaterialService.findById(plastic.id).stockQuantity).isEqualByComparingTo("0.010");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ProductionRunDTO run(Long productId, String quantity) {
+        return new ProductionRunDTO(List.of(new RunItemDTO(productId, new BigDecimal(quantity))));
+    }
+}
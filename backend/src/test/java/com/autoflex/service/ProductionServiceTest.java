@@ -1,15 +1,20 @@
 package com.autoflex.service;
 
 import com.autoflex.dto.ProductDTO;
+import com.autoflex.dto.ProductionAnalysisDTO;
 import com.autoflex.dto.ProductRawMaterialDTO;
 import com.autoflex.dto.ProductionCalculationDTO;
 import com.autoflex.dto.RawMaterialDTO;
 import com.autoflex.entity.Product;
+import com.autoflex.entity.ProductComponent;
 import com.autoflex.entity.ProductRawMaterial;
 import com.autoflex.entity.RawMaterial;
+import com.autoflex.planner.ProductionStrategy;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -32,12 +37,17 @@ class ProductionServiceTest {
     @Inject
     ProductRawMaterialService productRawMaterialService;
 
+    @Inject
+    BomSnapshotCache snapshotCache;
+
     @BeforeEach
     @Transactional
     void setUp() {
+        ProductComponent.deleteAll();
         ProductRawMaterial.deleteAll();
         Product.deleteAll();
         RawMaterial.deleteAll();
+        snapshotCache.invalidate();
     }
 
     @Test
@@ -74,6 +84,35 @@ class ProductionServiceTest {
         assertThat(result.totalValue).isEqualByComparingTo(new BigDecimal("1000.00"));
     }
 
+    @Test
+    @Transactional
+    void testAnalyzeReportsBottlenecksAndShadowPrices() {
+        RawMaterialDTO steel = rawMaterialService.create(
+            new RawMaterialDTO(null, "RM001", "Steel", new BigDecimal("100.000"))
+        );
+        RawMaterialDTO plastic = rawMaterialService.create(
+            new RawMaterialDTO(null, "RM002", "Plastic", new BigDecimal("0.000"))
+        );
+        ProductDTO table = productService.create(new ProductDTO(null, "P001", "Table", new BigDecimal("300.00")));
+        ProductDTO chair = productService.create(new ProductDTO(null, "P002", "Chair", new BigDecimal("100.00")));
+        productRawMaterialService.create(new ProductRawMaterialDTO(null, table.id, steel.id, new BigDecimal("20.000")));
+        productRawMaterialService.create(new ProductRawMaterialDTO(null, chair.id, steel.id, new BigDecimal("5.000")));
+        productRawMaterialService.create(new ProductRawMaterialDTO(null, chair.id, plastic.id, new BigDecimal("2.000")));
+
+        ProductionAnalysisDTO analysis = productionService.analyze(ProductionStrategy.GREEDY);
+
+        assertThat(analysis.version).isEqualTo(productionService.currentVersion());
+        assertThat(analysis.items).hasSize(1);
+        assertThat(analysis.items.get(0).productId).isEqualTo(table.id);
+        assertThat(analysis.items.get(0).bottleneckRawMaterialId).isEqualTo(steel.id);
+        assertThat(analysis.shadowPricesAvailable).isTrue();
+        assertThat(analysis.rawMaterials).extracting(material -> material.rawMaterialId)
+            .containsExactly(steel.id, plastic.id);
+        assertThat(analysis.rawMaterials.get(0).shadowPrice).isEqualByComparingTo("15.0000");
+        assertThat(analysis.rawMaterials.get(0).leftoverQuantity).isEqualByComparingTo("0.000");
+        assertThat(analysis.rawMaterials.get(1).shadowPrice).isEqualByComparingTo("12.5000");
+    }
+
     @Test
     @Transactional
     void testCalculateProductionPrioritizesByValue() {
@@ -179,4 +218,72 @@ class ProductionServiceTest {
         assertThat(result.items).isEmpty();
         assertThat(result.totalValue).isEqualByComparingTo(BigDecimal.ZERO);
     }
+
+    @Test
+    @Transactional
+    void testCalculateProductionQueryCountIsIndependentOfCatalogueSize() {
+        seedCatalogue(0, 5);
+        long smallCatalogueQueries = countStatements(() -> productionService.calculateProduction());
+
+        seedCatalogue(5, 200);
+        long largeCatalogueQueries = countStatements(() -> productionService.calculateProduction());
+
+        assertThat(smallCatalogueQueries).isPositive();
+        assertThat(largeCatalogueQueries).isEqualTo(smallCatalogueQueries);
+        assertThat(largeCatalogueQueries).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void testStockUpdateUpdatesGreedyPlanIncrementally() {
+        RawMaterialDTO steel = rawMaterialService.create(
+            new RawMaterialDTO(null, "RM001", "Steel", new BigDecimal("100.000")));
+        RawMaterialDTO plastic = rawMaterialService.create(
+            new RawMaterialDTO(null, "RM002", "Plastic", new BigDecimal("100.000")));
+        ProductDTO premium = productService.create(
+            new ProductDTO(null, "P001", "Premium", new BigDecimal("100.00")));
+        ProductDTO basic = productService.create(
+            new ProductDTO(null, "P002", "Basic", new BigDecimal("10.00")));
+        productRawMaterialService.create(
+            new ProductRawMaterialDTO(null, premium.id, steel.id, new BigDecimal("10.000")));
+        productRawMaterialService.create(
+            new ProductRawMaterialDTO(null, basic.id, plastic.id, new BigDecimal("10.000")));
+        productionService.calculateProduction();
+        long incrementalBefore = productionService.stats().incrementalUpdates;
+
+        rawMaterialService.update(plastic.id,
+            new RawMaterialDTO(plastic.id, "RM002", "Plastic", new BigDecimal("50.000")));
+        ProductionCalculationDTO result = productionService.calculateProduction();
+
+        assertThat(productionService.stats().incrementalUpdates).isEqualTo(incrementalBefore + 1);
+        assertThat(result.items).extracting(item -> item.productCode).containsExactly("P001", "P002");
+        assertThat(result.items.get(1).quantity).isEqualByComparingTo("5.000");
+        assertThat(result.totalValue).isEqualByComparingTo("1050.00");
+    }
+
+    private void seedCatalogue(int from, int to) {
+        for (int i = from; i < to; i++) {
+            RawMaterial first = new RawMaterial("RM-A" + i, "Material A" + i, new BigDecimal("100.000"));
+            RawMaterial second = new RawMaterial("RM-B" + i, "Material B" + i, new BigDecimal("50.000"));
+            first.persist();
+            second.persist();
+
+            Product product = new Product("P" + i, "Product " + i, new BigDecimal(10 + i));
+            product.persist();
+            new ProductRawMaterial(product, first, new BigDecimal("2.000")).persist();
+            new ProductRawMaterial(product, second, new BigDecimal("1.500")).persist();
+        }
+        Product.flush();
+        Product.getEntityManager().clear();
+    }
+
+    private long countStatements(Runnable action) {
+        Statistics statistics = Product.getEntityManager()
+            .getEntityManagerFactory()
+            .unwrap(SessionFactory.class)
+            .getStatistics();
+        snapshotCache.invalidate();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
 }
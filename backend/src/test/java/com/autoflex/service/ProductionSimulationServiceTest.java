@@ -0,0 +1,162 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.ProductDTO;
+import com.autoflex.dto.ProductRawMaterialDTO;
+import com.autoflex.dto.ProductionCalculationDTO;
+import com.autoflex.dto.RawMaterialDTO;
+import com.autoflex.dto.SimulationRequestDTO;
+import com.autoflex.dto.SimulationRequestDTO.ScenarioDTO;
+import com.autoflex.dto.SimulationResultDTO;
+import com.autoflex.entity.Product;
+import com.autoflex.entity.ProductComponent;
+import com.autoflex.entity.ProductRawMaterial;
+import com.autoflex.entity.RawMaterial;
+import com.autoflex.planner.ProductionStrategy;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@QuarkusTest
+class ProductionSimulationServiceTest {
+
+    @Inject
+    ProductionSimulationService simulationService;
+
+    @Inject
+    ProductionService productionService;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    RawMaterialService rawMaterialService;
+
+    @Inject
+    ProductRawMaterialService productRawMaterialService;
+
+    private RawMaterialDTO steel;
+    private RawMaterialDTO plastic;
+    private ProductDTO table;
+    private ProductDTO chair;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            ProductComponent.deleteAll();
+            ProductRawMaterial.deleteAll();
+            Product.deleteAll();
+            RawMaterial.deleteAll();
+        });
+        steel = rawMaterialService.create(new RawMaterialDTO(null, "RM001", "Steel", new BigDecimal("100.000")));
+        plastic = rawMaterialService.create(new RawMaterialDTO(null, "RM002", "Plastic", new BigDecimal("40.000")));
+        table = productService.create(new ProductDTO(null, "P001", "Table", new BigDecimal("300.00")));
+        chair = productService.create(new ProductDTO(null, "P002", "Chair", new BigDecimal("100.00")));
+        productRawMaterialService.create(new ProductRawMaterialDTO(null, table.id, steel.id, new BigDecimal("20.000")));
+        productRawMaterialService.create(new ProductRawMaterialDTO(null, chair.id, steel.id, new BigDecimal("5.000")));
+        productRawMaterialService.create(new ProductRawMaterialDTO(null, chair.id, plastic.id, new BigDecimal("2.000")));
+    }
+
+    @Test
+    void testStockDeltaMatchesChangingTheStock() {
+        ScenarioDTO scenario = new ScenarioDTO("more steel");
+        scenario.stockDelta.put(steel.id, new BigDecimal("50"));
+
+        SimulationResultDTO result = simulationService.simulate(
+            new SimulationRequestDTO(List.of(scenario)), ProductionStrategy.GREEDY);
+
+        assertThat(rawMaterialService.findById(steel.id).stockQuantity).isEqualByComparingTo("100.000");
+        rawMaterialService.update(steel.id, new RawMaterialDTO(steel.id, steel.code, steel.name, new BigDecimal("150.000")));
+        assertSameCalculation(result.scenarios.get(0).result, productionService.calculateProduction());
+        assertThat(result.scenarios.get(0).name).isEqualTo("more steel");
+    }
+
+    @Test
+    void testPriceChangeReordersProducts() {
+        ScenarioDTO scenario = new ScenarioDTO("expensive chairs");
+        scenario.prices.put(chair.id, new BigDecimal("1000.00"));
+
+        SimulationResultDTO result = simulationService.simulate(
+            new SimulationRequestDTO(List.of(scenario)), ProductionStrategy.GREEDY);
+
+        // Chairs first: plastic allows 20 chairs using all of the steel
+        ProductionCalculationDTO plan = result.scenarios.get(0).result;
+        assertThat(plan.items).hasSize(1);
+        assertThat(plan.items.get(0).productId).isEqualTo(chair.id);
+        assertThat(plan.items.get(0).quantity).isEqualByComparingTo("20");
+        assertThat(plan.totalValue).isEqualByComparingTo("20000.00");
+    }
+
+    @Test
+    void testManyScenariosMatchSequentialCalculations() {
+        List<ScenarioDTO> scenarios = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ScenarioDTO scenario = new ScenarioDTO("scenario " + i);
+            scenario.stock.put(steel.id, BigDecimal.valueOf(i * 1_500L, 3));
+            if (i % 3 == 0) {
+                scenario.prices.put(chair.id, BigDecimal.valueOf(i * 10L + 1, 0));
+            }
+            scenarios.add(scenario);
+        }
+
+        SimulationResultDTO result = simulationService.simulate(
+            new SimulationRequestDTO(scenarios), ProductionStrategy.GREEDY);
+
+        assertThat(result.scenarios).hasSize(200);
+        for (int i : new int[]{0, 1, 99, 150, 198}) {
+            ScenarioDTO single = scenarios.get(i);
+            ProductionCalculationDTO expected = simulationService.simulate(
+                new SimulationRequestDTO(List.of(single)), ProductionStrategy.GREEDY).scenarios.get(0).result;
+            assertThat(result.scenarios.get(i).name).isEqualTo(single.name);
+            assertSameCalculation(result.scenarios.get(i).result, expected);
+        }
+    }
+
+    @Test
+    void testRejectsMoreOptimalScenariosThanFitInTimeout() {
+        List<ScenarioDTO> scenarios = new ArrayList<>();
+        for (int i = 0; i <= simulationService.maxOptimizedScenarios(); i++) {
+            scenarios.add(new ScenarioDTO("scenario " + i));
+        }
+
+        assertThatThrownBy(() -> simulationService.simulate(
+                new SimulationRequestDTO(scenarios), ProductionStrategy.OPTIMAL))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Too many scenarios");
+        // Greedy scenarios take no optimizer budget
+        assertThat(simulationService.simulate(new SimulationRequestDTO(scenarios), ProductionStrategy.GREEDY)
+            .scenarios).hasSize(scenarios.size());
+    }
+
+    @Test
+    void testRejectsUnknownRawMaterialAndNegativeStock() {
+        ScenarioDTO unknown = new ScenarioDTO("unknown");
+        unknown.stock.put(99999L, BigDecimal.ONE);
+        assertThatThrownBy(() -> simulationService.simulate(
+                new SimulationRequestDTO(List.of(unknown)), ProductionStrategy.GREEDY))
+            .isInstanceOf(NotFoundException.class);
+
+        ScenarioDTO negative = new ScenarioDTO("negative");
+        negative.stockDelta.put(steel.id, new BigDecimal("-100.001"));
+        assertThatThrownBy(() -> simulationService.simulate(
+                new SimulationRequestDTO(List.of(negative)), ProductionStrategy.GREEDY))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertSameCalculation(ProductionCalculationDTO actual, ProductionCalculationDTO expected) {
+        assertThat(actual.totalValue).isEqualByComparingTo(expected.totalValue);
+        assertThat(actual.items).hasSameSizeAs(expected.items);
+        for (int i = 0; i < expected.items.size(); i++) {
+            assertThat(actual.items.get(i).productId).isEqualTo(expected.items.get(i).productId);
+            assertThat(actual.items.get(i).quantity).isEqualByComparingTo(expected.items.get(i).quantity);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.autoflex.service;
+
+import com.autoflex.dto.ProductDTO;
+import com.autoflex.dto.ProductRawMaterialDTO;
+import com.autoflex.dto.ProductionRunDTO;
+import com.autoflex.dto.ProductionRunDTO.RunItemDTO;
+import com.autoflex.dto.ProductionRunResultDTO;
+import com.autoflex.dto.RawMaterialDTO;
+import com.autoflex.dto.ReservationDTO;
+import com.autoflex.dto.ReservationRequestDTO;
+import com.autoflex.entity.Product;
+import com.autoflex.entity.ProductComponent;
+import com.autoflex.entity.ProductRawMaterial;
+import com.autoflex.entity.RawMaterial;
+import com.autoflex.exception.ConflictException;
+import com.autoflex.service.ReservationService.Reservation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+@QuarkusTest
+class ReservationServiceTest {
+
+    @Inject
+    ReservationService reservationService;
+
+    @Inject
+    ReservationLedger ledger;
+
+    @Inject
+    ProductionService productionService;
+
+    @Inject
+    ProductionRunService productionRunService;
+
+    @Inject
+    ReservationStore store;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    RawMaterialService rawMaterialService;
+
+    @Inject
+    ProductRawMaterialService productRawMaterialService;
+
+    @Inject
+    EntityManager em;
+
+    private RawMaterialDTO steel;
+    private RawMaterialDTO plastic;
+    private ProductDTO chair;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            ProductComponent.deleteAll();
+            ProductRawMaterial.deleteAll();
+            Product.deleteAll();
+            RawMaterial.deleteAll();
+        });
+        steel = rawMaterialService.create(new RawMaterialDTO(null, "RM001", "Steel", new BigDecimal("100.000")));
+        plastic = rawMaterialService.create(new RawMaterialDTO(null, "RM002", "Plastic", new BigDecimal("10.000")));
+        chair = productService.create(new ProductDTO(null, "P001", "Chair", new BigDecimal("50.00")));
+        productRawMaterialService.create(new ProductRawMaterialDTO(null, chair.id, steel.id, new BigDecimal("3.000")));
+        productRawMaterialService.create(new ProductRawMaterialDTO(null, chair.id, plastic.id, new BigDecimal("0.333")));
+    }
+
+    @Test
+    void testReservationHoldsStockFromThePlanner() {
+        // Plastic allows 10.000 / 0.333 = 30.030 chairs
+        assertThat(plannedChairs()).isEqualByComparingTo("30.030");
+
+        ReservationDTO reservation = reservationService.reserve(reserve("10", null));
+
+        assertThat(reservation.holds).extracting(hold -> hold.rawMaterialId).containsExactly(steel.id, plastic.id);
+        assertThat(reservation.holds.get(1).quantity).isEqualByComparingTo("3.330");
+        // 6.670 plastic left for the plan; the stock itself is untouched
+        assertThat(plannedChairs()).isEqualByComparingTo("20.030");
+        assertThat(rawMaterialService.findById(plastic.id).stockQuantity).isEqualByComparingTo("10.000");
+
+        reservationService.release(reservation.id);
+
+        assertThat(plannedChairs()).isEqualByComparingTo("30.030");
+        assertThatThrownBy(() -> reservationService.findById(reservation.id))
+            .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void testReservationBeyondUnheldStockHoldsNothing() {
+        reservationService.reserve(reserve("20", null));
+        long heldSteel = ledger.held(steel.id);
+
+        // 20 + 11 chairs need 10.323 plastic
+        assertThatThrownBy(() -> reservationService.reserve(reserve("11", null)))
+            .isInstanceOf(ConflictException.class)
+            .hasMessageContaining(String.valueOf(plastic.id));
+        assertThat(ledger.held(steel.id)).isEqualTo(heldSteel);
+    }
+
+    @Test
+    void testConfirmTakesTheHeldStock() {
+        ReservationDTO reservation = reservationService.reserve(reserve("2.5", null));
+
+        ProductionRunResultDTO result = reservationService.confirm(reservation.id);
+
+        assertThat(result.consumption.get(1).consumed).isEqualByComparingTo("0.833");
+        assertThat(rawMaterialService.findById(plastic.id).stockQuantity).isEqualByComparingTo("9.167");
+        assertThat(ledger.held(plastic.id)).isZero();
+        assertThatThrownBy(() -> reservationService.confirm(reservation.id))
+            .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void testRunCannotTakeHeldStock() {
+        ReservationDTO reservation = reservationService.reserve(reserve("20", null));
+
+        // 6.660 of the 10.000 plastic is held; 11 chairs need 3.663
+        assertThatThrownBy(() -> productionRunService.commit(run("11")))
+            .isInstanceOf(ConflictException.class)
+            .hasMessageContaining(String.valueOf(plastic.id));
+        assertThat(rawMaterialService.findById(plastic.id).stockQuantity).isEqualByComparingTo("10.000");
+
+        ProductionRunResultDTO run = productionRunService.commit(run("10"));
+        assertThat(run.consumption.get(1).remainingStock).isEqualByComparingTo("6.670");
+
+        // The reservation can still take what it holds
+        ProductionRunResultDTO confirmed = reservationService.confirm(reservation.id);
+        assertThat(confirmed.consumption.get(1).remainingStock).isEqualByComparingTo("0.010");
+    }
+
+    @Test
+    void testReservationExpiresAfterItsTtl() throws InterruptedException {
+        ReservationDTO reservation = reservationService.reserve(reserve("10", 1L));
+        assertThat(ledger.held(plastic.id)).isEqualTo(3_330);
+
+        await(() -> ledger.held(plastic.id) == 0);
+        assertThatThrownBy(() -> reservationService.findById(reservation.id))
+            .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void testReservationIsWrittenBehindAndDeletedOnRelease() throws InterruptedException {
+        ReservationDTO reservation = reservationService.reserve(reserve("1", null));
+        await(() -> storedReservations(reservation.id) == 1);
+
+        reservationService.release(reservation.id);
+        await(() -> storedReservations(reservation.id) == 0);
+    }
+
+    @Test
+    void testWritesAreHeldBackWhileConfirming() throws InterruptedException {
+        String confirmedId = "confirmed-" + System.nanoTime();
+        String failedId = "failed-" + System.nanoTime();
+        store.inserted(new Reservation(confirmedId, Map.of(chair.id, BigDecimal.ONE),
+            new TreeMap<>(Map.of(plastic.id, 333L)), Instant.now().plusSeconds(60)));
+        store.inserted(new Reservation(failedId, Map.of(chair.id, BigDecimal.ONE),
+            new TreeMap<>(Map.of(plastic.id, 333L)), Instant.now().plusSeconds(60)));
+        store.confirming(confirmedId);
+        store.confirming(failedId);
+        try {
+            // Several flush intervals pass without writing either insert
+            Thread.sleep(500);
+            assertThat(storedReservations(confirmedId)).isZero();
+            assertThat(storedReservations(failedId)).isZero();
+
+            store.confirmed(confirmedId);
+            store.confirmFailed(failedId);
+            await(() -> storedReservations(failedId) == 1);
+            assertThat(storedReservations(confirmedId)).isZero();
+        } finally {
+            store.deleted(failedId);
+            await(() -> storedReservations(failedId) == 0);
+        }
+    }
+
+    @Test
+    void testWriteThatKeepsFailingIsDropped() throws InterruptedException {
+        String id = "duplicate-" + System.nanoTime();
+        QuarkusTransaction.requiringNew().run(() -> em
+            .createNativeQuery("INSERT INTO reservations VALUES (?1, '{}', '{}', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)")
+            .setParameter(1, id)
+            .executeUpdate());
+        double dropped = droppedWrites();
+        try {
+            // Its insert violates the primary key on every attempt
+            store.inserted(new Reservation(id, Map.of(chair.id, BigDecimal.ONE), new TreeMap<>(Map.of(plastic.id, 333L)),
+                Instant.now().plusSeconds(60)));
+            ReservationDTO reservation = reservationService.reserve(reserve("1", null));
+
+            await(() -> storedReservations(reservation.id) == 1);
+            assertThat(droppedWrites()).isEqualTo(dropped + 1);
+        } finally {
+            QuarkusTransaction.requiringNew().run(() -> em
+                .createNativeQuery("DELETE FROM reservations WHERE id = ?1")
+                .setParameter(1, id)
+                .executeUpdate());
+        }
+    }
+
+    @Test
+    void testReservationWithTooLongTtl() {
+        assertThatThrownBy(() -> reservationService.reserve(reserve("1", 365L * 24 * 3600)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testConcurrentReservationsNeverHoldMoreThanStock() throws Exception {
+        // Plastic allows 30 whole chairs; 16 threads try to reserve 4 each
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Callable<Integer>> attempts = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                attempts.add(() -> {
+                    int reserved = 0;
+                    for (int j = 0; j < 4; j++) {
+                        try {
+                            reservationService.reserve(reserve("1", null));
+                            reserved++;
+                        } catch (ConflictException e) {
+                            // Out of plastic
+                        }
+                    }
+                    return reserved;
+                });
+            }
+            int reserved = 0;
+            for (Future<Integer> outcome : executor.invokeAll(attempts)) {
+                reserved += outcome.get();
+            }
+
+            // Racing reservations may fail where they would just have fit, but never oversell
+            assertThat(reserved).isBetween(1, 30);
+            assertThat(ledger.held(plastic.id)).isEqualTo(reserved * 333L);
+            assertThat(ledger.held(steel.id)).isEqualTo(reserved * 3_000L);
+            while (reserved < 31) {
+                try {
+                    reservationService.reserve(reserve("1", null));
+                    reserved++;
+                } catch (ConflictException e) {
+                    break;
+                }
+            }
+            assertThat(reserved).isEqualTo(30);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private BigDecimal plannedChairs() {
+        return productionService.calculateProduction().items.stream()
+            .filter(item -> item.productId.equals(chair.id))
+            .map(item -> item.quantity)
+            .findFirst()
+            .orElse(BigDecimal.ZERO);
+    }
+
+    private long storedReservations(String id) {
+        return QuarkusTransaction.requiringNew().call(() -> ((Number) em
+            .createNativeQuery("SELECT COUNT(*) FROM reservations WHERE id = ?1")
+            .setParameter(1, id)
+            .getSingleResult()).longValue());
+    }
+
+    private double droppedWrites() {
+        return registry.get("autoflex.reservations.store.dropped").counter().count();
+    }
+
+    private ReservationRequestDTO reserve(String quantity, Long ttlSeconds) {
+        return new ReservationRequestDTO(List.of(new RunItemDTO(chair.id, new BigDecimal(quantity))), ttlSeconds);
+    }
+
+    private ProductionRunDTO run(String quantity) {
+        return new ProductionRunDTO(List.of(new RunItemDTO(chair.id, new BigDecimal(quantity))));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -23,7 +23,8 @@ import {
   Refresh as RefreshIcon,
   TrendingUp as TrendingUpIcon,
 } from '@mui/icons-material';
-import { calculateProduction } from '../store/slices/productionSlice';
+import { calculateProduction, planReceived, planUpdated } from '../store/slices/productionSlice';
+import { productionApi } from '../services/api';
 
 function ProductionCalculation() {
   const dispatch = useDispatch();
@@ -33,6 +34,17 @@ function ProductionCalculation() {
     dispatch(calculateProduction());
   }, [dispatch]);
 
+  // Live updates instead of polling; after a reconnect the server sends the whole plan again
+  useEffect(() => {
+    if (typeof EventSource === 'undefined') {
+      return undefined;
+    }
+    const source = productionApi.stream();
+    source.addEventListener('plan', (event) => dispatch(planReceived(JSON.parse(event.data))));
+    source.addEventListener('update', (event) => dispatch(planUpdated(JSON.parse(event.data))));
+    return () => source.close();
+  }, [dispatch]);
+
   const handleCalculate = () => {
     dispatch(calculateProduction());
   };
@@ -72,6 +72,8 @@ export const productRawMaterialsApi = {
 // Production API
 export const productionApi = {
   calculate: () => api.get('/api/production/calculate'),
+  // Server-sent events: 'plan' with the whole plan, then 'update' with the changed items
+  stream: () => new EventSource(`${API_BASE_URL}/api/production/stream`),
 };
 
 export default api;
@@ -16,7 +16,35 @@ const productionSlice = createSlice({
     loading: false,
     error: null,
   },
-  reducers: {},
+  reducers: {
+    planReceived: (state, action) => {
+      state.calculation = {
+        items: action.payload.items,
+        totalValue: action.payload.totalValue,
+      };
+      state.error = null;
+    },
+    planUpdated: (state, action) => {
+      if (!state.calculation) {
+        return;
+      }
+      const { items, removedProductIds, totalValue } = action.payload;
+      const changed = new Map(items.map((item) => [item.productId, item]));
+      const removed = new Set(removedProductIds);
+      const merged = state.calculation.items
+        .filter((item) => !removed.has(item.productId) && !changed.has(item.productId))
+        .concat(items);
+      // Same order as the server: highest unit value first, then by name
+      merged.sort((a, b) => {
+        const byValue = parseFloat(b.unitValue) - parseFloat(a.unitValue);
+        if (byValue !== 0) return byValue;
+        if (a.productName === b.productName) return 0;
+        return a.productName < b.productName ? -1 : 1;
+      });
+      state.calculation.items = merged;
+      state.calculation.totalValue = totalValue;
+    },
+  },
   extraReducers: (builder) => {
     builder
       .addCase(calculateProduction.pending, (state) => {
@@ -34,4 +62,6 @@ const productionSlice = createSlice({
   },
 });
 
+export const { planReceived, planUpdated } = productionSlice.actions;
+
 export default productionSlice.reducer;